@@ -0,0 +1,59 @@
+package graph.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * Entry point of benchmarks.jar. Takes the usual JMH arguments (such as a benchmark regex, -p order=100 or -f 2),
+ * and writes the results as JSON, by default to jmh-result-[commit].json so runs on two commits can be compared
+ * @author CreeperStone72
+ */
+public final class BenchmarkRunner {
+    private BenchmarkRunner() { }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        if(commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON))
+                .result(commandLine.getResult().orElse("jmh-result-" + revision() + ".json"))
+                .build();
+
+        new Runner(options).run();
+    }
+
+    /**
+     * Finds the current commit
+     * @return the short hash of HEAD, or "local" outside of a git checkout
+     */
+    private static String revision() {
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+
+            try(BufferedReader reader = new BufferedReader(new InputStreamReader(git.getInputStream()))) {
+                String line = reader.readLine();
+                return (git.waitFor() == 0 && line != null) ? line.trim() : "local";
+            }
+        } catch(IOException e) {
+            return "local";
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "local";
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package graph.benchmark;
+
+import graph.simple.Matrix;
+import graph.standard.Graph;
+import graph.standard.Link;
+import graph.standard.Node;
+import graph.standard.Path;
+import graph.standard.weighted.WeightedGraph;
+import graph.standard.weighted.WeightedLink;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Seeded inputs shared by the benchmarks, so every run and every commit measures the same graphs
+ * @author CreeperStone72
+ */
+final class Fixtures {
+    static final long SEED = 42L;
+
+    private Fixtures() { }
+
+    /**
+     * Draws the links of a directed graph where every node can be reached from node 0.
+     * The links start with a random spanning tree rooted at 0, then random links are added until the density is
+     * reached. No link goes back to node 0, as the search methods of Graph don't expect their root to be visited twice
+     * @param order is the number of nodes
+     * @param density is the fraction of the order * (order - 1) possible links that exist
+     * @return pairs of node indexes
+     */
+    static int[][] links(int order, double density) {
+        Random random = new Random(SEED);
+        long target = Math.max(order - 1, Math.round(density * order * (order - 1.0)));
+        Set<Long> drawn = new HashSet<>();
+        List<int[]> links = new ArrayList<>();
+
+        for(int y = 1 ; y < order ; y++) {
+            int x = random.nextInt(y);
+            drawn.add((long) x * order + y);
+            links.add(new int[] { x, y });
+        }
+
+        while(links.size() < target && order > 1) {
+            int x = random.nextInt(order), y = 1 + random.nextInt(order - 1);
+            if(x != y && drawn.add((long) x * order + y)) links.add(new int[] { x, y });
+        }
+
+        return links.toArray(new int[0][]);
+    }
+
+    static Graph<Integer, Link> graph(int order, int[][] links) {
+        Graph<Integer, Link> graph = new Graph<>();
+        List<Link> batch = new ArrayList<>();
+
+        graph.insertAll(nodes(order));
+        for(int[] link : links) { batch.add(new Link(graph.getNodes().get(link[0]), graph.getNodes().get(link[1]))); }
+
+        graph.linkAll(batch);
+        return graph;
+    }
+
+    static WeightedGraph<Integer> weightedGraph(int order, int[][] links) {
+        Random random = new Random(SEED);
+        WeightedGraph<Integer> graph = new WeightedGraph<>();
+        List<WeightedLink> batch = new ArrayList<>();
+
+        graph.insertAll(nodes(order));
+        for(int[] link : links) { batch.add(new WeightedLink(graph.getNodes().get(link[0]), graph.getNodes().get(link[1]), 1.0 + random.nextInt(100))); }
+
+        graph.linkAll(batch);
+        return graph;
+    }
+
+    /**
+     * Walks randomly from node 0, which visits some nodes several times on small graphs
+     * @param graph is the walked graph
+     * @param length is the maximal number of nodes in the path
+     * @return a valid path
+     */
+    static <T> Path<T> walk(Graph<T, ?> graph, int length) {
+        Random random = new Random(SEED);
+        Path<T> path = new Path<>();
+        Node<T> current = graph.getNodes().get(0);
+
+        path.insert(current);
+        while(path.size() < length) {
+            List<Node<T>> successors = graph.getSuccessors(current.getData());
+            if(successors.isEmpty()) break;
+
+            current = successors.get(random.nextInt(successors.size()));
+            path.insert(current);
+        }
+
+        return path;
+    }
+
+    /**
+     * Fills a square matrix with random 0 and 1
+     * @param size is the number of rows and columns
+     * @param symmetrical denotes whether the matrix should equal its transpose, so isSymmetrical() reads every value
+     * @return the matrix
+     */
+    static Matrix matrix(int size, boolean symmetrical) {
+        Random random = new Random(SEED);
+        Matrix matrix = new Matrix(size);
+
+        for(int row = 0 ; row < size ; row++) {
+            for(int col = symmetrical ? row : 0 ; col < size ; col++) {
+                int value = random.nextInt(2);
+                matrix.setValue(row, col, value);
+                if(symmetrical) matrix.setValue(col, row, value);
+            }
+        }
+
+        return matrix;
+    }
+
+    static List<Integer> nodes(int order) {
+        List<Integer> nodes = new ArrayList<>(order);
+
+        for(int i = 0 ; i < order ; i++) { nodes.add(i); }
+
+        return nodes;
+    }
+}
@@ -0,0 +1,130 @@
+package graph.benchmark;
+
+import graph.exception.NodeNotFoundException;
+import graph.standard.Graph;
+import graph.standard.Link;
+import graph.standard.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of Graph : node and link insertion, lookups, neighborhoods and searches
+ * @author CreeperStone72
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Param({ "100", "400" })
+    public int order;
+
+    @Param({ "0.01", "0.1" })
+    public double density;
+
+    private List<Integer> nodes;
+    private int[][] links;
+    private Graph<Integer, Link> graph;
+
+    /**
+     * Cycles through the nodes so lookups don't always hit the same one
+     */
+    private int cursor;
+
+    /**
+     * The searches print every visited node, which would only measure the console
+     */
+    private PrintStream out;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Setup(Level.Trial)
+    public void setUp() {
+        nodes = Fixtures.nodes(order);
+        links = Fixtures.links(order, density);
+        graph = Fixtures.graph(order, links);
+
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() { System.setOut(out); }
+
+    private Integer next() {
+        cursor = (cursor + 1) % order;
+        return nodes.get(cursor);
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Benchmarks //////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Inserts every node one by one into an empty graph
+     */
+    @Benchmark
+    public Graph<Integer, Link> insert() {
+        Graph<Integer, Link> fresh = new Graph<>();
+
+        for(Integer node : nodes) { fresh.insert(node); }
+
+        return fresh;
+    }
+
+    /**
+     * Links every pair of the fixture one by one, the nodes being already there
+     */
+    @Benchmark
+    public Graph<Integer, Link> link() throws NodeNotFoundException {
+        Graph<Integer, Link> fresh = new Graph<>();
+
+        fresh.insertAll(nodes);
+        for(int[] link : links) { fresh.link(nodes.get(link[0]), nodes.get(link[1])); }
+
+        return fresh;
+    }
+
+    @Benchmark
+    public Node<Integer> findNode() throws NodeNotFoundException { return graph.findNode(next()); }
+
+    @Benchmark
+    public List<Node<Integer>> getSuccessors() { return graph.getSuccessors(next()); }
+
+    @Benchmark
+    public boolean isComplete() { return graph.isComplete(); }
+
+    @Benchmark
+    public void iterativeBFS(Blackhole blackhole) throws NodeNotFoundException {
+        graph.iterativeBFS(0);
+        blackhole.consume(graph);
+    }
+
+    @Benchmark
+    public void iterativeDFS(Blackhole blackhole) throws NodeNotFoundException {
+        graph.iterativeDFS(0);
+        blackhole.consume(graph);
+    }
+}
@@ -0,0 +1,66 @@
+package graph.benchmark;
+
+import graph.simple.Matrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of Matrix : transposition, symmetry checks and element-wise kernels
+ * @author CreeperStone72
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixBenchmark {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Param({ "128", "1024" })
+    public int size;
+
+    private Matrix matrix;
+
+    /**
+     * Equal to its transpose, so isSymmetrical() reads every value instead of stopping early
+     */
+    private Matrix symmetrical;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Setup(Level.Trial)
+    public void setUp() {
+        matrix = Fixtures.matrix(size, false);
+        symmetrical = Fixtures.matrix(size, true);
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Benchmarks //////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    @Benchmark
+    public Matrix transpose() { return Matrix.transpose(matrix); }
+
+    @Benchmark
+    public boolean isSymmetrical() { return symmetrical.isSymmetrical(); }
+
+    @Benchmark
+    public Matrix add() { return matrix.add(symmetrical); }
+
+    @Benchmark
+    public long[] rowSums() { return matrix.rowSums(); }
+}
@@ -0,0 +1,72 @@
+package graph.benchmark;
+
+import graph.exception.LinkNotFoundException;
+import graph.exception.NodeNotFoundException;
+import graph.standard.Node;
+import graph.standard.Path;
+import graph.standard.weighted.Cost;
+import graph.standard.weighted.WeightedGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of WeightedGraph and Path : shortest paths, path costs and loop removal
+ * @author CreeperStone72
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeightedGraphBenchmark {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Param({ "100", "400" })
+    public int order;
+
+    @Param({ "0.01", "0.1" })
+    public double density;
+
+    private WeightedGraph<Integer> graph;
+
+    /**
+     * A random walk from node 0, usually going through some nodes several times
+     */
+    private Path<Integer> walk;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = Fixtures.weightedGraph(order, Fixtures.links(order, density));
+        walk = Fixtures.walk(graph, 64);
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Benchmarks //////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    @Benchmark
+    public Map<Node<Integer>, Cost> dijkstra() throws NodeNotFoundException { return graph.dijkstra(0); }
+
+    @Benchmark
+    public double cost() throws LinkNotFoundException, NodeNotFoundException { return graph.cost(walk); }
+
+    @Benchmark
+    public Path<Integer> getElementary() { return Path.getElementary(walk); }
+}
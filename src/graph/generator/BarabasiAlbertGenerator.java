@@ -0,0 +1,86 @@
+package graph.generator;
+
+import graph.standard.Seeds;
+
+import java.util.SplittableRandom;
+
+/**
+ * Barabasi-Albert preferential attachment : nodes arrive one at a time and each new node links to a fixed number of
+ * earlier nodes, chosen with a probability proportional to their degree, which gives a power-law degree distribution.
+ * Choosing a node proportionally to its degree is choosing a random end of a random earlier link. The random choice
+ * of each link only depends on the seed and the link's number, so the end of any earlier link can be found again
+ * by following the chain of choices, without storing any link. Blocks are then independent and run in parallel.
+ * A new node only picks among the links of the nodes before it, so there are no self-loops, but the same earlier
+ * node may be chosen twice by a new node, which gives duplicate links
+ * @author CreeperStone72
+ */
+public class BarabasiAlbertGenerator extends Generator {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Number of links leaving each new node
+     */
+    private final int links;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor
+     * @param order is the number of nodes
+     * @param links is the number of links leaving each new node
+     * @param seed is the seed of every random draw
+     */
+    public BarabasiAlbertGenerator(int order, int links, long seed) {
+        super(order, seed);
+        if(links <= 0) throw new IllegalArgumentException("Each node must bring at least one link.");
+
+        this.links = links;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public int getLinks() { return links; }
+
+    @Override
+    public long expectedSize() { return Math.max(0L, order() - 1L) * links; }
+
+    @Override
+    protected int blocks() { return (int) ((expectedSize() + BLOCK_SIZE - 1) / BLOCK_SIZE); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Override
+    protected void generate(int block, SplittableRandom random, EdgeSink sink) {
+        long first = (long) block * BLOCK_SIZE, last = Math.min(expectedSize(), first + BLOCK_SIZE);
+
+        for(long link = first ; link < last ; link++) { emit(sink, random, source(link), target(link)); }
+    }
+
+    /**
+     * Finds the starting node of a link. Node 0 starts none, node i starts links (i - 1) * links to i * links - 1
+     */
+    private int source(long link) { return (int) (link / links + 1); }
+
+    /**
+     * Finds the ending node of a link by picking a random end among the links of the earlier nodes.
+     * A starting end is known right away, an ending end means picking again for that earlier link
+     */
+    private int target(long link) {
+        while(true) {
+            // Only the links of earlier nodes are picked from, so a node never links to itself
+            long before = (long) (source(link) - 1) * links;
+
+            // Node 1 can only link to node 0
+            if(before == 0) return 0;
+
+            long end = (Seeds.mix(getSeed() ^ Seeds.mix(link)) >>> 1) % (2 * before);
+
+            if((end & 1) == 0) return source(end >>> 1);
+            link = end >>> 1;
+        }
+    }
+}
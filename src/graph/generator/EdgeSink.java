@@ -0,0 +1,16 @@
+package graph.generator;
+
+/**
+ * Receives the links drawn by a Generator, one at a time
+ * @author CreeperStone72
+ */
+@FunctionalInterface
+public interface EdgeSink {
+    /**
+     * Receives a link
+     * @param x is the index of the starting node
+     * @param y is the index of the ending node
+     * @param weight is the weight of the link, 1.0 if the generator isn't weighted
+     */
+    void accept(int x, int y, double weight);
+}
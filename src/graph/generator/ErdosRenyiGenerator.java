@@ -0,0 +1,96 @@
+package graph.generator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Erdos-Renyi G(n, p) random graph : each of the n * (n - 1) possible directed links exists with probability p,
+ * independently of the others, without self-loops nor duplicates.
+ * Rather than flipping a coin for every pair, each block walks its rows and jumps straight to the next link with
+ * a geometric draw, so drawing m links takes O(m) time whatever the density
+ * @author CreeperStone72
+ */
+public class ErdosRenyiGenerator extends Generator {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Probability of each link
+     */
+    private final double probability;
+
+    /**
+     * Number of rows (starting nodes) drawn by a block
+     */
+    private final int rowsPerBlock;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor
+     * @param order is the number of nodes
+     * @param probability is the probability of each link
+     * @param seed is the seed of every random draw
+     */
+    public ErdosRenyiGenerator(int order, double probability, long seed) {
+        super(order, seed);
+        if(!(probability >= 0.0 && probability <= 1.0)) throw new IllegalArgumentException("Probability must be between 0 and 1.");
+
+        this.probability = probability;
+        rowsPerBlock = (int) Math.max(1, Math.min(Math.max(order, 1), BLOCK_SIZE / Math.max(1.0, probability * order)));
+    }
+
+    /**
+     * Builds a generator expecting a given number of links
+     * @param order is the number of nodes
+     * @param size is the expected number of links
+     * @param seed is the seed of every random draw
+     * @return the generator
+     */
+    public static ErdosRenyiGenerator withSize(int order, long size, long seed) {
+        double pairs = (double) order * (order - 1);
+        return new ErdosRenyiGenerator(order, (pairs == 0) ? 0.0 : Math.min(1.0, size / pairs), seed);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public double getProbability() { return probability; }
+
+    @Override
+    public long expectedSize() { return Math.round(probability * order() * (order() - 1.0)); }
+
+    @Override
+    protected int blocks() { return (order() + rowsPerBlock - 1) / rowsPerBlock; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Override
+    protected void generate(int block, SplittableRandom random, EdgeSink sink) {
+        if(probability == 0.0) return;
+
+        long n = order(), first = (long) block * rowsPerBlock, last = Math.min(n, first + rowsPerBlock);
+        long end = last * (n - 1);
+
+        // Pairs are numbered row by row, each row skipping its diagonal
+        if(probability == 1.0) {
+            for(long pair = first * (n - 1) ; pair < end ; pair++) { emit(sink, random, pair, n); }
+            return;
+        }
+
+        double logQ = Math.log1p(-probability);
+
+        for(long pair = first * (n - 1) - 1 ; ; ) {
+            pair += 1 + (long) (Math.log(1.0 - random.nextDouble()) / logQ);
+            if(pair >= end) return;
+
+            emit(sink, random, pair, n);
+        }
+    }
+
+    private void emit(EdgeSink sink, SplittableRandom random, long pair, long n) {
+        int x = (int) (pair / (n - 1)), y = (int) (pair % (n - 1));
+        emit(sink, random, x, (y >= x) ? y + 1 : y);
+    }
+}
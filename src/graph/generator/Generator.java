@@ -0,0 +1,386 @@
+package graph.generator;
+
+import graph.standard.Graph;
+import graph.standard.Link;
+import graph.standard.Node;
+import graph.standard.adjacency.OffHeapAdjacency;
+import graph.standard.storage.EdgeListImporter;
+import graph.standard.weighted.WeightedGraph;
+import graph.standard.weighted.WeightedLink;
+import graph.standard.Seeds;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Draws the links of a synthetic graph whose nodes are the indexes 0 to order() - 1.
+ * Links are drawn by independent blocks, each with its own random generator seeded from the generator's seed and
+ * the block's index, so the same seed always gives the same links in the same order, however many threads run.
+ * Blocks are drawn in parallel waves and handed over in order to a graph, an off-heap adjacency or an edge list file,
+ * so only one wave of links is ever held in memory. Plain Graph links are objects, so graphs of hundreds of millions
+ * of links should go to a file or an OffHeapAdjacency instead
+ * @author CreeperStone72
+ */
+public abstract class Generator {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * About how many links a single block draws
+     */
+    protected static final int BLOCK_SIZE = 1 << 20;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Number of nodes
+     */
+    private final int order;
+
+    /**
+     * Seed of every random draw
+     */
+    private final long seed;
+
+    /**
+     * Bounds of the uniform weights, or NaN if links aren't weighted
+     */
+    private double minWeight, maxWeight;
+
+    /**
+     * Number of blocks drawn at the same time
+     */
+    private int parallelism;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor
+     * @param order is the number of nodes
+     * @param seed is the seed of every random draw
+     */
+    protected Generator(int order, long seed) {
+        if(order < 0) throw new IllegalArgumentException("Order must be positive.");
+
+        this.order = order;
+        this.seed = seed;
+        minWeight = maxWeight = Double.NaN;
+        setParallelism(Runtime.getRuntime().availableProcessors());
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Gives every link a weight drawn uniformly between two bounds
+     * @param minWeight is the smallest weight (included)
+     * @param maxWeight is the largest weight (excluded)
+     * @return the generator
+     */
+    public Generator setWeights(double minWeight, double maxWeight) {
+        if(!(minWeight < maxWeight)) throw new IllegalArgumentException("The smallest weight must be below the largest.");
+
+        this.minWeight = minWeight;
+        this.maxWeight = maxWeight;
+        return this;
+    }
+
+    public Generator setParallelism(int parallelism) {
+        if(parallelism <= 0) throw new IllegalArgumentException("Parallelism must be positive.");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public int order() { return order; }
+
+    public long getSeed() { return seed; }
+
+    public int getParallelism() { return parallelism; }
+
+    public boolean isWeighted() { return !Double.isNaN(minWeight); }
+
+    /**
+     * Estimates the number of links
+     * @return the expected number of links, exact for generators that don't draw it
+     */
+    public abstract long expectedSize();
+
+    /**
+     * Counts the blocks
+     * @return the number of independent blocks the links are drawn in
+     */
+    protected abstract int blocks();
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Draws the links of a block
+     * @param block is the index of the block
+     * @param random is the block's own random generator
+     * @param sink receives the links
+     */
+    protected abstract void generate(int block, SplittableRandom random, EdgeSink sink);
+
+    /**
+     * Draws a weight, 1.0 if links aren't weighted
+     * @param random is the block's random generator
+     * @return the weight
+     */
+    protected final double weight(SplittableRandom random) { return isWeighted() ? random.nextDouble(minWeight, maxWeight) : 1.0; }
+
+    /**
+     * Hands a link over to a sink, with a weight if links are weighted
+     */
+    protected final void emit(EdgeSink sink, SplittableRandom random, int x, int y) { sink.accept(x, y, weight(random)); }
+
+    private SplittableRandom random(int block) { return Seeds.random(seed, block); }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Output methods //////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Draws every link on the calling thread
+     * @param sink receives the links, in block order
+     */
+    public void forEach(EdgeSink sink) {
+        for(int block = 0 ; block < blocks() ; block++) { generate(block, random(block), sink); }
+    }
+
+    /**
+     * Writes the links as an edge list that EdgeListImporter can read, replacing the file if it exists.
+     * Each line holds the two node indexes, then the weight if links are weighted, separated by tabs
+     * @param file is the edge list
+     * @return the number of links written
+     * @throws IOException if the file can't be written
+     */
+    public long writeTo(Path file) throws IOException {
+        long[] written = new long[1];
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            IOException[] failure = new IOException[1];
+
+            run(block -> {
+                Text text = new Text(isWeighted());
+                generate(block, random(block), text);
+                return text;
+            }, text -> {
+                ByteBuffer buffer = ByteBuffer.wrap(text.bytes, 0, text.size);
+                written[0] += text.count;
+
+                try { while(buffer.hasRemaining() && failure[0] == null) channel.write(buffer); }
+                catch(IOException e) { failure[0] = e; }
+            });
+
+            if(failure[0] != null) throw failure[0];
+        }
+
+        return written[0];
+    }
+
+    /**
+     * Copies the links outside of the heap
+     * @return the adjacency, node i being index i
+     */
+    public OffHeapAdjacency toAdjacency() {
+        OffHeapAdjacency.Builder builder = new OffHeapAdjacency.Builder(order, isWeighted());
+
+        run(this::chunk, chunk -> {
+            for(int i = 0 ; i < chunk.size ; i++) { builder.add(chunk.xs[i], chunk.ys[i], chunk.weight(i)); }
+        });
+
+        return builder.build();
+    }
+
+    /**
+     * Inserts the nodes and links into a graph, such as a KnowledgeGraph with
+     * into(graph, i -> new Entity(i), (x, y, weight, relation) -> new RelationLink&lt;&gt;(x, y, "knows", null)).
+     * Links are built in parallel, then inserted by batches through Graph.linkAll
+     * @param graph receives the nodes and links
+     * @param nodes turns a node index into the data carried by the node
+     * @param factory builds the links, the relation name it receives is always null
+     * @param <T> is the type carried by each node
+     * @param <L> is the type of Link used
+     * @return the number of links inserted
+     */
+    @SuppressWarnings("unchecked")
+    public <T, L extends Link> long into(Graph<T, L> graph, IntFunction<? extends T> nodes, EdgeListImporter.LinkFactory<? extends L> factory) {
+        List<T> data = new ArrayList<>(order);
+        Map<T, Node<T>> existing = new HashMap<>();
+        Node<T>[] byIndex = (Node<T>[]) new Node<?>[order];
+        long[] inserted = new long[1];
+
+        for(int i = 0 ; i < order ; i++) { data.add(nodes.apply(i)); }
+        graph.insertAll(data);
+
+        for(Node<T> node : graph.getNodes()) { existing.put(node.getData(), node); }
+        for(int i = 0 ; i < order ; i++) { byIndex[i] = existing.get(data.get(i)); }
+
+        run(block -> {
+            Chunk chunk = chunk(block);
+            List<L> links = new ArrayList<>(chunk.size);
+
+            for(int i = 0 ; i < chunk.size ; i++) { links.add(factory.create(byIndex[chunk.xs[i]], byIndex[chunk.ys[i]], chunk.weight(i), null)); }
+            return links;
+        }, links -> {
+            graph.linkAll(links);
+            inserted[0] += links.size();
+        });
+
+        return inserted[0];
+    }
+
+    /**
+     * Builds a directed graph whose nodes carry their index
+     * @return the graph
+     */
+    public Graph<Integer, Link> toGraph() {
+        Graph<Integer, Link> graph = new Graph<>();
+
+        into(graph, Integer::valueOf, (x, y, weight, relation) -> new Link(x, y));
+        return graph;
+    }
+
+    /**
+     * Builds a directed weighted graph whose nodes carry their index
+     * @return the graph
+     */
+    public WeightedGraph<Integer> toWeightedGraph() {
+        WeightedGraph<Integer> graph = new WeightedGraph<>();
+
+        into(graph, Integer::valueOf, (x, y, weight, relation) -> new WeightedLink(x, y, weight));
+        return graph;
+    }
+
+    private Chunk chunk(int block) {
+        Chunk chunk = new Chunk(isWeighted());
+
+        generate(block, random(block), chunk);
+        return chunk;
+    }
+
+    /**
+     * Draws the blocks by waves of parallelism blocks, and hands each wave over in block order
+     * @param produce draws a block on a worker thread
+     * @param consume receives each block on the calling thread
+     * @param <C> is the type of a drawn block
+     */
+    private <C> void run(IntFunction<C> produce, Consumer<C> consume) {
+        int blocks = blocks();
+
+        for(int wave = 0 ; wave < blocks ; wave += parallelism) {
+            List<C> drawn = IntStream.range(wave, Math.min(blocks, wave + parallelism)).parallel()
+                    .mapToObj(produce)
+                    .collect(Collectors.toList());
+
+            drawn.forEach(consume);
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Inner types /////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * The links of a block, as primitive arrays
+     */
+    private static final class Chunk implements EdgeSink {
+        private int[] xs, ys;
+        private double[] weights;
+        private int size;
+
+        Chunk(boolean weighted) {
+            xs = new int[1024];
+            ys = new int[1024];
+            weights = weighted ? new double[1024] : null;
+        }
+
+        @Override
+        public void accept(int x, int y, double weight) {
+            if(size == xs.length) {
+                xs = Arrays.copyOf(xs, size * 2);
+                ys = Arrays.copyOf(ys, size * 2);
+                if(weights != null) weights = Arrays.copyOf(weights, size * 2);
+            }
+
+            xs[size] = x;
+            ys[size] = y;
+            if(weights != null) weights[size] = weight;
+            size++;
+        }
+
+        double weight(int i) { return (weights == null) ? 1.0 : weights[i]; }
+    }
+
+    /**
+     * The links of a block, as edge list lines
+     */
+    private static final class Text implements EdgeSink {
+        private final boolean weighted;
+        private byte[] bytes;
+        private int size;
+        private long count;
+
+        Text(boolean weighted) {
+            this.weighted = weighted;
+            bytes = new byte[1 << 16];
+        }
+
+        @Override
+        public void accept(int x, int y, double weight) {
+            ensure(32);
+            writeInt(x);
+            bytes[size++] = '\t';
+            writeInt(y);
+
+            if(weighted) {
+                byte[] digits = Double.toString(weight).getBytes(StandardCharsets.US_ASCII);
+                ensure(digits.length + 2);
+                bytes[size++] = '\t';
+                System.arraycopy(digits, 0, bytes, size, digits.length);
+                size += digits.length;
+            }
+
+            bytes[size++] = '\n';
+            count++;
+        }
+
+        /**
+         * Writes a node index, which is never negative
+         */
+        private void writeInt(int value) {
+            int start = size;
+
+            do {
+                bytes[size++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while(value != 0);
+
+            for(int i = start, j = size - 1 ; i < j ; i++, j--) {
+                byte b = bytes[i];
+                bytes[i] = bytes[j];
+                bytes[j] = b;
+            }
+        }
+
+        private void ensure(int extra) { if(size + extra > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra)); }
+    }
+}
@@ -0,0 +1,100 @@
+package graph.generator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Road-like grid : node (row, col) has index row * cols + col and is linked to its right and lower neighbors,
+ * in both directions, like two-way streets. Each street exists with a given probability, so dead ends and detours
+ * appear as in real road networks, and both directions of a street share the same weight
+ * @author CreeperStone72
+ */
+public class GridGenerator extends Generator {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final int rows, cols;
+
+    /**
+     * Probability that a street exists
+     */
+    private final double streetProbability;
+
+    /**
+     * Number of rows drawn by a block
+     */
+    private final int rowsPerBlock;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Constructor for a full grid
+     * @param rows is the number of rows
+     * @param cols is the number of columns
+     * @param seed is the seed of every random draw
+     */
+    public GridGenerator(int rows, int cols, long seed) { this(rows, cols, 1.0, seed); }
+
+    /**
+     * Main constructor
+     * @param rows is the number of rows
+     * @param cols is the number of columns
+     * @param streetProbability is the probability that each street exists
+     * @param seed is the seed of every random draw
+     */
+    public GridGenerator(int rows, int cols, double streetProbability, long seed) {
+        super(checkOrder(rows, cols), seed);
+        if(!(streetProbability >= 0.0 && streetProbability <= 1.0)) throw new IllegalArgumentException("Probability must be between 0 and 1.");
+
+        this.rows = rows;
+        this.cols = cols;
+        this.streetProbability = streetProbability;
+        rowsPerBlock = Math.max(1, BLOCK_SIZE / Math.max(1, 4 * cols));
+    }
+
+    private static int checkOrder(int rows, int cols) {
+        if(rows < 0 || cols < 0 || (long) rows * cols > Integer.MAX_VALUE) throw new IllegalArgumentException("Grid must have between 0 and 2^31 - 1 nodes.");
+        return rows * cols;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public int getRows() { return rows; }
+
+    public int getCols() { return cols; }
+
+    @Override
+    public long expectedSize() {
+        long streets = (long) rows * Math.max(0, cols - 1) + (long) Math.max(0, rows - 1) * cols;
+        return Math.round(2 * streets * streetProbability);
+    }
+
+    @Override
+    protected int blocks() { return (rows + rowsPerBlock - 1) / rowsPerBlock; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Override
+    protected void generate(int block, SplittableRandom random, EdgeSink sink) {
+        int first = block * rowsPerBlock, last = (int) Math.min(rows, (long) first + rowsPerBlock);
+
+        for(int row = first ; row < last ; row++) {
+            for(int col = 0 ; col < cols ; col++) {
+                int node = row * cols + col;
+
+                if(col + 1 < cols) street(sink, random, node, node + 1);
+                if(row + 1 < rows) street(sink, random, node, node + cols);
+            }
+        }
+    }
+
+    private void street(EdgeSink sink, SplittableRandom random, int x, int y) {
+        if(streetProbability < 1.0 && random.nextDouble() >= streetProbability) return;
+
+        double weight = weight(random);
+        sink.accept(x, y, weight);
+        sink.accept(y, x, weight);
+    }
+}
@@ -0,0 +1,134 @@
+package graph.generator;
+
+import graph.standard.Seeds;
+
+import java.util.SplittableRandom;
+
+/**
+ * Recursive matrix (R-MAT) generator, the stochastic Kronecker graph used by Graph500.
+ * Each link picks one quadrant of the adjacency matrix with probabilities a, b, c and d, then a quadrant within it,
+ * and so on scale times, which gives skewed degrees and community-like structure. Node indexes are then scrambled
+ * with a seeded bijection so high degree nodes aren't all packed near 0. Duplicates and self-loops are kept
+ * @author CreeperStone72
+ */
+public class RMatGenerator extends Generator {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Base two logarithm of the order
+     */
+    private final int scale;
+
+    /**
+     * Number of links
+     */
+    private final long size;
+
+    /**
+     * Probabilities of the top-left, top-right and bottom-left quadrants, the bottom-right one taking the rest
+     */
+    private final double a, b, c;
+
+    /**
+     * Odd multipliers of the scrambling bijection
+     */
+    private final long scramble1, scramble2;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Constructor with the Graph500 probabilities (0.57, 0.19, 0.19, 0.05)
+     * @param scale is the base two logarithm of the order
+     * @param edgeFactor is the average number of links leaving a node
+     * @param seed is the seed of every random draw
+     */
+    public RMatGenerator(int scale, int edgeFactor, long seed) { this(scale, edgeFactor, 0.57, 0.19, 0.19, seed); }
+
+    /**
+     * Main constructor
+     * @param scale is the base two logarithm of the order
+     * @param edgeFactor is the average number of links leaving a node
+     * @param a is the probability of the top-left quadrant
+     * @param b is the probability of the top-right quadrant
+     * @param c is the probability of the bottom-left quadrant
+     * @param seed is the seed of every random draw
+     */
+    public RMatGenerator(int scale, int edgeFactor, double a, double b, double c, long seed) {
+        super(checkScale(scale), seed);
+        if(edgeFactor < 0) throw new IllegalArgumentException("Edge factor must be positive.");
+        if(a < 0 || b < 0 || c < 0 || a + b + c > 1.0) throw new IllegalArgumentException("Quadrant probabilities must be positive and sum to at most 1.");
+
+        this.scale = scale;
+        this.size = (long) edgeFactor << scale;
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        scramble1 = Seeds.mix(seed) | 1;
+        scramble2 = Seeds.mix(~seed) | 1;
+    }
+
+    private static int checkScale(int scale) {
+        if(scale < 0 || scale > 30) throw new IllegalArgumentException("Scale must be between 0 and 30.");
+        return 1 << scale;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public int getScale() { return scale; }
+
+    @Override
+    public long expectedSize() { return size; }
+
+    @Override
+    protected int blocks() { return (int) ((size + BLOCK_SIZE - 1) / BLOCK_SIZE); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Override
+    protected void generate(int block, SplittableRandom random, EdgeSink sink) {
+        long count = Math.min(BLOCK_SIZE, size - (long) block * BLOCK_SIZE);
+
+        // Quadrants are picked from 16 random bits each, 4 levels per random long
+        int ta = threshold(a), tab = threshold(a + b), tabc = threshold(a + b + c);
+
+        for(long i = 0 ; i < count ; i++) {
+            int x = 0, y = 0;
+            long bits = 0;
+
+            for(int bit = 0 ; bit < scale ; bit++) {
+                if((bit & 3) == 0) bits = random.nextLong();
+
+                int p = (int) (bits & 0xFFFF);
+                bits >>>= 16;
+
+                // Branch-free, each comparison is 1 when p reaches the threshold
+                int bottom = (tab - 1 - p) >>> 31, right = ((ta - 1 - p) >>> 31 ^ bottom) | (tabc - 1 - p) >>> 31;
+                x = (x << 1) | bottom;
+                y = (y << 1) | right;
+            }
+
+            emit(sink, random, scramble(x), scramble(y));
+        }
+    }
+
+    private static int threshold(double probability) { return (int) Math.round(probability * 0x10000); }
+
+    /**
+     * Seeded bijection of [0, 2^scale). Odd multiplications and right xor-shifts are both invertible modulo 2^scale
+     */
+    private int scramble(int node) {
+        if(scale == 0) return node;
+
+        long mask = (1L << scale) - 1, v = node;
+
+        v = (v * scramble1) & mask;
+        v ^= v >>> ((scale + 1) / 2);
+        v = (v * scramble2) & mask;
+        v ^= v >>> ((scale + 2) / 3);
+        return (int) v;
+    }
+}
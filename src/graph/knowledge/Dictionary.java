@@ -0,0 +1,77 @@
+package graph.knowledge;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns values into dense int ids, starting from 0. Ids are never reused
+ * @param <K> is the type of the interned values
+ * @author CreeperStone72
+ */
+public final class Dictionary<K> {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * The id of each value
+     */
+    private final Map<K, Integer> ids;
+
+    /**
+     * The value of each id
+     */
+    private final List<K> values;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public Dictionary() {
+        ids = new HashMap<>();
+        values = new ArrayList<>();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Finds the id of a value without interning it
+     * @param value is the value
+     * @return its id, or -1 if the value was never interned
+     */
+    public int find(K value) { return ids.getOrDefault(value, -1); }
+
+    /**
+     * Finds the value behind an id
+     * @param id is the id
+     * @return the interned value
+     */
+    public K decode(int id) { return values.get(id); }
+
+    /**
+     * Counts the interned values
+     * @return the number of ids given so far
+     */
+    public int size() { return values.size(); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Finds the id of a value, interning it if needed
+     * @param value is the value
+     * @return its id
+     */
+    public int encode(K value) {
+        Integer id = ids.get(value);
+
+        if(id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+
+        return id;
+    }
+}
@@ -1,35 +1,541 @@
 package graph.knowledge;
 
+import graph.exception.LinkNotFoundException;
+import graph.exception.NodeNotFoundException;
+import graph.metrics.GraphMetrics;
 import graph.standard.Graph;
+import graph.standard.Node;
+import graph.standard.reachability.ReachabilityIndex;
 import graph.standard.storage.Synchronizable;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.RandomAccess;
+
 /**
- * A graph containing knowledge and elements linked by relations
+ * A graph containing knowledge and elements linked by relations.
+ * Nodes and relation names are interned into dense int ids, and links are stored as packed (subject, relation, object)
+ * int triples, sorted in subject-predicate-object, predicate-object-subject and object-subject-predicate order, plus
+ * the data each link carries. Relation patterns are answered from those indexes without scanning every link.
+ * No RelationLink is kept : getLinks() is a view building them back from their triples as they are read, in
+ * subject-predicate-object order, so links read twice are equal but not the same object. Links added to or removed
+ * from that view go straight to the indexes
  * @param <T> is the data carried by the links
  * @author CreeperStone72
  */
 public class KnowledgeGraph<T> extends Graph<Synchronizable, RelationLink<T>> {
     ///////////////////////////////////////////////////////////////////////////////////////////////
-    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Relation name matching any relation in match() and unlink(), null standing for unnamed relations as it does
+     * everywhere else. It's told apart by identity, so a relation actually named "*" isn't a wildcard
+     */
+    @SuppressWarnings("StringOperationCanBeSimplified")
+    public static final String ANY = new String("*");
+
+    /**
+     * Positions of the subject, relation and object among the keys of each index
+     */
+    private static final int[] SPO = { 0, 1, 2 }, POS = { 2, 0, 1 }, OSP = { 1, 2, 0 };
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
-    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
-    public KnowledgeGraph() { super(); }
+    /**
+     * Ids of the nodes
+     */
+    private final Dictionary<Synchronizable> nodeIds;
+
+    /**
+     * Ids of the relation names
+     */
+    private final Dictionary<String> relationIds;
+
+    /**
+     * Nodes by id, links being built back with them
+     */
+    private final List<Node<Synchronizable>> nodesById;
+
+    /**
+     * Triples by subject, then relation, then object
+     */
+    private final TripleIndex spo;
+
+    /**
+     * Triples by relation, then object, then subject
+     */
+    private final TripleIndex pos;
+
+    /**
+     * Triples by object, then subject, then relation
+     */
+    private final TripleIndex osp;
 
-    public KnowledgeGraph(boolean isOriented) { super(isOriented); }
+    /**
+     * Data carried by the links, by link id. Ids of removed links are reused
+     */
+    private Object[] data;
+
+    /**
+     * Number of link ids given so far
+     */
+    private int nextId;
+
+    /**
+     * Ids of removed links
+     */
+    private int[] freeIds;
+
+    /**
+     * Number of ids in freeIds
+     */
+    private int freeCount;
+
+    /**
+     * Reachability over every relation, built on demand
+     */
+    private ReachabilityIndex<Synchronizable> reachability;
+
+    /**
+     * Reachability over a single relation, by relation name, built on demand
+     */
+    private final Map<String, ReachabilityIndex<Synchronizable>> reachabilityByRelation;
+
+    /**
+     * The links as seen by getLinks()
+     */
+    private final Links links;
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
-    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
+    public KnowledgeGraph() { this(true); }
+
+    public KnowledgeGraph(boolean isOriented) {
+        super(isOriented);
+        nodeIds = new Dictionary<>();
+        relationIds = new Dictionary<>();
+        spo = new TripleIndex();
+        pos = new TripleIndex();
+        osp = new TripleIndex();
+        nodesById = new ArrayList<>();
+        data = new Object[16];
+        freeIds = new int[16];
+        reachabilityByRelation = new HashMap<>();
+        links = new Links();
+    }
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Getters ////////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
+    public Dictionary<Synchronizable> getNodeDictionary() { return nodeIds; }
+
+    public Dictionary<String> getRelationDictionary() { return relationIds; }
+
+    /**
+     * Gives the links, built back from their triples as they are read
+     * @return a view of the links in subject-predicate-object order, adding to or removing from it updates the graph
+     */
+    @Override
+    public List<RelationLink<T>> getLinks() { return links; }
+
+    /**
+     * Gives every indexed link as an encoded triple, decoded through getNodeDictionary() and getRelationDictionary()
+     * @return subject, relation and object ids, 3 ints per link in subject-predicate-object order
+     */
+    public int[] getTriples() {
+        int[] entries = spo.entries();
+        int[] triples = new int[spo.size() * 3];
+
+        for(int i = 0 ; i < spo.size() ; i++) { System.arraycopy(entries, i * TripleIndex.WIDTH, triples, i * 3, 3); }
+
+        return triples;
+    }
+
+    /**
+     * Gives the reachability between nodes following any relation.
+     * The index is built on first use, then kept up to date by insert() and link(). Bulk link insertions and
+     * removals drop it, and it gets built again on the next call
+     * @return the reachability index
+     */
+    public ReachabilityIndex<Synchronizable> getReachability() {
+        if(reachability == null) reachability = ReachabilityIndex.of(this);
+        return reachability;
+    }
+
+    /**
+     * Gives the reachability between nodes following a single relation, such as "subClassOf".
+     * The index is built on first use, then kept up to date by insert() and link(). Bulk link insertions and
+     * removals drop it, and it gets built again on the next call
+     * @param relationName is the relation's name, null for unnamed relations
+     * @return the reachability index
+     */
+    public ReachabilityIndex<Synchronizable> getReachability(String relationName) {
+        return reachabilityByRelation.computeIfAbsent(relationName, name -> ReachabilityIndex.of(this, link -> Objects.equals(link.getRelationName(), name)));
+    }
+
+    /**
+     * Gives the indexes, compacted, in subject-predicate-object, predicate-object-subject and
+     * object-subject-predicate order
+     */
+    TripleIndex[] getIndexes() {
+        spo.compact();
+        pos.compact();
+        osp.compact();
+        return new TripleIndex[] { spo, pos, osp };
+    }
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Methods ////////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
+    //// Node CRUD methods ///////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Inserts a node into the graph, and into the reachability indexes already built
+     * @param data is the data carried by the new node
+     */
+    @Override
+    public boolean insert(Synchronizable data) {
+        if(!super.insert(data)) return false;
+
+        indexReachability(Collections.singleton(data));
+        return true;
+    }
+
+    @Override
+    public int insertAll(Collection<? extends Synchronizable> data) {
+        int inserted = super.insertAll(data);
+
+        if(inserted > 0) indexReachability(data);
+        return inserted;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Link CRUD methods ///////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Links two nodes with an unnamed relation
+     * @param dataX is the subject
+     * @param dataY is the object
+     * @return true if the insertion was successful
+     * @throws NodeNotFoundException if either node isn't found
+     */
+    @Override
+    public boolean link(Synchronizable dataX, Synchronizable dataY) throws NodeNotFoundException { return link(dataX, dataY, null, null); }
+
+    /**
+     * Links two nodes with a named relation
+     * @param dataX is the subject
+     * @param dataY is the object
+     * @param relationName is the relation's name, null for an unnamed relation
+     * @param data is the data carried by the link
+     * @return true if the insertion was successful
+     * @throws NodeNotFoundException if either node isn't found
+     */
+    public boolean link(Synchronizable dataX, Synchronizable dataY, String relationName, T data) throws NodeNotFoundException {
+        RelationLink<T> newLink = new RelationLink<>(findNode(dataX), findNode(dataY), relationName, data);
+
+        store(newLink);
+        touch(newLink);
+        GraphMetrics.mutation(1);
+
+        if(reachability != null) reachability.link(dataX, dataY);
+        ReachabilityIndex<Synchronizable> byRelation = reachabilityByRelation.get(newLink.getRelationName());
+        if(byRelation != null) byRelation.link(dataX, dataY);
+        return true;
+    }
+
+    @Override
+    public boolean linkAll(Collection<? extends RelationLink<T>> batch) {
+        boolean changed = super.linkAll(batch);
+
+        dropReachability();
+        return changed;
+    }
+
+    /**
+     * Deletes a named relation between two nodes
+     * @param dataX is the subject
+     * @param dataY is the object
+     * @param relationName is the relation's name, null for unnamed relations or ANY for any relation
+     * @return true if it was successfully removed
+     * @throws LinkNotFoundException if no such relation links the nodes
+     */
+    public boolean unlink(Synchronizable dataX, Synchronizable dataY, String relationName) throws LinkNotFoundException {
+        Iterator<RelationLink<T>> matches = match(dataX, relationName, dataY);
+
+        if(!matches.hasNext()) throw new LinkNotFoundException();
+        return unlink(matches.next());
+    }
+
+    @Override
+    protected boolean unlink(RelationLink<T> link) {
+        if(!super.unlink(link)) return false;
+
+        dropReachability();
+        return true;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Index methods ///////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Finds the links matching a pattern. Each position is either bound to a value or left unbound, with null for
+     * nodes and ANY for the relation. The index used depends on the bound positions, and results come lazily in that
+     * index's order
+     * @param subject is the starting node, or null for any
+     * @param relationName is the relation's name, null for unnamed relations or ANY for any relation
+     * @param object is the ending node, or null for any
+     * @return the matching links
+     */
+    public Iterator<RelationLink<T>> match(Synchronizable subject, String relationName, Synchronizable object) {
+        boolean bs = subject != null, bp = relationName != ANY, bo = object != null;
+        int s = bs ? nodeIds.find(subject) : -1, p = bp ? relationIds.find(relationName) : -1, o = bo ? nodeIds.find(object) : -1;
+
+        if((bs && s < 0) || (bp && p < 0) || (bo && o < 0)) return Collections.emptyIterator();
+
+        TripleIndex.Cursor ids;
+        int[] keys;
+
+        if(bs && bp) {
+            ids = spo.scan(bo ? 3 : 2, s, p, o);
+            keys = SPO;
+        } else if(bp) {
+            ids = pos.scan(bo ? 2 : 1, p, o, s);
+            keys = POS;
+        } else if(bo) {
+            ids = osp.scan(bs ? 2 : 1, o, s, p);
+            keys = OSP;
+        } else {
+            ids = spo.scan(bs ? 1 : 0, s, p, o);
+            keys = SPO;
+        }
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() { return ids.hasNext(); }
+
+            @Override
+            public RelationLink<T> next() {
+                int id = ids.nextInt();
+                return decode(ids.key(keys[0]), ids.key(keys[1]), ids.key(keys[2]), id);
+            }
+        };
+    }
+
+    /**
+     * Starts a pattern query over the graph
+     * @return an empty query
+     */
+    public Query<T> query() { return new Query<>(this); }
+
+    /**
+     * Indexes new nodes in the reachability indexes already built, so they can be asked about before being linked
+     */
+    private void indexReachability(Collection<? extends Synchronizable> data) {
+        for(Synchronizable elem : data) {
+            if(reachability != null) reachability.insert(elem);
+            for(ReachabilityIndex<Synchronizable> byRelation : reachabilityByRelation.values()) { byRelation.insert(elem); }
+        }
+    }
+
+    /**
+     * Forgets the reachability indexes, which can't follow removals or large batches incrementally
+     */
+    private void dropReachability() {
+        reachability = null;
+        reachabilityByRelation.clear();
+    }
+
+    /**
+     * Stores a link as its triple and data
+     */
+    private void store(RelationLink<T> link) {
+        int s = encodeNode(link.getX()), p = relationIds.encode(link.getRelationName()), o = encodeNode(link.getY()), id = allocate(link.getData());
+
+        spo.add(s, p, o, id);
+        pos.add(p, o, s, id);
+        osp.add(o, s, p, id);
+    }
+
+    /**
+     * Stores a batch of links with a single sort per index
+     */
+    private void storeAll(Collection<? extends RelationLink<T>> batch) {
+        int[] bySpo = new int[batch.size() * TripleIndex.WIDTH];
+        int[] byPos = new int[bySpo.length];
+        int[] byOsp = new int[bySpo.length];
+        int i = 0;
+
+        for(RelationLink<T> link : batch) {
+            int s = encodeNode(link.getX()), p = relationIds.encode(link.getRelationName()), o = encodeNode(link.getY()), id = allocate(link.getData());
+
+            pack(bySpo, i, s, p, o, id);
+            pack(byPos, i, p, o, s, id);
+            pack(byOsp, i, o, s, p, id);
+            i++;
+        }
+
+        spo.addAll(bySpo, i);
+        pos.addAll(byPos, i);
+        osp.addAll(byOsp, i);
+    }
+
+    /**
+     * Deletes a stored link, found by its triple and data
+     * @return true if it was stored
+     */
+    private boolean delete(RelationLink<?> link) {
+        int s = nodeIds.find(subject(link)), p = relationIds.find(link.getRelationName()), o = nodeIds.find(object(link));
+        if(s < 0 || p < 0 || o < 0) return false;
+
+        // Links don't carry their id, which is the one of an entry with the same triple and equal data
+        PrimitiveIterator.OfInt ids = spo.scan(3, s, p, o);
+
+        while(ids.hasNext()) {
+            int id = ids.nextInt();
+            if(!Objects.equals(data[id], link.getData())) continue;
+
+            spo.remove(s, p, o, id);
+            pos.remove(p, o, s, id);
+            osp.remove(o, s, p, id);
+            release(id);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Builds a link back from its triple and id
+     */
+    @SuppressWarnings("unchecked")
+    private RelationLink<T> decode(int s, int p, int o, int id) { return new RelationLink<>(nodesById.get(s), nodesById.get(o), relationIds.decode(p), (T) data[id]); }
+
+    /**
+     * Interns a node, which links are then built back with
+     * @return the node's id
+     */
+    @SuppressWarnings("unchecked")
+    private int encodeNode(Node<?> node) {
+        Node<Synchronizable> typed = (Node<Synchronizable>) node;
+        int id = nodeIds.encode(typed.getData());
+
+        if(id == nodesById.size()) nodesById.add(typed);
+        else nodesById.set(id, typed);
+        return id;
+    }
+
+    /**
+     * Gives an id to the data of a link
+     */
+    private int allocate(Object value) {
+        int id = (freeCount > 0) ? freeIds[--freeCount] : nextId++;
+
+        if(id == data.length) data = Arrays.copyOf(data, id * 2);
+        data[id] = value;
+        return id;
+    }
+
+    /**
+     * Forgets every link, the dictionaries keeping their ids
+     */
+    private void clearLinks() {
+        spo.clear();
+        pos.clear();
+        osp.clear();
+        data = new Object[16];
+        nextId = freeCount = 0;
+    }
+
+    /**
+     * Takes the id back from a removed link
+     */
+    private void release(int id) {
+        data[id] = null;
+
+        if(freeCount == freeIds.length) freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        freeIds[freeCount++] = id;
+    }
+
+    private static void pack(int[] entries, int i, int a, int b, int c, int id) {
+        entries[i * TripleIndex.WIDTH] = a;
+        entries[i * TripleIndex.WIDTH + 1] = b;
+        entries[i * TripleIndex.WIDTH + 2] = c;
+        entries[i * TripleIndex.WIDTH + 3] = id;
+    }
+
+    private static Synchronizable subject(RelationLink<?> link) { return (Synchronizable) link.getX().getData(); }
+
+    private static Synchronizable object(RelationLink<?> link) { return (Synchronizable) link.getY().getData(); }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Inner types /////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * The links as a list, each built back from its triple when read. Positions follow subject-predicate-object
+     * order, so an insertion or a removal may move the links after it
+     */
+    private final class Links extends AbstractList<RelationLink<T>> implements RandomAccess {
+        @Override
+        public int size() { return spo.size(); }
+
+        @Override
+        public RelationLink<T> get(int index) {
+            Objects.checkIndex(index, size());
+
+            int[] entries = spo.entries();
+            int base = index * TripleIndex.WIDTH;
+            return decode(entries[base], entries[base + 1], entries[base + 2], entries[base + 3]);
+        }
+
+        @Override
+        public boolean add(RelationLink<T> link) {
+            store(link);
+            modCount++;
+            return true;
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends RelationLink<T>> batch) {
+            if(batch.isEmpty()) return false;
+
+            storeAll(batch);
+            modCount++;
+            return true;
+        }
+
+        @Override
+        public RelationLink<T> remove(int index) {
+            RelationLink<T> link = get(index);
+
+            delete(link);
+            modCount++;
+            return link;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if(!(o instanceof RelationLink) || !delete((RelationLink<?>) o)) return false;
+
+            modCount++;
+            return true;
+        }
 
+        @Override
+        public void clear() {
+            clearLinks();
+            modCount++;
+        }
+    }
 }
@@ -0,0 +1,715 @@
+package graph.knowledge;
+
+import graph.standard.storage.Synchronizable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A basic graph pattern query over a knowledge graph, such as
+ * <pre>graph.query().where("?a", "knows", "?b").where("?b", "worksFor", "?c").where("?c", "locatedIn", paris)</pre>
+ * Subjects and objects are either variables (Strings starting with '?') or nodes, relations are either variables
+ * or relation names.
+ * Variables are ordered by the cardinality of the patterns they appear in, then bound one at a time with a
+ * leapfrog triejoin over the sorted triple indexes. Each variable intersects the candidates of every pattern it
+ * appears in, so cyclic patterns such as triangles run in worst-case optimal time instead of blowing up.
+ * Solutions are produced lazily, and the graph must not be modified while they are read
+ * @param <T> is the data carried by the links
+ * @author CreeperStone72
+ */
+public class Query<T> implements Iterable<Solution> {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Key order of the subject-predicate-object, predicate-object-subject and object-subject-predicate indexes,
+     * with 0 for the subject, 1 for the relation and 2 for the object
+     */
+    private static final int[][] ORDERS = { { 0, 1, 2 }, { 1, 2, 0 }, { 2, 0, 1 } };
+
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 1024;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * The queried graph
+     */
+    private final KnowledgeGraph<T> graph;
+
+    /**
+     * Subject, relation and object of each pattern
+     */
+    private final List<Object[]> patterns;
+
+    /**
+     * Maximal number of solutions
+     */
+    private long limit;
+
+    /**
+     * Number of candidates for the first variable above which parallelStream() splits the work
+     */
+    private int parallelThreshold;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor
+     * @param graph is the queried graph
+     */
+    Query(KnowledgeGraph<T> graph) {
+        this.graph = graph;
+        patterns = new ArrayList<>();
+        limit = Long.MAX_VALUE;
+        parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Adds a pattern to the query
+     * @param subject is a variable or a node
+     * @param relation is a variable or a relation name, null standing for unnamed relations
+     * @param object is a variable or a node
+     * @return the query
+     */
+    public Query<T> where(Object subject, String relation, Object object) {
+        for(Object term : new Object[] { subject, object }) {
+            if(!isVariable(term) && !(term instanceof Synchronizable)) throw new IllegalArgumentException("Subjects and objects are variables or nodes, got " + term + ".");
+        }
+
+        patterns.add(new Object[] { subject, relation, object });
+        return this;
+    }
+
+    /**
+     * Stops the query after a number of solutions. The search itself stops, not only the output
+     * @param limit is the maximal number of solutions
+     * @return the query
+     */
+    public Query<T> limit(long limit) {
+        if(limit < 0) throw new IllegalArgumentException("Limit must be positive.");
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Sets how many candidates the first variable needs before parallelStream() splits the work
+     * @param parallelThreshold is the number of candidates
+     * @return the query
+     */
+    public Query<T> setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+        return this;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public long getLimit() { return limit; }
+
+    public int getParallelThreshold() { return parallelThreshold; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Runs the query
+     * @return the solutions, lazily
+     */
+    @Override
+    public Iterator<Solution> iterator() {
+        Plan plan = new Plan();
+        if(plan.empty || limit == 0) return Collections.emptyIterator();
+
+        Enumerator enumerator = new Enumerator(plan, -1);
+
+        return new Iterator<>() {
+            private long remaining = limit;
+
+            @Override
+            public boolean hasNext() { return remaining > 0 && enumerator.hasNext(); }
+
+            @Override
+            public Solution next() {
+                if(!hasNext()) throw new NoSuchElementException();
+
+                remaining--;
+                return enumerator.next();
+            }
+        };
+    }
+
+    /**
+     * Runs the query
+     * @return the solutions, lazily and in order
+     */
+    public Stream<Solution> stream() { return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL), false); }
+
+    /**
+     * Runs the query in parallel. The candidates of the first variable are split among threads when there are
+     * enough of them, otherwise this is the same as stream(). Solutions come in no particular order
+     * @return the solutions
+     */
+    public Stream<Solution> parallelStream() {
+        Plan plan = new Plan();
+        if(plan.empty || plan.names.length == 0 || limit == 0) return stream();
+
+        int[] candidates = new Enumerator(plan, -1).firstLevel();
+        if(candidates.length < parallelThreshold) return stream();
+
+        return Arrays.stream(candidates).parallel().boxed()
+                .flatMap(first -> StreamSupport.stream(Spliterators.spliteratorUnknownSize(new Enumerator(plan, first), Spliterator.NONNULL), false))
+                .unordered()
+                .limit(limit);
+    }
+
+    private static boolean isVariable(Object term) { return term instanceof String && ((String) term).startsWith("?") && ((String) term).length() > 1; }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Planning ////////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * The encoded patterns, the order in which variables are bound and the sorted source of each pattern
+     */
+    private final class Plan {
+        /**
+         * If true, some constant doesn't exist or some pattern has no match, so there is no solution
+         */
+        private boolean empty;
+
+        /**
+         * Variable names, in binding order
+         */
+        private String[] names;
+
+        /**
+         * If true, the variable at the same index is a relation variable
+         */
+        private boolean[] relations;
+
+        /**
+         * Sorted tuples of each pattern that has variables
+         */
+        private final List<Source> sources;
+
+        /**
+         * For each variable, the index of the sources it appears in
+         */
+        private int[][] sourcesByLevel;
+
+        Plan() {
+            sources = new ArrayList<>();
+
+            TripleIndex[] indexes = graph.getIndexes();
+            Map<String, Integer> variables = new LinkedHashMap<>();
+            List<Boolean> kinds = new ArrayList<>();
+            List<int[]> atoms = new ArrayList<>();
+
+            // Step 1 : Encoding constants into ids and variables into negative numbers
+            for(Object[] pattern : patterns) {
+                int[] atom = new int[3];
+
+                for(int position = 0 ; position < 3 ; position++) {
+                    Object term = pattern[position];
+
+                    if(isVariable(term)) {
+                        String name = ((String) term).substring(1);
+                        int variable = variables.computeIfAbsent(name, n -> variables.size());
+
+                        if(variable == kinds.size()) kinds.add(position == 1);
+                        else if(kinds.get(variable) != (position == 1)) throw new IllegalArgumentException("Variable ?" + name + " is used both as a node and a relation.");
+
+                        atom[position] = -variable - 1;
+                    } else {
+                        atom[position] = (position == 1) ? graph.getRelationDictionary().find((String) term) : graph.getNodeDictionary().find((Synchronizable) term);
+
+                        if(atom[position] < 0) {
+                            empty = true;
+                            return;
+                        }
+                    }
+                }
+
+                atoms.add(atom);
+            }
+
+            // Step 2 : Estimating the cardinality of each pattern from its constants
+            long[] counts = new long[atoms.size()];
+            long[] best = new long[variables.size()];
+            Arrays.fill(best, Long.MAX_VALUE);
+
+            for(int a = 0 ; a < atoms.size() ; a++) {
+                int[] atom = atoms.get(a);
+                int index = constantIndex(atom);
+                int bound = constantCount(atom);
+                int[] order = ORDERS[index];
+
+                counts[a] = indexes[index].count(bound, atom[order[0]], atom[order[1]], atom[order[2]]);
+
+                if(counts[a] == 0) {
+                    empty = true;
+                    return;
+                }
+
+                for(int term : atom) { if(term < 0) best[-term - 1] = Math.min(best[-term - 1], counts[a]); }
+            }
+
+            // Step 3 : Ordering variables, smallest first, preferring those sharing a pattern with bound ones
+            int[] level = orderVariables(atoms, best);
+            names = new String[variables.size()];
+            relations = new boolean[variables.size()];
+
+            for(Map.Entry<String, Integer> entry : variables.entrySet()) {
+                names[level[entry.getValue()]] = entry.getKey();
+                relations[level[entry.getValue()]] = kinds.get(entry.getValue());
+            }
+
+            // Step 4 : Building a sorted source for each pattern, in the binding order of its variables
+            List<List<Integer>> byLevel = new ArrayList<>();
+            for(int l = 0 ; l < names.length ; l++) { byLevel.add(new ArrayList<>()); }
+
+            for(int[] atom : atoms) {
+                for(int p = 0 ; p < 3 ; p++) { if(atom[p] < 0) atom[p] = -level[-atom[p] - 1] - 1; }
+
+                Source source = source(atom, indexes);
+                if(source == null) continue;
+
+                for(int variable : source.levels) { byLevel.get(variable).add(sources.size()); }
+                sources.add(source);
+            }
+
+            sourcesByLevel = new int[names.length][];
+            for(int l = 0 ; l < names.length ; l++) { sourcesByLevel[l] = byLevel.get(l).stream().mapToInt(Integer::intValue).toArray(); }
+        }
+
+        /**
+         * Greedy variable ordering
+         * @return the binding level of each variable
+         */
+        private int[] orderVariables(List<int[]> atoms, long[] best) {
+            int n = best.length;
+            int[] level = new int[n];
+            boolean[] placed = new boolean[n];
+
+            for(int step = 0 ; step < n ; step++) {
+                int chosen = -1;
+                boolean chosenConnected = false;
+
+                for(int v = 0 ; v < n ; v++) {
+                    if(placed[v]) continue;
+
+                    boolean connected = false;
+                    for(int[] atom : atoms) {
+                        if(!contains(atom, v)) continue;
+                        for(int term : atom) { if(term < 0 && placed[-term - 1]) connected = true; }
+                    }
+
+                    if(chosen < 0 || (connected && !chosenConnected) || (connected == chosenConnected && best[v] < best[chosen])) {
+                        chosen = v;
+                        chosenConnected = connected;
+                    }
+                }
+
+                placed[chosen] = true;
+                level[chosen] = step;
+            }
+
+            return level;
+        }
+
+        /**
+         * Builds the source of a pattern, straight from an index when one has the right key order,
+         * otherwise by sorting the matching entries
+         * @return the source, or null if the pattern has no variable
+         */
+        private Source source(int[] atom, TripleIndex[] indexes) {
+            int bound = constantCount(atom);
+            if(bound == 3) return null;
+
+            int[] vars = Arrays.stream(atom).filter(t -> t < 0).map(t -> -t - 1).sorted().distinct().toArray();
+
+            // Straight from an index : constants first, then variables by level
+            for(int i = 0 ; i < ORDERS.length && vars.length == 3 - bound ; i++) {
+                int[] order = ORDERS[i];
+                boolean fits = true;
+
+                for(int k = 0 ; k < 3 ; k++) {
+                    int term = atom[order[k]];
+                    if(k < bound) fits &= term >= 0;
+                    else fits &= term < 0 && -term - 1 == vars[k - bound];
+                }
+
+                if(fits) {
+                    int[] entries = indexes[i].entries();
+                    int size = indexes[i].size();
+                    int lo = TripleIndex.lower(entries, size, bound, atom[order[0]], atom[order[1]], atom[order[2]]);
+                    int hi = TripleIndex.upper(entries, size, bound, atom[order[0]], atom[order[1]], atom[order[2]]);
+                    int[] columns = new int[vars.length];
+
+                    for(int k = 0 ; k < vars.length ; k++) { columns[k] = bound + k; }
+
+                    return new Source(entries, lo, hi, columns, vars);
+                }
+            }
+
+            // Otherwise, sorting the entries matching the constants
+            int index = constantIndex(atom);
+            int[] order = ORDERS[index];
+            int[] entries = indexes[index].entries();
+            int size = indexes[index].size();
+            int lo = TripleIndex.lower(entries, size, bound, atom[order[0]], atom[order[1]], atom[order[2]]);
+            int hi = TripleIndex.upper(entries, size, bound, atom[order[0]], atom[order[1]], atom[order[2]]);
+            int[] tuples = new int[(hi - lo) * TripleIndex.WIDTH];
+            int count = 0;
+
+            for(int e = lo ; e < hi ; e++) {
+                int[] values = new int[vars.length];
+                Arrays.fill(values, -1);
+                boolean consistent = true;
+
+                for(int k = bound ; k < 3 ; k++) {
+                    int variable = -atom[order[k]] - 1;
+                    int slot = Arrays.binarySearch(vars, variable);
+                    int value = entries[e * TripleIndex.WIDTH + k];
+
+                    // A variable appearing twice in the pattern binds the same value
+                    if(values[slot] >= 0 && values[slot] != value) consistent = false;
+                    values[slot] = value;
+                }
+
+                if(consistent) System.arraycopy(values, 0, tuples, count++ * TripleIndex.WIDTH, values.length);
+            }
+
+            TripleIndex.sort(tuples, 0, count - 1);
+
+            int distinct = 0;
+            for(int t = 0 ; t < count ; t++) {
+                if(distinct > 0 && Arrays.equals(tuples, (distinct - 1) * TripleIndex.WIDTH, distinct * TripleIndex.WIDTH, tuples, t * TripleIndex.WIDTH, (t + 1) * TripleIndex.WIDTH)) continue;
+                System.arraycopy(tuples, t * TripleIndex.WIDTH, tuples, distinct++ * TripleIndex.WIDTH, TripleIndex.WIDTH);
+            }
+
+            int[] columns = new int[vars.length];
+            for(int k = 0 ; k < vars.length ; k++) { columns[k] = k; }
+
+            if(distinct == 0) empty = true;
+            return new Source(tuples, 0, distinct, columns, vars);
+        }
+
+        /**
+         * Finds the index whose prefix holds exactly the constants of a pattern
+         */
+        private int constantIndex(int[] atom) {
+            int bound = constantCount(atom);
+
+            for(int i = 0 ; i < ORDERS.length ; i++) {
+                boolean fits = true;
+                for(int k = 0 ; k < bound ; k++) { fits &= atom[ORDERS[i][k]] >= 0; }
+                if(fits) return i;
+            }
+
+            throw new IllegalStateException("Every set of constants is the prefix of an index.");
+        }
+
+        private int constantCount(int[] atom) { return (int) Arrays.stream(atom).filter(t -> t >= 0).count(); }
+
+        private boolean contains(int[] atom, int variable) {
+            for(int term : atom) { if(term == -variable - 1) return true; }
+            return false;
+        }
+    }
+
+    /**
+     * Sorted tuples of a pattern, read as a trie : column k holds the variable bound at levels[k]
+     */
+    private static final class Source {
+        private final int[] entries;
+        private final int lo, hi;
+        private final int[] columns;
+        private final int[] levels;
+
+        Source(int[] entries, int lo, int hi, int[] columns, int[] levels) {
+            this.entries = entries;
+            this.lo = lo;
+            this.hi = hi;
+            this.columns = columns;
+            this.levels = levels;
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Execution ///////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * A position within a source, going down one level each time one of its variables gets bound
+     */
+    private static final class Cursor {
+        private final Source source;
+        private final int[] lo, hi, position;
+        private int level;
+
+        Cursor(Source source) {
+            this.source = source;
+            lo = new int[source.columns.length];
+            hi = new int[source.columns.length];
+            position = new int[source.columns.length];
+            level = -1;
+        }
+
+        /**
+         * Goes down to the values following the current one
+         */
+        void open() {
+            level++;
+
+            if(level == 0) {
+                lo[0] = source.lo;
+                hi[0] = source.hi;
+            } else {
+                lo[level] = position[level - 1];
+                hi[level] = upper(level - 1, value(level - 1, position[level - 1]), position[level - 1], hi[level - 1]);
+            }
+
+            position[level] = lo[level];
+        }
+
+        void up() { level--; }
+
+        boolean atEnd() { return position[level] >= hi[level]; }
+
+        int key() { return value(level, position[level]); }
+
+        /**
+         * Moves to the first value that isn't smaller than a given one
+         */
+        void seek(int key) {
+            int from = position[level], step = 1;
+
+            // Galloping, then binary search on the last gap
+            while(from + step < hi[level] && value(level, from + step) < key) {
+                from += step;
+                step <<= 1;
+            }
+
+            int lo = from, hi = Math.min(from + step + 1, this.hi[level]);
+            while(lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if(value(level, mid) < key) lo = mid + 1;
+                else hi = mid;
+            }
+
+            position[level] = lo;
+        }
+
+        /**
+         * Moves to the next distinct value
+         */
+        void next() { position[level] = upper(level, key(), position[level], hi[level]); }
+
+        private int value(int level, int entry) { return source.entries[entry * TripleIndex.WIDTH + source.columns[level]]; }
+
+        private int upper(int level, int key, int lo, int hi) {
+            while(lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if(value(level, mid) <= key) lo = mid + 1;
+                else hi = mid;
+            }
+
+            return lo;
+        }
+    }
+
+    /**
+     * Leapfrog intersection of the cursors sharing a variable
+     */
+    private static final class Leapfrog {
+        private final Cursor[] cursors;
+        private int p, key;
+        private boolean atEnd;
+
+        Leapfrog(Cursor[] cursors) { this.cursors = cursors; }
+
+        /**
+         * Opens the cursors and finds the first common value
+         * @param fixed is the only value allowed, or -1 for any
+         */
+        void init(int fixed) {
+            atEnd = false;
+
+            for(Cursor cursor : cursors) {
+                cursor.open();
+                if(fixed >= 0) cursor.seek(fixed);
+                if(cursor.atEnd() || (fixed >= 0 && cursor.key() != fixed)) atEnd = true;
+            }
+
+            if(atEnd) return;
+            if(fixed >= 0) {
+                key = fixed;
+                p = -1;
+                return;
+            }
+
+            Arrays.sort(cursors, Comparator.comparingInt(Cursor::key));
+            p = 0;
+            search();
+        }
+
+        void next() {
+            // A fixed value has no successor
+            if(p < 0) {
+                atEnd = true;
+                return;
+            }
+
+            cursors[p].next();
+            if(cursors[p].atEnd()) {
+                atEnd = true;
+                return;
+            }
+
+            p = (p + 1) % cursors.length;
+            search();
+        }
+
+        void close() { for(Cursor cursor : cursors) cursor.up(); }
+
+        private void search() {
+            int k = cursors.length;
+            int max = cursors[(p + k - 1) % k].key();
+
+            while(true) {
+                int x = cursors[p].key();
+
+                if(x == max) {
+                    key = x;
+                    return;
+                }
+
+                cursors[p].seek(max);
+                if(cursors[p].atEnd()) {
+                    atEnd = true;
+                    return;
+                }
+
+                max = cursors[p].key();
+                p = (p + 1) % k;
+            }
+        }
+    }
+
+    /**
+     * Binds variables one level at a time, going back up when a level runs out of values
+     */
+    private final class Enumerator implements Iterator<Solution> {
+        private final Plan plan;
+        private final Leapfrog[] levels;
+        private final int[] binding;
+        private final int first;
+        private boolean started, ready, finished;
+
+        /**
+         * Main constructor
+         * @param plan is the query plan
+         * @param first is the only value allowed for the first variable, or -1 for any
+         */
+        Enumerator(Plan plan, int first) {
+            this.plan = plan;
+            this.first = first;
+
+            Cursor[] cursors = new Cursor[plan.sources.size()];
+            for(int s = 0 ; s < cursors.length ; s++) { cursors[s] = new Cursor(plan.sources.get(s)); }
+
+            levels = new Leapfrog[plan.names.length];
+            for(int l = 0 ; l < levels.length ; l++) { levels[l] = new Leapfrog(Arrays.stream(plan.sourcesByLevel[l]).mapToObj(s -> cursors[s]).toArray(Cursor[]::new)); }
+
+            binding = new int[levels.length];
+        }
+
+        @Override
+        public boolean hasNext() {
+            if(!ready && !finished) {
+                ready = advance();
+                finished = !ready;
+            }
+
+            return ready;
+        }
+
+        @Override
+        public Solution next() {
+            if(!hasNext()) throw new NoSuchElementException();
+
+            ready = false;
+            return new Solution(plan.names, plan.relations, binding.clone(), graph.getNodeDictionary(), graph.getRelationDictionary());
+        }
+
+        /**
+         * Lists the values of the first variable
+         */
+        int[] firstLevel() {
+            int[] values = new int[16];
+            int count = 0;
+
+            for(levels[0].init(first) ; !levels[0].atEnd ; levels[0].next()) {
+                if(count == values.length) values = Arrays.copyOf(values, count * 2);
+                values[count++] = levels[0].key;
+            }
+
+            levels[0].close();
+            return Arrays.copyOf(values, count);
+        }
+
+        /**
+         * Finds the next binding
+         * @return true if there is one
+         */
+        private boolean advance() {
+            int n = levels.length;
+            int depth;
+
+            // Patterns without variable have a single, empty solution
+            if(n == 0) {
+                if(started) return false;
+                started = true;
+                return true;
+            }
+
+            if(!started) {
+                started = true;
+                depth = 0;
+                levels[0].init(first);
+            } else {
+                depth = n - 1;
+                levels[depth].next();
+            }
+
+            while(true) {
+                if(levels[depth].atEnd) {
+                    levels[depth].close();
+                    if(--depth < 0) return false;
+                    levels[depth].next();
+                    continue;
+                }
+
+                binding[depth] = levels[depth].key;
+                if(depth == n - 1) return true;
+
+                levels[++depth].init(-1);
+            }
+        }
+    }
+}
@@ -36,7 +36,7 @@ public class RelationLink<T> extends DataLink<T> {
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Getters ////////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
-    private String getRelationName() { return relationName; }
+    public String getRelationName() { return relationName; }
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Methods ////////////////////////////////////////////////////////////////////////////////////
@@ -0,0 +1,101 @@
+package graph.knowledge;
+
+import graph.standard.storage.Synchronizable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One answer to a Query, binding each variable to a node or a relation name.
+ * Values are kept as dictionary ids and only decoded when read
+ * @author CreeperStone72
+ */
+public final class Solution {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Names of the variables, without the leading '?'
+     */
+    private final String[] names;
+
+    /**
+     * If true, the variable at the same index is bound to a relation name, otherwise to a node
+     */
+    private final boolean[] relations;
+
+    /**
+     * Id bound to each variable
+     */
+    private final int[] ids;
+
+    /**
+     * Dictionaries used to decode the ids
+     */
+    private final Dictionary<Synchronizable> nodeIds;
+    private final Dictionary<String> relationIds;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    Solution(String[] names, boolean[] relations, int[] ids, Dictionary<Synchronizable> nodeIds, Dictionary<String> relationIds) {
+        this.names = names;
+        this.relations = relations;
+        this.ids = ids;
+        this.nodeIds = nodeIds;
+        this.relationIds = relationIds;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Reads the value bound to a variable
+     * @param variable is the variable's name, with or without the leading '?'
+     * @return a Synchronizable for node variables, a String for relation variables
+     */
+    public Object get(String variable) {
+        int i = indexOf(variable);
+        return relations[i] ? relationIds.decode(ids[i]) : nodeIds.decode(ids[i]);
+    }
+
+    /**
+     * Reads the node bound to a variable
+     * @param variable is the variable's name, with or without the leading '?'
+     * @return the node's data
+     */
+    public Synchronizable getNode(String variable) { return (Synchronizable) get(variable); }
+
+    /**
+     * Reads the relation name bound to a variable
+     * @param variable is the variable's name, with or without the leading '?'
+     * @return the relation's name
+     */
+    public String getRelation(String variable) { return (String) get(variable); }
+
+    /**
+     * Decodes every variable
+     * @return the value of each variable, by name
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+
+        for(String name : names) { map.put(name, get(name)); }
+
+        return map;
+    }
+
+    private int indexOf(String variable) {
+        String name = variable.startsWith("?") ? variable.substring(1) : variable;
+
+        for(int i = 0 ; i < names.length ; i++) { if(names[i].equals(name)) return i; }
+
+        throw new IllegalArgumentException("Unknown variable ?" + name + ".");
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Override
+    public String toString() { return toMap().toString(); }
+}
@@ -0,0 +1,377 @@
+package graph.knowledge;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Sorted index of (a, b, c, link) int entries, where a, b and c are a triple in some order and link is the id of the
+ * link behind it. Entries are packed 4 ints at a time in a main sorted array.
+ * Recent insertions and removals are kept in two small sorted arrays merged into the main one once they grow past
+ * about the square root of its size, so updates stay cheap and lookups stay binary searches
+ * @author CreeperStone72
+ */
+final class TripleIndex {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    static final int WIDTH = 4;
+
+    private static final int MIN_DELTA = 4096;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Sorted entries
+     */
+    private int[] main;
+
+    /**
+     * Sorted entries inserted since the last compaction
+     */
+    private int[] added;
+
+    /**
+     * Sorted entries of main removed since the last compaction
+     */
+    private int[] removed;
+
+    /**
+     * Number of entries in each array
+     */
+    private int mainSize, addedSize, removedSize;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    TripleIndex() { clear(); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Counts the entries
+     * @return the number of indexed entries
+     */
+    int size() { return mainSize + addedSize - removedSize; }
+
+    /**
+     * Gives the sorted entries, compacting the index first
+     * @return the packed entries, only the first size() * WIDTH ints are meaningful
+     */
+    int[] entries() {
+        compact();
+        return main;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Indexes an entry
+     */
+    void add(int a, int b, int c, int link) {
+        int i = search(removed, removedSize, a, b, c, link);
+
+        if(i >= 0) {
+            removedSize = delete(removed, removedSize, i);
+            return;
+        }
+
+        int j = search(added, addedSize, a, b, c, link);
+        if(j >= 0) return;
+
+        added = insert(added, addedSize++, -j - 1, a, b, c, link);
+        if(addedSize > threshold()) compact();
+    }
+
+    /**
+     * Indexes a batch of entries at once, with a single sort and merge
+     * @param batch holds the packed entries, it gets sorted in place
+     * @param count is the number of entries in the batch
+     */
+    void addAll(int[] batch, int count) {
+        sort(batch, 0, count - 1);
+        compact();
+
+        int[] merged = new int[(mainSize + count) * WIDTH];
+        int m = 0, n = 0, out = 0;
+
+        while(m < mainSize || n < count) {
+            if(n >= count || (m < mainSize && compare(main, m, batch, n) <= 0)) System.arraycopy(main, m++ * WIDTH, merged, out++ * WIDTH, WIDTH);
+            else System.arraycopy(batch, n++ * WIDTH, merged, out++ * WIDTH, WIDTH);
+        }
+
+        main = merged;
+        mainSize = out;
+    }
+
+    /**
+     * Removes an entry
+     * @return true if the entry was indexed
+     */
+    boolean remove(int a, int b, int c, int link) {
+        int i = search(added, addedSize, a, b, c, link);
+
+        if(i >= 0) {
+            addedSize = delete(added, addedSize, i);
+            return true;
+        }
+
+        if(search(main, mainSize, a, b, c, link) < 0) return false;
+
+        int j = search(removed, removedSize, a, b, c, link);
+        if(j >= 0) return false;
+
+        removed = insert(removed, removedSize++, -j - 1, a, b, c, link);
+        if(removedSize > threshold()) compact();
+        return true;
+    }
+
+    void clear() {
+        main = new int[0];
+        added = new int[WIDTH * 16];
+        removed = new int[WIDTH * 16];
+        mainSize = addedSize = removedSize = 0;
+    }
+
+    /**
+     * Merges pending insertions and removals into the main array
+     */
+    void compact() {
+        if(addedSize == 0 && removedSize == 0) return;
+
+        int[] merged = new int[(mainSize + addedSize - removedSize) * WIDTH];
+        int m = 0, a = 0, r = 0, out = 0;
+
+        while(m < mainSize || a < addedSize) {
+            if(m < mainSize && r < removedSize && compare(main, m, removed, r) == 0) {
+                m++;
+                r++;
+            } else if(a >= addedSize || (m < mainSize && compare(main, m, added, a) < 0)) {
+                System.arraycopy(main, m++ * WIDTH, merged, out++ * WIDTH, WIDTH);
+            } else {
+                System.arraycopy(added, a++ * WIDTH, merged, out++ * WIDTH, WIDTH);
+            }
+        }
+
+        main = merged;
+        mainSize = out;
+        addedSize = removedSize = 0;
+    }
+
+    /**
+     * Counts the entries matching a prefix, without compacting
+     * @param bound is the number of bound keys, from 0 to 3
+     * @return the number of matching entries
+     */
+    int count(int bound, int a, int b, int c) {
+        return upper(main, mainSize, bound, a, b, c) - lower(main, mainSize, bound, a, b, c)
+                + upper(added, addedSize, bound, a, b, c) - lower(added, addedSize, bound, a, b, c)
+                - upper(removed, removedSize, bound, a, b, c) + lower(removed, removedSize, bound, a, b, c);
+    }
+
+    /**
+     * Finds the links of the entries matching a prefix
+     * @param bound is the number of bound keys, from 0 to 3. Keys after the prefix are ignored
+     * @return the link ids, lazily and in index order, along with the keys of their entries
+     */
+    Cursor scan(int bound, int a, int b, int c) {
+        if(bound < 0 || bound > 3) throw new IllegalArgumentException("A triple binds at most 3 keys.");
+
+        int mainEnd = upper(main, mainSize, bound, a, b, c);
+        int addedEnd = upper(added, addedSize, bound, a, b, c);
+        int removedEnd = upper(removed, removedSize, bound, a, b, c);
+        int mainStart = lower(main, mainSize, bound, a, b, c);
+        int addedStart = lower(added, addedSize, bound, a, b, c);
+        int removedStart = lower(removed, removedSize, bound, a, b, c);
+        int[] main = this.main, added = this.added, removed = this.removed;
+
+        return new Cursor() {
+            private int m = mainStart, d = addedStart, r = removedStart;
+
+            @Override
+            public boolean hasNext() {
+                while(m < mainEnd && r < removedEnd && compare(main, m, removed, r) == 0) {
+                    m++;
+                    r++;
+                }
+
+                return m < mainEnd || d < addedEnd;
+            }
+
+            @Override
+            public int nextInt() {
+                if(!hasNext()) throw new NoSuchElementException();
+
+                if(d >= addedEnd || (m < mainEnd && compare(main, m, added, d) < 0)) {
+                    entries = main;
+                    base = m++ * WIDTH;
+                } else {
+                    entries = added;
+                    base = d++ * WIDTH;
+                }
+
+                return entries[base + 3];
+            }
+        };
+    }
+
+    private int threshold() { return Math.max(MIN_DELTA, 4 * (int) Math.sqrt(mainSize)); }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Sorted array methods ////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Finds the first entry whose bound prefix isn't smaller than the given keys
+     */
+    static int lower(int[] entries, int size, int bound, int a, int b, int c) {
+        int lo = 0, hi = size;
+
+        while(lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if(comparePrefix(entries, mid, bound, a, b, c) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+
+        return lo;
+    }
+
+    /**
+     * Finds the first entry whose bound prefix is greater than the given keys
+     */
+    static int upper(int[] entries, int size, int bound, int a, int b, int c) {
+        int lo = 0, hi = size;
+
+        while(lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if(comparePrefix(entries, mid, bound, a, b, c) <= 0) lo = mid + 1;
+            else hi = mid;
+        }
+
+        return lo;
+    }
+
+    /**
+     * Compares the first keys of an entry with given keys
+     */
+    static int comparePrefix(int[] entries, int i, int bound, int a, int b, int c) {
+        int base = i * WIDTH;
+
+        if(bound >= 1 && entries[base] != a) return Integer.compare(entries[base], a);
+        if(bound >= 2 && entries[base + 1] != b) return Integer.compare(entries[base + 1], b);
+        if(bound >= 3 && entries[base + 2] != c) return Integer.compare(entries[base + 2], c);
+        return 0;
+    }
+
+    private static int compare(int[] x, int i, int[] y, int j) {
+        for(int k = 0 ; k < WIDTH ; k++) {
+            int cmp = Integer.compare(x[i * WIDTH + k], y[j * WIDTH + k]);
+            if(cmp != 0) return cmp;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Binary search of a full entry
+     * @return its index, or -(insertion point) - 1 if it isn't there
+     */
+    private static int search(int[] entries, int size, int a, int b, int c, int link) {
+        int lo = 0, hi = size - 1;
+
+        while(lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = comparePrefix(entries, mid, 3, a, b, c);
+            if(cmp == 0) cmp = Integer.compare(entries[mid * WIDTH + 3], link);
+
+            if(cmp < 0) lo = mid + 1;
+            else if(cmp > 0) hi = mid - 1;
+            else return mid;
+        }
+
+        return -lo - 1;
+    }
+
+    /**
+     * Quicksort of packed entries, with insertion sort for small ranges
+     */
+    static void sort(int[] entries, int lo, int hi) {
+        while(hi - lo > 16) {
+            int mid = (lo + hi) >>> 1;
+            if(compare(entries, mid, entries, lo) < 0) swap(entries, mid, lo);
+            if(compare(entries, hi, entries, lo) < 0) swap(entries, hi, lo);
+            if(compare(entries, hi, entries, mid) < 0) swap(entries, hi, mid);
+
+            swap(entries, mid, hi - 1);
+            int pivot = hi - 1, i = lo, j = hi - 1;
+
+            while(true) {
+                while(compare(entries, ++i, entries, pivot) < 0) ;
+                while(compare(entries, --j, entries, pivot) > 0) ;
+                if(i >= j) break;
+                swap(entries, i, j);
+            }
+
+            swap(entries, i, hi - 1);
+
+            // Recursing on the smaller side keeps the stack logarithmic
+            if(i - lo < hi - i) {
+                sort(entries, lo, i - 1);
+                lo = i + 1;
+            } else {
+                sort(entries, i + 1, hi);
+                hi = i - 1;
+            }
+        }
+
+        for(int i = lo + 1 ; i <= hi ; i++) { for(int j = i ; j > lo && compare(entries, j, entries, j - 1) < 0 ; j--) swap(entries, j, j - 1); }
+    }
+
+    private static void swap(int[] entries, int i, int j) {
+        for(int k = 0 ; k < WIDTH ; k++) {
+            int tmp = entries[i * WIDTH + k];
+            entries[i * WIDTH + k] = entries[j * WIDTH + k];
+            entries[j * WIDTH + k] = tmp;
+        }
+    }
+
+    private static int[] insert(int[] entries, int size, int at, int a, int b, int c, int link) {
+        if((size + 1) * WIDTH > entries.length) entries = Arrays.copyOf(entries, entries.length * 2);
+
+        System.arraycopy(entries, at * WIDTH, entries, (at + 1) * WIDTH, (size - at) * WIDTH);
+        entries[at * WIDTH] = a;
+        entries[at * WIDTH + 1] = b;
+        entries[at * WIDTH + 2] = c;
+        entries[at * WIDTH + 3] = link;
+        return entries;
+    }
+
+    private static int delete(int[] entries, int size, int at) {
+        System.arraycopy(entries, (at + 1) * WIDTH, entries, at * WIDTH, (size - at - 1) * WIDTH);
+        return size - 1;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Inner types /////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Link ids of the entries matching a prefix, which also gives the keys of the entry last returned
+     */
+    abstract static class Cursor implements PrimitiveIterator.OfInt {
+        /**
+         * Array and offset of the entry last returned
+         */
+        int[] entries;
+
+        int base;
+
+        /**
+         * Gives a key of the entry last returned
+         * @param k is the position of the key, from 0 to 2
+         * @return the key
+         */
+        int key(int k) { return entries[base + k]; }
+    }
+}
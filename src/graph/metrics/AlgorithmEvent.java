@@ -0,0 +1,97 @@
+package graph.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering one run of a graph algorithm, such as dijkstra or a traversal.
+ * Its duration is the run's, and it only costs something while a recording enables it.
+ * The jdk.jfr.Event itself stays private, so the rest of the library compiles with --release 15, whose API can't
+ * resolve the superclass of jdk.jfr.Event
+ * @author CreeperStone72
+ */
+public final class AlgorithmEvent {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Name of the event in recordings
+     */
+    public static final String NAME = "graph.Algorithm";
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final Record record;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor, starts the event's clock
+     * @param algorithm is the algorithm's name
+     * @param order is the number of nodes in the graph
+     * @param size is the number of links in the graph
+     */
+    public AlgorithmEvent(String algorithm, int order, int size) {
+        record = new Record(algorithm, order, size);
+        record.begin();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Stops the clock and records the event if a recording asks for it
+     * @param nodesSettled is the number of nodes visited or settled
+     * @param linksRelaxed is the number of links followed or checked
+     */
+    public void finish(long nodesSettled, long linksRelaxed) {
+        record.end();
+
+        if(record.shouldCommit()) {
+            record.nodesSettled = nodesSettled;
+            record.linksRelaxed = linksRelaxed;
+            record.commit();
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Inner types /////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    @Name(AlgorithmEvent.NAME)
+    @Label("Graph Algorithm")
+    @Category("Graph")
+    @Description("A run of a graph algorithm, with the work it did")
+    @StackTrace(false)
+    private static final class Record extends Event {
+        @Label("Algorithm")
+        private final String algorithm;
+
+        @Label("Order")
+        @Description("Number of nodes in the graph")
+        private final int order;
+
+        @Label("Size")
+        @Description("Number of links in the graph")
+        private final int size;
+
+        @Label("Nodes Settled")
+        @Description("Nodes visited, or whose final cost was found")
+        private long nodesSettled;
+
+        @Label("Links Relaxed")
+        @Description("Links followed or checked")
+        private long linksRelaxed;
+
+        private Record(String algorithm, int order, int size) {
+            this.algorithm = algorithm;
+            this.order = order;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package graph.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering a bulk operation, such as a batch insertion or an edge list import.
+ * It only costs something while a recording enables it. Like AlgorithmEvent, the jdk.jfr.Event itself stays private
+ * @author CreeperStone72
+ */
+public final class BulkOperationEvent {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Name of the event in recordings
+     */
+    public static final String NAME = "graph.BulkOperation";
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final Record record;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor, starts the event's clock
+     * @param operation is the operation's name
+     */
+    public BulkOperationEvent(String operation) {
+        record = new Record(operation);
+        record.begin();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Stops the clock and records the event if a recording asks for it
+     * @param count is the number of nodes or links handled
+     */
+    public void finish(long count) {
+        record.end();
+
+        if(record.shouldCommit()) {
+            record.count = count;
+            record.commit();
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Inner types /////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    @Name(BulkOperationEvent.NAME)
+    @Label("Graph Bulk Operation")
+    @Category("Graph")
+    @Description("A batch of nodes or links inserted, imported or exported at once")
+    @StackTrace(false)
+    private static final class Record extends Event {
+        @Label("Operation")
+        private final String operation;
+
+        @Label("Count")
+        @Description("Number of nodes or links handled")
+        private long count;
+
+        private Record(String operation) { this.operation = operation; }
+    }
+}
@@ -0,0 +1,243 @@
+package graph.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters of the operations done on graphs : node lookups, full scans of the links, mutations and
+ * query cache reads.
+ * Counters are striped LongAdders, so threads updating them don't contend. They are disabled by default, and a
+ * disabled counter costs a single read of a flag
+ * @author CreeperStone72
+ */
+public final class GraphMetrics implements GraphMetricsMXBean {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Name of the MBean
+     */
+    public static final String OBJECT_NAME = "graph:type=GraphMetrics";
+
+    private static final GraphMetrics INSTANCE = new GraphMetrics();
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * If false, nothing is counted
+     */
+    private static volatile boolean enabled;
+
+    /**
+     * Number of nodes looked up by their data
+     */
+    private static final LongAdder LOOKUPS = new LongAdder();
+
+    /**
+     * Number of times every link of a graph was read to answer a single call
+     */
+    private static final LongAdder LINK_SCANS = new LongAdder();
+
+    /**
+     * Number of links read by those scans
+     */
+    private static final LongAdder LINKS_READ = new LongAdder();
+
+    /**
+     * Number of nodes and links inserted or removed
+     */
+    private static final LongAdder MUTATIONS = new LongAdder();
+
+    /**
+     * Number of query cache reads that found a result, found none, and results evicted
+     */
+    private static final LongAdder CACHE_HITS = new LongAdder(), CACHE_MISSES = new LongAdder(), CACHE_EVICTIONS = new LongAdder();
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private GraphMetrics() { }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Turns the counters on or off, for the whole process
+     * @param enabled denotes whether operations should be counted
+     */
+    public static void enable(boolean enabled) { GraphMetrics.enabled = enabled; }
+
+    @Override
+    public void setEnabled(boolean enabled) { enable(enabled); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public static boolean enabled() { return enabled; }
+
+    @Override
+    public boolean isEnabled() { return enabled; }
+
+    @Override
+    public long getLookups() { return LOOKUPS.sum(); }
+
+    @Override
+    public long getLinkScans() { return LINK_SCANS.sum(); }
+
+    @Override
+    public long getLinksRead() { return LINKS_READ.sum(); }
+
+    @Override
+    public long getMutations() { return MUTATIONS.sum(); }
+
+    @Override
+    public long getCacheHits() { return CACHE_HITS.sum(); }
+
+    @Override
+    public long getCacheMisses() { return CACHE_MISSES.sum(); }
+
+    @Override
+    public long getCacheEvictions() { return CACHE_EVICTIONS.sum(); }
+
+    /**
+     * Reads every counter
+     * @return the current values
+     */
+    public static Snapshot snapshot() {
+        return new Snapshot(LOOKUPS.sum(), LINK_SCANS.sum(), LINKS_READ.sum(), MUTATIONS.sum(), CACHE_HITS.sum(), CACHE_MISSES.sum(), CACHE_EVICTIONS.sum());
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    //// Counting methods ////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Counts a node lookup
+     */
+    public static void lookup() { if(enabled) LOOKUPS.increment(); }
+
+    /**
+     * Counts a scan over the links of a graph
+     * @param links is the number of links read
+     */
+    public static void linkScan(int links) {
+        if(enabled) {
+            LINK_SCANS.increment();
+            LINKS_READ.add(links);
+        }
+    }
+
+    /**
+     * Counts inserted or removed nodes and links
+     * @param count is the number of elements changed
+     */
+    public static void mutation(long count) { if(enabled) MUTATIONS.add(count); }
+
+    /**
+     * Counts a query cache read that found a result
+     */
+    public static void cacheHit() { if(enabled) CACHE_HITS.increment(); }
+
+    /**
+     * Counts a query cache read that found nothing, or a stale result
+     */
+    public static void cacheMiss() { if(enabled) CACHE_MISSES.increment(); }
+
+    /**
+     * Counts a result evicted from a query cache
+     */
+    public static void cacheEviction() { if(enabled) CACHE_EVICTIONS.increment(); }
+
+    @Override
+    public void reset() {
+        LOOKUPS.reset();
+        LINK_SCANS.reset();
+        LINKS_READ.reset();
+        MUTATIONS.reset();
+        CACHE_HITS.reset();
+        CACHE_MISSES.reset();
+        CACHE_EVICTIONS.reset();
+    }
+
+    /**
+     * Sets every counter back to 0
+     */
+    public static void resetAll() { INSTANCE.reset(); }
+
+    //////////////////////////////////////////////////////////////////////
+    //// JMX methods /////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Registers the counters on the platform MBean server, under OBJECT_NAME. Registering twice does nothing
+     * @throws IllegalStateException if JMX refuses the MBean
+     */
+    public static void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if(!server.isRegistered(name)) server.registerMBean(INSTANCE, name);
+        } catch(InstanceAlreadyExistsException e) {
+            // Registered by another thread in the meantime
+        } catch(JMException e) {
+            throw new IllegalStateException("Couldn't register " + OBJECT_NAME + ".", e);
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Inner types /////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Values of the counters at some point. Counters keep moving while they are read, so values taken
+     * during heavy traffic may be a few operations apart
+     */
+    public static final class Snapshot {
+        private final long lookups, linkScans, linksRead, mutations, cacheHits, cacheMisses, cacheEvictions;
+
+        Snapshot(long lookups, long linkScans, long linksRead, long mutations, long cacheHits, long cacheMisses, long cacheEvictions) {
+            this.lookups = lookups;
+            this.linkScans = linkScans;
+            this.linksRead = linksRead;
+            this.mutations = mutations;
+            this.cacheHits = cacheHits;
+            this.cacheMisses = cacheMisses;
+            this.cacheEvictions = cacheEvictions;
+        }
+
+        public long getLookups() { return lookups; }
+
+        public long getLinkScans() { return linkScans; }
+
+        public long getLinksRead() { return linksRead; }
+
+        public long getMutations() { return mutations; }
+
+        public long getCacheHits() { return cacheHits; }
+
+        public long getCacheMisses() { return cacheMisses; }
+
+        public long getCacheEvictions() { return cacheEvictions; }
+
+        /**
+         * Finds what happened since an earlier snapshot
+         * @param earlier is the earlier snapshot
+         * @return the difference of each counter
+         */
+        public Snapshot minus(Snapshot earlier) {
+            return new Snapshot(lookups - earlier.lookups, linkScans - earlier.linkScans, linksRead - earlier.linksRead, mutations - earlier.mutations,
+                    cacheHits - earlier.cacheHits, cacheMisses - earlier.cacheMisses, cacheEvictions - earlier.cacheEvictions);
+        }
+
+        @Override
+        public String toString() {
+            return "lookups=" + lookups + ", linkScans=" + linkScans + ", linksRead=" + linksRead + ", mutations=" + mutations
+                    + ", cacheHits=" + cacheHits + ", cacheMisses=" + cacheMisses + ", cacheEvictions=" + cacheEvictions;
+        }
+    }
+}
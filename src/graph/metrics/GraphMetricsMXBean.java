@@ -0,0 +1,30 @@
+package graph.metrics;
+
+/**
+ * JMX view of the graph counters, registered by GraphMetrics.register()
+ * @author CreeperStone72
+ */
+public interface GraphMetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getLookups();
+
+    long getLinkScans();
+
+    long getLinksRead();
+
+    long getMutations();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    long getCacheEvictions();
+
+    /**
+     * Sets every counter back to 0
+     */
+    void reset();
+}
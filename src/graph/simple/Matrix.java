@@ -1,10 +1,23 @@
 package graph.simple;
 
+import java.util.Arrays;
+import java.util.Objects;
+
 /**
- * Represents a matrix and some useful methods given the context
+ * Represents a matrix and some useful methods given the context.
+ * Values are stored row after row in a single array, so kernels run over contiguous memory in simple counted loops
+ * that the JIT compiler turns into SIMD instructions
  * @author CreeperStone72
  */
 public class Matrix {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Side of the blocks transposition and symmetry checks work on, 32 x 32 ints being 4 KB
+     */
+    private static final int TILE = 32;
+
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Attributes /////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
@@ -19,9 +32,9 @@ public class Matrix {
     private int cols;
 
     /**
-     * Values stored in the matrix
+     * Values stored in the matrix, row-major : the value at (row, col) is values[row * cols + col]
      */
-    private final int[][] values;
+    private final int[] values;
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Constructors ///////////////////////////////////////////////////////////////////////////////
@@ -33,34 +46,26 @@ public class Matrix {
     public Matrix(int size) { this(size, size); }
 
     /**
-     * Main constructor
+     * Main constructor, builds a zero matrix
      * @param rows is the number of rows
      * @param cols is the number of columns
      */
     public Matrix(int rows, int cols) {
+        if(rows < 0 || cols < 0) throw new IllegalArgumentException("Dimensions must be positive.");
+
         setRows(rows);
         setCols(cols);
-        values = new int[getRows()][getCols()];
-        init();
+        values = new int[Math.multiplyExact(rows, cols)];
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Setters ////////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
-    public void setRows(int rows) { this.rows = rows; }
+    private void setRows(int rows) { this.rows = rows; }
 
-    public void setCols(int cols) { this.cols = cols; }
+    private void setCols(int cols) { this.cols = cols; }
 
-    /**
-     * Initializes to a zero matrix
-     */
-    private void init() {
-        for (int row = 0 ; row < getRows() ; row++)
-            for (int col = 0 ; col < getCols() ; col++)
-                setValue(row, col, 0);
-    }
-
-    public void setValue(int row, int col, int value) { getValues()[row][col] = value; }
+    public void setValue(int row, int col, int value) { getValues()[index(row, col)] = value; }
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Getters ////////////////////////////////////////////////////////////////////////////////////
@@ -69,9 +74,11 @@ public class Matrix {
 
     public int getCols() { return cols; }
 
-    private int[][] getValues() { return values; }
+    private int[] getValues() { return values; }
 
-    public int getValue(int row, int col) { return getValues()[row][col]; }
+    public int getValue(int row, int col) { return getValues()[index(row, col)]; }
+
+    private int index(int row, int col) { return Objects.checkIndex(row, rows) * cols + Objects.checkIndex(col, cols); }
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Methods ////////////////////////////////////////////////////////////////////////////////////
@@ -87,10 +94,9 @@ public class Matrix {
      * @return true if all values beneath the diagonal are equal to 0, otherwise false
      */
     public boolean isUpper() {
-        for (int row = 0 ; row < getRows() ; row++)
-            for (int col = 0; col < row; col++)
-                if (getValue(row, col) != 0)
-                    return false;
+        for (int row = 1 ; row < rows ; row++)
+            if (!isZero(values, row * cols, row * cols + Math.min(row, cols)))
+                return false;
 
         return true;
     }
@@ -100,10 +106,9 @@ public class Matrix {
      * @return true if all values above the diagonal are equal to 0, otherwise false
      */
     public boolean isLower() {
-        for (int row = 0 ; row < getRows() ; row++)
-            for (int col = row; col < getCols(); col++)
-                if (getValue(row, col) != 0)
-                    return false;
+        for (int row = 0 ; row < Math.min(rows, cols) ; row++)
+            if (!isZero(values, row * cols + row, (row + 1) * cols))
+                return false;
 
         return true;
     }
@@ -116,17 +121,133 @@ public class Matrix {
 
     /**
      * Is the matrix symmetrical ?
+     * Blocks above the diagonal are compared to their mirror below it one pair at a time, so both stay in cache
      * @return true if the matrix accepts its diagonal as an axis of symmetry, otherwise false
      */
     public boolean isSymmetrical() {
-        for (int row = 0 ; row < getRows() ; row++)
-            for (int col = row ; col < getCols() ; col++)
-                if (getValue(row, col) != getValue(col, row))
-                    return false;
+        if (!isSquare()) return false;
+
+        int n = rows;
+
+        for (int top = 0 ; top < n ; top += TILE) {
+            int bottom = Math.min(top + TILE, n);
+
+            for (int left = top ; left < n ; left += TILE) {
+                int right = Math.min(left + TILE, n);
+
+                for (int row = top ; row < bottom ; row++) {
+                    int at = row * n;
+
+                    for (int col = Math.max(left, row + 1) ; col < right ; col++)
+                        if (values[at + col] != values[col * n + row])
+                            return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Kernels /////////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Adds a matrix to this one
+     * @param m is the matrix added, with the same dimensions
+     * @return a new matrix holding the sums
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public Matrix add(Matrix m) {
+        checkDimensions(m);
+
+        Matrix sum = new Matrix(rows, cols);
+        int[] a = values, b = m.values, c = sum.values;
+
+        for (int i = 0 ; i < c.length ; i++)
+            c[i] = a[i] + b[i];
+
+        return sum;
+    }
+
+    /**
+     * Multiplies every value by a factor
+     * @param factor is the factor
+     * @return a new matrix holding the products
+     */
+    public Matrix scale(int factor) {
+        Matrix scaled = new Matrix(rows, cols);
+        int[] a = values, c = scaled.values;
+
+        for (int i = 0 ; i < c.length ; i++)
+            c[i] = a[i] * factor;
+
+        return scaled;
+    }
+
+    /**
+     * Sums every row
+     * @return an array whose i-th value is the sum of row i
+     */
+    public long[] rowSums() {
+        long[] sums = new long[rows];
+
+        for (int row = 0 ; row < rows ; row++) {
+            long sum = 0;
+
+            for (int i = row * cols, end = i + cols ; i < end ; i++)
+                sum += values[i];
+
+            sums[row] = sum;
+        }
+
+        return sums;
+    }
+
+    /**
+     * Counts the values that aren't 0, which is the number of links of an adjacency matrix
+     * @return the number of non-zero values
+     */
+    public long countNonZero() {
+        long count = 0;
+
+        for (int value : values)
+            count += (value != 0) ? 1 : 0;
+
+        return count;
+    }
+
+    private void checkDimensions(Matrix m) {
+        if (m.rows != rows || m.cols != cols) throw new IllegalArgumentException("Matrices must have the same dimensions.");
+    }
+
+    /**
+     * Checks whether a range of values only holds 0, a block of values at a time
+     */
+    private static boolean isZero(int[] values, int from, int to) {
+        for (int block = from ; block < to ; block += 4 * TILE) {
+            int end = Math.min(block + 4 * TILE, to), bits = 0;
+
+            for (int i = block ; i < end ; i++)
+                bits |= values[i];
+
+            if (bits != 0) return false;
+        }
 
         return true;
     }
-    
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Matrix)) return false;
+
+        Matrix m = (Matrix) o;
+        return rows == m.rows && cols == m.cols && Arrays.equals(values, m.values);
+    }
+
+    @Override
+    public int hashCode() { return 31 * (31 * rows + cols) + Arrays.hashCode(values); }
+
     //////////////////////////////////////////////////////////////////////
     //// Remarkable matrices /////////////////////////////////////////////
     //////////////////////////////////////////////////////////////////////
@@ -139,23 +260,42 @@ public class Matrix {
         Matrix identity = new Matrix(n);
 
         for (int i = 0 ; i < n ; i++)
-            identity.setValue(i, i, 1);
+            identity.values[i * n + i] = 1;
 
         return identity;
     }
 
     /**
-     * Builds the transpose of a matrix
+     * Builds the transpose of a matrix.
+     * The matrix is cut in halves along its longest side until blocks fit in cache, whatever its size (cache-oblivious),
+     * then each block is copied tile by tile
      * @param m is the base matrix
      * @return a matrix that is equal to the transposition of m
      */
     public static Matrix transpose(Matrix m) {
         Matrix transpose = new Matrix(m.getCols(), m.getRows());
+        transpose(m.values, transpose.values, m.rows, m.cols, 0, m.rows, 0, m.cols);
+        return transpose;
+    }
 
-        for (int row = 0 ; row < m.getRows() ; row++)
-            for (int col = 0 ; col < m.getCols() ; col++)
-                transpose.setValue(col, row, m.getValue(row, col));
+    /**
+     * Transposes the block between rows top (included) and bottom (excluded) and columns left and right
+     */
+    private static void transpose(int[] from, int[] to, int rows, int cols, int top, int bottom, int left, int right) {
+        int height = bottom - top, width = right - left;
 
-        return transpose;
+        if (height <= TILE && width <= TILE) {
+            for (int row = top ; row < bottom ; row++)
+                for (int col = left ; col < right ; col++)
+                    to[col * rows + row] = from[row * cols + col];
+        } else if (height >= width) {
+            int middle = top + height / 2;
+            transpose(from, to, rows, cols, top, middle, left, right);
+            transpose(from, to, rows, cols, middle, bottom, left, right);
+        } else {
+            int middle = left + width / 2;
+            transpose(from, to, rows, cols, top, bottom, left, middle);
+            transpose(from, to, rows, cols, top, bottom, middle, right);
+        }
     }
 }
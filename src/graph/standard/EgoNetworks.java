@@ -0,0 +1,387 @@
+package graph.standard;
+
+import graph.exception.NodeNotFoundException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Extracts the k-hop neighborhoods of nodes and the subgraphs they induce (ego networks).
+ * Neighbors are taken in either direction, like getOpenNeighborhood(). The graph is indexed once when the extractor is
+ * built, so it should be rebuilt after the graph changes. Neighborhoods grow hop by hop : the nodes of a hop are kept
+ * as a bitset (frontier) and expanded in increasing index order, a second bitset telling which nodes were already
+ * reached. Both are cleared node by node afterwards, so an extraction costs the size of the neighborhood and not the
+ * order of the graph.
+ * Two caps keep hubs from blowing a neighborhood up :
+ * - fan-out : a node with more neighbors only expands to that many of them, evenly spaced from a random start in its
+ *   list, so every neighbor has the same chance of being picked
+ * - maximal number of nodes : the expansion stops once the neighborhood is that big, closer hops being kept first
+ * Random picks are seeded from the seed and the root, so a neighborhood doesn't depend on the batch it was part of
+ * @param <T> is the type of data carried by the nodes
+ * @param <L> is the type of Link used
+ * @author CreeperStone72
+ */
+public class EgoNetworks<T, L extends Link> {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final Graph<T, L> graph;
+
+    /**
+     * Nodes and links of the graph when it was indexed, node i being the i-th one
+     */
+    private final List<Node<T>> nodes;
+
+    private final List<L> links;
+
+    private final Map<T, Integer> index;
+
+    /**
+     * order + 1 ints, the neighbors of node i, in either direction, are stored between offsets[i] and offsets[i + 1]
+     */
+    private final int[] offsets, neighbors;
+
+    /**
+     * order + 1 ints, the links starting from node i are stored between linkOffsets[i] and linkOffsets[i + 1],
+     * by index in links along with the index of their end, sorted by end
+     */
+    private final int[] linkOffsets, outgoing, ends;
+
+    /**
+     * Scratch bitsets, one per worker
+     */
+    private final Queue<Frontier> frontiers = new ConcurrentLinkedQueue<>();
+
+    private int maxNodes;
+
+    private int fanOut;
+
+    private long seed;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor, indexes the graph
+     * @param graph is the graph whose ego networks are extracted
+     */
+    public EgoNetworks(Graph<T, L> graph) {
+        this.graph = graph;
+        this.nodes = new ArrayList<>(graph.getNodes());
+        this.links = new ArrayList<>(graph.getLinks());
+        this.index = new HashMap<>();
+
+        int order = nodes.size();
+        for(int i = 0 ; i < order ; i++) { index.put(nodes.get(i).getData(), i); }
+
+        int[] xs = new int[links.size()], ys = new int[links.size()];
+        this.offsets = new int[order + 1];
+        this.linkOffsets = new int[order + 1];
+
+        // Step 1 : Counting the neighbors and links of every node
+        for(int l = 0 ; l < links.size() ; l++) {
+            xs[l] = index.get(links.get(l).getX().getData());
+            ys[l] = index.get(links.get(l).getY().getData());
+
+            offsets[xs[l] + 1]++;
+            offsets[ys[l] + 1]++;
+            linkOffsets[xs[l] + 1]++;
+        }
+
+        for(int i = 0 ; i < order ; i++) {
+            offsets[i + 1] += offsets[i];
+            linkOffsets[i + 1] += linkOffsets[i];
+        }
+
+        // Step 2 : Scattering them into rows
+        this.neighbors = new int[offsets[order]];
+        this.outgoing = new int[links.size()];
+        this.ends = new int[links.size()];
+
+        int[] cursors = Arrays.copyOf(offsets, order), linkCursors = Arrays.copyOf(linkOffsets, order);
+
+        long[] sorted = new long[links.size()];
+
+        for(int l = 0 ; l < links.size() ; l++) {
+            neighbors[cursors[xs[l]]++] = ys[l];
+            neighbors[cursors[ys[l]]++] = xs[l];
+            sorted[linkCursors[xs[l]]++] = ((long) ys[l] << 32) | l;
+        }
+
+        // Step 3 : Sorting links by end, so the links between a hub and a few nodes are found without a full scan
+        for(int x = 0 ; x < order ; x++) { Arrays.sort(sorted, linkOffsets[x], linkOffsets[x + 1]); }
+
+        for(int i = 0 ; i < sorted.length ; i++) {
+            ends[i] = (int) (sorted[i] >>> 32);
+            outgoing[i] = (int) sorted[i];
+        }
+
+        setMaxNodes(Integer.MAX_VALUE);
+        setFanOut(Integer.MAX_VALUE);
+        setSeed(0);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public EgoNetworks<T, L> setMaxNodes(int maxNodes) {
+        if(maxNodes <= 0) throw new IllegalArgumentException("The maximal number of nodes must be positive.");
+        this.maxNodes = maxNodes;
+        return this;
+    }
+
+    public EgoNetworks<T, L> setFanOut(int fanOut) {
+        if(fanOut <= 0) throw new IllegalArgumentException("The fan-out must be positive.");
+        this.fanOut = fanOut;
+        return this;
+    }
+
+    public EgoNetworks<T, L> setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public Graph<T, L> getGraph() { return graph; }
+
+    public int getMaxNodes() { return maxNodes; }
+
+    public int getFanOut() { return fanOut; }
+
+    public long getSeed() { return seed; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Finds the nodes at most k hops away from a node
+     * @param data is the data carried by the node
+     * @param k is the number of hops
+     * @return the nodes, closest hops first, without the node itself
+     * @throws NodeNotFoundException if the node isn't in the graph
+     */
+    public List<Node<T>> neighborhood(T data, int k) throws NodeNotFoundException { return neighborhood(find(data), checkHops(k)); }
+
+    /**
+     * Extracts the subgraph induced by a node and the nodes at most k hops away from it.
+     * The subgraph is a new graph of the same kind holding the same node and link objects, so link data is kept
+     * @param data is the data carried by the node
+     * @param k is the number of hops
+     * @return the ego network, whose first node is the one it was extracted from
+     * @throws NodeNotFoundException if the node isn't in the graph
+     */
+    public Graph<T, L> egoGraph(T data, int k) throws NodeNotFoundException { return egoGraph(find(data), checkHops(k)); }
+
+    /**
+     * Finds the k-hop neighborhoods of many nodes, in parallel
+     * @param data is the data carried by the nodes
+     * @param k is the number of hops
+     * @return the neighborhoods, in the order of the nodes
+     * @throws NodeNotFoundException if a node isn't in the graph
+     */
+    public List<List<Node<T>>> neighborhoods(Collection<? extends T> data, int k) throws NodeNotFoundException {
+        int[] roots = findAll(data);
+        checkHops(k);
+        return Arrays.stream(roots).parallel().mapToObj(root -> neighborhood(root, k)).collect(Collectors.toList());
+    }
+
+    /**
+     * Extracts the ego networks of many nodes, in parallel
+     * @param data is the data carried by the nodes
+     * @param k is the number of hops
+     * @return the ego networks, in the order of the nodes
+     * @throws NodeNotFoundException if a node isn't in the graph
+     */
+    public List<Graph<T, L>> egoGraphs(Collection<? extends T> data, int k) throws NodeNotFoundException {
+        int[] roots = findAll(data);
+        checkHops(k);
+        return Arrays.stream(roots).parallel().mapToObj(root -> egoGraph(root, k)).collect(Collectors.toList());
+    }
+
+    private List<Node<T>> neighborhood(int root, int k) {
+        Frontier frontier = acquire();
+        int count = frontier.expand(root, k);
+        List<Node<T>> neighborhood = new ArrayList<>(count - 1);
+
+        for(int m = 1 ; m < count ; m++) { neighborhood.add(nodes.get(frontier.members[m])); }
+
+        frontier.clear(count);
+        frontiers.offer(frontier);
+        return neighborhood;
+    }
+
+    private Graph<T, L> egoGraph(int root, int k) {
+        Frontier frontier = acquire();
+        int count = frontier.expand(root, k);
+        Graph<T, L> ego = graph.emptyGraph();
+        List<L> induced = new ArrayList<>();
+
+        for(int m = 0 ; m < count ; m++) {
+            int x = frontier.members[m];
+            int begin = linkOffsets[x], end = linkOffsets[x + 1];
+            ego.getNodes().add(nodes.get(x));
+
+            if(end - begin <= count) {
+                for(int i = begin ; i < end ; i++) { if(frontier.isReached(ends[i])) induced.add(links.get(outgoing[i])); }
+            } else {
+                // A hub : looking every member up among its links costs less than going through all of them
+                for(int n = 0 ; n < count ; n++) {
+                    int y = frontier.members[n];
+                    for(int i = lowerBound(begin, end, y) ; i < end && ends[i] == y ; i++) { induced.add(links.get(outgoing[i])); }
+                }
+            }
+        }
+
+        // Added directly rather than through linkAll(), which would bump the stamps the source graph's cache relies on
+        ego.getLinks().addAll(induced);
+
+        frontier.clear(count);
+        frontiers.offer(frontier);
+        return ego;
+    }
+
+    /**
+     * Finds the first position of a row whose end isn't below a node
+     */
+    private int lowerBound(int begin, int end, int y) {
+        while(begin < end) {
+            int middle = (begin + end) >>> 1;
+            if(ends[middle] < y) begin = middle + 1;
+            else end = middle;
+        }
+
+        return begin;
+    }
+
+    private Frontier acquire() {
+        Frontier frontier = frontiers.poll();
+        return (frontier == null) ? new Frontier() : frontier;
+    }
+
+    private int find(T data) throws NodeNotFoundException {
+        Integer i = index.get(data);
+        if(i == null) throw new NodeNotFoundException();
+        return i;
+    }
+
+    private int[] findAll(Collection<? extends T> data) throws NodeNotFoundException {
+        int[] roots = new int[data.size()];
+        int r = 0;
+
+        for(T elem : data) { roots[r++] = find(elem); }
+        return roots;
+    }
+
+    private static int checkHops(int k) {
+        if(k < 0) throw new IllegalArgumentException("The number of hops must be positive.");
+        return k;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Inner types /////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Bitsets and member list of one extraction at a time
+     */
+    private final class Frontier {
+        /**
+         * Reached nodes, the nodes of the current hop and the nodes of the next one, a bit per node
+         */
+        private long[] reached, current, next;
+
+        /**
+         * Reached nodes, in the order they were reached
+         */
+        private int[] members;
+
+        private Frontier() {
+            int words = (nodes.size() + 63) >>> 6;
+
+            this.reached = new long[words];
+            this.current = new long[words];
+            this.next = new long[words];
+            this.members = new int[16];
+        }
+
+        private boolean isReached(int x) { return (reached[x >>> 6] & (1L << x)) != 0; }
+
+        /**
+         * Reaches the nodes at most k hops away from a root, within the caps
+         * @return the number of reached nodes, the root included
+         */
+        private int expand(int root, int k) {
+            SplittableRandom random = Seeds.random(seed, root);
+            int count = 0;
+
+            reached[root >>> 6] |= 1L << root;
+            current[root >>> 6] |= 1L << root;
+            members[count++] = root;
+
+            int low = root >>> 6, high = low;
+
+            for(int hop = 0 ; hop < k && count < maxNodes ; hop++) {
+                int nextLow = Integer.MAX_VALUE, nextHigh = -1;
+
+                // Step 1 : Expanding the nodes of the hop in increasing index order
+                for(int w = low ; w <= high && count < maxNodes ; w++) {
+                    long word = current[w];
+
+                    while(word != 0 && count < maxNodes) {
+                        int x = (w << 6) + Long.numberOfTrailingZeros(word);
+                        int begin = offsets[x], degree = offsets[x + 1] - begin;
+                        int picks = Math.min(degree, fanOut), start = (degree > fanOut) ? random.nextInt(degree) : 0;
+
+                        word &= word - 1;
+
+                        for(int j = 0 ; j < picks && count < maxNodes ; j++) {
+                            int y = neighbors[begin + (int) ((start + (long) j * degree / picks) % degree)];
+                            if(isReached(y)) continue;
+
+                            reached[y >>> 6] |= 1L << y;
+                            next[y >>> 6] |= 1L << y;
+                            nextLow = Math.min(nextLow, y >>> 6);
+                            nextHigh = Math.max(nextHigh, y >>> 6);
+
+                            if(count == members.length) members = Arrays.copyOf(members, 2 * count);
+                            members[count++] = y;
+                        }
+                    }
+                }
+
+                // Step 2 : Moving on to the next hop
+                Arrays.fill(current, low, high + 1, 0L);
+                if(nextHigh == -1) return count;
+
+                long[] swap = current;
+                current = next;
+                next = swap;
+                low = nextLow;
+                high = nextHigh;
+            }
+
+            Arrays.fill(current, low, high + 1, 0L);
+            return count;
+        }
+
+        /**
+         * Clears the bits of the reached nodes, leaving the bitsets empty for the next extraction
+         */
+        private void clear(int count) {
+            for(int m = 0 ; m < count ; m++) {
+                int x = members[m];
+                reached[x >>> 6] = 0L;
+                next[x >>> 6] = 0L;
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package graph.standard;
+
+/**
+ * Approximate count of how often keys were seen lately (count-min sketch of 4-bit counters).
+ * Each key has a counter in 4 rows and its frequency is the smallest of them, so collisions can only make a key
+ * look more popular than it is. Every counter is halved once enough keys were counted, so old popularity fades
+ * @author CreeperStone72
+ */
+final class FrequencySketch {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private static final long[] SEEDS = { 0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L };
+
+    private static final long HALF = 0x7777777777777777L;
+
+    /**
+     * Largest value of a counter
+     */
+    static final int MAXIMUM = 15;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * 16 counters of 4 bits per long
+     */
+    private final long[] table;
+
+    private final int mask;
+
+    /**
+     * Number of increments after which counters are halved
+     */
+    private final int sampleSize;
+
+    private int additions;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor
+     * @param maximumSize is the number of keys the cache keeps
+     */
+    FrequencySketch(int maximumSize) {
+        int length = Integer.highestOneBit(Math.max(8, Math.min(maximumSize, 1 << 24)) - 1) << 1;
+
+        table = new long[length];
+        mask = length - 1;
+        sampleSize = 10 * Math.max(8, Math.min(maximumSize, 1 << 24));
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Estimates how often a key was seen
+     * @param hash is the key's hash code
+     * @return the estimate, between 0 and MAXIMUM
+     */
+    int frequency(int hash) {
+        int h = spread(hash), frequency = MAXIMUM;
+
+        for(int i = 0 ; i < SEEDS.length ; i++) { frequency = Math.min(frequency, (int) ((table[indexOf(h, i)] >>> offsetOf(h, i)) & 15)); }
+
+        return frequency;
+    }
+
+    /**
+     * Counts a key once more
+     * @param hash is the key's hash code
+     */
+    void increment(int hash) {
+        int h = spread(hash);
+        boolean added = false;
+
+        for(int i = 0 ; i < SEEDS.length ; i++) {
+            int index = indexOf(h, i), offset = offsetOf(h, i);
+
+            if(((table[index] >>> offset) & 15) < MAXIMUM) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+
+        if(added && ++additions == sampleSize) age();
+    }
+
+    /**
+     * Halves every counter
+     */
+    private void age() {
+        for(int i = 0 ; i < table.length ; i++) { table[i] = (table[i] >>> 1) & HALF; }
+        additions /= 2;
+    }
+
+    private int indexOf(int h, int row) {
+        long hash = (h + SEEDS[row]) * SEEDS[row];
+        hash += hash >>> 32;
+        return (int) hash & mask;
+    }
+
+    /**
+     * Each row picks one of the 16 counters of its long with its own bits of the hash
+     */
+    private static int offsetOf(int h, int row) { return ((h >>> (row << 2)) & 15) << 2; }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
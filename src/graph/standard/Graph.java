@@ -2,10 +2,17 @@ package graph.standard;
 
 import graph.exception.LinkNotFoundException;
 import graph.exception.NodeNotFoundException;
+import graph.metrics.AlgorithmEvent;
+import graph.metrics.BulkOperationEvent;
+import graph.metrics.GraphMetrics;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * The main class to represent a graph
@@ -14,6 +21,14 @@ import java.util.Objects;
  * @author CreeperStone72
  */
 public class Graph<T, L extends Link> {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Kinds of cached queries
+     */
+    private static final byte OPEN_NEIGHBORHOOD = 0, CLOSED_NEIGHBORHOOD = 1, NEIGHBOR_LINKS = 2, FIND_LINK = 3;
+
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Attributes /////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
@@ -32,6 +47,29 @@ public class Graph<T, L extends Link> {
      */
     private boolean isDirected;
 
+    /**
+     * Results of neighborhood and link queries, null unless enableCache() was called
+     */
+    private QueryCache<Query, Answer> cache;
+
+    /**
+     * Modification stamp of the whole graph, bumped along with the stamps of the nodes and when nodes come or go
+     */
+    private long stamp;
+
+    /**
+     * Extractor behind neighborhood(), egoGraph() and egoGraphs(), kept until the graph changes
+     */
+    private EgoNetworks<T, L> egoNetworks;
+
+    /**
+     * Stamp, order and size of the graph when egoNetworks indexed it. Order and size also catch nodes and links
+     * added or removed through getNodes() and getLinks() directly
+     */
+    private long egoStamp;
+
+    private int egoOrder, egoSize;
+
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Constructors ///////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
@@ -53,7 +91,21 @@ public class Graph<T, L extends Link> {
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Setters ////////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
-    public void setDirected(boolean directed) { isDirected = directed; }
+    public void setDirected(boolean directed) {
+        isDirected = directed;
+        if(cache != null) cache.clear();
+    }
+
+    /**
+     * Caches the results of getOpenNeighborhood(), getClosedNeighborhood(), getNeighborLinks() and findLink().
+     * Results are dropped precisely : each node carries a stamp that link(), unlink() and remove() bump, and a
+     * result is only returned while the stamps of its nodes are the ones it was computed with.
+     * Links changed through getLinks() directly aren't seen
+     * @param maximumSize is the number of results kept at most
+     */
+    public void enableCache(int maximumSize) { cache = new QueryCache<>(maximumSize, Answer::isValid); }
+
+    public void disableCache() { cache = null; }
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Getters ////////////////////////////////////////////////////////////////////////////////////
@@ -64,6 +116,12 @@ public class Graph<T, L extends Link> {
 
     public boolean isDirected() { return isDirected; }
 
+    /**
+     * Gives the query cache, with its hit and miss counts
+     * @return the cache, null if it isn't enabled
+     */
+    public QueryCache<?, ?> getCache() { return cache; }
+
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Methods ////////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
@@ -77,6 +135,7 @@ public class Graph<T, L extends Link> {
     public List<Node<T>> getPredecessors(T data) {
         List<Node<T>> predecessors = new ArrayList<>();
         Node<T> node = new Node<>(data);
+        GraphMetrics.linkScan(size());
 
         for(Link link : getLinks()) {
 
@@ -98,6 +157,7 @@ public class Graph<T, L extends Link> {
     public List<L> getPredecessorLinks(T data) {
         List<L> predecessorLinks = new ArrayList<>();
         Node<T> node = new Node<>(data);
+        GraphMetrics.linkScan(size());
 
         for(L link : getLinks()) {
             if (link.matchY(node))
@@ -121,6 +181,7 @@ public class Graph<T, L extends Link> {
     public List<Node<T>> getSuccessors(T data) {
         List<Node<T>> successors = new ArrayList<>();
         Node<T> node = new Node<>(data);
+        GraphMetrics.linkScan(size());
 
         for(Link link : getLinks()) {
 
@@ -142,6 +203,7 @@ public class Graph<T, L extends Link> {
     public List<L> getSuccessorLinks(T data) {
         List<L> successorLinks = new ArrayList<>();
         Node<T> node = new Node<>(data);
+        GraphMetrics.linkScan(size());
 
         for(L link : getLinks()) {
             if (link.matchX(node))
@@ -162,7 +224,7 @@ public class Graph<T, L extends Link> {
      * @param data is the data carried by the node
      * @return a list of all neighbors
      */
-    public List<Node<T>> getOpenNeighborhood(T data) { return ArrayMethods.merge(getPredecessors(data), getSuccessors(data)); }
+    public List<Node<T>> getOpenNeighborhood(T data) { return cached(OPEN_NEIGHBORHOOD, data, () -> ArrayMethods.merge(getPredecessors(data), getSuccessors(data))); }
 
     /**
      * Finds the closed neighborhood of a given node
@@ -170,12 +232,14 @@ public class Graph<T, L extends Link> {
      * @return a list of all neighbors plus the node
      */
     public List<Node<T>> getClosedNeighborhood(T data) {
-        var res = getOpenNeighborhood(data);
+        return cached(CLOSED_NEIGHBORHOOD, data, () -> {
+            var res = getOpenNeighborhood(data);
 
-        try { res.add(findNode(data)); }
-        catch(NodeNotFoundException e) { e.printStackTrace(); }
+            try { res.add(findNode(data)); }
+            catch(NodeNotFoundException e) { e.printStackTrace(); }
 
-        return res;
+            return res;
+        });
     }
 
     /**
@@ -183,7 +247,60 @@ public class Graph<T, L extends Link> {
      * @param data is the data carried by the node
      * @return a list of all links to neighbors
      */
-    public List<L> getNeighborLinks(T data) { return ArrayMethods.merge(getPredecessorLinks(data), getSuccessorLinks(data)); }
+    public List<L> getNeighborLinks(T data) { return cached(NEIGHBOR_LINKS, data, () -> ArrayMethods.merge(getPredecessorLinks(data), getSuccessorLinks(data))); }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Ego network methods /////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Finds the nodes at most k hops away from a given node, in either direction.
+     * The graph is indexed by the first call, and again by the first call after it changes : to cap the size of the
+     * neighborhoods, use EgoNetworks
+     * @param data is the data carried by the node
+     * @param k is the number of hops
+     * @return a list of the nodes, closest hops first, without the node itself
+     * @throws NodeNotFoundException if the node isn't in the graph
+     */
+    public List<Node<T>> neighborhood(T data, int k) throws NodeNotFoundException { return egoNetworks().neighborhood(data, k); }
+
+    /**
+     * Extracts the subgraph induced by a given node and the nodes at most k hops away from it
+     * @param data is the data carried by the node
+     * @param k is the number of hops
+     * @return a new graph of the same kind holding the same nodes and links, the given node first
+     * @throws NodeNotFoundException if the node isn't in the graph
+     */
+    public Graph<T, L> egoGraph(T data, int k) throws NodeNotFoundException { return egoNetworks().egoGraph(data, k); }
+
+    /**
+     * Extracts the ego networks of many nodes in parallel
+     * @param data is the data carried by the nodes
+     * @param k is the number of hops
+     * @return the ego networks, in the order of the nodes
+     * @throws NodeNotFoundException if a node isn't in the graph
+     */
+    public List<Graph<T, L>> egoGraphs(Collection<? extends T> data, int k) throws NodeNotFoundException { return egoNetworks().egoGraphs(data, k); }
+
+    /**
+     * Gives the extractor of ego networks, indexing the graph again if it changed since the last one
+     */
+    private EgoNetworks<T, L> egoNetworks() {
+        if(egoNetworks == null || egoStamp != stamp || egoOrder != order() || egoSize != size()) {
+            egoNetworks = new EgoNetworks<>(this);
+            egoStamp = stamp;
+            egoOrder = order();
+            egoSize = size();
+        }
+
+        return egoNetworks;
+    }
+
+    /**
+     * Creates an empty graph of the same kind and direction, subgraphs being extracted into it.
+     * Subclasses with their own kind of graph override it
+     * @return the empty graph
+     */
+    protected Graph<T, L> emptyGraph() { return new Graph<>(isDirected()); }
 
     //////////////////////////////////////////////////////////////////////
     //// Node CRUD methods ///////////////////////////////////////////////
@@ -200,9 +317,36 @@ public class Graph<T, L extends Link> {
 
         if(getNodes().contains(newNode)) return false;
         getNodes().add(newNode);
+        stamp++;
+        GraphMetrics.mutation(1);
         return true;
     }
 
+    /**
+     * Inserts many nodes at once. Unlike insert(), existing nodes are only scanned once for the whole batch
+     * @param data is the data carried by the new nodes
+     * @return the number of nodes actually inserted
+     */
+    public int insertAll(Collection<? extends T> data) {
+        BulkOperationEvent event = new BulkOperationEvent("insertAll");
+        Set<T> known = new HashSet<>();
+        int inserted = 0;
+
+        for(Node<T> node : getNodes()) { known.add(node.getData()); }
+
+        for(T elem : data) {
+            if(known.add(elem)) {
+                getNodes().add(new Node<>(elem));
+                inserted++;
+            }
+        }
+
+        if(inserted > 0) stamp++;
+        GraphMetrics.mutation(inserted);
+        event.finish(inserted);
+        return inserted;
+    }
+
     /**
      * Finds a node by its data
      * @param data corresponds to the data carried by the node
@@ -210,6 +354,8 @@ public class Graph<T, L extends Link> {
      * @throws NodeNotFoundException if the node is not found
      */
     public Node<T> findNode(T data) throws NodeNotFoundException {
+        GraphMetrics.lookup();
+
         for(Node<T> node : getNodes())
             if (Objects.equals(node.getData(), data))
                 return node;
@@ -229,7 +375,15 @@ public class Graph<T, L extends Link> {
      * @return true if the node was deleted
      * @throws NodeNotFoundException if the node isn't in the graph
      */
-    public boolean remove(T data) throws NodeNotFoundException { return deleteLinks(getNeighborLinks(data)) && getNodes().remove(findNode(data)); }
+    public boolean remove(T data) throws NodeNotFoundException {
+        Node<T> node = findNode(data);
+        if(!deleteLinks(getNeighborLinks(data)) || !getNodes().remove(node)) return false;
+
+        node.touch();
+        stamp++;
+        GraphMetrics.mutation(1);
+        return true;
+    }
 
     //////////////////////////////////////////////////////////////////////
     //// Link CRUD methods ///////////////////////////////////////////////
@@ -249,9 +403,27 @@ public class Graph<T, L extends Link> {
 
         if (!isDirected() && getLinks().contains(newLink.getSymmetrical())) return false;
         getLinks().add(newLink);
+        touch(newLink);
+        GraphMetrics.mutation(1);
         return true;
     }
 
+    /**
+     * Inserts a batch of already built links. Unlike link(), neither extremity is looked up
+     * and duplicates aren't checked, so the batch is expected to come from a trusted source (bulk imports)
+     * @param batch is the list of links to insert
+     * @return true if the graph changed
+     */
+    public boolean linkAll(Collection<? extends L> batch) {
+        BulkOperationEvent event = new BulkOperationEvent("linkAll");
+        boolean changed = getLinks().addAll(batch);
+        for(L link : batch) { touch(link); }
+
+        GraphMetrics.mutation(batch.size());
+        event.finish(batch.size());
+        return changed;
+    }
+
     /**
      * Finds all links that have a given node
      * @param data is the data carried by the searched node
@@ -263,6 +435,7 @@ public class Graph<T, L extends Link> {
         List<L> linked = new ArrayList<>();
         List<L> links = getLinks();
 
+        GraphMetrics.linkScan(links.size());
         for(L link : links) {
             if(link.matchX(node)) { linked.add(link); }
             if(!isDirected() && link.matchY(node)) { linked.add(link); }
@@ -279,11 +452,21 @@ public class Graph<T, L extends Link> {
      * @throws NodeNotFoundException if either node isn't found
      * @throws LinkNotFoundException if the link is not found
      */
+    @SuppressWarnings("unchecked")
     protected L findLink(T dataX, T dataY) throws NodeNotFoundException, LinkNotFoundException {
+        Query key = (cache == null) ? null : new Query(FIND_LINK, dataX, dataY);
+
+        if(key != null) {
+            Answer answer = cache.get(key);
+            if(answer != null) return (L) answer.result;
+        }
+
         Node<T> x = findNode(dataX);
         Node<T> y = findNode(dataY);
+        L link = (isDirected()) ? findDirectedLink(x, y) : findNonDirectedLink(x, y);
 
-        return (isDirected()) ? findDirectedLink(x, y) : findNonDirectedLink(x, y);
+        if(key != null) cache.put(key, new Answer(x, y, link));
+        return link;
     }
 
     /**
@@ -294,6 +477,8 @@ public class Graph<T, L extends Link> {
      * @throws LinkNotFoundException if the link is not found
      */
     private L findDirectedLink(Node<T> x, Node<T> y) throws LinkNotFoundException {
+        GraphMetrics.linkScan(size());
+
         for(L link : getLinks())
             if(link.matches(x, y))
                 return link;
@@ -309,6 +494,8 @@ public class Graph<T, L extends Link> {
      * @throws LinkNotFoundException if the link is not found
      */
     protected L findNonDirectedLink(Node<T> x, Node<T> y) throws LinkNotFoundException {
+        GraphMetrics.linkScan(size());
+
         for(L link : getLinks())
             if(link.matches(x, y) || link.getSymmetrical().matches(x, y))
                 return link;
@@ -330,14 +517,20 @@ public class Graph<T, L extends Link> {
      * @throws NodeNotFoundException if the node isn't in the graph
      * @throws LinkNotFoundException if the link isn't in the graph
      */
-    public boolean unlink(T dataX, T dataY) throws NodeNotFoundException, LinkNotFoundException { return getLinks().remove(findLink(dataX, dataY)); }
+    public boolean unlink(T dataX, T dataY) throws NodeNotFoundException, LinkNotFoundException { return unlink(findLink(dataX, dataY)); }
 
     /**
-     * Deletes a link from the graph
+     * Deletes a link from the graph. Every removal goes through this method
      * @param link is the link to be removed
      * @return true if it was successfully removed
      */
-    private boolean unlink(L link) { return getLinks().remove(link); }
+    protected boolean unlink(L link) {
+        if(!getLinks().remove(link)) return false;
+        touch(link);
+
+        GraphMetrics.mutation(1);
+        return true;
+    }
 
     /**
      * Deletes a bunch of links from the graph
@@ -361,21 +554,36 @@ public class Graph<T, L extends Link> {
      * @return true if the graph is complete, otherwise false
      */
     public boolean isComplete() {
+        AlgorithmEvent event = new AlgorithmEvent("isComplete", order(), size());
+        long settled = 0, checked = 0;
+
         for(Node<T> node : getNodes()) {
             List<Node<T>> sublist = new ArrayList<>(getNodes());
             sublist.remove(node);
+            settled++;
 
             for(Node<T> otherNode : sublist) {
+                checked++;
+
                 try { findLink(node.getData(), otherNode.getData()); }
-                catch(NodeNotFoundException | LinkNotFoundException e) { return false; }
+                catch(NodeNotFoundException | LinkNotFoundException e) {
+                    event.finish(settled, checked);
+                    return false;
+                }
 
                 if(!isDirected()) {
+                    checked++;
+
                     try { findLink(otherNode.getData(), node.getData()); }
-                    catch(NodeNotFoundException | LinkNotFoundException e) { return false; }
+                    catch(NodeNotFoundException | LinkNotFoundException e) {
+                        event.finish(settled, checked);
+                        return false;
+                    }
                 }
             }
         }
 
+        event.finish(settled, checked);
         return true;
     }
 
@@ -388,22 +596,27 @@ public class Graph<T, L extends Link> {
      * @throws NodeNotFoundException if the node doesn't exist
      */
     public void iterativeBFS(T data) throws NodeNotFoundException {
+        AlgorithmEvent event = new AlgorithmEvent("iterativeBFS", order(), size());
         List<Node<T>> alreadyVisited = new ArrayList<>();
         Node<T> root = findNode(data);
 
         root.model();
         List<Node<T>> successors = getSuccessors(root.getData());
+        long followed = successors.size();
 
         while(ArrayMethods.similarity(alreadyVisited, getNodes()) + 1 != order()) {
             for(Node<T> elem : successors) {
                 if(!alreadyVisited.contains(elem)) {
                     elem.model();
-                    successors = ArrayMethods.merge(successors, getSuccessors(elem.getData()));
+                    List<Node<T>> next = getSuccessors(elem.getData());
+                    followed += next.size();
+                    successors = ArrayMethods.merge(successors, next);
                     alreadyVisited.add(elem);
                 }
             }
         }
 
+        event.finish(alreadyVisited.size() + 1, followed);
         System.out.println("=== END OF BFS ===");
     }
 
@@ -413,16 +626,23 @@ public class Graph<T, L extends Link> {
      * @throws NodeNotFoundException if the node doesn't exist
      */
     public void recursiveBFS(T data) throws NodeNotFoundException {
+        AlgorithmEvent event = new AlgorithmEvent("recursiveBFS", order(), size());
+        List<Node<T>> alreadyVisited = new ArrayList<>();
         Node<T> root = findNode(data);
         root.model();
 
-        recursiveBFS(new ArrayList<>(), getSuccessors(data));
+        List<Node<T>> successors = getSuccessors(data);
+        long followed = successors.size() + recursiveBFS(alreadyVisited, successors);
+        event.finish(alreadyVisited.size() + 1, followed);
     }
 
     /**
      * A recursive approach to breadth-first search (the actually recursive part)
+     * @return the number of links followed
      */
-    private void recursiveBFS(List<Node<T>> alreadyVisited, List<Node<T>> successors) {
+    private long recursiveBFS(List<Node<T>> alreadyVisited, List<Node<T>> successors) {
+        long followed = 0;
+
         if(ArrayMethods.similarity(alreadyVisited, getNodes()) + 1 != order()) {
             if(successors.size() > 0) {
                 Node<T> elem = ArrayMethods.head(successors);
@@ -430,13 +650,17 @@ public class Graph<T, L extends Link> {
 
                 if (!alreadyVisited.contains(elem)) {
                     elem.model();
-                    successors = ArrayMethods.merge(tail, getSuccessors(elem.getData()));
+                    List<Node<T>> next = getSuccessors(elem.getData());
+                    followed = next.size();
+                    successors = ArrayMethods.merge(tail, next);
                     alreadyVisited.add(elem);
                 }
 
-                recursiveBFS(alreadyVisited, successors);
+                followed += recursiveBFS(alreadyVisited, successors);
             }
         } else { System.out.println("=== END OF BFS ==="); }
+
+        return followed;
     }
 
     /**
@@ -445,25 +669,29 @@ public class Graph<T, L extends Link> {
      * @throws NodeNotFoundException if the node doesn't exist
      */
     public void iterativeDFS(T data) throws NodeNotFoundException {
+        AlgorithmEvent event = new AlgorithmEvent("iterativeDFS", order(), size());
         List<Node<T>> alreadyVisited = new ArrayList<>();
         Node<T> root = findNode(data);
 
         root.model();
         List<Node<T>> successors = getSuccessors(data);
-
-        while(ArrayMethods.similarity(alreadyVisited, getNodes()) + 1 != order()) {
-            if(successors.size() > 0) {
-                Node<T> elem = ArrayMethods.head(successors);
-                List<Node<T>> tail = ArrayMethods.tail(successors);
-
-                if(!alreadyVisited.contains(elem)) {
-                    elem.model();
-                    successors = ArrayMethods.merge(getSuccessors(elem.getData()), tail);
-                    alreadyVisited.add(elem);
-                }
-            }
+        long followed = successors.size();
+
+        // Stops once every node is visited, or when the remaining ones can't be reached
+        while(ArrayMethods.similarity(alreadyVisited, getNodes()) + 1 != order() && successors.size() > 0) {
+            Node<T> elem = ArrayMethods.head(successors);
+            List<Node<T>> tail = ArrayMethods.tail(successors);
+
+            if(!alreadyVisited.contains(elem)) {
+                elem.model();
+                List<Node<T>> next = getSuccessors(elem.getData());
+                followed += next.size();
+                successors = ArrayMethods.merge(next, tail);
+                alreadyVisited.add(elem);
+            } else { successors = tail; }
         }
 
+        event.finish(alreadyVisited.size() + 1, followed);
         System.out.println("=== END OF DFS ===");
     }
 
@@ -486,4 +714,89 @@ public class Graph<T, L extends Link> {
 
         return true;
     }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Cache methods ///////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Bumps the stamps of both nodes of a link, and the graph's, so cached results about them go stale.
+     * Subclasses adding or changing links by themselves call it
+     * @param link is the link added, removed or changed
+     */
+    protected void touch(Link link) {
+        link.getX().touch();
+        link.getY().touch();
+        stamp++;
+    }
+
+    /**
+     * Answers a query about a node from the cache, or runs it and caches its result.
+     * Callers get their own copy of the list, as they may change it
+     * @param kind is the kind of query
+     * @param data is the data carried by the node
+     * @param query computes the result
+     * @return the result
+     */
+    @SuppressWarnings("unchecked")
+    private <R> List<R> cached(byte kind, T data, Supplier<List<R>> query) {
+        if(cache == null) return query.get();
+
+        Query key = new Query(kind, data, null);
+        Answer answer = cache.get(key);
+        if(answer != null) return new ArrayList<>((List<R>) answer.result);
+
+        List<R> result = query.get();
+
+        try { cache.put(key, new Answer(findNode(data), null, new ArrayList<>(result))); }
+        catch(NodeNotFoundException e) { /* Results about nodes that aren't in the graph have no stamp to check, so they aren't kept */ }
+
+        return result;
+    }
+
+    /**
+     * Key of a cached query : its kind and the data of the nodes it's about
+     */
+    private static final class Query {
+        private final byte kind;
+
+        private final Object x, y;
+
+        private Query(byte kind, Object x, Object y) {
+            this.kind = kind;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(!(obj instanceof Query)) return false;
+
+            Query other = (Query) obj;
+            return kind == other.kind && Objects.equals(x, other.x) && Objects.equals(y, other.y);
+        }
+
+        @Override
+        public int hashCode() { return (31 * kind + Objects.hashCode(x)) * 31 + Objects.hashCode(y); }
+    }
+
+    /**
+     * Cached result, with the stamps its nodes had when it was computed
+     */
+    private static final class Answer {
+        private final Node<?> x, y;
+
+        private final long stampX, stampY;
+
+        private final Object result;
+
+        private Answer(Node<?> x, Node<?> y, Object result) {
+            this.x = x;
+            this.y = y;
+            this.stampX = x.getStamp();
+            this.stampY = (y == null) ? 0 : y.getStamp();
+            this.result = result;
+        }
+
+        private boolean isValid() { return x.getStamp() == stampX && (y == null || y.getStamp() == stampY); }
+    }
 }
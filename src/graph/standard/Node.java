@@ -16,6 +16,12 @@ public class Node<T> {
      */
     private T data;
 
+    /**
+     * Modification stamp, bumped whenever a link of the node changes, the node is removed or its data changes.
+     * Cached query results remember it, and are stale once it moved
+     */
+    private long stamp;
+
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Constructors ///////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
@@ -28,13 +34,18 @@ public class Node<T> {
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Setters ////////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
-    public void setData(T data) { this.data = data; }
+    public void setData(T data) {
+        this.data = data;
+        touch();
+    }
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Getters ////////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
     public T getData() { return data; }
 
+    public long getStamp() { return stamp; }
+
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Methods ////////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
@@ -45,6 +56,11 @@ public class Node<T> {
      */
     public boolean equals(Node<T> obj) { return Objects.equals(this.getData(), obj.getData()); }
 
+    /**
+     * Bumps the modification stamp
+     */
+    void touch() { stamp++; }
+
     /**
      * How is the node represented visually ?
      */
@@ -0,0 +1,249 @@
+package graph.standard;
+
+import graph.metrics.GraphMetrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded cache of query results, evicting with W-TinyLFU.
+ * New entries go through a small LRU window first. Leaving it, they only stay if they have been asked for more
+ * often than the entry the main area would evict, popularity being estimated by a FrequencySketch. The main area
+ * is a segmented LRU : entries asked for again are protected, the others are on probation and evicted first.
+ * Entries are checked on every read, so a result that went stale is dropped instead of returned.
+ * Not thread-safe, like the graphs using it
+ * @param <K> is the type of the keys
+ * @param <V> is the type of the results
+ * @author CreeperStone72
+ */
+public final class QueryCache<K, V> {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final int maximumSize, windowMaximum, protectedMaximum;
+
+    private final Predicate<? super V> isValid;
+
+    private final Map<K, Entry<K, V>> entries;
+
+    private final FrequencySketch sketch;
+
+    /**
+     * Sentinel of each queue, its next entry being the least recently used
+     */
+    private final Entry<K, V>[] queues;
+
+    private final int[] sizes;
+
+    private long hits, misses, evictions, invalidations;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor
+     * @param maximumSize is the number of results kept at most
+     * @param isValid tells whether a result can still be returned
+     */
+    @SuppressWarnings("unchecked")
+    public QueryCache(int maximumSize, Predicate<? super V> isValid) {
+        if(maximumSize <= 0) throw new IllegalArgumentException("The size of the cache must be positive.");
+
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        // At least one, or tiny caches would demote every promoted entry straight back to probation
+        this.protectedMaximum = Math.max(1, (int) (0.8 * (maximumSize - windowMaximum)));
+        this.isValid = isValid;
+        this.entries = new HashMap<>();
+        this.sketch = new FrequencySketch(maximumSize);
+        this.queues = (Entry<K, V>[]) new Entry<?, ?>[3];
+        this.sizes = new int[3];
+
+        for(int q = 0 ; q < queues.length ; q++) {
+            queues[q] = new Entry<>(null, null);
+            queues[q].previous = queues[q].next = queues[q];
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public int getMaximumSize() { return maximumSize; }
+
+    public int size() { return entries.size(); }
+
+    public long getHits() { return hits; }
+
+    /**
+     * Counts the reads that found nothing, or a stale result
+     */
+    public long getMisses() { return misses; }
+
+    public long getEvictions() { return evictions; }
+
+    /**
+     * Counts the stale results dropped
+     */
+    public long getInvalidations() { return invalidations; }
+
+    public double getHitRate() { return (hits + misses == 0) ? 0.0 : (double) hits / (hits + misses); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Reads a result
+     * @param key is the query
+     * @return the result, null if it isn't cached or went stale
+     */
+    public V get(K key) {
+        sketch.increment(key.hashCode());
+        Entry<K, V> entry = entries.get(key);
+
+        if(entry != null && !isValid.test(entry.value)) {
+            remove(entry);
+            invalidations++;
+            entry = null;
+        }
+
+        if(entry == null) {
+            misses++;
+            GraphMetrics.cacheMiss();
+            return null;
+        }
+
+        hits++;
+        GraphMetrics.cacheHit();
+        touch(entry);
+        return entry.value;
+    }
+
+    /**
+     * Stores a result, which may evict another one
+     * @param key is the query
+     * @param value is the result
+     */
+    public void put(K key, V value) {
+        Entry<K, V> entry = entries.get(key);
+
+        if(entry != null) {
+            entry.value = value;
+            touch(entry);
+            return;
+        }
+
+        entry = new Entry<>(key, value);
+        entries.put(key, entry);
+        append(WINDOW, entry);
+
+        if(sizes[WINDOW] > windowMaximum) admit(queues[WINDOW].next);
+    }
+
+    /**
+     * Drops a result
+     * @param key is the query
+     */
+    public void invalidate(K key) {
+        Entry<K, V> entry = entries.get(key);
+        if(entry != null) remove(entry);
+    }
+
+    /**
+     * Drops every result. Popularity is kept
+     */
+    public void clear() {
+        entries.clear();
+
+        for(int q = 0 ; q < queues.length ; q++) {
+            queues[q].previous = queues[q].next = queues[q];
+            sizes[q] = 0;
+        }
+    }
+
+    /**
+     * Moves an entry leaving the window to probation, then evicts whichever of it and the main area's victim
+     * is the least popular, if the main area is full
+     */
+    private void admit(Entry<K, V> candidate) {
+        unlink(candidate);
+        append(PROBATION, candidate);
+
+        if(sizes[PROBATION] + sizes[PROTECTED] <= maximumSize - windowMaximum) return;
+
+        Entry<K, V> victim = (sizes[PROBATION] > 1) ? queues[PROBATION].next : queues[PROTECTED].next;
+        if(victim == queues[PROTECTED]) victim = candidate;
+
+        boolean keepCandidate = victim != candidate && sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode());
+
+        remove(keepCandidate ? victim : candidate);
+        evictions++;
+        GraphMetrics.cacheEviction();
+    }
+
+    /**
+     * Records a use : window and protected entries become the most recent, entries on probation get protected
+     */
+    private void touch(Entry<K, V> entry) {
+        if(entry.queue == PROBATION) {
+            unlink(entry);
+            append(PROTECTED, entry);
+
+            if(sizes[PROTECTED] > protectedMaximum) {
+                Entry<K, V> demoted = queues[PROTECTED].next;
+                unlink(demoted);
+                append(PROBATION, demoted);
+            }
+        } else {
+            int queue = entry.queue;
+            unlink(entry);
+            append(queue, entry);
+        }
+    }
+
+    private void remove(Entry<K, V> entry) {
+        entries.remove(entry.key);
+        unlink(entry);
+    }
+
+    private void append(int queue, Entry<K, V> entry) {
+        Entry<K, V> sentinel = queues[queue];
+
+        entry.queue = queue;
+        entry.previous = sentinel.previous;
+        entry.next = sentinel;
+        sentinel.previous.next = entry;
+        sentinel.previous = entry;
+        sizes[queue]++;
+    }
+
+    private void unlink(Entry<K, V> entry) {
+        entry.previous.next = entry.next;
+        entry.next.previous = entry.previous;
+        entry.previous = entry.next = null;
+        sizes[entry.queue]--;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Entry ///////////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    private static final class Entry<K, V> {
+        private final K key;
+
+        private V value;
+
+        private int queue;
+
+        private Entry<K, V> previous, next;
+
+        private Entry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package graph.standard;
+
+import java.util.SplittableRandom;
+
+/**
+ * Derives unrelated seeds from a single one, so that tasks running in parallel each draw from their own random
+ * stream while the results only depend on the seed
+ * @author CreeperStone72
+ */
+public final class Seeds {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Odd constant (2^64 over the golden ratio) spreading consecutive indexes over the whole range of longs
+     */
+    public static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private Seeds() {}
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Mixes bits so close inputs give unrelated outputs (finalizer of MurmurHash3)
+     * @param h is the value to mix
+     * @return the mixed value
+     */
+    public static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * Derives the seed of a task
+     * @param seed is the seed shared by every task
+     * @param index is the index of the task, such as a block or a root
+     * @return the task's own seed
+     */
+    public static long of(long seed, long index) { return mix(seed + GOLDEN_GAMMA * (index + 1L)); }
+
+    /**
+     * Opens the random stream of a task
+     * @param seed is the seed shared by every task
+     * @param index is the index of the task, such as a block or a root
+     * @return a generator seeded with of(seed, index)
+     */
+    public static SplittableRandom random(long seed, long index) { return new SplittableRandom(of(seed, index)); }
+}
@@ -0,0 +1,73 @@
+package graph.standard.adjacency;
+
+import java.util.function.IntConsumer;
+
+/**
+ * A read-only, int-indexed view of the links within a graph.
+ * Node i is the i-th node of the graph the adjacency was built from, and the links leaving it
+ * are stored at positions begin(i) (included) to end(i) (excluded)
+ * @author CreeperStone72
+ */
+public interface Adjacency {
+    /**
+     * Counts the number of nodes
+     * @return the number of nodes
+     */
+    int order();
+
+    /**
+     * Counts the number of stored links. Non-directed links are stored once in each direction
+     * @return the number of stored links
+     */
+    long size();
+
+    /**
+     * Is there a weight stored alongside each link ?
+     * @return true if weights are stored, otherwise false (every weight is then 1.0)
+     */
+    boolean isWeighted();
+
+    /**
+     * Finds where the links of a node start
+     * @param node is the index of the node
+     * @return the position of the first link leaving the node
+     */
+    long begin(int node);
+
+    /**
+     * Finds where the links of a node end
+     * @param node is the index of the node
+     * @return the position right after the last link leaving the node
+     */
+    long end(int node);
+
+    /**
+     * Reads the ending node of a link
+     * @param position is the position of the link
+     * @return the index of the node the link goes to
+     */
+    int target(long position);
+
+    /**
+     * Reads the weight of a link
+     * @param position is the position of the link
+     * @return the weight of the link, or 1.0 if weights aren't stored
+     */
+    double weight(long position);
+
+    /**
+     * Counts the links leaving a node
+     * @param node is the index of the node
+     * @return the out-degree of the node
+     */
+    default long degree(int node) { return end(node) - begin(node); }
+
+    /**
+     * Runs an action on every successor of a node
+     * @param node is the index of the node
+     * @param action is the action run on each successor's index
+     */
+    default void forEachSuccessor(int node, IntConsumer action) {
+        for(long i = begin(node), end = end(node) ; i < end ; i++) { action.accept(target(i)); }
+    }
+}
@@ -0,0 +1,526 @@
+package graph.standard.adjacency;
+
+import graph.standard.Graph;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * Adjacency compressed in the style of WebGraph, for read-only graphs whose nodes were numbered with locality.
+ * Successors are kept sorted, and every list is stored as a byte-aligned varint stream :
+ * - its degree,
+ * - optionally a reference to one of the few lists before it, with the parts of that list it copies given as
+ * alternating copy and skip blocks,
+ * - the successors left (residuals), the first one relative to the node and every other one as the gap from the
+ * one before it.
+ * Lists only refer to lists that don't chain too many references, which bounds the cost of decoding any of them.
+ * An offset index gives where every list starts, so any node's successors are read without decoding the others.
+ * Positions given to target() and weight() follow the sorted lists, and reading them in order on one thread
+ * only decodes each list once. Weights, if any, aren't compressed, and the encoded lists must fit in 2 GB
+ * @author CreeperStone72
+ */
+public final class CompressedAdjacency implements Adjacency {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Number of lists before a node that it may refer to
+     */
+    public static final int DEFAULT_WINDOW = 7;
+
+    /**
+     * Maximal length of a chain of references
+     */
+    public static final int DEFAULT_MAX_CHAIN = 3;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Number of nodes
+     */
+    private final int order;
+
+    /**
+     * Encoded lists, one after the other
+     */
+    private final byte[] code;
+
+    /**
+     * order + 1 ints, the list of node i is encoded between pointers[i] and pointers[i + 1]
+     */
+    private final int[] pointers;
+
+    /**
+     * order + 1 longs, the links of node i are at positions begins[i] to begins[i + 1]
+     */
+    private final long[] begins;
+
+    /**
+     * size doubles, the weight of each link in sorted order, or null if the adjacency isn't weighted
+     */
+    private final double[] weights;
+
+    /**
+     * Decoder of the calling thread, remembering the last list it read
+     */
+    private final ThreadLocal<Decoder> decoders;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor, used by the encoder
+     */
+    private CompressedAdjacency(int order, byte[] code, int[] pointers, long[] begins, double[] weights) {
+        this.order = order;
+        this.code = code;
+        this.pointers = pointers;
+        this.begins = begins;
+        this.weights = weights;
+        this.decoders = ThreadLocal.withInitial(Decoder::new);
+    }
+
+    /**
+     * Compresses an adjacency with the default window and chain length
+     * @param adjacency is the adjacency to compress, left untouched
+     * @return the compressed adjacency
+     */
+    public static CompressedAdjacency of(Adjacency adjacency) { return of(adjacency, DEFAULT_WINDOW, DEFAULT_MAX_CHAIN); }
+
+    /**
+     * Compresses an adjacency
+     * @param adjacency is the adjacency to compress, left untouched
+     * @param window is the number of lists before a node that it may refer to, 0 to never refer
+     * @param maxChain is the maximal length of a chain of references
+     * @return the compressed adjacency
+     * @throws IllegalArgumentException if the window or the chain length is negative
+     */
+    public static CompressedAdjacency of(Adjacency adjacency, int window, int maxChain) {
+        if(window < 0) throw new IllegalArgumentException("The window must be positive.");
+        if(maxChain < 0) throw new IllegalArgumentException("The chain length must be positive.");
+
+        return new Encoder(adjacency, window, maxChain).encode();
+    }
+
+    /**
+     * Compresses the links of a graph, going through an off-heap adjacency.
+     * Node i is the i-th element of graph.getNodes(), weights are stored if the links are weighted
+     * @param graph is the graph to compress
+     * @return the compressed adjacency
+     */
+    public static CompressedAdjacency of(Graph<?, ?> graph) {
+        try(OffHeapAdjacency adjacency = OffHeapAdjacency.of(graph)) { return of(adjacency); }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Override
+    public int order() { return order; }
+
+    @Override
+    public long size() { return begins[order]; }
+
+    @Override
+    public boolean isWeighted() { return weights != null; }
+
+    @Override
+    public long begin(int node) { return begins[Objects.checkIndex(node, order)]; }
+
+    @Override
+    public long end(int node) { return begins[Objects.checkIndex(node, order) + 1]; }
+
+    @Override
+    public int target(long position) {
+        // Checked by hand, the long overload of Objects.checkIndex() only comes with JDK 16
+        if(position < 0 || position >= size()) throw new IndexOutOfBoundsException("Index " + position + " out of bounds for length " + size());
+        return decoders.get().target(position);
+    }
+
+    @Override
+    public double weight(long position) { return (weights == null) ? 1.0 : weights[Math.toIntExact(position)]; }
+
+    /**
+     * Size taken by the adjacency, offset index and weights included
+     * @return the number of bytes
+     */
+    public long bytes() { return code.length + 4L * pointers.length + 8L * begins.length + ((weights == null) ? 0 : 8L * weights.length); }
+
+    /**
+     * Size taken by the encoded lists alone, per link
+     * @return the number of bytes per link
+     */
+    public double bytesPerLink() { return (size() == 0) ? 0.0 : (double) code.length / size(); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Decodes the successors of a node
+     * @param node is the index of the node
+     * @param into receives the successors in increasing order, from index 0. It must hold degree(node) ints
+     * @return the number of successors
+     */
+    public int successors(int node, int[] into) {
+        Objects.checkIndex(node, order);
+
+        Decoder decoder = decoders.get();
+        int degree = decoder.decode(node, 0);
+        System.arraycopy(decoder.lists[0], 0, into, 0, degree);
+        return degree;
+    }
+
+    @Override
+    public void forEachSuccessor(int node, IntConsumer action) {
+        Objects.checkIndex(node, order);
+
+        Decoder decoder = decoders.get();
+        int degree = decoder.decode(node, 0);
+        if(degree == 0) return;
+
+        // The list is lent to the action, which may read the adjacency on the same thread with a spare buffer
+        int[] list = decoder.lists[0];
+        decoder.lists[0] = (decoder.spare != null) ? decoder.spare : new int[16];
+        decoder.spare = null;
+        decoder.cached = -1;
+
+        try { for(int i = 0 ; i < degree ; i++) { action.accept(list[i]); } }
+        finally {
+            decoder.spare = decoder.lists[0];
+            decoder.lists[0] = list;
+            decoder.cached = node;
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Varints /////////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    private static int zigzag(int value) { return (value << 1) ^ (value >> 31); }
+
+    private static int unzigzag(int value) { return (value >>> 1) ^ -(value & 1); }
+
+    /**
+     * Growable byte array that varints are written to
+     */
+    private static final class Bytes {
+        private byte[] array = new byte[64];
+
+        private int length;
+
+        private void write(int value) {
+            if(length + 5 > array.length) array = Arrays.copyOf(array, Math.max(2 * array.length, length + 5));
+
+            while((value & ~0x7F) != 0) {
+                array[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+
+            array[length++] = (byte) value;
+        }
+
+        private void write(Bytes other) {
+            if(length + other.length > array.length) array = Arrays.copyOf(array, Math.max(2 * array.length, length + other.length));
+
+            System.arraycopy(other.array, 0, array, length, other.length);
+            length += other.length;
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Decoder /////////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Reads lists on one thread. Lists referred to are decoded one level deeper, each level with its own buffers
+     */
+    private final class Decoder {
+        private int[][] lists = new int[1][16];
+
+        private int[][] copies = new int[1][16];
+
+        /**
+         * Buffer put in place of lists[0] while forEachSuccessor() lends it
+         */
+        private int[] spare;
+
+        private int position;
+
+        /**
+         * Node whose list is in lists[0], -1 if none
+         */
+        private int cached = -1;
+
+        private int target(long position) {
+            if(cached == -1 || position < begins[cached] || position >= begins[cached + 1]) {
+                int node = cached + 1;
+
+                // Reading in order mostly goes to the next node
+                if(node <= 0 || node >= order || position < begins[node] || position >= begins[node + 1]) node = locate(position);
+                decode(node, 0);
+            }
+
+            return lists[0][(int) (position - begins[cached])];
+        }
+
+        /**
+         * Finds the node a position belongs to, the last one starting at or before it
+         */
+        private int locate(long position) {
+            int low = 0, high = order - 1;
+
+            while(low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if(begins[middle] <= position) low = middle;
+                else high = middle - 1;
+            }
+
+            return low;
+        }
+
+        /**
+         * Decodes the list of a node into lists[level]
+         * @return the degree of the node
+         */
+        private int decode(int node, int level) {
+            if(level == 0) cached = node;
+            if(level >= lists.length) {
+                lists = Arrays.copyOf(lists, level + 1);
+                copies = Arrays.copyOf(copies, level + 1);
+                lists[level] = new int[16];
+                copies[level] = new int[16];
+            }
+
+            position = pointers[node];
+            int degree = read();
+            if(lists[level].length < degree) lists[level] = new int[Math.max(degree, 2 * lists[level].length)];
+            if(degree == 0) return 0;
+
+            int[] list = lists[level];
+            int reference = read(), copied = 0;
+
+            // Step 1 : Copying the blocks of the list referred to
+            if(reference > 0) {
+                int back = position;
+                int referred = decode(node - reference, level + 1);
+                int[] source = lists[level + 1];
+                position = back;
+
+                if(copies[level].length < referred) copies[level] = new int[Math.max(referred, 2 * copies[level].length)];
+                int[] copy = copies[level];
+                int blocks = read(), at = 0;
+
+                for(int b = 0 ; b < blocks ; b++) {
+                    int length = read() + ((b == 0) ? 0 : 1);
+
+                    if(b % 2 == 0) {
+                        System.arraycopy(source, at, copy, copied, length);
+                        copied += length;
+                    }
+
+                    at += length;
+                }
+
+                if(blocks % 2 == 0) {
+                    System.arraycopy(source, at, copy, copied, referred - at);
+                    copied += referred - at;
+                }
+            }
+
+            // Step 2 : Merging the residuals in
+            int residuals = degree - copied;
+            int[] copy = copies[level];
+            int i = 0, j = 0, k = 0, previous = 0;
+
+            while(j < residuals) {
+                int next = (j == 0) ? node + unzigzag(read()) : previous + read();
+                previous = next;
+                j++;
+
+                while(i < copied && copy[i] <= next) list[k++] = copy[i++];
+                list[k++] = next;
+            }
+
+            while(i < copied) list[k++] = copy[i++];
+            return degree;
+        }
+
+        private int read() {
+            int value = 0, shift = 0;
+            byte b;
+
+            do {
+                b = code[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while(b < 0);
+
+            return value;
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Encoder /////////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Encodes the lists in node order, trying for each one every list of the window as a reference and keeping the
+     * shortest encoding
+     */
+    private static final class Encoder {
+        private final Adjacency adjacency;
+
+        private final int window, maxChain, order;
+
+        /**
+         * Sorted lists of the last window + 1 nodes, in a ring
+         */
+        private final int[][] recent;
+
+        private final int[] recentDegrees;
+
+        /**
+         * Length of the chain of references of every node
+         */
+        private final int[] chains;
+
+        private final Bytes code = new Bytes(), best = new Bytes(), trial = new Bytes();
+
+        /**
+         * Whether every element of the list referred to is copied, and every successor is one of the copies
+         */
+        private boolean[] copied = new boolean[16], matched = new boolean[16];
+
+        private int[] lengths = new int[16];
+
+        private Encoder(Adjacency adjacency, int window, int maxChain) {
+            this.adjacency = adjacency;
+            this.window = window;
+            this.maxChain = maxChain;
+            this.order = adjacency.order();
+            this.recent = new int[window + 1][];
+            this.recentDegrees = new int[window + 1];
+            this.chains = new int[order];
+        }
+
+        private CompressedAdjacency encode() {
+            int[] pointers = new int[order + 1];
+            long[] begins = new long[order + 1];
+            double[] weights = adjacency.isWeighted() ? new double[Math.toIntExact(adjacency.size())] : null;
+            long[] keys = new long[16];
+
+            for(int x = 0 ; x < order ; x++) {
+                // Step 1 : Sorting the successors, weights following them
+                long begin = adjacency.begin(x);
+                int degree = Math.toIntExact(adjacency.end(x) - begin);
+                int slot = x % (window + 1);
+
+                if(recent[slot] == null || recent[slot].length < degree) recent[slot] = new int[Math.max(16, degree)];
+                int[] list = recent[slot];
+                recentDegrees[slot] = degree;
+                begins[x + 1] = begins[x] + degree;
+
+                if(weights == null) {
+                    for(int i = 0 ; i < degree ; i++) { list[i] = adjacency.target(begin + i); }
+                    Arrays.sort(list, 0, degree);
+                } else {
+                    if(keys.length < degree) keys = new long[Math.max(degree, 2 * keys.length)];
+                    for(int i = 0 ; i < degree ; i++) { keys[i] = ((long) adjacency.target(begin + i) << 32) | i; }
+                    Arrays.sort(keys, 0, degree);
+
+                    for(int i = 0 ; i < degree ; i++) {
+                        list[i] = (int) (keys[i] >>> 32);
+                        weights[(int) begins[x] + i] = adjacency.weight(begin + (int) keys[i]);
+                    }
+                }
+
+                // Step 2 : Keeping the shortest encoding among the references allowed
+                best.length = 0;
+                best.write(degree);
+                int chain = 0;
+
+                if(degree > 0) {
+                    trial.length = 0;
+                    writeList(x, list, degree, 0, null, 0);
+                    int bestLength = trial.length, bestReference = 0;
+
+                    for(int reference = 1 ; reference <= Math.min(window, x) ; reference++) {
+                        int r = x - reference, rSlot = r % (window + 1);
+                        if(chains[r] >= maxChain || recentDegrees[rSlot] == 0) continue;
+
+                        trial.length = 0;
+                        writeList(x, list, degree, reference, recent[rSlot], recentDegrees[rSlot]);
+
+                        if(trial.length < bestLength) {
+                            bestLength = trial.length;
+                            bestReference = reference;
+                        }
+                    }
+
+                    trial.length = 0;
+                    if(bestReference == 0) writeList(x, list, degree, 0, null, 0);
+                    else writeList(x, list, degree, bestReference, recent[(x - bestReference) % (window + 1)], recentDegrees[(x - bestReference) % (window + 1)]);
+
+                    best.write(trial);
+                    if(bestReference > 0) chain = chains[x - bestReference] + 1;
+                }
+
+                chains[x] = chain;
+                pointers[x] = code.length;
+                code.write(best);
+            }
+
+            pointers[order] = code.length;
+            return new CompressedAdjacency(order, Arrays.copyOf(code.array, code.length), pointers, begins, weights);
+        }
+
+        /**
+         * Writes a list into trial, degree excluded
+         * @param reference is how many nodes back the list referred to is, 0 for none
+         */
+        private void writeList(int x, int[] list, int degree, int reference, int[] referred, int referredDegree) {
+            trial.write(reference);
+            if(matched.length < degree) matched = new boolean[Math.max(degree, 2 * matched.length)];
+            Arrays.fill(matched, 0, degree, false);
+
+            // Copy and skip blocks over the list referred to, duplicates being matched one for one
+            if(reference > 0) {
+                if(copied.length < referredDegree) copied = new boolean[Math.max(referredDegree, 2 * copied.length)];
+                if(lengths.length < referredDegree + 1) lengths = new int[Math.max(referredDegree + 1, 2 * lengths.length)];
+
+                for(int i = 0, j = 0 ; i < referredDegree ; i++) {
+                    while(j < degree && list[j] < referred[i]) j++;
+
+                    copied[i] = j < degree && list[j] == referred[i];
+                    if(copied[i]) matched[j++] = true;
+                }
+
+                // Runs alternate, copying first. The last one isn't written : the number of blocks tells what it is
+                int blocks = 0, start = 0;
+                boolean copying = true;
+
+                for(int k = 0 ; k <= referredDegree ; k++) {
+                    if(k == referredDegree || copied[k] != copying) {
+                        lengths[blocks++] = k - start;
+                        start = k;
+                        copying = !copying;
+                    }
+                }
+
+                trial.write(blocks - 1);
+                for(int b = 0 ; b < blocks - 1 ; b++) { trial.write(lengths[b] - ((b == 0) ? 0 : 1)); }
+            }
+
+            // Residuals, the first one from the node and the others as gaps
+            int previous = 0;
+            boolean first = true;
+
+            for(int k = 0 ; k < degree ; k++) {
+                if(matched[k]) continue;
+
+                trial.write(first ? zigzag(list[k] - x) : list[k] - previous);
+                previous = list[k];
+                first = false;
+            }
+        }
+    }
+}
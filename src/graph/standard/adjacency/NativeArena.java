@@ -0,0 +1,75 @@
+package graph.standard.adjacency;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Groups native buffers sharing the same lifetime so they can all be released at once
+ * @author CreeperStone72
+ */
+final class NativeArena implements AutoCloseable {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * The buffers allocated by the arena
+     */
+    private final List<NativeBuffer> buffers;
+
+    /**
+     * If true, the buffers were released. Volatile so that readers on other threads see it soon, which doesn't make
+     * close() safe while they read
+     */
+    private volatile boolean closed;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    NativeArena() { buffers = new ArrayList<>(); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    boolean isClosed() { return closed; }
+
+    /**
+     * Size taken by the arena outside of the heap
+     * @return the number of allocated bytes
+     */
+    synchronized long bytes() {
+        long bytes = 0;
+
+        for(NativeBuffer buffer : buffers) { bytes += buffer.bytes(); }
+
+        return bytes;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Allocates a buffer tied to the arena
+     * @param scale is the log2 of the size of an element
+     * @param length is the initial number of elements
+     * @return the new buffer
+     */
+    synchronized NativeBuffer allocate(int scale, long length) {
+        if(closed) throw new IllegalStateException("Arena is closed.");
+
+        NativeBuffer buffer = new NativeBuffer(scale, length);
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    @Override
+    public synchronized void close() {
+        if(closed) return;
+
+        // Readers check the flag first, so it is raised before the pages are dropped. Pages a reader already holds
+        // stay valid, since nothing frees them by hand
+        closed = true;
+        for(NativeBuffer buffer : buffers) { buffer.free(); }
+
+        buffers.clear();
+    }
+}
@@ -0,0 +1,141 @@
+package graph.standard.adjacency;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A growable array of primitives living outside of the heap.
+ * Elements are spread over direct buffers of at most 2^PAGE_SHIFT elements, which allows more than 2^31 of them.
+ * Pages are never freed by hand : their cleaners free them once they can't be reached, so a page still held by a
+ * reader stays valid
+ * @author CreeperStone72
+ */
+final class NativeBuffer {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    static final int INT = 2, LONG = 3, DOUBLE = 3;
+
+    private static final int PAGE_SHIFT = 22;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final long PAGE_MASK = PAGE_SIZE - 1;
+    private static final int MIN_PAGE_SIZE = 64;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Log2 of the size of an element, in bytes
+     */
+    private final int scale;
+
+    /**
+     * The direct buffers holding the elements
+     */
+    private ByteBuffer[] pages;
+
+    /**
+     * How many elements fit in the allocated pages
+     */
+    private long capacity;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor
+     * @param scale is the log2 of the size of an element (INT, LONG or DOUBLE)
+     * @param length is the initial number of elements
+     */
+    NativeBuffer(int scale, long length) {
+        this.scale = scale;
+        pages = new ByteBuffer[0];
+        ensureCapacity(length);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    void putInt(long i, int value) { page(i).putInt(offset(i), value); }
+
+    void putLong(long i, long value) { page(i).putLong(offset(i), value); }
+
+    void putDouble(long i, double value) { page(i).putDouble(offset(i), value); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    int getInt(long i) { return page(i).getInt(offset(i)); }
+
+    long getLong(long i) { return page(i).getLong(offset(i)); }
+
+    double getDouble(long i) { return page(i).getDouble(offset(i)); }
+
+    long capacity() { return capacity; }
+
+    /**
+     * Size taken by the buffer outside of the heap
+     * @return the number of allocated bytes
+     */
+    long bytes() { return capacity << scale; }
+
+    private ByteBuffer page(long i) { return pages[(int) (i >>> PAGE_SHIFT)]; }
+
+    private int offset(long i) { return (int) (i & PAGE_MASK) << scale; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Makes sure a given number of elements fit in the buffer. Full pages are never moved
+     * @param length is the number of elements needed
+     */
+    void ensureCapacity(long length) {
+        if(length <= capacity) return;
+
+        int count = (int) ((length + PAGE_MASK) >>> PAGE_SHIFT);
+        int previous = pages.length;
+        pages = Arrays.copyOf(pages, count);
+
+        // The previous last page may have been allocated short
+        if(previous > 0 && previous < count) resize(previous - 1, PAGE_SIZE);
+        for(int p = previous ; p < count - 1 ; p++) { pages[p] = allocate(PAGE_SIZE); }
+
+        int needed = (int) (length - ((long) (count - 1) << PAGE_SHIFT));
+        int size = Math.min(PAGE_SIZE, Math.max(MIN_PAGE_SIZE, Integer.highestOneBit(needed - 1) << 1));
+        resize(count - 1, Math.max(size, needed));
+
+        capacity = 0;
+        for(ByteBuffer page : pages) { capacity += page.capacity() >>> scale; }
+    }
+
+    /**
+     * Drops the pages, whose native memory goes with the next garbage collection
+     */
+    void free() {
+        pages = new ByteBuffer[0];
+        capacity = 0;
+    }
+
+    /**
+     * Reallocates a page with a given number of elements, keeping its content
+     * @param p is the index of the page
+     * @param elements is the new number of elements
+     */
+    private void resize(int p, int elements) {
+        ByteBuffer old = pages[p];
+        if(old != null && old.capacity() >>> scale >= elements) return;
+
+        ByteBuffer page = allocate(elements);
+
+        if(old != null) {
+            page.put(old.duplicate().clear());
+            page.clear();
+        }
+
+        pages[p] = page;
+    }
+
+    private ByteBuffer allocate(int elements) { return ByteBuffer.allocateDirect(elements << scale).order(ByteOrder.nativeOrder()); }
+}
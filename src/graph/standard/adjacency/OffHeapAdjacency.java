@@ -0,0 +1,266 @@
+package graph.standard.adjacency;
+
+import graph.standard.Graph;
+import graph.standard.Link;
+import graph.standard.Node;
+import graph.standard.weighted.WeightedLink;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compressed sparse row adjacency stored outside of the heap.
+ * Offsets, targets and weights live in native memory owned by a single arena, so no Node or Link object is kept
+ * and the garbage collector never scans them. Positions are longs, which allows more than 2^31 links
+ * @author CreeperStone72
+ */
+public final class OffHeapAdjacency implements Adjacency, AutoCloseable {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Owner of every native buffer below
+     */
+    private final NativeArena arena;
+
+    /**
+     * Number of nodes
+     */
+    private final int order;
+
+    /**
+     * Number of stored links
+     */
+    private final long size;
+
+    /**
+     * order + 1 longs, the links of node i are stored between offsets[i] and offsets[i + 1]
+     */
+    private final NativeBuffer offsets;
+
+    /**
+     * size ints, the ending node of each link
+     */
+    private final NativeBuffer targets;
+
+    /**
+     * size doubles, the weight of each link, or null if the adjacency isn't weighted
+     */
+    private final NativeBuffer weights;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor, used by the builder
+     */
+    private OffHeapAdjacency(NativeArena arena, int order, long size, NativeBuffer offsets, NativeBuffer targets, NativeBuffer weights) {
+        this.arena = arena;
+        this.order = order;
+        this.size = size;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * Copies the links of a graph outside of the heap.
+     * Node i is the i-th element of graph.getNodes(), weights are stored if the links are weighted
+     * @param graph is the graph to copy
+     * @param <T> is the type of data carried by the nodes
+     * @return the off-heap adjacency of the graph
+     */
+    public static <T> OffHeapAdjacency of(Graph<T, ?> graph) {
+        List<Node<T>> nodes = graph.getNodes();
+        Map<T, Integer> index = new HashMap<>();
+        boolean weighted = false;
+
+        for(int i = 0 ; i < nodes.size() ; i++) { index.put(nodes.get(i).getData(), i); }
+        for(Link link : graph.getLinks()) { weighted |= link instanceof WeightedLink; }
+
+        Builder builder = new Builder(nodes.size(), weighted);
+
+        for(Link link : graph.getLinks()) {
+            int x = index.get(link.getX().getData());
+            int y = index.get(link.getY().getData());
+            double weight = (link instanceof WeightedLink) ? ((WeightedLink) link).getWeight() : 1.0;
+
+            builder.add(x, y, weight);
+            if(!graph.isDirected() && x != y) builder.add(y, x, weight);
+        }
+
+        return builder.build();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Override
+    public int order() { return order; }
+
+    @Override
+    public long size() { return size; }
+
+    @Override
+    public boolean isWeighted() { return weights != null; }
+
+    @Override
+    public long begin(int node) {
+        checkOpen();
+        return offsets.getLong(Objects.checkIndex(node, order));
+    }
+
+    @Override
+    public long end(int node) {
+        checkOpen();
+        return offsets.getLong(Objects.checkIndex(node, order) + 1);
+    }
+
+    @Override
+    public int target(long position) {
+        checkOpen();
+        return targets.getInt(position);
+    }
+
+    @Override
+    public double weight(long position) {
+        checkOpen();
+        return (weights == null) ? 1.0 : weights.getDouble(position);
+    }
+
+    /**
+     * Size taken by the adjacency outside of the heap
+     * @return the number of allocated bytes
+     */
+    public long bytes() { return arena.bytes(); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Releases the native memory, which goes with the next garbage collection. The adjacency can't be read
+     * afterwards. Close it once every reader is done : a read racing with close() never touches freed memory, but
+     * it may fail with an IndexOutOfBoundsException instead of an IllegalStateException
+     */
+    @Override
+    public void close() { arena.close(); }
+
+    /**
+     * Refuses reads once the native memory was released
+     */
+    private void checkOpen() { if(arena.isClosed()) throw new IllegalStateException("Adjacency is closed."); }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Builder /////////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Builds an off-heap adjacency from links given in any order.
+     * Links are staged outside of the heap too, then sorted by starting node with a counting sort
+     */
+    public static final class Builder {
+        /**
+         * Owner of the staging buffers, closed once the adjacency is built
+         */
+        private final NativeArena staging;
+
+        /**
+         * Number of nodes
+         */
+        private final int order;
+
+        /**
+         * Staged links
+         */
+        private final NativeBuffer sources, targets, weights;
+
+        /**
+         * Number of staged links
+         */
+        private long size;
+
+        /**
+         * Main constructor
+         * @param order is the number of nodes
+         * @param weighted denotes whether weights should be stored
+         */
+        public Builder(int order, boolean weighted) {
+            this.order = order;
+            staging = new NativeArena();
+            sources = staging.allocate(NativeBuffer.INT, 0);
+            targets = staging.allocate(NativeBuffer.INT, 0);
+            weights = weighted ? staging.allocate(NativeBuffer.DOUBLE, 0) : null;
+        }
+
+        /**
+         * Stages an unweighted link
+         * @param x is the index of the starting node
+         * @param y is the index of the ending node
+         * @return the builder
+         */
+        public Builder add(int x, int y) { return add(x, y, 1.0); }
+
+        /**
+         * Stages a link
+         * @param x is the index of the starting node
+         * @param y is the index of the ending node
+         * @param weight is the weight of the link, ignored if the adjacency isn't weighted
+         * @return the builder
+         */
+        public Builder add(int x, int y, double weight) {
+            Objects.checkIndex(x, order);
+            Objects.checkIndex(y, order);
+
+            sources.ensureCapacity(size + 1);
+            targets.ensureCapacity(size + 1);
+            sources.putInt(size, x);
+            targets.putInt(size, y);
+
+            if(weights != null) {
+                weights.ensureCapacity(size + 1);
+                weights.putDouble(size, weight);
+            }
+
+            size++;
+            return this;
+        }
+
+        /**
+         * Sorts the staged links into their final layout and releases the staging buffers
+         * @return the adjacency
+         */
+        public OffHeapAdjacency build() {
+            NativeArena arena = new NativeArena();
+            NativeBuffer offsets = arena.allocate(NativeBuffer.LONG, (long) order + 1);
+            NativeBuffer sortedTargets = arena.allocate(NativeBuffer.INT, size);
+            NativeBuffer sortedWeights = (weights != null) ? arena.allocate(NativeBuffer.DOUBLE, size) : null;
+
+            // Step 1 : Counting the links of each node
+            for(long i = 0 ; i <= order ; i++) { offsets.putLong(i, 0); }
+            for(long i = 0 ; i < size ; i++) {
+                long slot = sources.getInt(i) + 1L;
+                offsets.putLong(slot, offsets.getLong(slot) + 1);
+            }
+
+            // Step 2 : Prefix sums give where each node starts
+            for(long i = 1 ; i <= order ; i++) { offsets.putLong(i, offsets.getLong(i) + offsets.getLong(i - 1)); }
+
+            // Step 3 : Scattering the links, each node keeping a write cursor
+            NativeBuffer cursors = staging.allocate(NativeBuffer.LONG, order);
+            for(long i = 0 ; i < order ; i++) { cursors.putLong(i, offsets.getLong(i)); }
+
+            for(long i = 0 ; i < size ; i++) {
+                int x = sources.getInt(i);
+                long position = cursors.getLong(x);
+
+                cursors.putLong(x, position + 1);
+                sortedTargets.putInt(position, targets.getInt(i));
+                if(sortedWeights != null) sortedWeights.putDouble(position, weights.getDouble(i));
+            }
+
+            staging.close();
+            return new OffHeapAdjacency(arena, order, size, offsets, sortedTargets, sortedWeights);
+        }
+    }
+}
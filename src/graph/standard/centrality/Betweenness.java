@@ -0,0 +1,488 @@
+package graph.standard.centrality;
+
+import graph.metrics.AlgorithmEvent;
+import graph.standard.Graph;
+import graph.standard.adjacency.Adjacency;
+import graph.standard.adjacency.OffHeapAdjacency;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Computes betweenness centrality with Brandes' algorithm : a shortest path search from every source counts the
+ * shortest paths to every node, then nodes are visited from the farthest to the source to add up how much each of
+ * them depends on the ones after it. Searches are breadth-first when links aren't weighted, and Dijkstra's over a
+ * binary heap otherwise.
+ * Sources are shared between workers, each adding up its own scores, which are merged once every worker is done.
+ * Scores are exact when every node is a source, in O(n.m) time. To go faster, a sample of sources drawn from the
+ * seed gives an unbiased estimate : by Hoeffding's inequality and a union bound over the nodes, k sources put every
+ * normalized score within sqrt(ln(2n / (1 - confidence)) / 2k) of its exact value with the given confidence.
+ * A graph is handled through its adjacency, node i being the i-th node of the graph.
+ * Each worker needs about 36 bytes per node
+ * @author CreeperStone72
+ */
+public class Betweenness {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public static final double DEFAULT_CONFIDENCE = 0.9;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Probability that the error bound of a sampled estimate holds for every node at once
+     */
+    private double confidence;
+
+    private long seed;
+
+    private int parallelism;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public Betweenness() {
+        setConfidence(DEFAULT_CONFIDENCE);
+        setSeed(0);
+        setParallelism(Runtime.getRuntime().availableProcessors());
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public Betweenness setConfidence(double confidence) {
+        if(!(confidence > 0.0 && confidence < 1.0)) throw new IllegalArgumentException("Confidence must be between 0 and 1.");
+        this.confidence = confidence;
+        return this;
+    }
+
+    public Betweenness setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public Betweenness setParallelism(int parallelism) {
+        if(parallelism <= 0) throw new IllegalArgumentException("Parallelism must be positive.");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public double getConfidence() { return confidence; }
+
+    public long getSeed() { return seed; }
+
+    public int getParallelism() { return parallelism; }
+
+    /**
+     * Computes how many sources bring the normalized scores of an order-node adjacency within an error
+     * @param order is the number of nodes
+     * @param error is the largest error allowed
+     * @return the number of sources, at most order
+     */
+    public int sources(int order, double error) {
+        if(!(error > 0.0)) throw new IllegalArgumentException("The error must be positive.");
+        if(order < 3) return order;
+
+        double scale = order / (order - 1.0);
+        double sources = Math.ceil(scale * scale * Math.log(2.0 * order / (1.0 - confidence)) / (2.0 * error * error));
+        return (int) Math.min(order, sources);
+    }
+
+    /**
+     * Computes the error bound of the normalized scores estimated from some sources
+     * @param order is the number of nodes
+     * @param sources is the number of sources
+     * @return the largest error, with the confidence set
+     */
+    public double error(int order, int sources) {
+        if(sources >= order || order < 3) return 0.0;
+        return order / (order - 1.0) * Math.sqrt(Math.log(2.0 * order / (1.0 - confidence)) / (2.0 * sources));
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Computes the exact betweenness of every node of an adjacency
+     * @param adjacency is the adjacency, left untouched
+     * @return the scores
+     * @throws IllegalArgumentException if a weight isn't strictly positive
+     */
+    public Centrality compute(Adjacency adjacency) { return sample(adjacency, adjacency.order()); }
+
+    /**
+     * Computes the exact betweenness of every node of a graph
+     * @param graph is the graph, left untouched
+     * @return the scores, node i being the i-th element of graph.getNodes()
+     * @throws IllegalArgumentException if a weight isn't strictly positive
+     */
+    public Centrality compute(Graph<?, ?> graph) {
+        try(OffHeapAdjacency adjacency = OffHeapAdjacency.of(graph)) { return compute(adjacency); }
+    }
+
+    /**
+     * Estimates the betweenness of every node of an adjacency within an error
+     * @param adjacency is the adjacency, left untouched
+     * @param error is the largest error allowed on normalized scores
+     * @return the estimated scores, exact if reaching the error takes every node as a source
+     * @throws IllegalArgumentException if a weight isn't strictly positive
+     */
+    public Centrality approximate(Adjacency adjacency, double error) { return sample(adjacency, sources(adjacency.order(), error)); }
+
+    /**
+     * Estimates the betweenness of every node of a graph within an error
+     * @param graph is the graph, left untouched
+     * @param error is the largest error allowed on normalized scores
+     * @return the estimated scores, node i being the i-th element of graph.getNodes()
+     * @throws IllegalArgumentException if a weight isn't strictly positive
+     */
+    public Centrality approximate(Graph<?, ?> graph, double error) {
+        try(OffHeapAdjacency adjacency = OffHeapAdjacency.of(graph)) { return approximate(adjacency, error); }
+    }
+
+    /**
+     * Estimates the betweenness of every node of an adjacency from a number of sources, drawn without replacement
+     * @param adjacency is the adjacency, left untouched
+     * @param sources is the number of sources, every node being a source if it is at least the order
+     * @return the estimated scores, along with their error bound
+     * @throws IllegalArgumentException if a weight isn't strictly positive
+     */
+    public Centrality sample(Adjacency adjacency, int sources) {
+        if(sources <= 0 && adjacency.order() > 0) throw new IllegalArgumentException("The number of sources must be positive.");
+
+        AlgorithmEvent event = new AlgorithmEvent("brandes", adjacency.order(), (int) Math.min(Integer.MAX_VALUE, adjacency.size()));
+        Network network = Network.of(adjacency);
+        int order = network.order;
+        int count = Math.min(sources, order);
+        int[] drawn = draw(order, count);
+        double scale = (count == 0) ? 0.0 : (double) order / count;
+        int workers = Math.max(1, Math.min(parallelism, count));
+
+        // Step 1 : Searching from every drawn source, worker w taking sources w, w + workers, w + 2 * workers...
+        List<Worker> done = IntStream.range(0, workers).parallel()
+                .mapToObj(w -> {
+                    Worker worker = new Worker(network);
+                    for(int i = w ; i < count ; i += workers) { worker.search(drawn[i]); }
+                    return worker;
+                })
+                .collect(Collectors.toList());
+
+        // Step 2 : Merging the scores of the workers, always in the same order
+        double[] scores = new double[order];
+
+        IntStream.range(0, order).parallel().forEach(x -> {
+            double score = 0.0;
+            for(Worker worker : done) { score += worker.scores[x]; }
+            scores[x] = score * scale;
+        });
+
+        event.finish(count, done.stream().mapToLong(worker -> worker.relaxed).sum());
+        return new Centrality(scores, count, error(order, count), confidence);
+    }
+
+    /**
+     * Draws distinct sources (partial Fisher-Yates), every node in order if all of them are needed
+     */
+    private int[] draw(int order, int count) {
+        int[] nodes = new int[order];
+        Arrays.setAll(nodes, x -> x);
+        if(count == order) return nodes;
+
+        SplittableRandom random = new SplittableRandom(seed);
+
+        for(int i = 0 ; i < count ; i++) {
+            int j = i + random.nextInt(order - i), swap = nodes[i];
+            nodes[i] = nodes[j];
+            nodes[j] = swap;
+        }
+
+        return Arrays.copyOf(nodes, count);
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Inner types /////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Copy of the adjacency in arrays, read by every worker
+     */
+    private static final class Network {
+        private final int order;
+
+        /**
+         * order + 1 ints, the successors of node i are stored between offsets[i] and offsets[i + 1]
+         */
+        private final int[] offsets, targets;
+
+        /**
+         * Weight of every link, null if the adjacency isn't weighted
+         */
+        private final double[] weights;
+
+        private Network(int order, int[] offsets, int[] targets, double[] weights) {
+            this.order = order;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+        }
+
+        private static Network of(Adjacency adjacency) {
+            int order = adjacency.order();
+            if(adjacency.size() > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("The adjacency has too many links to be copied.");
+
+            int[] offsets = new int[order + 1];
+            int[] targets = new int[(int) adjacency.size()];
+            double[] weights = adjacency.isWeighted() ? new double[targets.length] : null;
+            int position = 0;
+
+            for(int x = 0 ; x < order ; x++) {
+                for(long i = adjacency.begin(x), end = adjacency.end(x) ; i < end ; i++) {
+                    if(weights != null) {
+                        weights[position] = adjacency.weight(i);
+                        if(!(weights[position] > 0.0)) throw new IllegalArgumentException("Weights must be strictly positive.");
+                    }
+
+                    targets[position++] = adjacency.target(i);
+                }
+
+                offsets[x + 1] = position;
+            }
+
+            return new Network(order, offsets, targets, weights);
+        }
+    }
+
+    /**
+     * Arrays a worker reuses from one source to the next. Only the nodes a search reached are reset after it, so a
+     * source in a small component costs the size of that component
+     */
+    private static final class Worker {
+        private final Network network;
+
+        /**
+         * Number of shortest paths from the source to every node
+         */
+        private final double[] paths;
+
+        /**
+         * Share of the shortest paths from the source going through every node
+         */
+        private final double[] dependencies;
+
+        /**
+         * Distance from the source, in links (hops) or in weight (distances). Unreached nodes are at -1 or infinity
+         */
+        private final int[] hops;
+
+        private final double[] distances;
+
+        /**
+         * Reached nodes, by increasing distance from the source
+         */
+        private final int[] reached;
+
+        private final double[] scores;
+
+        private final Heap heap;
+
+        private long relaxed;
+
+        private Worker(Network network) {
+            int order = network.order;
+
+            this.network = network;
+            this.paths = new double[order];
+            this.dependencies = new double[order];
+            this.reached = new int[order];
+            this.scores = new double[order];
+
+            if(network.weights == null) {
+                this.hops = new int[order];
+                this.distances = null;
+                this.heap = null;
+                Arrays.fill(hops, -1);
+            } else {
+                this.hops = null;
+                this.distances = new double[order];
+                this.heap = new Heap();
+                Arrays.fill(distances, Double.POSITIVE_INFINITY);
+            }
+        }
+
+        private void search(int source) {
+            int count = (network.weights == null) ? breadthFirst(source) : dijkstra(source);
+            int[] offsets = network.offsets, targets = network.targets;
+
+            // Nodes are visited from the farthest, so every successor on a shortest path is done before them
+            for(int r = count - 1 ; r >= 0 ; r--) {
+                int x = reached[r];
+                double dependency = 0.0;
+
+                for(int i = offsets[x] ; i < offsets[x + 1] ; i++) {
+                    int y = targets[i];
+                    if(isTight(x, y, i)) dependency += paths[x] / paths[y] * (1.0 + dependencies[y]);
+                }
+
+                dependencies[x] = dependency;
+                if(x != source) scores[x] += dependency;
+            }
+
+            for(int r = 0 ; r < count ; r++) {
+                int x = reached[r];
+                paths[x] = 0.0;
+                dependencies[x] = 0.0;
+
+                if(hops != null) hops[x] = -1;
+                else distances[x] = Double.POSITIVE_INFINITY;
+            }
+        }
+
+        /**
+         * Checks whether the link from x to y at a position lies on a shortest path from the source
+         */
+        private boolean isTight(int x, int y, int position) {
+            if(hops != null) return hops[y] == hops[x] + 1;
+            return x != y && distances[y] == distances[x] + network.weights[position];
+        }
+
+        /**
+         * Counts the shortest paths from a source, breadth-first
+         * @return the number of reached nodes
+         */
+        private int breadthFirst(int source) {
+            int[] offsets = network.offsets, targets = network.targets;
+            int head = 0, count = 0;
+
+            hops[source] = 0;
+            paths[source] = 1.0;
+            reached[count++] = source;
+
+            while(head < count) {
+                int x = reached[head++];
+                int next = hops[x] + 1;
+
+                for(int i = offsets[x] ; i < offsets[x + 1] ; i++) {
+                    int y = targets[i];
+
+                    if(hops[y] == -1) {
+                        hops[y] = next;
+                        reached[count++] = y;
+                    }
+
+                    if(hops[y] == next) paths[y] += paths[x];
+                }
+
+                relaxed += offsets[x + 1] - offsets[x];
+            }
+
+            return count;
+        }
+
+        /**
+         * Counts the shortest paths from a source with Dijkstra's algorithm, stale heap entries being skipped
+         * @return the number of reached nodes
+         */
+        private int dijkstra(int source) {
+            int[] offsets = network.offsets, targets = network.targets;
+            double[] weights = network.weights;
+            int count = 0;
+
+            heap.clear();
+            distances[source] = 0.0;
+            paths[source] = 1.0;
+            heap.push(source, 0.0);
+
+            while(!heap.isEmpty()) {
+                int x = heap.peekNode();
+                double distance = heap.peekKey();
+                heap.pop();
+
+                if(distance > distances[x]) continue;
+                reached[count++] = x;
+
+                for(int i = offsets[x] ; i < offsets[x + 1] ; i++) {
+                    int y = targets[i];
+                    double candidate = distance + weights[i];
+
+                    if(candidate < distances[y]) {
+                        distances[y] = candidate;
+                        paths[y] = paths[x];
+                        heap.push(y, candidate);
+                    } else if(candidate == distances[y]) {
+                        paths[y] += paths[x];
+                    }
+                }
+
+                relaxed += offsets[x + 1] - offsets[x];
+            }
+
+            return count;
+        }
+    }
+
+    /**
+     * Binary heap of nodes keyed by distance, where a node may appear several times
+     */
+    private static final class Heap {
+        private int[] nodes = new int[16];
+
+        private double[] keys = new double[16];
+
+        private int size;
+
+        private boolean isEmpty() { return size == 0; }
+
+        private int peekNode() { return nodes[0]; }
+
+        private double peekKey() { return keys[0]; }
+
+        private void clear() { size = 0; }
+
+        private void push(int node, double key) {
+            if(size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, 2 * size);
+                keys = Arrays.copyOf(keys, 2 * size);
+            }
+
+            int i = size++;
+
+            while(i > 0) {
+                int parent = (i - 1) >>> 1;
+                if(keys[parent] <= key) break;
+
+                nodes[i] = nodes[parent];
+                keys[i] = keys[parent];
+                i = parent;
+            }
+
+            nodes[i] = node;
+            keys[i] = key;
+        }
+
+        private void pop() {
+            int node = nodes[--size];
+            double key = keys[size];
+            int i = 0;
+
+            while(true) {
+                int child = 2 * i + 1;
+                if(child >= size) break;
+                if(child + 1 < size && keys[child + 1] < keys[child]) child++;
+                if(key <= keys[child]) break;
+
+                nodes[i] = nodes[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+
+            nodes[i] = node;
+            keys[i] = key;
+        }
+    }
+}
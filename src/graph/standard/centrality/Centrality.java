@@ -0,0 +1,160 @@
+package graph.standard.centrality;
+
+import graph.standard.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * The betweenness of every node of an adjacency : the number of shortest paths between two other nodes going through
+ * it, each pair of nodes sharing one unit between its shortest paths.
+ * Pairs are ordered, so a non-directed graph whose links are stored in both directions counts each pair twice.
+ * Normalized scores divide by the (n - 1)(n - 2) ordered pairs a node can lie between, which gives the same values
+ * in both cases
+ * @author CreeperStone72
+ */
+public class Centrality {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final double[] scores;
+
+    /**
+     * Number of sources the scores were computed from, order() if they are exact
+     */
+    private final int sources;
+
+    /**
+     * Bound on the error of every normalized score, 0 if they are exact
+     */
+    private final double error;
+
+    /**
+     * Probability that every normalized score is within the error of its exact value
+     */
+    private final double confidence;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor
+     * @param scores is the betweenness of every node, estimated or exact
+     * @param sources is the number of sources the scores were computed from
+     * @param error is the bound on the error of the normalized scores
+     * @param confidence is the probability of the bound holding for every node at once
+     */
+    Centrality(double[] scores, int sources, double error, double confidence) {
+        this.scores = scores;
+        this.sources = sources;
+        this.error = error;
+        this.confidence = confidence;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public int order() { return scores.length; }
+
+    public int getSources() { return sources; }
+
+    public double getError() { return error; }
+
+    public double getConfidence() { return confidence; }
+
+    /**
+     * Are the scores exact ?
+     * @return true if every node was a source, otherwise false
+     */
+    public boolean isExact() { return sources == scores.length; }
+
+    /**
+     * Gets the betweenness of a node
+     * @param node is the index of the node
+     * @return its score
+     */
+    public double score(int node) { return scores[Objects.checkIndex(node, scores.length)]; }
+
+    /**
+     * Gets the betweenness of a node over the number of pairs it can lie between
+     * @param node is the index of the node
+     * @return its score, between 0 and 1
+     */
+    public double normalized(int node) { return score(node) * normalization(); }
+
+    /**
+     * Copies the betweenness of every node
+     * @return an array whose i-th value is the score of node i
+     */
+    public double[] scores() { return scores.clone(); }
+
+    /**
+     * Copies the normalized betweenness of every node
+     * @return an array whose i-th value is the normalized score of node i
+     */
+    public double[] normalizedScores() {
+        double[] normalized = scores.clone();
+        double factor = normalization();
+
+        for(int i = 0 ; i < normalized.length ; i++) { normalized[i] *= factor; }
+        return normalized;
+    }
+
+    private double normalization() {
+        long n = scores.length;
+        return (n < 3) ? 0.0 : 1.0 / ((n - 1) * (double) (n - 2));
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Ranks the most central nodes, through a heap of k nodes so the scores aren't all sorted
+     * @param k is the number of nodes wanted
+     * @return the indexes of the k nodes with the highest scores, highest first and lowest index first on ties
+     */
+    public int[] top(int k) {
+        if(k < 0) throw new IllegalArgumentException("The number of nodes must be positive.");
+
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(k, scores.length) + 1, (x, y) -> compare(y, x));
+
+        for(int x = 0 ; x < scores.length ; x++) {
+            heap.add(x);
+            if(heap.size() > k) heap.poll();
+        }
+
+        int[] top = new int[heap.size()];
+        for(int i = top.length - 1 ; i >= 0 ; i--) { top[i] = heap.poll(); }
+        return top;
+    }
+
+    /**
+     * Ranks the most central nodes of the graph the adjacency was built from
+     * @param k is the number of nodes wanted
+     * @param graphNodes is the list of nodes, node i being the i-th one
+     * @param <T> is the type of data carried by the nodes
+     * @return the k nodes with the highest scores, highest first
+     */
+    public <T> List<Node<T>> top(int k, List<Node<T>> graphNodes) {
+        if(graphNodes.size() != scores.length) throw new IllegalArgumentException("Every node must have exactly one score.");
+
+        List<Node<T>> top = new ArrayList<>();
+        for(int x : top(k)) { top.add(graphNodes.get(x)); }
+        return top;
+    }
+
+    /**
+     * Orders nodes from the most central to the least, lower indexes first on ties
+     */
+    private int compare(int x, int y) {
+        int byScore = Double.compare(scores[y], scores[x]);
+        return (byScore != 0) ? byScore : Integer.compare(x, y);
+    }
+
+    @Override
+    public String toString() {
+        return "Centrality{order=" + scores.length + ", sources=" + sources + ", error=" + error + ", confidence=" + confidence + "}";
+    }
+}
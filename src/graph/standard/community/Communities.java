@@ -0,0 +1,177 @@
+package graph.standard.community;
+
+import graph.standard.Node;
+import graph.standard.weighted.WeightedGraph;
+import graph.standard.weighted.WeightedLink;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The community of every node of an adjacency, level by level.
+ * Each level merges the communities of the one before it, the last level being the final answer
+ * @author CreeperStone72
+ */
+public class Communities {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * assignments.get(l)[i] is the community of node i at level l
+     */
+    private final List<int[]> assignments;
+
+    /**
+     * Number of communities at each level
+     */
+    private final int[] counts;
+
+    private final double[] modularities;
+
+    /**
+     * Graph whose nodes are the final communities
+     */
+    private final Level quotient;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor
+     * @param assignments is the community of every node at each level, numbered from 0
+     * @param counts is the number of communities at each level
+     * @param modularities is the modularity of each level
+     * @param quotient is the graph of the final communities
+     */
+    Communities(List<int[]> assignments, int[] counts, double[] modularities, Level quotient) {
+        this.assignments = assignments;
+        this.counts = counts;
+        this.modularities = modularities;
+        this.quotient = quotient;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public int order() { return last().length; }
+
+    /**
+     * Counts the levels, at least one
+     */
+    public int levels() { return assignments.size(); }
+
+    /**
+     * Counts the final communities
+     */
+    public int count() { return counts[counts.length - 1]; }
+
+    /**
+     * Counts the communities of a level
+     * @param level is the level, from 0
+     * @return the number of communities
+     */
+    public int count(int level) { return counts[Objects.checkIndex(level, counts.length)]; }
+
+    /**
+     * Finds the final community of a node
+     * @param node is the index of the node
+     * @return its community
+     */
+    public int community(int node) { return last()[Objects.checkIndex(node, order())]; }
+
+    /**
+     * Copies the final community of every node
+     * @return an array whose i-th value is the community of node i
+     */
+    public int[] assignment() { return last().clone(); }
+
+    /**
+     * Copies the community of every node at a level
+     * @param level is the level, from 0
+     * @return an array whose i-th value is the community of node i at that level
+     */
+    public int[] assignment(int level) { return assignments.get(Objects.checkIndex(level, levels())).clone(); }
+
+    /**
+     * Gets the modularity of the final communities
+     */
+    public double getModularity() { return modularities[modularities.length - 1]; }
+
+    /**
+     * Gets the modularity of the communities of a level
+     * @param level is the level, from 0
+     * @return the modularity
+     */
+    public double modularity(int level) { return modularities[Objects.checkIndex(level, modularities.length)]; }
+
+    /**
+     * Copies the modularity of every level
+     */
+    public double[] modularities() { return modularities.clone(); }
+
+    /**
+     * Counts the nodes of every final community
+     * @return an array whose c-th value is the size of community c
+     */
+    public int[] sizes() {
+        int[] sizes = new int[count()];
+        for(int c : last()) { sizes[c]++; }
+        return sizes;
+    }
+
+    private int[] last() { return assignments.get(assignments.size() - 1); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Groups the nodes of the graph the adjacency was built from by final community
+     * @param graphNodes is the list of nodes, node i being the i-th one
+     * @param <T> is the type of data carried by the nodes
+     * @return a new list whose c-th element holds the nodes of community c
+     */
+    public <T> List<List<Node<T>>> members(List<Node<T>> graphNodes) {
+        if(graphNodes.size() != order()) throw new IllegalArgumentException("Every node must have exactly one community.");
+
+        List<List<Node<T>>> members = new ArrayList<>(count());
+        for(int size : sizes()) { members.add(new ArrayList<>(size)); }
+        for(int i = 0 ; i < order() ; i++) { members.get(last()[i]).add(graphNodes.get(i)); }
+        return members;
+    }
+
+    /**
+     * Builds the non-directed graph of the final communities : node c stands for community c, two communities are
+     * linked by the total weight of the stored links between them, and a community's loop weighs the stored links
+     * inside it. Non-directed links are stored in both directions, so each of them counts twice
+     * @return the graph, whose nodes carry their community
+     */
+    public WeightedGraph<Integer> toWeightedGraph() {
+        WeightedGraph<Integer> graph = new WeightedGraph<>();
+        List<WeightedLink> links = new ArrayList<>();
+
+        graph.setDirected(false);
+        for(int c = 0 ; c < quotient.order ; c++) { graph.insert(c); }
+
+        List<Node<Integer>> nodes = graph.getNodes();
+
+        for(int x = 0 ; x < quotient.order ; x++) {
+            for(int i = quotient.offsets[x] ; i < quotient.offsets[x + 1] ; i++) {
+                int y = quotient.targets[i];
+
+                // A link between two communities is stored in both rows, a loop counts its links twice
+                if(y > x) links.add(new WeightedLink(nodes.get(x), nodes.get(y), quotient.weights[i]));
+                else if(y == x) links.add(new WeightedLink(nodes.get(x), nodes.get(x), quotient.weights[i] / 2.0));
+            }
+        }
+
+        graph.linkAll(links);
+        return graph;
+    }
+
+    @Override
+    public String toString() {
+        return "Communities{order=" + order() + ", count=" + count() + ", modularities=" + Arrays.toString(modularities) + "}";
+    }
+}
@@ -0,0 +1,539 @@
+package graph.standard.community;
+
+import graph.metrics.AlgorithmEvent;
+import graph.standard.Graph;
+import graph.standard.adjacency.Adjacency;
+import graph.standard.adjacency.OffHeapAdjacency;
+import graph.standard.Seeds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Groups the nodes of an adjacency into communities, nodes more linked to each other than to the rest of the graph,
+ * by maximizing modularity with the Louvain method and Leiden's refinement. Directions are ignored and unweighted
+ * links weigh 1.
+ * Each level goes through three steps :
+ * - moving : nodes join the community of a neighbor when it raises modularity, in parallel passes. Each pass splits
+ *   the nodes in two random halves (drawn from the seed) that take turns : the nodes of a half pick their best
+ *   community from the communities as they stand, each worker adding the weights towards neighboring communities up
+ *   in its own accumulator, then moves are applied in node order. Two lone nodes never swap communities : only the
+ *   move towards the lowest community is kept
+ * - refinement : every community is split back into singletons that merge again, inside the community only and
+ *   towards the best well-connected subcommunity. Communities are refined in parallel, as they don't share nodes.
+ *   Subcommunities are connected by construction, which Louvain alone doesn't guarantee
+ * - aggregation : every subcommunity becomes a node of the next level, starting in the community it was refined from
+ * Levels stop once nodes no longer move or modularity no longer rises. The result is deterministic for a given seed.
+ * A graph is handled through its adjacency, node i being the i-th node of the graph
+ * @author CreeperStone72
+ */
+public class CommunityDetector {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public static final double DEFAULT_RESOLUTION = 1.0;
+
+    /**
+     * A level must raise modularity by at least this much for another one to follow
+     */
+    public static final double DEFAULT_TOLERANCE = 1e-6;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Weight of the expected share of links in modularity, higher values giving more and smaller communities
+     */
+    private double resolution;
+
+    private double tolerance;
+
+    private long seed;
+
+    /**
+     * Maximal number of moving passes per level
+     */
+    private int passes;
+
+    /**
+     * Maximal number of levels
+     */
+    private int levels;
+
+    /**
+     * Whether communities are refined before aggregation (Leiden) or aggregated as they are (Louvain)
+     */
+    private boolean refined;
+
+    private int parallelism;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public CommunityDetector() {
+        setResolution(DEFAULT_RESOLUTION);
+        setTolerance(DEFAULT_TOLERANCE);
+        setSeed(0);
+        setPasses(32);
+        setLevels(32);
+        setRefined(true);
+        setParallelism(Runtime.getRuntime().availableProcessors());
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public CommunityDetector setResolution(double resolution) {
+        if(!(resolution > 0.0)) throw new IllegalArgumentException("Resolution must be positive.");
+        this.resolution = resolution;
+        return this;
+    }
+
+    public CommunityDetector setTolerance(double tolerance) {
+        if(!(tolerance >= 0.0)) throw new IllegalArgumentException("Tolerance must be positive.");
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    public CommunityDetector setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public CommunityDetector setPasses(int passes) {
+        if(passes <= 0) throw new IllegalArgumentException("The number of passes must be positive.");
+        this.passes = passes;
+        return this;
+    }
+
+    public CommunityDetector setLevels(int levels) {
+        if(levels <= 0) throw new IllegalArgumentException("The number of levels must be positive.");
+        this.levels = levels;
+        return this;
+    }
+
+    public CommunityDetector setRefined(boolean refined) {
+        this.refined = refined;
+        return this;
+    }
+
+    public CommunityDetector setParallelism(int parallelism) {
+        if(parallelism <= 0) throw new IllegalArgumentException("Parallelism must be positive.");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public double getResolution() { return resolution; }
+
+    public double getTolerance() { return tolerance; }
+
+    public long getSeed() { return seed; }
+
+    public int getPasses() { return passes; }
+
+    public int getLevels() { return levels; }
+
+    public boolean isRefined() { return refined; }
+
+    public int getParallelism() { return parallelism; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Finds the communities of an adjacency
+     * @param adjacency is the adjacency, left untouched
+     * @return the communities, level by level
+     * @throws IllegalArgumentException if a weight is negative
+     */
+    public Communities detect(Adjacency adjacency) {
+        AlgorithmEvent event = new AlgorithmEvent(refined ? "leiden" : "louvain", adjacency.order(), (int) Math.min(Integer.MAX_VALUE, adjacency.size()));
+        Level level = Level.of(adjacency);
+        int[] finest = identity(level.order);
+        int[] community = identity(level.order);
+        List<int[]> assignments = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        List<Double> modularities = new ArrayList<>();
+        double previous = level.modularity(community, level.order, resolution);
+        Level last = level;
+        int[] lastCommunity = community;
+        long moves = 0;
+
+        for(int depth = 0 ; depth < levels ; depth++) {
+            // Step 1 : Moving nodes between communities
+            int moved = move(level, community, depth);
+            if(depth > 0 && moved == 0) break;
+
+            moves += moved;
+            int count = renumber(community);
+            double modularity = level.modularity(community, count, resolution);
+
+            int[] assignment = new int[finest.length];
+            for(int i = 0 ; i < finest.length ; i++) { assignment[i] = community[finest[i]]; }
+
+            assignments.add(assignment);
+            counts.add(count);
+            modularities.add(modularity);
+            last = level;
+            lastCommunity = community.clone();
+
+            if(count == level.order || (depth > 0 && modularity - previous < tolerance)) break;
+            previous = modularity;
+
+            // Step 2 : Splitting communities into well-connected subcommunities
+            int[] map = community;
+            int groups = count;
+
+            if(refined) {
+                int[] subcommunities = refine(level, community, count, depth);
+                int subcount = renumber(subcommunities);
+
+                // Nothing merged : aggregating by subcommunity would give the same level again
+                if(subcount < level.order) {
+                    map = subcommunities;
+                    groups = subcount;
+                }
+            }
+
+            // Step 3 : Aggregating, every node of the next level starting in its community
+            int[] next = new int[groups];
+            for(int x = 0 ; x < level.order ; x++) { next[map[x]] = community[x]; }
+            for(int i = 0 ; i < finest.length ; i++) { finest[i] = map[finest[i]]; }
+
+            level = level.aggregate(map, groups);
+            community = next;
+        }
+
+        event.finish(assignments.size(), moves);
+        return new Communities(assignments, counts.stream().mapToInt(Integer::intValue).toArray(),
+                modularities.stream().mapToDouble(Double::doubleValue).toArray(), last.aggregate(lastCommunity, counts.get(counts.size() - 1)));
+    }
+
+    /**
+     * Finds the communities of a graph
+     * @param graph is the graph, left untouched
+     * @return the communities, node i being the i-th element of graph.getNodes()
+     * @throws IllegalArgumentException if a weight is negative
+     */
+    public Communities detect(Graph<?, ?> graph) {
+        try(OffHeapAdjacency adjacency = OffHeapAdjacency.of(graph)) { return detect(adjacency); }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Moving methods //////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Moves nodes between communities by parallel passes, until a pass moves nothing
+     * @param level is the level the nodes belong to
+     * @param community is the community of every node, updated in place
+     * @param depth is the index of the level
+     * @return the number of moves
+     */
+    private int move(Level level, int[] community, int depth) {
+        int order = level.order;
+        double[] totals = new double[order];
+        int[] sizes = new int[order];
+        int[] proposals = new int[order];
+        Queue<Accumulator> accumulators = new ConcurrentLinkedQueue<>();
+
+        for(int x = 0 ; x < order ; x++) {
+            totals[community[x]] += level.strengths[x];
+            sizes[community[x]]++;
+        }
+
+        int chunks = Math.min(order, parallelism * 4);
+        int chunkSize = (chunks == 0) ? 0 : (order + chunks - 1) / chunks;
+        int moves = 0, moved = -1;
+
+        for(int round = 0 ; round < 2 * passes && (moved != 0 || (round & 1) == 1) ; round++) {
+            final int r = round;
+            if((round & 1) == 0) moved = 0;
+
+            IntStream.range(0, chunks).parallel().forEach(c -> {
+                Accumulator accumulator = accumulators.poll();
+                if(accumulator == null) accumulator = new Accumulator(order);
+
+                propose(level, community, totals, sizes, proposals, c * chunkSize, Math.min(order, (c + 1) * chunkSize), depth, r, accumulator);
+                accumulators.offer(accumulator);
+            });
+
+            for(int x = 0 ; x < order ; x++) {
+                int from = community[x], to = proposals[x];
+
+                if(to != from) {
+                    community[x] = to;
+                    totals[from] -= level.strengths[x];
+                    totals[to] += level.strengths[x];
+                    sizes[from]--;
+                    sizes[to]++;
+                    moved++;
+                    moves++;
+                }
+            }
+        }
+
+        return moves;
+    }
+
+    /**
+     * Picks the best community of a range of nodes. The modularity gained by moving x from its community to c is
+     * proportional to w(x, c) - resolution * k(x) * tot(c) / 2m, x being taken out of its community first
+     */
+    private void propose(Level level, int[] community, double[] totals, int[] sizes, int[] proposals, int start, int end, int depth, int round, Accumulator accumulator) {
+        double total = level.total;
+
+        for(int x = start ; x < end ; x++) {
+            int current = community[x];
+            proposals[x] = current;
+
+            // Half of the nodes sit each round out, so linked nodes don't all chase each other at once
+            if(total == 0.0 || (Seeds.mix(seed + (depth * 0x632BE59BD9B4E019L) + (round >>> 1) * Seeds.GOLDEN_GAMMA + x) & 1) != (round & 1)) continue;
+
+            for(int i = level.offsets[x] ; i < level.offsets[x + 1] ; i++) {
+                int y = level.targets[i];
+                if(y != x) accumulator.add(community[y], level.weights[i]);
+            }
+
+            double strength = level.strengths[x], factor = resolution * strength / total;
+            int best = current;
+            double bestGain = accumulator.weights[current] - factor * (totals[current] - strength);
+
+            for(int t = 0 ; t < accumulator.count ; t++) {
+                int c = accumulator.touched[t];
+                double gain = accumulator.weights[c] - factor * totals[c];
+
+                if(c != current && gain > bestGain) {
+                    best = c;
+                    bestGain = gain;
+                }
+            }
+
+            accumulator.clear();
+
+            // Two lone nodes would swap communities forever, only the move towards the lowest one is kept
+            if(best > current && sizes[current] == 1 && sizes[best] == 1) best = current;
+            proposals[x] = best;
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Refinement methods //////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Splits every community into subcommunities, in parallel
+     * @param level is the level the nodes belong to
+     * @param community is the community of every node
+     * @param count is the number of communities
+     * @param depth is the index of the level
+     * @return the subcommunity of every node, named after one of its nodes
+     */
+    private int[] refine(Level level, int[] community, int count, int depth) {
+        int order = level.order;
+        int[] starts = new int[count + 1];
+        int[] members = new int[order];
+        double[] totals = new double[count];
+
+        // Step 1 : Listing the nodes of each community (counting sort)
+        for(int x = 0 ; x < order ; x++) {
+            starts[community[x] + 1]++;
+            totals[community[x]] += level.strengths[x];
+        }
+
+        for(int c = 0 ; c < count ; c++) { starts[c + 1] += starts[c]; }
+
+        int[] cursors = Arrays.copyOf(starts, count);
+        for(int x = 0 ; x < order ; x++) { members[cursors[community[x]]++] = x; }
+
+        // Step 2 : Merging singletons inside each community, every one of them on its own
+        Subcommunities subcommunities = new Subcommunities(level);
+        Queue<Accumulator> accumulators = new ConcurrentLinkedQueue<>();
+        int chunks = Math.min(count, parallelism * 4);
+        int chunkSize = (chunks == 0) ? 0 : (count + chunks - 1) / chunks;
+
+        IntStream.range(0, chunks).parallel().forEach(k -> {
+            Accumulator accumulator = accumulators.poll();
+            if(accumulator == null) accumulator = new Accumulator(order);
+
+            for(int c = k * chunkSize ; c < Math.min(count, (k + 1) * chunkSize) ; c++) {
+                refine(level, community, members, starts[c], starts[c + 1], totals[c], subcommunities, Seeds.random(seed + depth, c), accumulator);
+            }
+
+            accumulators.offer(accumulator);
+        });
+
+        return subcommunities.of;
+    }
+
+    /**
+     * Splits a community. Its nodes are visited in a random order, and a node still alone joins the subcommunity that
+     * raises modularity the most, if any. Only well-connected nodes and subcommunities take part : the weight linking
+     * them to the rest of the community must be at least resolution * tot(s) * (tot(c) - tot(s)) / 2m
+     * @param from is where the nodes of the community start in members
+     * @param to is where they end
+     * @param total is the total strength of the community
+     */
+    private void refine(Level level, int[] community, int[] members, int from, int to, double total, Subcommunities subcommunities, SplittableRandom random, Accumulator accumulator) {
+        if(to - from <= 1) return;
+
+        int c = community[members[from]];
+        double factor = resolution / level.total;
+
+        for(int m = from ; m < to ; m++) {
+            int x = members[m];
+            double outside = 0.0;
+
+            for(int i = level.offsets[x] ; i < level.offsets[x + 1] ; i++) {
+                int y = level.targets[i];
+                if(y != x && community[y] == c) outside += level.weights[i];
+            }
+
+            subcommunities.outside[x] = outside;
+        }
+
+        // Shuffling the members in place, they aren't needed in order anymore (Fisher-Yates)
+        for(int m = to - 1 ; m > from ; m--) {
+            int j = from + random.nextInt(m - from + 1), swap = members[m];
+            members[m] = members[j];
+            members[j] = swap;
+        }
+
+        for(int m = from ; m < to ; m++) {
+            int x = members[m];
+            double strength = level.strengths[x];
+
+            if(subcommunities.of[x] != x || subcommunities.sizes[x] != 1) continue;
+            if(subcommunities.outside[x] < factor * strength * (total - strength)) continue;
+
+            for(int i = level.offsets[x] ; i < level.offsets[x + 1] ; i++) {
+                int y = level.targets[i];
+                if(y != x && community[y] == c) accumulator.add(subcommunities.of[y], level.weights[i]);
+            }
+
+            int best = -1;
+            double bestGain = 0.0, bestWeight = 0.0;
+
+            for(int t = 0 ; t < accumulator.count ; t++) {
+                int s = accumulator.touched[t];
+                double gain = accumulator.weights[s] - factor * strength * subcommunities.totals[s];
+
+                if(gain >= bestGain && subcommunities.outside[s] >= factor * subcommunities.totals[s] * (total - subcommunities.totals[s])) {
+                    best = s;
+                    bestGain = gain;
+                    bestWeight = accumulator.weights[s];
+                }
+            }
+
+            accumulator.clear();
+
+            if(best != -1) {
+                subcommunities.of[x] = best;
+                subcommunities.sizes[x] = 0;
+                subcommunities.sizes[best]++;
+                subcommunities.totals[best] += strength;
+                subcommunities.outside[best] += subcommunities.outside[x] - 2.0 * bestWeight;
+            }
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Helper methods //////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    private static int[] identity(int order) {
+        int[] identity = new int[order];
+        Arrays.setAll(identity, x -> x);
+        return identity;
+    }
+
+    /**
+     * Numbers communities from 0 in order of first appearance, in place
+     * @param community is the community of every node
+     * @return the number of communities
+     */
+    private static int renumber(int[] community) {
+        int[] ids = new int[community.length];
+        int count = 0;
+
+        Arrays.fill(ids, -1);
+
+        for(int x = 0 ; x < community.length ; x++) {
+            int c = community[x];
+            if(ids[c] == -1) ids[c] = count++;
+            community[x] = ids[c];
+        }
+
+        return count;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Inner types /////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Weights from a node towards each community around it, one per worker so none of them are shared.
+     * Only the touched slots are cleared, so a node costs its degree and not the number of communities
+     */
+    private static final class Accumulator {
+        private final double[] weights;
+        private final boolean[] used;
+        private final int[] touched;
+        private int count;
+
+        Accumulator(int order) {
+            this.weights = new double[order];
+            this.used = new boolean[order];
+            this.touched = new int[order];
+        }
+
+        void add(int c, double weight) {
+            if(!used[c]) {
+                used[c] = true;
+                touched[count++] = c;
+            }
+
+            weights[c] += weight;
+        }
+
+        void clear() {
+            for(int t = 0 ; t < count ; t++) {
+                weights[touched[t]] = 0.0;
+                used[touched[t]] = false;
+            }
+
+            count = 0;
+        }
+    }
+
+    /**
+     * Subcommunities of a level, named after the node they started from. Communities don't share nodes, so they are
+     * refined in parallel over the same arrays
+     */
+    private static final class Subcommunities {
+        /**
+         * of[x] is the subcommunity of node x
+         */
+        private final int[] of, sizes;
+
+        private final double[] totals;
+
+        /**
+         * Weight from a subcommunity to the rest of its community
+         */
+        private final double[] outside;
+
+        Subcommunities(Level level) {
+            this.of = identity(level.order);
+            this.sizes = new int[level.order];
+            this.totals = level.strengths.clone();
+            this.outside = new double[level.order];
+
+            Arrays.fill(sizes, 1);
+        }
+    }
+}
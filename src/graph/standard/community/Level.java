@@ -0,0 +1,212 @@
+package graph.standard.community;
+
+import graph.standard.adjacency.Adjacency;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Non-directed weighted graph the community detector works on, one per level of aggregation.
+ * Each pair of linked nodes appears once in both rows with the weight of every link between them, so a row sums to
+ * the strength of its node and all rows sum to twice the total weight. A loop stands for the links inside an
+ * aggregated community and counts the weight of each of them twice, once per row it used to appear in
+ * @author CreeperStone72
+ */
+final class Level {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    final int order;
+
+    /**
+     * order + 1 ints, the neighbors of node i are stored between offsets[i] and offsets[i + 1]
+     */
+    final int[] offsets, targets;
+
+    final double[] weights;
+
+    /**
+     * Sum of the row of every node
+     */
+    final double[] strengths;
+
+    /**
+     * Sum of every row, twice the total weight of the links
+     */
+    final double total;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private Level(int order, int[] offsets, int[] targets, double[] weights) {
+        this.order = order;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.strengths = new double[order];
+
+        double sum = 0.0;
+
+        for(int x = 0 ; x < order ; x++) {
+            double strength = 0.0;
+            for(int i = offsets[x] ; i < offsets[x + 1] ; i++) { strength += weights[i]; }
+
+            strengths[x] = strength;
+            sum += strength;
+        }
+
+        total = sum;
+    }
+
+    /**
+     * Builds the finest level from an adjacency.
+     * Directions are dropped and parallel links are merged, a link from x to y weighing as much as a link from y to x.
+     * A loop is kept, once per direction it can be followed in
+     * @param adjacency is the adjacency whose communities are looked for
+     * @return the level
+     * @throws IllegalArgumentException if a weight is negative, or the adjacency has too many links to fit in arrays
+     */
+    static Level of(Adjacency adjacency) {
+        int order = adjacency.order();
+        int[] degrees = new int[order + 1];
+        long stored = 0;
+
+        // Step 1 : Counting both directions of every link
+        for(int x = 0 ; x < order ; x++) {
+            for(long i = adjacency.begin(x), end = adjacency.end(x) ; i < end ; i++) {
+                if(!(adjacency.weight(i) >= 0.0)) throw new IllegalArgumentException("Weights must be positive.");
+
+                degrees[x + 1]++;
+                degrees[adjacency.target(i) + 1]++;
+                stored += 2;
+            }
+        }
+
+        if(stored > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("The adjacency has too many links to look for communities.");
+
+        // Step 2 : Scattering them into rows
+        for(int i = 0 ; i < order ; i++) { degrees[i + 1] += degrees[i]; }
+
+        int[] cursors = Arrays.copyOf(degrees, order);
+        int[] targets = new int[(int) stored];
+        double[] weights = new double[targets.length];
+
+        for(int x = 0 ; x < order ; x++) {
+            for(long i = adjacency.begin(x), end = adjacency.end(x) ; i < end ; i++) {
+                int y = adjacency.target(i);
+                double weight = adjacency.weight(i);
+
+                weights[cursors[x]] = weight;
+                targets[cursors[x]++] = y;
+                weights[cursors[y]] = weight;
+                targets[cursors[y]++] = x;
+            }
+        }
+
+        // Step 3 : Merging duplicates, rows being compacted in place
+        int[] offsets = new int[order + 1];
+        int[] marker = new int[order];
+        int position = 0;
+
+        Arrays.fill(marker, -1);
+
+        for(int x = 0 ; x < order ; x++) {
+            int rowStart = position;
+
+            for(int i = degrees[x] ; i < degrees[x + 1] ; i++) {
+                int y = targets[i];
+
+                if(marker[y] >= rowStart) { weights[marker[y]] += weights[i]; }
+                else {
+                    marker[y] = position;
+                    targets[position] = y;
+                    weights[position++] = weights[i];
+                }
+            }
+
+            offsets[x + 1] = position;
+        }
+
+        return new Level(order, offsets, Arrays.copyOf(targets, position), Arrays.copyOf(weights, position));
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Merges the nodes of each group into a single node of the next level.
+     * Links between two groups are merged, links inside a group become a loop of its node
+     * @param map is the group of every node
+     * @param groups is the number of groups
+     * @return the coarser level
+     */
+    Level aggregate(int[] map, int groups) {
+        int[] members = new int[order];
+        int[] starts = new int[groups + 1];
+
+        // Step 1 : Listing the nodes of each group (counting sort)
+        for(int x = 0 ; x < order ; x++) { starts[map[x] + 1]++; }
+        for(int c = 0 ; c < groups ; c++) { starts[c + 1] += starts[c]; }
+
+        int[] cursors = Arrays.copyOf(starts, groups);
+        for(int x = 0 ; x < order ; x++) { members[cursors[map[x]]++] = x; }
+
+        // Step 2 : Gathering the links of each group, merged with a marker per group
+        int[] offsets = new int[groups + 1];
+        int[] targets = new int[this.targets.length];
+        double[] weights = new double[this.targets.length];
+        int[] marker = new int[groups];
+        int position = 0;
+
+        Arrays.fill(marker, -1);
+
+        for(int c = 0 ; c < groups ; c++) {
+            int rowStart = position;
+
+            for(int m = starts[c] ; m < starts[c + 1] ; m++) {
+                int x = members[m];
+
+                for(int i = this.offsets[x] ; i < this.offsets[x + 1] ; i++) {
+                    int y = map[this.targets[i]];
+
+                    if(marker[y] >= rowStart) { weights[marker[y]] += this.weights[i]; }
+                    else {
+                        marker[y] = position;
+                        targets[position] = y;
+                        weights[position++] = this.weights[i];
+                    }
+                }
+            }
+
+            offsets[c + 1] = position;
+        }
+
+        return new Level(groups, offsets, Arrays.copyOf(targets, position), Arrays.copyOf(weights, position));
+    }
+
+    /**
+     * Measures the modularity of a partition of the nodes, the share of weight inside communities minus the share
+     * expected if links were drawn at random with the same strengths
+     * @param community is the community of every node
+     * @param communities is the number of communities
+     * @param resolution weighs the expected share, higher values favoring smaller communities
+     * @return the modularity, between -1 and 1
+     */
+    double modularity(int[] community, int communities, double resolution) {
+        if(total == 0.0) return 0.0;
+
+        double[] totals = new double[communities];
+        for(int x = 0 ; x < order ; x++) { totals[community[x]] += strengths[x]; }
+
+        double inside = IntStream.range(0, order).parallel().mapToDouble(x -> {
+            double sum = 0.0;
+            for(int i = offsets[x] ; i < offsets[x + 1] ; i++) { if(community[targets[i]] == community[x]) sum += weights[i]; }
+            return sum;
+        }).sum();
+
+        double expected = 0.0;
+        for(double t : totals) { expected += t * t; }
+
+        return inside / total - resolution * expected / (total * total);
+    }
+}
@@ -0,0 +1,549 @@
+package graph.standard.distributed;
+
+import graph.exception.NodeNotFoundException;
+import graph.metrics.BulkOperationEvent;
+import graph.standard.Graph;
+import graph.standard.Link;
+import graph.standard.Node;
+import graph.standard.distributed.Protocol.Payload;
+import graph.standard.weighted.WeightedLink;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Coordinator of a graph split into shards, each held by a worker process (see ShardServer).
+ * A node belongs to the shard its token hashes to, tokens being made from the nodes' data by an encoder, so every
+ * request about a node goes straight to its owner. Links are held by the shard owning their first node.
+ * Traversals run in rounds : each shard expands its part of the frontier, and the distances it finds for other
+ * shards' nodes are sent to them, batched, at the next round
+ * @param <T> is the data type of the graph
+ * @author CreeperStone72
+ */
+public class DistributedGraph<T> implements AutoCloseable {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Number of nodes or links sent to a shard per request during an upload
+     */
+    private static final int CHUNK = 4096;
+
+    /**
+     * Bytes taken by a frontier entry : local index (int) and distance (double)
+     */
+    private static final int ENTRY = 12;
+
+    /**
+     * Seconds launch() waits for every worker to listen
+     */
+    private static final long STARTUP_TIMEOUT = 30;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final List<ShardClient> clients;
+
+    /**
+     * Worker processes started by launch(), empty when connected to existing workers
+     */
+    private final List<Process> processes;
+
+    private final Function<? super T, String> encoder;
+
+    private final Function<String, ? extends T> decoder;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private DistributedGraph(List<ShardClient> clients, List<Process> processes, Function<? super T, String> encoder, Function<String, ? extends T> decoder) {
+        this.clients = clients;
+        this.processes = processes;
+        this.encoder = encoder;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Starts a worker JVM per shard on this machine, with the current classpath, and connects to them
+     * @param shards is the number of shards
+     * @param encoder turns a node's data into its token
+     * @param decoder turns a token back into a node's data
+     * @param <T> is the data type of the graph
+     * @return the graph, empty
+     * @throws IOException if a worker can't be started, doesn't listen within STARTUP_TIMEOUT seconds or can't be reached
+     */
+    public static <T> DistributedGraph<T> launch(int shards, Function<? super T, String> encoder, Function<String, ? extends T> decoder) throws IOException {
+        if(shards <= 0) throw new IllegalArgumentException("The number of shards must be positive.");
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<Process> processes = new ArrayList<>(shards);
+        List<InetSocketAddress> addresses = new ArrayList<>(shards);
+
+        try {
+            List<CompletableFuture<String>> ready = new ArrayList<>(shards);
+
+            for(int i = 0 ; i < shards ; i++) {
+                ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), ShardServer.class.getName(), String.valueOf(i), String.valueOf(shards), "0");
+                builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+
+                Process process = builder.start();
+                processes.add(process);
+                ready.add(drain(process, i));
+            }
+
+            // Workers print their port once they listen
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(STARTUP_TIMEOUT);
+
+            for(CompletableFuture<String> first : ready) {
+                String line = first.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if(line == null || !line.startsWith("READY ")) throw new IOException("A shard failed to start.");
+                addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(line.substring(6).trim())));
+            }
+
+            return new DistributedGraph<>(open(addresses), processes, encoder, decoder);
+        } catch(TimeoutException e) {
+            for(Process process : processes) { process.destroyForcibly(); }
+            throw new IOException("A shard didn't start within " + STARTUP_TIMEOUT + " seconds.");
+        } catch(InterruptedException | ExecutionException e) {
+            for(Process process : processes) { process.destroyForcibly(); }
+            if(e instanceof InterruptedException) Thread.currentThread().interrupt();
+            throw new IOException("A shard failed to start.", e);
+        } catch(IOException | RuntimeException e) {
+            for(Process process : processes) { process.destroyForcibly(); }
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a worker's output on a daemon thread. The first line is handed over, and the rest is copied to
+     * System.out, so a worker writing a lot never blocks on a full pipe
+     * @return the first line, null if the worker ended before writing one
+     */
+    private static CompletableFuture<String> drain(Process process, int index) {
+        CompletableFuture<String> first = new CompletableFuture<>();
+
+        Thread thread = new Thread(() -> {
+            try(BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII))) {
+                first.complete(output.readLine());
+                for(String line = output.readLine() ; line != null ; line = output.readLine()) { System.out.println(line); }
+            } catch(IOException e) {
+                first.complete(null);
+            }
+        }, "shard-" + index + "-output");
+
+        thread.setDaemon(true);
+        thread.start();
+        return first;
+    }
+
+    /**
+     * Connects to workers already running, shard i listening to the i-th address
+     * @param addresses are the addresses of the shards, in order
+     * @param encoder turns a node's data into its token
+     * @param decoder turns a token back into a node's data
+     * @param <T> is the data type of the graph
+     * @return the graph, as held by the workers
+     * @throws IOException if a worker can't be reached
+     */
+    public static <T> DistributedGraph<T> connect(List<InetSocketAddress> addresses, Function<? super T, String> encoder, Function<String, ? extends T> decoder) throws IOException {
+        if(addresses.isEmpty()) throw new IllegalArgumentException("The number of shards must be positive.");
+        return new DistributedGraph<>(open(addresses), List.of(), encoder, decoder);
+    }
+
+    private static List<ShardClient> open(List<InetSocketAddress> addresses) throws IOException {
+        List<ShardClient> clients = new ArrayList<>(addresses.size());
+
+        try {
+            for(int i = 0 ; i < addresses.size() ; i++) { clients.add(new ShardClient(i, addresses.get(i))); }
+        } catch(IOException e) {
+            for(ShardClient client : clients) { client.close(); }
+            throw e;
+        }
+
+        return clients;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public int getShards() { return clients.size(); }
+
+    /**
+     * Finds the shard owning a node
+     * @param data is the data carried by the node
+     * @return the index of the shard
+     */
+    public int getOwner(T data) { return Protocol.owner(encoder.apply(data), clients.size()); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    //// Node methods ////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Inserts a node into the graph
+     * @param data is the data carried by the new node
+     * @return false if the node was already there
+     * @throws IOException if the owning shard fails
+     */
+    public boolean insert(T data) throws IOException {
+        String token = encoder.apply(data);
+        ByteBuffer response = clients.get(Protocol.owner(token, clients.size())).call(Protocol.INSERT, new Payload().putString(token));
+        response.getLong();
+        return response.get() != 0;
+    }
+
+    /**
+     * Finds a node by its data, asking only the shard owning it
+     * @param data corresponds to the data carried by the node
+     * @return the node if it's found
+     * @throws NodeNotFoundException if the node is not found
+     * @throws IOException if the owning shard fails
+     */
+    public Node<T> findNode(T data) throws NodeNotFoundException, IOException {
+        id(data);
+        return new Node<>(data);
+    }
+
+    /**
+     * Gets the successors of a node. Their data is asked to their owners, all at once
+     * @param data is the data carried by the node
+     * @return the successors, in the order their links were made
+     * @throws NodeNotFoundException if the node is not found
+     * @throws IOException if a shard fails
+     */
+    public List<Node<T>> getSuccessors(T data) throws NodeNotFoundException, IOException {
+        long id = id(data);
+        ByteBuffer response = clients.get(Protocol.shard(id)).call(Protocol.SUCCESSORS, new Payload().putLong(id));
+        int degree = response.getInt();
+        long[] targets = new long[degree];
+
+        for(int i = 0 ; i < degree ; i++) {
+            targets[i] = response.getLong();
+            response.getDouble();
+        }
+
+        // Step 1 : Asking each shard for the tokens of its nodes
+        List<CompletableFuture<ByteBuffer>> names = new ArrayList<>(clients.size());
+
+        for(ShardClient client : clients) {
+            Payload request = new Payload();
+            int count = 0, countAt = request.position();
+            request.putInt(0);
+
+            for(long target : targets) {
+                if(Protocol.shard(target) != client.getIndex()) continue;
+                request.putLong(target);
+                count++;
+            }
+
+            names.add((count == 0) ? null : client.send(Protocol.NAMES, request.setInt(countAt, count)));
+        }
+
+        // Step 2 : Reading them back in the same order
+        ByteBuffer[] responses = new ByteBuffer[clients.size()];
+        for(int s = 0 ; s < clients.size() ; s++) { if(names.get(s) != null) responses[s] = ShardClient.await(names.get(s)); }
+
+        List<Node<T>> successors = new ArrayList<>(degree);
+        for(long target : targets) { successors.add(new Node<>(decoder.apply(Protocol.getString(responses[Protocol.shard(target)])))); }
+
+        return successors;
+    }
+
+    /**
+     * Counts the number of nodes within the graph
+     * @throws IOException if a shard fails
+     */
+    public int order() throws IOException {
+        int order = 0;
+        for(ByteBuffer stats : stats()) { order += stats.getInt(0); }
+        return order;
+    }
+
+    /**
+     * Counts the number of links within the graph
+     * @throws IOException if a shard fails
+     */
+    public long size() throws IOException {
+        long size = 0;
+        for(ByteBuffer stats : stats()) { size += stats.getLong(4); }
+        return size;
+    }
+
+    private List<ByteBuffer> stats() throws IOException { return all(Protocol.STATS, new Payload()); }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Link methods ////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Links two nodes with a weight of 1
+     * @param dataX is the data carried by the first node
+     * @param dataY is the data carried by the second node
+     * @return false if the link already exists
+     * @throws NodeNotFoundException if one of the nodes is not found
+     * @throws IOException if a shard fails
+     */
+    public boolean link(T dataX, T dataY) throws NodeNotFoundException, IOException { return link(dataX, dataY, 1.0); }
+
+    /**
+     * Links two nodes. Both are looked up at once, then the link is stored by the first one's owner
+     * @param dataX is the data carried by the first node
+     * @param dataY is the data carried by the second node
+     * @param weight is the link's weight
+     * @return false if the link already exists
+     * @throws NodeNotFoundException if one of the nodes is not found
+     * @throws IOException if a shard fails
+     */
+    public boolean link(T dataX, T dataY, double weight) throws NodeNotFoundException, IOException {
+        CompletableFuture<ByteBuffer> foundX = find(dataX), foundY = find(dataY);
+        long x = id(foundX), y = id(foundY);
+
+        ByteBuffer response = clients.get(Protocol.shard(x)).call(Protocol.LINK, new Payload().putLong(x).putLong(y).putDouble(weight));
+        return response.get() != 0;
+    }
+
+    /**
+     * Copies a local graph into the shards, in batches. A non-directed graph gets its links in both directions,
+     * and weighted links keep their weight. As with link(), parallel links aren't kept : the first one sent wins
+     * @param graph is the copied graph
+     * @return the number of links added, links a shard already held being skipped
+     * @throws IOException if a shard fails
+     */
+    @SuppressWarnings("unchecked")
+    public long upload(Graph<T, ? extends Link> graph) throws IOException {
+        BulkOperationEvent event = new BulkOperationEvent("upload");
+        int shards = clients.size();
+        Map<String, Long> ids = new HashMap<>();
+
+        // Step 1 : Inserting the nodes, shard by shard
+        List<List<String>> tokens = new ArrayList<>(shards);
+        for(int s = 0 ; s < shards ; s++) { tokens.add(new ArrayList<>()); }
+        for(Node<T> node : graph.getNodes()) {
+            String token = encoder.apply(node.getData());
+            tokens.get(Protocol.owner(token, shards)).add(token);
+        }
+
+        List<CompletableFuture<ByteBuffer>> inserted = new ArrayList<>();
+        List<List<String>> chunks = new ArrayList<>();
+
+        for(int s = 0 ; s < shards ; s++) {
+            List<String> owned = tokens.get(s);
+
+            for(int from = 0 ; from < owned.size() ; from += CHUNK) {
+                List<String> chunk = owned.subList(from, Math.min(from + CHUNK, owned.size()));
+                Payload request = new Payload().putInt(chunk.size());
+                for(String token : chunk) { request.putString(token); }
+
+                inserted.add(clients.get(s).send(Protocol.INSERT_ALL, request));
+                chunks.add(chunk);
+            }
+        }
+
+        for(int c = 0 ; c < chunks.size() ; c++) {
+            ByteBuffer response = ShardClient.await(inserted.get(c));
+            for(String token : chunks.get(c)) { ids.put(token, response.getLong()); }
+        }
+
+        // Step 2 : Sending the links to the owners of their first node
+        Payload[] requests = new Payload[shards];
+        int[] counts = new int[shards];
+        List<CompletableFuture<ByteBuffer>> linked = new ArrayList<>();
+        long sent = 0;
+
+        for(Link link : graph.getLinks()) {
+            long x = ids.get(encoder.apply((T) link.getX().getData()));
+            long y = ids.get(encoder.apply((T) link.getY().getData()));
+            double weight = (link instanceof WeightedLink) ? ((WeightedLink) link).getWeight() : 1.0;
+
+            for(int direction = 0 ; direction < (graph.isDirected() ? 1 : 2) ; direction++) {
+                long from = (direction == 0) ? x : y, to = (direction == 0) ? y : x;
+                int s = Protocol.shard(from);
+
+                if(requests[s] == null) requests[s] = new Payload(16 + CHUNK * 24).putInt(0);
+                requests[s].putLong(from).putLong(to).putDouble(weight);
+                sent++;
+
+                if(++counts[s] == CHUNK) {
+                    linked.add(clients.get(s).send(Protocol.LINK_ALL, requests[s].setInt(Protocol.HEADER, counts[s])));
+                    requests[s] = null;
+                    counts[s] = 0;
+                }
+            }
+        }
+
+        for(int s = 0 ; s < shards ; s++) { if(counts[s] > 0) linked.add(clients.get(s).send(Protocol.LINK_ALL, requests[s].setInt(Protocol.HEADER, counts[s]))); }
+        long added = 0;
+        for(CompletableFuture<ByteBuffer> response : linked) { added += ShardClient.await(response).getInt(); }
+
+        event.finish(ids.size() + sent);
+        return added;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Traversal methods ///////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Runs a breadth-first search across the shards
+     * @param data is the data carried by the starting node
+     * @return the number of links between the starting node and every node it reaches
+     * @throws NodeNotFoundException if the starting node is not found
+     * @throws IOException if a shard fails
+     */
+    public Map<T, Integer> bfs(T data) throws NodeNotFoundException, IOException {
+        Map<T, Integer> hops = new LinkedHashMap<>();
+        for(Map.Entry<T, Double> entry : traverse(data, false).entrySet()) { hops.put(entry.getKey(), entry.getValue().intValue()); }
+        return hops;
+    }
+
+    /**
+     * Computes the shortest paths from a node to every node it reaches, across the shards (Bellman-Ford by rounds)
+     * @param data is the data carried by the starting node
+     * @return the cost of the shortest path to every node reached
+     * @throws NodeNotFoundException if the starting node is not found
+     * @throws IOException if a shard fails
+     * @throws IllegalStateException if a cycle of negative weight is reached
+     */
+    public Map<T, Double> sssp(T data) throws NodeNotFoundException, IOException { return traverse(data, true); }
+
+    /**
+     * Runs a traversal by rounds. Each round, shards receive the distances found for their nodes, keep those that
+     * improve and answer with the distances their successors get, grouped by owner. Only shards with something to
+     * receive take part in a round, and the traversal ends once a round finds nothing new
+     * @param data is the data carried by the starting node
+     * @param weighted tells whether links count their weight or 1
+     * @return the distance of every node reached
+     */
+    private Map<T, Double> traverse(T data, boolean weighted) throws NodeNotFoundException, IOException {
+        long source = id(data);
+        int shards = clients.size();
+        long order = order();
+
+        all(Protocol.START, new Payload().putByte(weighted ? 1 : 0));
+
+        Payload[] frontiers = new Payload[shards];
+        int[] counts = new int[shards];
+        frontiers[Protocol.shard(source)] = new Payload().putInt(1).putInt(Protocol.local(source)).putDouble(0.0);
+        counts[Protocol.shard(source)] = 1;
+
+        for(long round = 0 ; ; round++) {
+            // Without negative cycles, a shortest path never has more links than there are nodes
+            if(round > order) throw new IllegalStateException("A cycle of negative weight is reachable from " + data + ".");
+
+            // Step 1 : Sending every shard the distances found for its nodes
+            List<CompletableFuture<ByteBuffer>> responses = new ArrayList<>(shards);
+            boolean active = false;
+
+            for(int s = 0 ; s < shards ; s++) {
+                if(counts[s] == 0) {
+                    responses.add(null);
+                    continue;
+                }
+
+                responses.add(clients.get(s).send(Protocol.EXPAND, frontiers[s].setInt(Protocol.HEADER, counts[s])));
+                frontiers[s] = null;
+                counts[s] = 0;
+                active = true;
+            }
+
+            if(!active) break;
+
+            // Step 2 : Relaying the distances found, as they are, to their owners for the next round
+            for(CompletableFuture<ByteBuffer> pending : responses) {
+                if(pending == null) continue;
+
+                ByteBuffer response = ShardClient.await(pending);
+                response.getInt();
+
+                for(int s = 0 ; s < shards ; s++) {
+                    int count = response.getInt();
+                    if(count == 0) continue;
+
+                    ByteBuffer entries = response.slice().limit(count * ENTRY);
+                    response.position(response.position() + count * ENTRY);
+
+                    if(frontiers[s] == null) frontiers[s] = new Payload(4 + count * ENTRY).putInt(0);
+                    frontiers[s].putBytes(entries);
+                    counts[s] += count;
+                }
+            }
+        }
+
+        // Step 3 : Gathering the distances kept by every shard
+        Map<T, Double> distances = new LinkedHashMap<>();
+
+        for(ByteBuffer response : all(Protocol.COLLECT, new Payload())) {
+            int count = response.getInt();
+            for(int i = 0 ; i < count ; i++) { distances.put(decoder.apply(Protocol.getString(response)), response.getDouble()); }
+        }
+
+        return distances;
+    }
+
+    /**
+     * Stops the workers started by launch() and closes every connection
+     * @throws IOException if a connection fails to close
+     */
+    @Override
+    public void close() throws IOException {
+        if(!processes.isEmpty()) {
+            for(ShardClient client : clients) { client.send(Protocol.SHUTDOWN, new Payload()); }
+        }
+
+        for(ShardClient client : clients) { client.close(); }
+
+        for(Process process : processes) {
+            try {
+                if(!process.waitFor(5, TimeUnit.SECONDS)) process.destroyForcibly();
+            } catch(InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Routing methods /////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    private CompletableFuture<ByteBuffer> find(T data) {
+        String token = encoder.apply(data);
+        return clients.get(Protocol.owner(token, clients.size())).send(Protocol.FIND, new Payload().putString(token));
+    }
+
+    private long id(T data) throws NodeNotFoundException, IOException { return id(find(data)); }
+
+    private static long id(CompletableFuture<ByteBuffer> found) throws NodeNotFoundException, IOException {
+        ByteBuffer response = ShardClient.await(found);
+        if(response == null) throw new NodeNotFoundException();
+        return response.getLong();
+    }
+
+    /**
+     * Sends the same request to every shard, then waits for all of them
+     * @return the responses, by shard
+     */
+    private List<ByteBuffer> all(byte operation, Payload request) throws IOException {
+        List<CompletableFuture<ByteBuffer>> pending = new ArrayList<>(clients.size());
+        for(ShardClient client : clients) { pending.add(client.send(operation, request)); }
+
+        List<ByteBuffer> responses = new ArrayList<>(clients.size());
+        for(CompletableFuture<ByteBuffer> response : pending) { responses.add(ShardClient.await(response)); }
+        return responses;
+    }
+}
@@ -0,0 +1,204 @@
+package graph.standard.distributed;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Binary protocol spoken between the coordinator and the shards.
+ * Every frame starts with its length (int, not counting itself), a request id (int) and a code (byte) :
+ * an operation for requests, a status for responses. Requests are pipelined, responses carrying the id of their
+ * request. Strings are UTF-8 bytes preceded by their length, nodes are global ids (shard in the high int, local
+ * index in the low int)
+ * @author CreeperStone72
+ */
+final class Protocol {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    static final int HEADER = 9;
+
+    //// Operations //////////////////////////////////////////////////////
+    /**
+     * token -> id, inserted (byte)
+     */
+    static final byte INSERT = 1;
+
+    /**
+     * token -> id, or NOT_FOUND
+     */
+    static final byte FIND = 2;
+
+    /**
+     * x, y, weight -> linked (byte)
+     */
+    static final byte LINK = 3;
+
+    /**
+     * x -> count, then count (y, weight)
+     */
+    static final byte SUCCESSORS = 4;
+
+    /**
+     * count, ids -> tokens
+     */
+    static final byte NAMES = 5;
+
+    /**
+     * count, tokens -> ids, existing nodes keeping theirs
+     */
+    static final byte INSERT_ALL = 6;
+
+    /**
+     * count, then count (x, y, weight) -> number of links added, those already held being skipped
+     */
+    static final byte LINK_ALL = 7;
+
+    /**
+     * weighted (byte) -> nothing, forgets the previous traversal
+     */
+    static final byte START = 8;
+
+    /**
+     * count, then count (local index, distance) -> for each shard : count, then count (local index, distance)
+     */
+    static final byte EXPAND = 9;
+
+    /**
+     * nothing -> count, then count (token, distance) for every node reached
+     */
+    static final byte COLLECT = 10;
+
+    /**
+     * nothing -> order (int), size (long)
+     */
+    static final byte STATS = 11;
+
+    static final byte SHUTDOWN = 12;
+
+    //// Statuses ////////////////////////////////////////////////////////
+    static final byte OK = 0;
+
+    static final byte NOT_FOUND = 1;
+
+    /**
+     * Followed by the error message
+     */
+    static final byte ERROR = 2;
+
+    private Protocol() { }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    static long id(int shard, int local) { return ((long) shard << 32) | (local & 0xFFFFFFFFL); }
+
+    static int shard(long id) { return (int) (id >>> 32); }
+
+    static int local(long id) { return (int) id; }
+
+    /**
+     * Finds the shard owning a node. String.hashCode is the same in every JVM, so every process agrees
+     * @param token is the node's token
+     * @param shards is the number of shards
+     * @return the index of the owning shard
+     */
+    static int owner(String token, int shards) {
+        int h = token.hashCode() * 0x9E3779B1;
+        return Math.floorMod(h ^ (h >>> 16), shards);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Payload /////////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * A frame being written. Room for the header is kept at the start, so the frame is never copied
+     */
+    static final class Payload {
+        private ByteBuffer buffer;
+
+        Payload() { this(64); }
+
+        Payload(int capacity) {
+            buffer = ByteBuffer.allocate(HEADER + capacity);
+            buffer.position(HEADER);
+        }
+
+        private Payload ensure(int bytes) {
+            if(buffer.remaining() < bytes) {
+                int capacity = Math.max(buffer.position() + bytes, 2 * buffer.capacity());
+                buffer = ByteBuffer.wrap(Arrays.copyOf(buffer.array(), capacity)).position(buffer.position());
+            }
+
+            return this;
+        }
+
+        Payload putByte(int value) {
+            ensure(1).buffer.put((byte) value);
+            return this;
+        }
+
+        Payload putInt(int value) {
+            ensure(4).buffer.putInt(value);
+            return this;
+        }
+
+        Payload putLong(long value) {
+            ensure(8).buffer.putLong(value);
+            return this;
+        }
+
+        Payload putDouble(double value) {
+            ensure(8).buffer.putDouble(value);
+            return this;
+        }
+
+        Payload putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(4 + bytes.length).buffer.putInt(bytes.length).put(bytes);
+            return this;
+        }
+
+        /**
+         * Copies the rest of a buffer as is
+         */
+        Payload putBytes(ByteBuffer bytes) {
+            ensure(bytes.remaining()).buffer.put(bytes);
+            return this;
+        }
+
+        /**
+         * Overwrites an int written earlier, such as a count only known at the end
+         * @param position is where the int was written, as returned by position()
+         */
+        Payload setInt(int position, int value) {
+            buffer.putInt(position, value);
+            return this;
+        }
+
+        int position() { return buffer.position(); }
+
+        /**
+         * Counts the bytes written after the header
+         */
+        int size() { return buffer.position() - HEADER; }
+
+        /**
+         * Writes the header and gets the frame ready to be sent
+         * @param requestId is the id of the request
+         * @param code is the operation or status
+         * @return the frame, from its first byte to its last
+         */
+        ByteBuffer frame(int requestId, byte code) {
+            ByteBuffer frame = buffer.duplicate().flip();
+            frame.putInt(0, frame.limit() - 4).putInt(4, requestId).put(8, code);
+            return frame;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package graph.standard.distributed;
+
+import graph.standard.distributed.Protocol.Payload;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connection from the coordinator to a shard.
+ * Requests are pipelined : sending one returns at once, and a reader thread completes it when its response comes
+ * @author CreeperStone72
+ */
+final class ShardClient implements Closeable {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final int index;
+
+    private final SocketChannel channel;
+
+    private final Map<Integer, CompletableFuture<ByteBuffer>> pending;
+
+    private final AtomicInteger requestIds;
+
+    private volatile IOException failure;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor, connects to the shard and starts reading its responses
+     * @param index is the index of the shard
+     * @param address is the address the shard listens to
+     * @throws IOException if the shard can't be reached
+     */
+    ShardClient(int index, InetSocketAddress address) throws IOException {
+        this.index = index;
+        this.pending = new ConcurrentHashMap<>();
+        this.requestIds = new AtomicInteger();
+        this.channel = SocketChannel.open(address);
+        this.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+        Thread reader = new Thread(this::readLoop, "shard-client-" + index);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    int getIndex() { return index; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Sends a request without waiting for its response
+     * @param operation is the operation requested
+     * @param request is the body of the request
+     * @return the response to come, positioned after its header. It completes exceptionally if the shard fails
+     */
+    CompletableFuture<ByteBuffer> send(byte operation, Payload request) {
+        int requestId = requestIds.incrementAndGet();
+        CompletableFuture<ByteBuffer> response = new CompletableFuture<>();
+        pending.put(requestId, response);
+
+        ByteBuffer frame = request.frame(requestId, operation);
+
+        try {
+            synchronized(channel) {
+                if(failure != null) throw failure;
+                while(frame.hasRemaining()) channel.write(frame);
+            }
+        } catch(IOException e) {
+            pending.remove(requestId);
+            response.completeExceptionally(e);
+        }
+
+        return response;
+    }
+
+    /**
+     * Sends a request and waits for its response
+     * @return the response, positioned after its header
+     * @throws IOException if the shard fails or reports an error
+     */
+    ByteBuffer call(byte operation, Payload request) throws IOException { return await(send(operation, request)); }
+
+    /**
+     * Waits for a response
+     * @param response is a response sent for
+     * @return the response, positioned after its header
+     * @throws IOException if the shard fails or reports an error
+     */
+    static ByteBuffer await(CompletableFuture<ByteBuffer> response) throws IOException {
+        try {
+            return response.get();
+        } catch(ExecutionException e) {
+            if(e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a shard.", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException { channel.close(); }
+
+    /**
+     * Reads responses until the connection closes, then fails the requests left
+     */
+    private void readLoop() {
+        ByteBuffer header = ByteBuffer.allocate(Protocol.HEADER);
+
+        try {
+            while(true) {
+                header.clear();
+                fill(header);
+
+                int length = header.getInt(0), requestId = header.getInt(4);
+                byte status = header.get(8);
+
+                ByteBuffer body = ByteBuffer.allocate(length - (Protocol.HEADER - 4));
+                fill(body);
+                body.flip();
+
+                CompletableFuture<ByteBuffer> response = pending.remove(requestId);
+                if(response == null) continue;
+
+                if(status == Protocol.ERROR) response.completeExceptionally(new IOException("Shard " + index + " : " + Protocol.getString(body)));
+                else if(status == Protocol.NOT_FOUND) response.complete(null);
+                else response.complete(body);
+            }
+        } catch(IOException e) {
+            failure = e;
+        }
+
+        IOException cause = new IOException("The connection to shard " + index + " was lost.", failure);
+        for(Integer requestId : pending.keySet()) {
+            CompletableFuture<ByteBuffer> response = pending.remove(requestId);
+            if(response != null) response.completeExceptionally(cause);
+        }
+    }
+
+    private void fill(ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) { if(channel.read(buffer) == -1) throw new EOFException("Shard " + index + " closed the connection."); }
+    }
+}
@@ -0,0 +1,480 @@
+package graph.standard.distributed;
+
+import graph.standard.distributed.Protocol.Payload;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A worker process holding one shard of a distributed graph : the nodes whose token it owns, and the links leaving them.
+ * Links are stored as global ids, so a link can reach a node held by another shard.
+ * A single thread serves every connection with a selector, handling requests in the order they arrive.
+ * Run it with : java graph.standard.distributed.ShardServer index shards [port], it prints READY and its port once
+ * it listens on the loopback interface
+ * @author CreeperStone72
+ */
+public class ShardServer implements Closeable {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final int index;
+
+    private final int shards;
+
+    private final ServerSocketChannel server;
+
+    private final Selector selector;
+
+    private boolean running;
+
+    //// Storage /////////////////////////////////////////////////////////
+    /**
+     * Local index of every owned node, by token
+     */
+    private final Map<String, Integer> ids;
+
+    private final List<String> tokens;
+
+    /**
+     * Global ids and weights of the links leaving each owned node
+     */
+    private long[][] targets;
+
+    private double[][] weights;
+
+    private int[] degrees;
+
+    private long size;
+
+    //// Traversal ///////////////////////////////////////////////////////
+    /**
+     * Best distance found so far for every owned node, infinity if unreached
+     */
+    private double[] distances;
+
+    /**
+     * Round in which each owned node last joined the frontier
+     */
+    private int[] stamps;
+
+    private int round;
+
+    private boolean weighted;
+
+    /**
+     * Distances found for each shard's nodes during a round, cleared and reused by the next one
+     */
+    private final List<Map<Integer, Double>> batches;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor, binds the server to the loopback interface
+     * @param index is the index of the shard
+     * @param shards is the number of shards
+     * @param port is the port listened to, 0 for any free port
+     * @throws IOException if the port can't be bound
+     */
+    public ShardServer(int index, int shards, int port) throws IOException {
+        if(shards <= 0) throw new IllegalArgumentException("The number of shards must be positive.");
+        if(index < 0 || index >= shards) throw new IllegalArgumentException("Shard " + index + " doesn't exist.");
+
+        this.index = index;
+        this.shards = shards;
+        this.ids = new HashMap<>();
+        this.tokens = new ArrayList<>();
+        this.targets = new long[16][];
+        this.weights = new double[16][];
+        this.degrees = new int[16];
+        this.batches = new ArrayList<>(shards);
+        for(int s = 0 ; s < shards ; s++) { batches.add(new HashMap<>()); }
+
+        this.distances = new double[0];
+        this.stamps = new int[0];
+
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public int getIndex() { return index; }
+
+    public int getPort() throws IOException { return ((InetSocketAddress) server.getLocalAddress()).getPort(); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2) {
+            System.err.println("Usage : ShardServer index shards [port]");
+            System.exit(2);
+        }
+
+        try(ShardServer server = new ShardServer(Integer.parseInt(args[0]), Integer.parseInt(args[1]), (args.length > 2) ? Integer.parseInt(args[2]) : 0)) {
+            System.out.println("READY " + server.getPort());
+            System.out.flush();
+            server.serve();
+        }
+    }
+
+    /**
+     * Serves requests until a shutdown request comes
+     * @throws IOException if the selector fails
+     */
+    public void serve() throws IOException {
+        running = true;
+
+        while(running) {
+            selector.select();
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+            while(keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+
+                try {
+                    if(!key.isValid()) continue;
+                    if(key.isAcceptable()) accept();
+                    if(key.isValid() && key.isReadable()) read(key);
+                    if(key.isValid() && key.isWritable()) write(key);
+                } catch(IOException e) {
+                    // The coordinator went away, other connections carry on
+                    key.cancel();
+                    key.channel().close();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for(SelectionKey key : selector.keys()) { key.channel().close(); }
+        selector.close();
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Connection methods //////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if(channel == null) return;
+
+        channel.configureBlocking(false);
+        channel.setOption(java.net.StandardSocketOptions.TCP_NODELAY, true);
+        channel.register(selector, SelectionKey.OP_READ, new Connection());
+    }
+
+    /**
+     * Reads what arrived, then handles every complete frame
+     */
+    private void read(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+
+        if(channel.read(connection.input) == -1) {
+            key.cancel();
+            channel.close();
+            return;
+        }
+
+        ByteBuffer input = connection.input.flip();
+
+        while(input.remaining() >= 4) {
+            int length = input.getInt(input.position());
+            if(input.remaining() < 4 + length) break;
+
+            int next = input.position() + 4 + length;
+            ByteBuffer frame = input.slice().position(4).limit(4 + length);
+            int requestId = frame.getInt();
+            byte operation = frame.get();
+
+            connection.output.add(handle(requestId, operation, frame.slice()));
+            input.position(next);
+
+            if(!running) break;
+        }
+
+        input.compact();
+
+        // A frame larger than the buffer needs a larger buffer
+        if(input.position() >= 4) {
+            int needed = 4 + input.getInt(0);
+            if(needed > input.capacity()) connection.input = ByteBuffer.allocate(needed).put(input.flip());
+        }
+
+        write(key);
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+
+        while(!connection.output.isEmpty()) {
+            ByteBuffer head = connection.output.peek();
+
+            // The last response before a shutdown must leave before the process does
+            if(!running) { while(head.hasRemaining()) channel.write(head); }
+            else channel.write(head);
+
+            if(head.hasRemaining()) break;
+            connection.output.poll();
+        }
+
+        key.interestOps(connection.output.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Handles a request
+     * @return the response frame
+     */
+    private ByteBuffer handle(int requestId, byte operation, ByteBuffer request) {
+        Payload response = new Payload();
+
+        try {
+            switch(operation) {
+                case Protocol.INSERT: {
+                    String token = Protocol.getString(request);
+                    boolean inserted = !ids.containsKey(token);
+                    response.putLong(Protocol.id(index, insert(token))).putByte(inserted ? 1 : 0);
+                    break;
+                }
+                case Protocol.FIND: {
+                    Integer local = ids.get(Protocol.getString(request));
+                    if(local == null) return response.frame(requestId, Protocol.NOT_FOUND);
+                    response.putLong(Protocol.id(index, local));
+                    break;
+                }
+                case Protocol.LINK: {
+                    int x = owned(request.getLong());
+                    long y = request.getLong();
+                    double weight = request.getDouble();
+                    boolean linked = true;
+
+                    for(int i = 0 ; i < degrees[x] ; i++) { if(targets[x][i] == y) linked = false; }
+                    if(linked) link(x, y, weight);
+
+                    response.putByte(linked ? 1 : 0);
+                    break;
+                }
+                case Protocol.SUCCESSORS: {
+                    int x = owned(request.getLong());
+                    response.putInt(degrees[x]);
+                    for(int i = 0 ; i < degrees[x] ; i++) { response.putLong(targets[x][i]).putDouble(weights[x][i]); }
+                    break;
+                }
+                case Protocol.NAMES: {
+                    int count = request.getInt();
+                    for(int i = 0 ; i < count ; i++) { response.putString(tokens.get(owned(request.getLong()))); }
+                    break;
+                }
+                case Protocol.INSERT_ALL: {
+                    int count = request.getInt();
+                    for(int i = 0 ; i < count ; i++) { response.putLong(Protocol.id(index, insert(Protocol.getString(request)))); }
+                    break;
+                }
+                case Protocol.LINK_ALL: {
+                    int count = request.getInt(), linked = 0;
+
+                    // Like LINK, links already held are skipped. Each node's targets are hashed once per request
+                    // instead of being scanned for every link
+                    Map<Integer, Set<Long>> known = new HashMap<>();
+
+                    for(int i = 0 ; i < count ; i++) {
+                        int x = owned(request.getLong());
+                        long y = request.getLong();
+                        double weight = request.getDouble();
+
+                        if(known.computeIfAbsent(x, this::targets).add(y)) {
+                            link(x, y, weight);
+                            linked++;
+                        }
+                    }
+
+                    response.putInt(linked);
+                    break;
+                }
+                case Protocol.START: {
+                    weighted = request.get() != 0;
+                    distances = new double[tokens.size()];
+                    Arrays.fill(distances, Double.POSITIVE_INFINITY);
+                    stamps = new int[tokens.size()];
+                    round = 0;
+                    break;
+                }
+                case Protocol.EXPAND:
+                    expand(request, response);
+                    break;
+                case Protocol.COLLECT: {
+                    int count = 0, countAt = response.position();
+                    response.putInt(0);
+
+                    for(int x = 0 ; x < distances.length ; x++) {
+                        if(distances[x] == Double.POSITIVE_INFINITY) continue;
+                        response.putString(tokens.get(x)).putDouble(distances[x]);
+                        count++;
+                    }
+
+                    response.setInt(countAt, count);
+                    break;
+                }
+                case Protocol.STATS:
+                    response.putInt(tokens.size()).putLong(size);
+                    break;
+                case Protocol.SHUTDOWN:
+                    running = false;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown operation " + operation + ".");
+            }
+
+            return response.frame(requestId, Protocol.OK);
+        } catch(RuntimeException e) {
+            return new Payload().putString(String.valueOf(e.getMessage())).frame(requestId, Protocol.ERROR);
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Storage methods /////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Inserts a node, unless it's already there
+     * @return the local index of the node
+     */
+    private int insert(String token) {
+        if(Protocol.owner(token, shards) != index) throw new IllegalArgumentException(token + " isn't owned by shard " + index + ".");
+
+        Integer existing = ids.get(token);
+        if(existing != null) return existing;
+
+        int local = tokens.size();
+        ids.put(token, local);
+        tokens.add(token);
+
+        if(local == degrees.length) {
+            targets = Arrays.copyOf(targets, 2 * local);
+            weights = Arrays.copyOf(weights, 2 * local);
+            degrees = Arrays.copyOf(degrees, 2 * local);
+        }
+
+        return local;
+    }
+
+    private void link(int x, long y, double weight) {
+        int degree = degrees[x];
+
+        if(targets[x] == null) {
+            targets[x] = new long[4];
+            weights[x] = new double[4];
+        } else if(degree == targets[x].length) {
+            targets[x] = Arrays.copyOf(targets[x], 2 * degree);
+            weights[x] = Arrays.copyOf(weights[x], 2 * degree);
+        }
+
+        targets[x][degree] = y;
+        weights[x][degree] = weight;
+        degrees[x] = degree + 1;
+        size++;
+    }
+
+    /**
+     * Gathers the targets of the links leaving an owned node
+     */
+    private Set<Long> targets(int x) {
+        Set<Long> set = new HashSet<>(2 * degrees[x]);
+        for(int i = 0 ; i < degrees[x] ; i++) { set.add(targets[x][i]); }
+        return set;
+    }
+
+    /**
+     * Checks a global id belongs to this shard
+     * @return the local index of the node
+     */
+    private int owned(long id) {
+        if(Protocol.shard(id) != index || Protocol.local(id) < 0 || Protocol.local(id) >= tokens.size()) throw new IllegalArgumentException("Node " + id + " isn't held by shard " + index + ".");
+        return Protocol.local(id);
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Traversal methods ///////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Runs a round of a traversal. The distances received are kept when they improve the known ones, and the nodes
+     * they improved send new distances to their successors. Those are grouped by owning shard, the best distance
+     * being kept when several reach the same node, and those known not to improve anything being dropped
+     */
+    private void expand(ByteBuffer request, Payload response) {
+        int count = request.getInt();
+        int[] frontier = new int[count];
+        int size = 0;
+
+        round++;
+
+        for(int i = 0 ; i < count ; i++) {
+            int x = request.getInt();
+            double distance = request.getDouble();
+
+            if(distance < distances[x]) {
+                if(stamps[x] != round) frontier[size++] = x;
+                stamps[x] = round;
+                distances[x] = distance;
+            }
+        }
+
+        for(Map<Integer, Double> batch : batches) { batch.clear(); }
+
+        for(int f = 0 ; f < size ; f++) {
+            int x = frontier[f];
+
+            for(int i = 0 ; i < degrees[x] ; i++) {
+                long y = targets[x][i];
+                double candidate = distances[x] + (weighted ? weights[x][i] : 1.0);
+                int shard = Protocol.shard(y), local = Protocol.local(y);
+
+                if(shard == index && candidate >= distances[local]) continue;
+                batches.get(shard).merge(local, candidate, Math::min);
+            }
+        }
+
+        response.putInt(shards);
+
+        for(Map<Integer, Double> batch : batches) {
+            response.putInt(batch.size());
+            for(Map.Entry<Integer, Double> entry : batch.entrySet()) { response.putInt(entry.getKey()).putDouble(entry.getValue()); }
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Connection //////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Buffers of a connection : bytes read but not handled yet, and responses not sent yet
+     */
+    private static final class Connection {
+        private ByteBuffer input = ByteBuffer.allocate(64 * 1024);
+
+        private final ArrayDeque<ByteBuffer> output = new ArrayDeque<>();
+    }
+}
@@ -0,0 +1,103 @@
+package graph.standard.ordering;
+
+import graph.standard.adjacency.Adjacency;
+
+/**
+ * How close linked nodes are numbered, which tells how well a traversal will use the cache.
+ * Gaps are the differences between the numbers of the two nodes of every stored link, loops excluded
+ * @author CreeperStone72
+ */
+public final class Locality {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Number of nodes whose int values share a 64-byte cache line
+     */
+    public static final int NODES_PER_LINE = 16;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final long links;
+
+    private final double averageGap, averageLogGap, sameLineRatio;
+
+    private final int bandwidth;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor, measures the links of an adjacency numbered by a permutation
+     * @param adjacency is the measured adjacency
+     * @param ids is the new number of every node, null to keep them
+     */
+    Locality(Adjacency adjacency, int[] ids) {
+        long links = 0, sameLine = 0;
+        double gaps = 0.0, logGaps = 0.0;
+        int bandwidth = 0;
+
+        for(int x = 0 ; x < adjacency.order() ; x++) {
+            int nx = (ids == null) ? x : ids[x];
+
+            for(long i = adjacency.begin(x), end = adjacency.end(x) ; i < end ; i++) {
+                int y = adjacency.target(i), ny = (ids == null) ? y : ids[y];
+                if(x == y) continue;
+
+                int gap = Math.abs(nx - ny);
+                links++;
+                gaps += gap;
+                logGaps += Math.log(gap + 1.0);
+                bandwidth = Math.max(bandwidth, gap);
+                if(nx / NODES_PER_LINE == ny / NODES_PER_LINE) sameLine++;
+            }
+        }
+
+        this.links = links;
+        this.averageGap = (links == 0) ? 0.0 : gaps / links;
+        this.averageLogGap = (links == 0) ? 0.0 : logGaps / links / Math.log(2.0);
+        this.sameLineRatio = (links == 0) ? 0.0 : (double) sameLine / links;
+        this.bandwidth = bandwidth;
+    }
+
+    /**
+     * Measures an adjacency as it is numbered
+     * @param adjacency is the measured adjacency
+     * @return its locality
+     */
+    public static Locality of(Adjacency adjacency) { return new Locality(adjacency, null); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Counts the measured links
+     */
+    public long getLinks() { return links; }
+
+    /**
+     * Gives the average gap between linked nodes
+     */
+    public double getAverageGap() { return averageGap; }
+
+    /**
+     * Gives the average of log2(gap + 1), roughly the bits a gap encoding spends per link
+     */
+    public double getAverageLogGap() { return averageLogGap; }
+
+    /**
+     * Gives the largest gap between linked nodes
+     */
+    public int getBandwidth() { return bandwidth; }
+
+    /**
+     * Gives the share of links whose nodes are numbered within the same cache line of an int array
+     */
+    public double getSameLineRatio() { return sameLineRatio; }
+
+    @Override
+    public String toString() {
+        return String.format("Locality{links=%d, averageGap=%.1f, averageLogGap=%.2f, bandwidth=%d, sameLineRatio=%.3f}", links, averageGap, averageLogGap, bandwidth, sameLineRatio);
+    }
+}
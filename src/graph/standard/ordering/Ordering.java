@@ -0,0 +1,34 @@
+package graph.standard.ordering;
+
+/**
+ * Ways of numbering the nodes of a graph, which decide how close linked nodes end up in memory
+ * @author CreeperStone72
+ */
+public enum Ordering {
+    /**
+     * Nodes keep their numbers
+     */
+    IDENTITY,
+
+    /**
+     * Nodes by decreasing degree, so hubs share the first cache lines
+     */
+    DEGREE,
+
+    /**
+     * Nodes in the order a breadth-first search reaches them, component by component
+     */
+    BFS,
+
+    /**
+     * Reverse Cuthill-McKee : a breadth-first search from a peripheral node, reaching neighbors by increasing degree,
+     * numbered backwards. Keeps links close to the diagonal (small bandwidth)
+     */
+    RCM,
+
+    /**
+     * Gorder : nodes are placed one at a time, each time the one sharing the most neighbors and links with the last
+     * few placed, so nodes read together sit together
+     */
+    GORDER
+}
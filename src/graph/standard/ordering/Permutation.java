@@ -0,0 +1,139 @@
+package graph.standard.ordering;
+
+import graph.standard.Node;
+import graph.standard.adjacency.Adjacency;
+import graph.standard.adjacency.OffHeapAdjacency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A new numbering of the nodes of an adjacency.
+ * The permutation keeps the adjacency it was built from, which must stay open while it is applied or measured
+ * @author CreeperStone72
+ */
+public class Permutation {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final Adjacency adjacency;
+
+    /**
+     * nodes[i] is the node numbered i, by its old number
+     */
+    private final int[] nodes;
+
+    /**
+     * ids[x] is the new number of node x
+     */
+    private final int[] ids;
+
+    /**
+     * Locality of the new numbering, measured when first needed
+     */
+    private Locality locality;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor, also used to apply a numbering computed elsewhere
+     * @param adjacency is the renumbered adjacency
+     * @param nodes is the old number of every node, in their new order
+     * @throws IllegalArgumentException if nodes isn't a permutation of the adjacency's nodes
+     */
+    public Permutation(Adjacency adjacency, int[] nodes) {
+        if(nodes.length != adjacency.order()) throw new IllegalArgumentException("Every node must have exactly one number.");
+
+        this.adjacency = adjacency;
+        this.nodes = nodes;
+        this.ids = new int[nodes.length];
+
+        boolean[] seen = new boolean[nodes.length];
+
+        for(int i = 0 ; i < nodes.length ; i++) {
+            int x = nodes[i];
+            if(x < 0 || x >= nodes.length || seen[x]) throw new IllegalArgumentException("Node " + x + " is out of range or numbered twice.");
+
+            seen[x] = true;
+            ids[x] = i;
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public Adjacency getAdjacency() { return adjacency; }
+
+    public int order() { return nodes.length; }
+
+    /**
+     * Finds the new number of a node
+     * @param node is the old number of the node
+     * @return its new number
+     */
+    public int id(int node) { return ids[Objects.checkIndex(node, ids.length)]; }
+
+    /**
+     * Finds the node given a number
+     * @param id is the new number of the node
+     * @return its old number
+     */
+    public int node(int id) { return nodes[Objects.checkIndex(id, nodes.length)]; }
+
+    /**
+     * Copies the new number of every node
+     * @return an array whose x-th value is the new number of node x
+     */
+    public int[] ids() { return ids.clone(); }
+
+    /**
+     * Copies the old number of every node, in their new order
+     * @return an array whose i-th value is the old number of the node numbered i
+     */
+    public int[] nodes() { return nodes.clone(); }
+
+    /**
+     * Measures the adjacency as it would be numbered
+     */
+    public Locality getLocality() {
+        if(locality == null) locality = new Locality(adjacency, ids);
+        return locality;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Copies the adjacency outside of the heap with the new numbering, node i being the node numbered i
+     * @return the renumbered adjacency
+     */
+    public OffHeapAdjacency apply() {
+        OffHeapAdjacency.Builder builder = new OffHeapAdjacency.Builder(nodes.length, adjacency.isWeighted());
+
+        for(int i = 0 ; i < nodes.length ; i++) {
+            int x = nodes[i];
+            for(long j = adjacency.begin(x), end = adjacency.end(x) ; j < end ; j++) { builder.add(i, ids[adjacency.target(j)], adjacency.weight(j)); }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Puts the nodes of the graph the adjacency was built from in their new order
+     * @param graphNodes is the list of nodes, node x being the x-th one
+     * @param <T> is the type of data carried by the nodes
+     * @return a new list whose i-th element is the node numbered i
+     */
+    public <T> List<Node<T>> apply(List<Node<T>> graphNodes) {
+        if(graphNodes.size() != nodes.length) throw new IllegalArgumentException("Every node must have exactly one number.");
+
+        List<Node<T>> ordered = new ArrayList<>(nodes.length);
+        for(int x : nodes) { ordered.add(graphNodes.get(x)); }
+        return ordered;
+    }
+
+    @Override
+    public String toString() { return "Permutation{order=" + nodes.length + ", locality=" + getLocality() + "}"; }
+}
@@ -0,0 +1,109 @@
+package graph.standard.ordering;
+
+import graph.standard.Node;
+import graph.standard.adjacency.Adjacency;
+import graph.standard.adjacency.OffHeapAdjacency;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A graph renumbered by a Reorderer : its links in an off-heap adjacency where node i is the node numbered i,
+ * with the original node behind every number
+ * @param <T> is the type of data carried by the nodes
+ * @author CreeperStone72
+ */
+public final class ReorderedGraph<T> implements Adjacency, AutoCloseable {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Original nodes, by new number
+     */
+    private final List<Node<T>> nodes;
+
+    private final OffHeapAdjacency adjacency;
+
+    /**
+     * ids[x] is the new number of the x-th node of the original graph
+     */
+    private final int[] ids;
+
+    private final Locality before, after;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor, used by Reorderer
+     */
+    ReorderedGraph(List<Node<T>> nodes, OffHeapAdjacency adjacency, int[] ids, Locality before, Locality after) {
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.adjacency = adjacency;
+        this.ids = ids;
+        this.before = before;
+        this.after = after;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Gives the original nodes, the i-th one being numbered i
+     */
+    public List<Node<T>> getNodes() { return nodes; }
+
+    /**
+     * Finds the original node behind a number
+     * @param id is the new number
+     * @return the node
+     */
+    public Node<T> getNode(int id) { return nodes.get(id); }
+
+    /**
+     * Finds the new number of a node of the original graph
+     * @param node is the position of the node in the original graph's getNodes()
+     * @return its new number
+     */
+    public int id(int node) { return ids[Objects.checkIndex(node, ids.length)]; }
+
+    public OffHeapAdjacency getAdjacency() { return adjacency; }
+
+    /**
+     * Gives the locality of the original numbering, which is insertion order
+     */
+    public Locality getLocalityBefore() { return before; }
+
+    public Locality getLocality() { return after; }
+
+    @Override
+    public int order() { return adjacency.order(); }
+
+    @Override
+    public long size() { return adjacency.size(); }
+
+    @Override
+    public boolean isWeighted() { return adjacency.isWeighted(); }
+
+    @Override
+    public long begin(int node) { return adjacency.begin(node); }
+
+    @Override
+    public long end(int node) { return adjacency.end(node); }
+
+    @Override
+    public int target(long position) { return adjacency.target(position); }
+
+    @Override
+    public double weight(long position) { return adjacency.weight(position); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Releases the native memory of the adjacency. The nodes can still be read
+     */
+    @Override
+    public void close() { adjacency.close(); }
+}
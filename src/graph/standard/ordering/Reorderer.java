@@ -0,0 +1,387 @@
+package graph.standard.ordering;
+
+import graph.metrics.AlgorithmEvent;
+import graph.standard.Graph;
+import graph.standard.adjacency.Adjacency;
+import graph.standard.adjacency.OffHeapAdjacency;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Numbers the nodes of an adjacency so that linked nodes get close numbers, which makes traversals read fewer
+ * cache lines and gap encodings shorter. Directions are ignored : a link brings its nodes together either way.
+ * Every ordering is deterministic. A graph is renumbered through its
+ * adjacency, for instance new Reorderer().reorder(graph, Ordering.RCM), or with new Reorderer().compare(adjacency)
+ * to see which ordering suits it best
+ * @author CreeperStone72
+ */
+public class Reorderer {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public static final int DEFAULT_WINDOW = 5;
+
+    /**
+     * The pseudo-peripheral node of RCM is looked for with at most this many breadth-first searches
+     */
+    private static final int PERIPHERAL_SEARCHES = 8;
+
+    /**
+     * Gorder only counts the siblings sharing a predecessor with at most this many successors
+     */
+    private static final int SIBLING_DEGREE = 16;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Number of nodes placed last that Gorder compares candidates to
+     */
+    private int window;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public Reorderer() { setWindow(DEFAULT_WINDOW); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public Reorderer setWindow(int window) {
+        if(window <= 0) throw new IllegalArgumentException("The window must be positive.");
+        this.window = window;
+        return this;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public int getWindow() { return window; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Numbers the nodes of an adjacency
+     * @param adjacency is the adjacency, left untouched
+     * @param ordering is the way to number them
+     * @return the numbering
+     */
+    public Permutation reorder(Adjacency adjacency, Ordering ordering) {
+        AlgorithmEvent event = new AlgorithmEvent(ordering.name().toLowerCase(), adjacency.order(), (int) Math.min(Integer.MAX_VALUE, adjacency.size()));
+        Structure structure = Structure.of(adjacency);
+        int[] nodes;
+
+        switch(ordering) {
+            case DEGREE: nodes = degree(structure); break;
+            case BFS: nodes = bfs(structure); break;
+            case RCM: nodes = reverseCuthillMcKee(structure); break;
+            case GORDER: nodes = gorder(structure); break;
+            default: nodes = identity(structure); break;
+        }
+
+        event.finish(structure.order, structure.out.length);
+        return new Permutation(adjacency, nodes);
+    }
+
+    /**
+     * Renumbers the nodes of a graph
+     * @param graph is the graph, left untouched
+     * @param ordering is the way to number them
+     * @param <T> is the type of data carried by the nodes
+     * @return the renumbered graph, with the node behind every new number
+     */
+    public <T> ReorderedGraph<T> reorder(Graph<T, ?> graph, Ordering ordering) {
+        try(OffHeapAdjacency adjacency = OffHeapAdjacency.of(graph)) {
+            Permutation permutation = reorder(adjacency, ordering);
+            return new ReorderedGraph<>(permutation.apply(graph.getNodes()), permutation.apply(), permutation.ids(), Locality.of(adjacency), permutation.getLocality());
+        }
+    }
+
+    /**
+     * Measures every ordering on an adjacency, to pick the one that suits it best
+     * @param adjacency is the adjacency, left untouched
+     * @return the locality each ordering gives
+     */
+    public Map<Ordering, Locality> compare(Adjacency adjacency) {
+        Map<Ordering, Locality> localities = new EnumMap<>(Ordering.class);
+        for(Ordering ordering : Ordering.values()) { localities.put(ordering, reorder(adjacency, ordering).getLocality()); }
+        return localities;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Orderings ///////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    private static int[] identity(Structure structure) {
+        int[] nodes = new int[structure.order];
+        Arrays.setAll(nodes, x -> x);
+        return nodes;
+    }
+
+    /**
+     * Sorts the nodes by decreasing degree, both ways
+     */
+    private static int[] degree(Structure structure) {
+        long[] keys = new long[structure.order];
+        for(int x = 0 ; x < structure.order ; x++) { keys[x] = ((long) (Integer.MAX_VALUE - structure.degree(x)) << 32) | x; }
+        Arrays.parallelSort(keys);
+
+        int[] nodes = new int[structure.order];
+        for(int i = 0 ; i < nodes.length ; i++) { nodes[i] = (int) keys[i]; }
+        return nodes;
+    }
+
+    /**
+     * Numbers the nodes as breadth-first searches reach them, one from the smallest node of every component
+     */
+    private static int[] bfs(Structure structure) {
+        int order = structure.order;
+        int[] nodes = new int[order];
+        boolean[] visited = new boolean[order];
+        int tail = 0;
+
+        for(int s = 0 ; s < order ; s++) {
+            if(visited[s]) continue;
+
+            visited[s] = true;
+            nodes[tail++] = s;
+
+            for(int head = tail - 1 ; head < tail ; head++) {
+                int x = nodes[head];
+
+                for(int i = structure.outFirst[x] ; i < structure.outFirst[x + 1] ; i++) { tail = visit(structure.out[i], nodes, visited, tail); }
+                for(int i = structure.inFirst[x] ; i < structure.inFirst[x + 1] ; i++) { tail = visit(structure.in[i], nodes, visited, tail); }
+            }
+        }
+
+        return nodes;
+    }
+
+    private static int visit(int y, int[] nodes, boolean[] visited, int tail) {
+        if(visited[y]) return tail;
+
+        visited[y] = true;
+        nodes[tail] = y;
+        return tail + 1;
+    }
+
+    /**
+     * Reverse Cuthill-McKee : every component is searched from a pseudo-peripheral node, reaching the neighbors
+     * of each node by increasing degree, then the whole numbering is reversed
+     */
+    private static int[] reverseCuthillMcKee(Structure structure) {
+        int order = structure.order;
+        int[] nodes = new int[order], levels = new int[order], queue = new int[order];
+        boolean[] visited = new boolean[order];
+        long[] keys = new long[16];
+        int tail = 0;
+
+        Arrays.fill(levels, -1);
+
+        for(int s = 0 ; s < order ; s++) {
+            if(visited[s]) continue;
+
+            int start = peripheral(structure, s, levels, queue);
+
+            visited[start] = true;
+            nodes[tail++] = start;
+
+            for(int head = tail - 1 ; head < tail ; head++) {
+                int x = nodes[head], found = 0;
+
+                // Unvisited neighbors, by increasing degree
+                for(int side = 0 ; side < 2 ; side++) {
+                    int[] first = (side == 0) ? structure.outFirst : structure.inFirst, links = (side == 0) ? structure.out : structure.in;
+
+                    for(int i = first[x] ; i < first[x + 1] ; i++) {
+                        int y = links[i];
+                        if(visited[y]) continue;
+
+                        visited[y] = true;
+                        if(found == keys.length) keys = Arrays.copyOf(keys, 2 * found);
+                        keys[found++] = ((long) structure.degree(y) << 32) | y;
+                    }
+                }
+
+                Arrays.sort(keys, 0, found);
+                for(int i = 0 ; i < found ; i++) { nodes[tail++] = (int) keys[i]; }
+            }
+        }
+
+        for(int i = 0, j = order - 1 ; i < j ; i++, j--) {
+            int swap = nodes[i];
+            nodes[i] = nodes[j];
+            nodes[j] = swap;
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Looks for a node far from the rest of its component (George-Liu) : a breadth-first search goes from the
+     * smallest-degree node of the last level of the one before, as long as that makes the component deeper
+     * @param levels holds -1 for every node, and does again afterwards
+     * @return the node found
+     */
+    private static int peripheral(Structure structure, int s, int[] levels, int[] queue) {
+        int start = s, depth = -1;
+
+        for(int search = 0 ; search < PERIPHERAL_SEARCHES ; search++) {
+            // Step 1 : Levelling the component from the start
+            int tail = 0;
+            levels[start] = 0;
+            queue[tail++] = start;
+
+            for(int head = 0 ; head < tail ; head++) {
+                int x = queue[head];
+
+                for(int i = structure.outFirst[x] ; i < structure.outFirst[x + 1] ; i++) { tail = level(structure.out[i], levels[x] + 1, levels, queue, tail); }
+                for(int i = structure.inFirst[x] ; i < structure.inFirst[x + 1] ; i++) { tail = level(structure.in[i], levels[x] + 1, levels, queue, tail); }
+            }
+
+            // Step 2 : Taking the smallest degree of the last level
+            int last = levels[queue[tail - 1]], candidate = queue[tail - 1];
+            for(int i = tail - 1 ; i >= 0 && levels[queue[i]] == last ; i--) {
+                int x = queue[i];
+                if(structure.degree(x) < structure.degree(candidate) || (structure.degree(x) == structure.degree(candidate) && x < candidate)) candidate = x;
+            }
+
+            for(int i = 0 ; i < tail ; i++) { levels[queue[i]] = -1; }
+
+            if(last <= depth) break;
+            depth = last;
+            start = candidate;
+        }
+
+        return start;
+    }
+
+    private static int level(int y, int level, int[] levels, int[] queue, int tail) {
+        if(levels[y] != -1) return tail;
+
+        levels[y] = level;
+        queue[tail] = y;
+        return tail + 1;
+    }
+
+    /**
+     * Gorder (Wei et al.) : nodes are placed one at a time, each time the one with the best score against the last
+     * window placed. A node scores a point per link with one of them and per predecessor it shares with one of them.
+     * Scores are kept in buckets so a point is added or taken in constant time. Siblings are only counted through
+     * predecessors with few successors : hubs would make most nodes siblings, at a quadratic cost
+     */
+    private int[] gorder(Structure structure) {
+        int order = structure.order;
+        int[] nodes = new int[order];
+        if(order == 0) return nodes;
+
+        Buckets buckets = new Buckets(order);
+
+        // Starting with the node most pointed to
+        int start = 0;
+        for(int x = 1 ; x < order ; x++) { if(structure.inDegree(x) > structure.inDegree(start)) start = x; }
+
+        buckets.remove(start);
+        nodes[0] = start;
+
+        for(int i = 1 ; i < order ; i++) {
+            score(structure, buckets, nodes[i - 1], 1);
+            if(i - 1 - window >= 0) score(structure, buckets, nodes[i - 1 - window], -1);
+
+            int x = buckets.max();
+            buckets.remove(x);
+            nodes[i] = x;
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Gives or takes the points a node brings to the nodes not placed yet, as it enters or leaves the window
+     */
+    private static void score(Structure structure, Buckets buckets, int v, int delta) {
+        for(int i = structure.outFirst[v] ; i < structure.outFirst[v + 1] ; i++) { buckets.add(structure.out[i], delta); }
+        for(int i = structure.inFirst[v] ; i < structure.inFirst[v + 1] ; i++) {
+            int w = structure.in[i];
+            buckets.add(w, delta);
+
+            if(structure.outDegree(w) > SIBLING_DEGREE) continue;
+            for(int j = structure.outFirst[w] ; j < structure.outFirst[w + 1] ; j++) { if(structure.out[j] != v) buckets.add(structure.out[j], delta); }
+        }
+    }
+
+    /**
+     * Nodes not placed yet, in doubly linked lists by score. A node whose score changes goes to the head of its new
+     * list, so among the best the last one scored comes first. The top score only goes down when its list empties
+     */
+    private static final class Buckets {
+        private final int[] scores, next, previous;
+
+        private final boolean[] placed;
+
+        private int[] heads;
+
+        private int top;
+
+        private Buckets(int order) {
+            this.scores = new int[order];
+            this.next = new int[order];
+            this.previous = new int[order];
+            this.placed = new boolean[order];
+            this.heads = new int[16];
+
+            Arrays.fill(heads, -1);
+            heads[0] = 0;
+
+            for(int x = 0 ; x < order ; x++) {
+                previous[x] = x - 1;
+                next[x] = (x + 1 < order) ? x + 1 : -1;
+            }
+        }
+
+        private int max() {
+            while(heads[top] == -1) top--;
+            return heads[top];
+        }
+
+        private void add(int x, int delta) {
+            if(placed[x]) return;
+
+            unlink(x);
+            scores[x] += delta;
+            push(x);
+        }
+
+        private void remove(int x) {
+            unlink(x);
+            placed[x] = true;
+        }
+
+        private void unlink(int x) {
+            if(previous[x] != -1) next[previous[x]] = next[x];
+            else heads[scores[x]] = next[x];
+            if(next[x] != -1) previous[next[x]] = previous[x];
+        }
+
+        /**
+         * Puts a node at the head of the list of its score
+         */
+        private void push(int x) {
+            int score = scores[x];
+
+            if(score >= heads.length) {
+                int length = heads.length;
+                heads = Arrays.copyOf(heads, Math.max(2 * length, score + 1));
+                Arrays.fill(heads, length, heads.length, -1);
+            }
+
+            previous[x] = -1;
+            next[x] = heads[score];
+            if(heads[score] != -1) previous[heads[score]] = x;
+            heads[score] = x;
+            top = Math.max(top, score);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package graph.standard.ordering;
+
+import graph.standard.adjacency.Adjacency;
+
+import java.util.Arrays;
+
+/**
+ * Links of an adjacency copied into int arrays, leaving each node and reaching it, for orderings to read quickly.
+ * Both lists of a node are sorted, and a link between two nodes is in their neighborhoods whichever its direction
+ * @author CreeperStone72
+ */
+final class Structure {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    final int order;
+
+    /**
+     * order + 1 ints, the successors of node i are stored between outFirst[i] and outFirst[i + 1]
+     */
+    final int[] outFirst, out;
+
+    /**
+     * order + 1 ints, the predecessors of node i are stored between inFirst[i] and inFirst[i + 1]
+     */
+    final int[] inFirst, in;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private Structure(Adjacency adjacency) {
+        this.order = adjacency.order();
+        int size = Math.toIntExact(adjacency.size());
+
+        this.outFirst = new int[order + 1];
+        this.out = new int[size];
+        this.inFirst = new int[order + 1];
+        this.in = new int[size];
+
+        // Step 1 : Copying the successors, counting the predecessors
+        for(int x = 0, k = 0 ; x < order ; x++) {
+            for(long i = adjacency.begin(x), end = adjacency.end(x) ; i < end ; i++) {
+                int y = adjacency.target(i);
+                out[k++] = y;
+                inFirst[y + 1]++;
+            }
+
+            outFirst[x + 1] = k;
+            Arrays.sort(out, outFirst[x], k);
+        }
+
+        // Step 2 : Placing the predecessors, which come sorted as successors are read in node order
+        for(int x = 0 ; x < order ; x++) { inFirst[x + 1] += inFirst[x]; }
+
+        int[] cursors = Arrays.copyOf(inFirst, order);
+        for(int x = 0 ; x < order ; x++) { for(int i = outFirst[x] ; i < outFirst[x + 1] ; i++) { in[cursors[out[i]]++] = x; } }
+    }
+
+    static Structure of(Adjacency adjacency) { return new Structure(adjacency); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    int outDegree(int x) { return outFirst[x + 1] - outFirst[x]; }
+
+    int inDegree(int x) { return inFirst[x + 1] - inFirst[x]; }
+
+    /**
+     * Counts the links of a node, both ways
+     */
+    int degree(int x) { return outDegree(x) + inDegree(x); }
+}
@@ -0,0 +1,246 @@
+package graph.standard.partition;
+
+import graph.standard.adjacency.Adjacency;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The part of every node of an adjacency, and the shards these parts make.
+ * The partition keeps the adjacency it was built from, which must stay open until the shards are built
+ * @author CreeperStone72
+ */
+public class Partition {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final Adjacency adjacency;
+
+    private final int parts;
+
+    /**
+     * assignment[i] is the part of node i
+     */
+    private final int[] assignment;
+
+    /**
+     * Number of nodes in each part
+     */
+    private final long[] weights;
+
+    /**
+     * Nodes linked to a node of another part, in either direction. Built when first needed
+     */
+    private BitSet boundary;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor, also used to shard an adjacency along parts computed elsewhere
+     * @param adjacency is the partitioned adjacency
+     * @param parts is the number of parts
+     * @param assignment is the part of every node
+     * @throws IllegalArgumentException if there isn't one part per node, or a part is out of range
+     */
+    public Partition(Adjacency adjacency, int parts, int[] assignment) {
+        if(parts <= 0) throw new IllegalArgumentException("The number of parts must be positive.");
+        if(assignment.length != adjacency.order()) throw new IllegalArgumentException("Every node must have exactly one part.");
+
+        this.adjacency = adjacency;
+        this.parts = parts;
+        this.assignment = assignment;
+        this.weights = new long[parts];
+
+        for(int part : assignment) {
+            if(part < 0 || part >= parts) throw new IllegalArgumentException("Part " + part + " doesn't exist.");
+            weights[part]++;
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public Adjacency getAdjacency() { return adjacency; }
+
+    public int parts() { return parts; }
+
+    public int order() { return assignment.length; }
+
+    /**
+     * Finds the part of a node
+     * @param node is the index of the node
+     * @return the part of the node
+     */
+    public int part(int node) { return assignment[node]; }
+
+    /**
+     * Copies the part of every node
+     * @return an array whose i-th value is the part of node i
+     */
+    public int[] assignment() { return assignment.clone(); }
+
+    /**
+     * Counts the nodes of a part
+     * @param part is the part
+     * @return the number of nodes in it
+     */
+    public long weight(int part) { return weights[Objects.checkIndex(part, parts)]; }
+
+    /**
+     * Compares the largest part to a perfectly even split
+     * @return the number of nodes in the largest part over order / parts, 1.0 meaning perfectly even
+     */
+    public double imbalance() {
+        if(order() == 0) return 1.0;
+        return Arrays.stream(weights).max().orElse(0) * (double) parts / order();
+    }
+
+    /**
+     * Counts the stored links going from a part to another. Non-directed links are stored in both directions,
+     * so each of them counts twice
+     * @return the number of links cut
+     */
+    public long edgeCut() {
+        long cut = 0;
+
+        for(int x = 0 ; x < order() ; x++) {
+            for(long i = adjacency.begin(x), end = adjacency.end(x) ; i < end ; i++) { if(assignment[adjacency.target(i)] != assignment[x]) cut++; }
+        }
+
+        return cut;
+    }
+
+    /**
+     * Is a node linked to a node of another part, in either direction ?
+     * @param node is the index of the node
+     * @return true if the node lies on the boundary of its part, otherwise false
+     */
+    public boolean isBoundary(int node) { return boundary().get(Objects.checkIndex(node, order())); }
+
+    private BitSet boundary() {
+        if(boundary == null) {
+            BitSet found = new BitSet(order());
+
+            for(int x = 0 ; x < order() ; x++) {
+                for(long i = adjacency.begin(x), end = adjacency.end(x) ; i < end ; i++) {
+                    int y = adjacency.target(i);
+
+                    if(assignment[y] != assignment[x]) {
+                        found.set(x);
+                        found.set(y);
+                    }
+                }
+            }
+
+            boundary = found;
+        }
+
+        return boundary;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Builds the shard of a single part
+     * @param part is the part
+     * @return the shard
+     */
+    public Shard shard(int part) { return shards(Objects.checkIndex(part, parts), part + 1).get(0); }
+
+    /**
+     * Builds the shard of every part, in a single pass over the adjacency
+     * @return the shards, indexed by part
+     */
+    public List<Shard> shards() { return shards(0, parts); }
+
+    /**
+     * Builds the shards of a range of parts
+     * @param first is the first part (included)
+     * @param last is the last part (excluded)
+     */
+    private List<Shard> shards(int first, int last) {
+        int order = order();
+        int[] starts = new int[parts + 1];
+        int[] owned = new int[order];
+        int[] local = new int[order];
+        List<Shard> shards = new ArrayList<>(last - first);
+        BitSet boundary = boundary();
+
+        // Step 1 : Listing the nodes of each part, in increasing order (counting sort)
+        for(int part : assignment) { starts[part + 1]++; }
+        for(int p = 0 ; p < parts ; p++) { starts[p + 1] += starts[p]; }
+
+        int[] cursors = Arrays.copyOf(starts, parts);
+        for(int x = 0 ; x < order ; x++) { owned[cursors[assignment[x]]++] = x; }
+
+        Arrays.fill(local, -1);
+
+        for(int part = first ; part < last ; part++) {
+            int ownedCount = starts[part + 1] - starts[part];
+
+            // Step 2 : Finding the ghosts, nodes of other parts the owned nodes link to
+            int[] ghosts = new int[0];
+            int ghostCount = 0;
+            long size = 0;
+
+            for(int m = starts[part] ; m < starts[part + 1] ; m++) {
+                int x = owned[m];
+                local[x] = m - starts[part];
+
+                for(long i = adjacency.begin(x), end = adjacency.end(x) ; i < end ; i++) {
+                    int y = adjacency.target(i);
+                    size++;
+
+                    if(assignment[y] != part && local[y] == -1) {
+                        if(ghostCount == ghosts.length) ghosts = Arrays.copyOf(ghosts, Math.max(16, 2 * ghostCount));
+                        ghosts[ghostCount++] = y;
+                        local[y] = -2;
+                    }
+                }
+            }
+
+            Arrays.sort(ghosts, 0, ghostCount);
+
+            int[] nodes = new int[ownedCount + ghostCount];
+            System.arraycopy(owned, starts[part], nodes, 0, ownedCount);
+            System.arraycopy(ghosts, 0, nodes, ownedCount, ghostCount);
+            for(int g = 0 ; g < ghostCount ; g++) { local[ghosts[g]] = ownedCount + g; }
+
+            // Step 3 : Copying the links of the owned nodes with local indexes
+            long[] offsets = new long[nodes.length + 1];
+            int[] targets = new int[Math.toIntExact(size)];
+            double[] linkWeights = adjacency.isWeighted() ? new double[targets.length] : null;
+            BitSet marked = new BitSet(ownedCount);
+            int position = 0;
+
+            for(int l = 0 ; l < ownedCount ; l++) {
+                int x = nodes[l];
+                if(boundary.get(x)) marked.set(l);
+
+                for(long i = adjacency.begin(x), end = adjacency.end(x) ; i < end ; i++) {
+                    if(linkWeights != null) linkWeights[position] = adjacency.weight(i);
+                    targets[position++] = local[adjacency.target(i)];
+                }
+
+                offsets[l + 1] = position;
+            }
+
+            for(int l = ownedCount ; l < nodes.length ; l++) { offsets[l + 1] = position; }
+            for(int x : nodes) { local[x] = -1; }
+
+            shards.add(new Shard(part, nodes, ownedCount, offsets, targets, linkWeights, marked));
+        }
+
+        return shards;
+    }
+
+    @Override
+    public String toString() {
+        return "Partition{parts=" + parts + ", order=" + order() + ", weights=" + Arrays.toString(weights) + "}";
+    }
+}
@@ -0,0 +1,606 @@
+package graph.standard.partition;
+
+import graph.standard.adjacency.Adjacency;
+import graph.standard.Seeds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Splits the nodes of an adjacency into a given number of parts of about the same size, cutting as few links as
+ * possible, so a large graph can be spread over several workers. Directions are ignored : a link costs the same
+ * whichever part it leaves from.
+ * Two strategies are available :
+ * - multilevel : the graph is cut in two, then each half in two, and so on. Each bisection coarsens the graph by
+ *   heavy-edge matching, cuts the coarsest graph by greedy growing and projects the cut back level by level, each
+ *   level being refined by Fiduccia-Mattheyses passes. The k-way cut is finally refined by moving boundary nodes
+ *   to the part they are the most linked to
+ * - label propagation : every node repeatedly joins the part most of its neighbors are in, in parallel.
+ *   Much faster on huge graphs, but the cut is usually worse
+ * Both are deterministic for a given seed. A graph is partitioned through its adjacency, for instance
+ * new Partitioner(8).multilevel(OffHeapAdjacency.of(graph)), node i being the i-th node of the graph
+ * @author CreeperStone72
+ */
+public class Partitioner {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public static final double DEFAULT_IMBALANCE = 0.03;
+
+    /**
+     * Coarsening stops once the graph has fewer than this many nodes, whatever the number of parts
+     */
+    private static final int COARSEST_ORDER = 128;
+
+    /**
+     * Coarsening stops when a level removes fewer than 5% of the nodes
+     */
+    private static final double MIN_REDUCTION = 0.95;
+
+    /**
+     * A bisection pass gives up after this many moves that didn't improve the cut
+     */
+    private static final int PATIENCE = 256;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final int parts;
+
+    /**
+     * How much heavier than average a part may be, 0.03 allowing parts 3% over total / parts
+     */
+    private double imbalance;
+
+    private long seed;
+
+    /**
+     * Maximal number of refinement passes per level and per bisection, and of label propagation rounds
+     */
+    private int passes;
+
+    /**
+     * Number of bisections tried on the coarsest graph, the one with the smallest cut being kept
+     */
+    private int tries;
+
+    private int parallelism;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor
+     * @param parts is the number of parts wanted
+     * @throws IllegalArgumentException if the number of parts isn't positive
+     */
+    public Partitioner(int parts) {
+        if(parts <= 0) throw new IllegalArgumentException("The number of parts must be positive.");
+
+        this.parts = parts;
+        setImbalance(DEFAULT_IMBALANCE);
+        setSeed(0);
+        setPasses(10);
+        setTries(4);
+        setParallelism(Runtime.getRuntime().availableProcessors());
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public Partitioner setImbalance(double imbalance) {
+        if(!(imbalance >= 0.0)) throw new IllegalArgumentException("Imbalance must be positive.");
+        this.imbalance = imbalance;
+        return this;
+    }
+
+    public Partitioner setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public Partitioner setPasses(int passes) {
+        if(passes <= 0) throw new IllegalArgumentException("The number of passes must be positive.");
+        this.passes = passes;
+        return this;
+    }
+
+    public Partitioner setTries(int tries) {
+        if(tries <= 0) throw new IllegalArgumentException("The number of tries must be positive.");
+        this.tries = tries;
+        return this;
+    }
+
+    public Partitioner setParallelism(int parallelism) {
+        if(parallelism <= 0) throw new IllegalArgumentException("Parallelism must be positive.");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public int getParts() { return parts; }
+
+    public double getImbalance() { return imbalance; }
+
+    public long getSeed() { return seed; }
+
+    public int getPasses() { return passes; }
+
+    public int getTries() { return tries; }
+
+    public int getParallelism() { return parallelism; }
+
+    /**
+     * Computes the heaviest a part may be
+     * @param totalWeight is the weight of every node together
+     * @return the maximal weight of a part
+     */
+    private long maxPartWeight(long totalWeight) {
+        return Math.max((totalWeight + parts - 1) / parts, (long) Math.ceil((1.0 + imbalance) * totalWeight / parts));
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Partitions an adjacency with the multilevel scheme
+     * @param adjacency is the partitioned adjacency, which the partition keeps to build its shards
+     * @return the partition
+     */
+    public Partition multilevel(Adjacency adjacency) {
+        SplittableRandom random = new SplittableRandom(seed);
+        WorkGraph graph = WorkGraph.of(adjacency);
+        int[] assignment = new int[graph.order];
+        int[] nodes = new int[graph.order];
+        int depth = 32 - Integer.numberOfLeadingZeros(parts - 1);
+
+        for(int i = 0 ; i < graph.order ; i++) { nodes[i] = i; }
+
+        // Step 1 : Splitting the graph by halves, the imbalance being shared between the depths of recursion
+        split(graph, nodes, 0, parts, assignment, imbalance / Math.max(1, depth), random);
+
+        // Step 2 : Polishing the k-way cut, which also restores the balance the bisections may have lost
+        refine(graph, assignment, random);
+
+        return new Partition(adjacency, parts, assignment);
+    }
+
+    /**
+     * Partitions an adjacency by label propagation.
+     * Nodes start in contiguous blocks of indexes. Each round, half of the nodes (drawn from the seed) pick the part
+     * they are the most linked to, in parallel and from the previous round's parts. Moves are then applied in node
+     * order, as long as the part they go to has room left
+     * @param adjacency is the partitioned adjacency, which the partition keeps to build its shards
+     * @return the partition
+     */
+    public Partition labelPropagation(Adjacency adjacency) {
+        WorkGraph graph = WorkGraph.of(adjacency);
+        int order = graph.order;
+        int[] assignment = new int[order];
+        int[] proposals = new int[order];
+        long[] weights = new long[parts];
+        long max = maxPartWeight(graph.totalWeight);
+
+        for(int x = 0 ; x < order ; x++) {
+            assignment[x] = (int) ((long) x * parts / order);
+            weights[assignment[x]] += graph.nodeWeights[x];
+        }
+
+        int chunks = Math.min(order, parallelism * 4);
+        int chunkSize = (chunks == 0) ? 0 : (order + chunks - 1) / chunks;
+        int quietRounds = 0;
+
+        for(int round = 0 ; round < passes && quietRounds < 2 ; round++) {
+            final int r = round;
+            IntStream.range(0, chunks).parallel()
+                    .forEach(c -> propose(graph, assignment, proposals, c * chunkSize, Math.min(order, (c + 1) * chunkSize), r));
+
+            int moved = 0;
+
+            for(int x = 0 ; x < order ; x++) {
+                int from = assignment[x], to = proposals[x];
+
+                if(to != from && weights[to] + graph.nodeWeights[x] <= max) {
+                    assignment[x] = to;
+                    weights[from] -= graph.nodeWeights[x];
+                    weights[to] += graph.nodeWeights[x];
+                    moved++;
+                }
+            }
+
+            quietRounds = (moved == 0) ? quietRounds + 1 : 0;
+        }
+
+        return new Partition(adjacency, parts, assignment);
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Bisection methods ///////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Splits a graph into parts by halves, each half being split in turn
+     * @param graph is the graph to split
+     * @param nodes maps the nodes of the graph to those of the partitioned adjacency
+     * @param firstPart is the first part given to these nodes
+     * @param parts is the number of parts given to these nodes
+     * @param assignment receives the part of every node of the adjacency
+     * @param tolerance is the imbalance allowed between the two halves
+     * @param random drives the matching and growing
+     */
+    private void split(WorkGraph graph, int[] nodes, int firstPart, int parts, int[] assignment, double tolerance, SplittableRandom random) {
+        if(parts == 1 || graph.order == 0) {
+            for(int x : nodes) { assignment[x] = firstPart; }
+            return;
+        }
+
+        int leftParts = parts / 2;
+        int[] side = bisect(graph, (double) leftParts / parts, tolerance, random);
+        int leftSize = 0;
+
+        for(int s : side) { if(s == 0) leftSize++; }
+
+        int[] left = new int[leftSize], right = new int[graph.order - leftSize];
+        for(int x = 0, l = 0, r = 0 ; x < graph.order ; x++) {
+            if(side[x] == 0) left[l++] = x;
+            else right[r++] = x;
+        }
+
+        WorkGraph leftGraph = graph.induce(left), rightGraph = graph.induce(right);
+        for(int i = 0 ; i < left.length ; i++) { left[i] = nodes[left[i]]; }
+        for(int i = 0 ; i < right.length ; i++) { right[i] = nodes[right[i]]; }
+
+        split(leftGraph, left, firstPart, leftParts, assignment, tolerance, random);
+        split(rightGraph, right, firstPart + leftParts, parts - leftParts, assignment, tolerance, random);
+    }
+
+    /**
+     * Cuts a graph in two with the multilevel scheme
+     * @param graph is the graph to cut
+     * @param ratio is the share of the weight side 0 should get
+     * @param tolerance is how much heavier than its share a side may be
+     * @param random drives the matching and growing
+     * @return the side of every node, 0 or 1
+     */
+    private int[] bisect(WorkGraph graph, double ratio, double tolerance, SplittableRandom random) {
+        List<WorkGraph> levels = new ArrayList<>();
+        List<int[]> maps = new ArrayList<>();
+        WorkGraph current = graph;
+        long target = Math.round(graph.totalWeight * ratio);
+        long[] maxWeights = { (long) Math.ceil((1.0 + tolerance) * target), (long) Math.ceil((1.0 + tolerance) * (graph.totalWeight - target)) };
+        long maxNodeWeight = Math.max(1, (long) Math.ceil(1.5 * graph.totalWeight / COARSEST_ORDER));
+
+        // Step 1 : Coarsening, until the graph is small enough or stops shrinking
+        levels.add(current);
+
+        while(current.order > COARSEST_ORDER) {
+            int[] map = new int[current.order];
+            int coarseOrder = current.match(random, maxNodeWeight, map);
+            if(coarseOrder > MIN_REDUCTION * current.order) break;
+
+            current = current.contract(map, coarseOrder);
+            maps.add(map);
+            levels.add(current);
+        }
+
+        // Step 2 : Cutting the coarsest graph, keeping the best of several tries
+        int[] side = new int[current.order];
+        int[] best = new int[current.order];
+        long bestCut = Long.MAX_VALUE;
+
+        for(int t = 0 ; t < tries ; t++) {
+            Arrays.fill(side, 1);
+            grow(current, side, target, random);
+
+            long cut = refineBisection(current, side, maxWeights);
+            if(cut < bestCut) {
+                bestCut = cut;
+                System.arraycopy(side, 0, best, 0, side.length);
+            }
+        }
+
+        // Step 3 : Projecting the cut back to the finer levels, refining each of them
+        side = best;
+
+        for(int level = maps.size() - 1 ; level >= 0 ; level--) {
+            int[] map = maps.get(level);
+            int[] projected = new int[map.length];
+
+            for(int x = 0 ; x < map.length ; x++) { projected[x] = side[map[x]]; }
+
+            side = projected;
+            refineBisection(levels.get(level), side, maxWeights);
+        }
+
+        return side;
+    }
+
+    /**
+     * Grows side 0 from a random node until it weighs the target, always taking the node that cuts the fewest links.
+     * Another random node is picked whenever the grown region has no neighbor left
+     * @param side is 1 for every node on entry
+     */
+    private static void grow(WorkGraph graph, int[] side, long target, SplittableRandom random) {
+        PriorityQueue<Long> queue = new PriorityQueue<>(Comparator.reverseOrder());
+        int[] gains = new int[graph.order];
+        int[] seeds = WorkGraph.permutation(graph.order, random);
+        long weight = 0;
+        int next = 0;
+
+        // gains[x] is the weight of x's links to side 0 minus the weight of those to side 1
+        for(int x = 0 ; x < graph.order ; x++) {
+            for(int i = graph.offsets[x] ; i < graph.offsets[x + 1] ; i++) { gains[x] -= graph.linkWeights[i]; }
+        }
+
+        while(weight < target) {
+            int x = -1;
+
+            while(!queue.isEmpty()) {
+                long key = queue.poll();
+                int y = node(key);
+
+                if(side[y] == 1 && gains[y] == gain(key)) {
+                    x = y;
+                    break;
+                }
+            }
+
+            if(x == -1) {
+                while(next < seeds.length && side[seeds[next]] != 1) next++;
+                if(next == seeds.length) break;
+                x = seeds[next];
+            }
+
+            side[x] = 0;
+            weight += graph.nodeWeights[x];
+
+            for(int i = graph.offsets[x] ; i < graph.offsets[x + 1] ; i++) {
+                int y = graph.targets[i];
+
+                if(side[y] == 1) {
+                    gains[y] += 2 * graph.linkWeights[i];
+                    queue.add(key(gains[y], y));
+                }
+            }
+        }
+    }
+
+    /**
+     * Improves a bisection with Fiduccia-Mattheyses passes. Each pass moves every node once, best gain first and
+     * as long as the balance holds, then rolls back to the best cut it went through
+     * @param side is the side of every node, 0 or 1
+     * @param maxWeights is the maximal weight of each side
+     * @return the weight of the links cut
+     */
+    private long refineBisection(WorkGraph graph, int[] side, long[] maxWeights) {
+        long[] weights = new long[2];
+        int[] gains = new int[graph.order];
+        boolean[] locked = new boolean[graph.order];
+        int[] moves = new int[graph.order];
+
+        for(int x = 0 ; x < graph.order ; x++) { weights[side[x]] += graph.nodeWeights[x]; }
+
+        for(int pass = 0 ; pass < passes ; pass++) {
+            List<PriorityQueue<Long>> queues = List.of(new PriorityQueue<>(Comparator.reverseOrder()), new PriorityQueue<>(Comparator.reverseOrder()));
+
+            // Step 1 : Gains of moving each node to the other side
+            Arrays.fill(locked, false);
+
+            for(int x = 0 ; x < graph.order ; x++) {
+                gains[x] = 0;
+
+                for(int i = graph.offsets[x] ; i < graph.offsets[x + 1] ; i++) {
+                    gains[x] += (side[graph.targets[i]] != side[x]) ? graph.linkWeights[i] : -graph.linkWeights[i];
+                }
+
+                queues.get(side[x]).add(key(gains[x], x));
+            }
+
+            // Step 2 : Moving the best node that keeps the balance, until none is left or the cut stops improving
+            long gained = 0, bestGained = 0;
+            int count = 0, bestCount = 0;
+
+            while(true) {
+                int fromLeft = head(queues.get(0), gains, locked), fromRight = head(queues.get(1), gains, locked);
+                boolean leftFits = fromLeft != -1 && weights[1] + graph.nodeWeights[fromLeft] <= maxWeights[1];
+                boolean rightFits = fromRight != -1 && weights[0] + graph.nodeWeights[fromRight] <= maxWeights[0];
+                int x;
+
+                if(leftFits && (!rightFits || gains[fromLeft] > gains[fromRight] || (gains[fromLeft] == gains[fromRight] && weights[0] >= weights[1]))) x = fromLeft;
+                else if(rightFits) x = fromRight;
+                else break;
+
+                int from = side[x], to = 1 - from;
+                queues.get(from).poll();
+
+                side[x] = to;
+                locked[x] = true;
+                weights[from] -= graph.nodeWeights[x];
+                weights[to] += graph.nodeWeights[x];
+                gained += gains[x];
+                moves[count++] = x;
+
+                for(int i = graph.offsets[x] ; i < graph.offsets[x + 1] ; i++) {
+                    int y = graph.targets[i];
+                    if(locked[y]) continue;
+
+                    gains[y] += (side[y] == from) ? 2 * graph.linkWeights[i] : -2 * graph.linkWeights[i];
+                    queues.get(side[y]).add(key(gains[y], y));
+                }
+
+                if(gained > bestGained) {
+                    bestGained = gained;
+                    bestCount = count;
+                } else if(count - bestCount > PATIENCE) break;
+            }
+
+            // Step 3 : Rolling back the moves made after the best cut
+            for(int i = count - 1 ; i >= bestCount ; i--) {
+                int x = moves[i], from = side[x];
+                side[x] = 1 - from;
+                weights[from] -= graph.nodeWeights[x];
+                weights[1 - from] += graph.nodeWeights[x];
+            }
+
+            if(bestGained <= 0) break;
+        }
+
+        long cut = 0;
+
+        for(int x = 0 ; x < graph.order ; x++) {
+            if(side[x] != 0) continue;
+            for(int i = graph.offsets[x] ; i < graph.offsets[x + 1] ; i++) { if(side[graph.targets[i]] == 1) cut += graph.linkWeights[i]; }
+        }
+
+        return cut;
+    }
+
+    /**
+     * Finds the unlocked node with the best gain in a queue, dropping the outdated entries on top of it
+     * @return the node, or -1 if there is none
+     */
+    private static int head(PriorityQueue<Long> queue, int[] gains, boolean[] locked) {
+        while(!queue.isEmpty()) {
+            long key = queue.peek();
+            int x = node(key);
+
+            if(!locked[x] && gains[x] == gain(key)) return x;
+            queue.poll();
+        }
+
+        return -1;
+    }
+
+    /**
+     * Packs a gain and a node into a key sorted by gain first
+     */
+    private static long key(int gain, int node) { return ((long) gain << 32) | node; }
+
+    private static int gain(long key) { return (int) (key >> 32); }
+
+    private static int node(long key) { return (int) key; }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Refinement methods //////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Refines a k-way partition by moving nodes, in a random order, to the part they are the most linked to.
+     * A move must cut fewer links, or as many while evening the parts out, and never overload the part it goes to.
+     * Nodes of an overloaded part move out even if the cut grows, which fixes the balance the bisections lost
+     * @param graph is the refined graph
+     * @param assignment is the part of every node, updated in place
+     * @param random orders the visits
+     */
+    private void refine(WorkGraph graph, int[] assignment, SplittableRandom random) {
+        long max = maxPartWeight(graph.totalWeight);
+        long[] weights = new long[parts];
+        int[] connections = new int[parts];
+        int[] touched = new int[parts];
+
+        for(int x = 0 ; x < graph.order ; x++) { weights[assignment[x]] += graph.nodeWeights[x]; }
+
+        for(int pass = 0 ; pass < passes ; pass++) {
+            int moved = 0;
+
+            for(int x : WorkGraph.permutation(graph.order, random)) {
+                int from = assignment[x], weight = graph.nodeWeights[x], count = 0, internal = 0;
+
+                for(int i = graph.offsets[x] ; i < graph.offsets[x + 1] ; i++) {
+                    int p = assignment[graph.targets[i]];
+
+                    if(p == from) { internal += graph.linkWeights[i]; }
+                    else {
+                        if(connections[p] == 0) touched[count++] = p;
+                        connections[p] += graph.linkWeights[i];
+                    }
+                }
+
+                boolean overloaded = weights[from] > max;
+                int to = -1;
+                long gain = Long.MIN_VALUE;
+
+                for(int t = 0 ; t < count ; t++) {
+                    int p = touched[t];
+                    long g = connections[p] - internal;
+
+                    if(weights[p] + weight <= max && (g > gain || (g == gain && weights[p] < weights[to]))) {
+                        to = p;
+                        gain = g;
+                    }
+
+                    connections[p] = 0;
+                }
+
+                if(to == -1 && overloaded) {
+                    to = lightest(weights);
+                    gain = -internal;
+                }
+
+                if(to == -1 || to == from) continue;
+
+                if(gain > 0 || (gain == 0 && weights[to] + weight < weights[from]) || overloaded) {
+                    assignment[x] = to;
+                    weights[from] -= weight;
+                    weights[to] += weight;
+                    moved++;
+                }
+            }
+
+            if(moved == 0) break;
+        }
+    }
+
+    private static int lightest(long[] weights) {
+        int lightest = 0;
+
+        for(int p = 1 ; p < weights.length ; p++) { if(weights[p] < weights[lightest]) lightest = p; }
+
+        return lightest;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Label propagation methods ///////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Finds the part each node of a range is the most linked to, ties keeping the node where it is.
+     * Only reads the assignment, so ranges can be handled in parallel
+     */
+    private void propose(WorkGraph graph, int[] assignment, int[] proposals, int start, int end, int round) {
+        int[] connections = new int[parts];
+        int[] touched = new int[parts];
+
+        for(int x = start ; x < end ; x++) {
+            int current = assignment[x], count = 0;
+            proposals[x] = current;
+
+            // Half of the nodes sit each round out, so two linked nodes don't keep swapping parts
+            if((Seeds.mix(seed + round * Seeds.GOLDEN_GAMMA + x) & 1) == 0) continue;
+
+            for(int i = graph.offsets[x] ; i < graph.offsets[x + 1] ; i++) {
+                int p = assignment[graph.targets[i]];
+                if(connections[p] == 0) touched[count++] = p;
+                connections[p] += graph.linkWeights[i];
+            }
+
+            int best = current, bestConnection = connections[current];
+
+            for(int t = 0 ; t < count ; t++) {
+                int p = touched[t];
+                if(connections[p] > bestConnection) {
+                    best = p;
+                    bestConnection = connections[p];
+                }
+
+                connections[p] = 0;
+            }
+
+            proposals[x] = best;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package graph.standard.partition;
+
+import graph.standard.adjacency.Adjacency;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+
+/**
+ * The subgraph a single worker holds : the nodes of one part with all of their links, plus ghost nodes.
+ * Ghosts are the nodes of other parts the owned nodes link to, and have no links of their own here.
+ * Nodes have local indexes : owned nodes come first, then ghosts, both by increasing global index.
+ * Owned nodes linked to another part, in either direction, are marked as boundary nodes
+ * @author CreeperStone72
+ */
+public final class Shard implements Adjacency {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final int part;
+
+    /**
+     * nodes[i] is the global index of local node i
+     */
+    private final int[] nodes;
+
+    /**
+     * Number of owned nodes, ghosts starting right after them
+     */
+    private final int owned;
+
+    /**
+     * nodes.length + 1 longs, the links of local node i are stored between offsets[i] and offsets[i + 1]
+     */
+    private final long[] offsets;
+
+    /**
+     * Local index of the ending node of each link
+     */
+    private final int[] targets;
+
+    /**
+     * Weight of each link, or null if the adjacency isn't weighted
+     */
+    private final double[] weights;
+
+    private final BitSet boundary;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor, used by Partition
+     */
+    Shard(int part, int[] nodes, int owned, long[] offsets, int[] targets, double[] weights, BitSet boundary) {
+        this.part = part;
+        this.nodes = nodes;
+        this.owned = owned;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.boundary = boundary;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public int getPart() { return part; }
+
+    @Override
+    public int order() { return nodes.length; }
+
+    @Override
+    public long size() { return targets.length; }
+
+    @Override
+    public boolean isWeighted() { return weights != null; }
+
+    @Override
+    public long begin(int node) { return offsets[node]; }
+
+    @Override
+    public long end(int node) { return offsets[node + 1]; }
+
+    @Override
+    public int target(long position) { return targets[Math.toIntExact(position)]; }
+
+    @Override
+    public double weight(long position) { return (weights == null) ? 1.0 : weights[Math.toIntExact(position)]; }
+
+    /**
+     * Counts the nodes of the part
+     * @return the number of owned nodes
+     */
+    public int owned() { return owned; }
+
+    /**
+     * Counts the nodes of other parts kept here
+     * @return the number of ghosts
+     */
+    public int ghosts() { return nodes.length - owned; }
+
+    public boolean isOwned(int node) { return Objects.checkIndex(node, nodes.length) < owned; }
+
+    public boolean isGhost(int node) { return Objects.checkIndex(node, nodes.length) >= owned; }
+
+    /**
+     * Is an owned node linked to a node of another part ?
+     * @param node is the local index of the node
+     * @return true if the node is owned and lies on the boundary of the part, otherwise false
+     */
+    public boolean isBoundary(int node) { return boundary.get(Objects.checkIndex(node, nodes.length)); }
+
+    /**
+     * Counts the owned nodes linked to another part
+     * @return the number of boundary nodes
+     */
+    public int boundaries() { return boundary.cardinality(); }
+
+    /**
+     * Translates a local index into the index of the node in the whole adjacency
+     * @param node is the local index
+     * @return the global index
+     */
+    public int global(int node) { return nodes[node]; }
+
+    /**
+     * Translates the index of a node in the whole adjacency into its local index
+     * @param node is the global index
+     * @return the local index, or -1 if the node is neither owned nor a ghost here
+     */
+    public int local(int node) {
+        int found = Arrays.binarySearch(nodes, 0, owned, node);
+        if(found >= 0) return found;
+
+        found = Arrays.binarySearch(nodes, owned, nodes.length, node);
+        return (found >= 0) ? found : -1;
+    }
+
+    @Override
+    public String toString() {
+        return "Shard{part=" + part + ", owned=" + owned + ", ghosts=" + ghosts() + ", boundaries=" + boundaries() + ", links=" + size() + "}";
+    }
+}
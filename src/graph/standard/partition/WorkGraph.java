@@ -0,0 +1,270 @@
+package graph.standard.partition;
+
+import graph.standard.adjacency.Adjacency;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Non-directed graph the partitioner works on, one per level of coarsening.
+ * Each pair of linked nodes appears once in both rows, with a weight counting the links merged into it.
+ * Nodes are weighted too, a coarse node weighing as much as the original nodes it stands for
+ * @author CreeperStone72
+ */
+final class WorkGraph {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    final int order;
+
+    /**
+     * order + 1 ints, the neighbors of node i are stored between offsets[i] and offsets[i + 1]
+     */
+    final int[] offsets;
+
+    final int[] targets, linkWeights, nodeWeights;
+
+    final long totalWeight;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private WorkGraph(int order, int[] offsets, int[] targets, int[] linkWeights, int[] nodeWeights) {
+        this.order = order;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.linkWeights = linkWeights;
+        this.nodeWeights = nodeWeights;
+
+        long total = 0;
+        for(int weight : nodeWeights) { total += weight; }
+        totalWeight = total;
+    }
+
+    /**
+     * Builds the finest level from an adjacency.
+     * Directions are dropped, parallel links are merged and loops are ignored, as none of them change what a cut costs
+     * @param adjacency is the partitioned adjacency
+     * @return the working graph, every node weighing 1
+     * @throws IllegalArgumentException if the adjacency has too many links to fit in arrays
+     */
+    static WorkGraph of(Adjacency adjacency) {
+        int order = adjacency.order();
+        int[] degrees = new int[order + 1];
+        long stored = 0;
+
+        // Step 1 : Counting both directions of every link
+        for(int x = 0 ; x < order ; x++) {
+            for(long i = adjacency.begin(x), end = adjacency.end(x) ; i < end ; i++) {
+                int y = adjacency.target(i);
+                if(x == y) continue;
+
+                degrees[x + 1]++;
+                degrees[y + 1]++;
+                stored += 2;
+            }
+        }
+
+        if(stored > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("The adjacency has too many links to be partitioned.");
+
+        // Step 2 : Scattering them into rows
+        for(int i = 0 ; i < order ; i++) { degrees[i + 1] += degrees[i]; }
+
+        int[] cursors = Arrays.copyOf(degrees, order);
+        int[] targets = new int[(int) stored];
+
+        for(int x = 0 ; x < order ; x++) {
+            for(long i = adjacency.begin(x), end = adjacency.end(x) ; i < end ; i++) {
+                int y = adjacency.target(i);
+                if(x == y) continue;
+
+                targets[cursors[x]++] = y;
+                targets[cursors[y]++] = x;
+            }
+        }
+
+        // Step 3 : Merging duplicates, rows being compacted in place
+        int[] offsets = new int[order + 1];
+        int[] weights = new int[targets.length];
+        int[] marker = new int[order];
+        int position = 0;
+
+        Arrays.fill(marker, -1);
+
+        for(int x = 0 ; x < order ; x++) {
+            int rowStart = position;
+
+            for(int i = degrees[x] ; i < degrees[x + 1] ; i++) {
+                int y = targets[i];
+
+                if(marker[y] >= rowStart) { weights[marker[y]]++; }
+                else {
+                    marker[y] = position;
+                    targets[position] = y;
+                    weights[position++] = 1;
+                }
+            }
+
+            offsets[x + 1] = position;
+        }
+
+        int[] nodeWeights = new int[order];
+        Arrays.fill(nodeWeights, 1);
+
+        return new WorkGraph(order, offsets, Arrays.copyOf(targets, position), Arrays.copyOf(weights, position), nodeWeights);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Matches nodes two by two, each node taking its unmatched neighbor behind the heaviest link (heavy-edge matching).
+     * Nodes are visited in a random order so ties don't always go the same way
+     * @param random orders the visit
+     * @param maxNodeWeight is the weight no coarse node may exceed
+     * @param map receives the coarse node of every node
+     * @return the number of coarse nodes
+     */
+    int match(SplittableRandom random, long maxNodeWeight, int[] map) {
+        int coarse = 0;
+
+        Arrays.fill(map, -1);
+
+        for(int x : permutation(order, random)) {
+            if(map[x] != -1) continue;
+
+            int best = -1, bestWeight = 0;
+
+            for(int i = offsets[x] ; i < offsets[x + 1] ; i++) {
+                int y = targets[i];
+
+                if(map[y] == -1 && linkWeights[i] > bestWeight && (long) nodeWeights[x] + nodeWeights[y] <= maxNodeWeight) {
+                    best = y;
+                    bestWeight = linkWeights[i];
+                }
+            }
+
+            map[x] = coarse;
+            if(best != -1) map[best] = coarse;
+            coarse++;
+        }
+
+        return coarse;
+    }
+
+    /**
+     * Merges matched nodes into the next, coarser level. Links between the same coarse nodes are merged too
+     * @param map is the coarse node of every node
+     * @param coarseOrder is the number of coarse nodes
+     * @return the coarser graph
+     */
+    WorkGraph contract(int[] map, int coarseOrder) {
+        int[] nodeWeights = new int[coarseOrder];
+        int[] members = new int[order];
+        int[] starts = new int[coarseOrder + 1];
+
+        // Step 1 : Grouping the nodes of each coarse node (counting sort)
+        for(int x = 0 ; x < order ; x++) {
+            nodeWeights[map[x]] += this.nodeWeights[x];
+            starts[map[x] + 1]++;
+        }
+
+        for(int c = 0 ; c < coarseOrder ; c++) { starts[c + 1] += starts[c]; }
+
+        int[] cursors = Arrays.copyOf(starts, coarseOrder);
+        for(int x = 0 ; x < order ; x++) { members[cursors[map[x]]++] = x; }
+
+        // Step 2 : Gathering the links of each group, merged with a marker per coarse node
+        int[] offsets = new int[coarseOrder + 1];
+        int[] targets = new int[this.targets.length];
+        int[] weights = new int[this.targets.length];
+        int[] marker = new int[coarseOrder];
+        int position = 0;
+
+        Arrays.fill(marker, -1);
+
+        for(int c = 0 ; c < coarseOrder ; c++) {
+            int rowStart = position;
+
+            for(int m = starts[c] ; m < starts[c + 1] ; m++) {
+                int x = members[m];
+
+                for(int i = this.offsets[x] ; i < this.offsets[x + 1] ; i++) {
+                    int y = map[this.targets[i]];
+                    if(y == c) continue;
+
+                    if(marker[y] >= rowStart) { weights[marker[y]] += linkWeights[i]; }
+                    else {
+                        marker[y] = position;
+                        targets[position] = y;
+                        weights[position++] = linkWeights[i];
+                    }
+                }
+            }
+
+            offsets[c + 1] = position;
+        }
+
+        return new WorkGraph(coarseOrder, offsets, Arrays.copyOf(targets, position), Arrays.copyOf(weights, position), nodeWeights);
+    }
+
+    /**
+     * Extracts the subgraph made of some nodes and the links between them
+     * @param nodes are the kept nodes, node i of the subgraph being nodes[i]
+     * @return the subgraph
+     */
+    WorkGraph induce(int[] nodes) {
+        int[] local = new int[order];
+        int[] offsets = new int[nodes.length + 1];
+        int[] nodeWeights = new int[nodes.length];
+        int size = 0;
+
+        Arrays.fill(local, -1);
+        for(int i = 0 ; i < nodes.length ; i++) { local[nodes[i]] = i; }
+
+        for(int x : nodes) {
+            for(int i = this.offsets[x] ; i < this.offsets[x + 1] ; i++) { if(local[this.targets[i]] != -1) size++; }
+        }
+
+        int[] targets = new int[size];
+        int[] weights = new int[size];
+        int position = 0;
+
+        for(int n = 0 ; n < nodes.length ; n++) {
+            int x = nodes[n];
+            nodeWeights[n] = this.nodeWeights[x];
+
+            for(int i = this.offsets[x] ; i < this.offsets[x + 1] ; i++) {
+                int y = local[this.targets[i]];
+
+                if(y != -1) {
+                    targets[position] = y;
+                    weights[position++] = linkWeights[i];
+                }
+            }
+
+            offsets[n + 1] = position;
+        }
+
+        return new WorkGraph(nodes.length, offsets, targets, weights, nodeWeights);
+    }
+
+    /**
+     * Shuffles the indexes of a range (Fisher-Yates)
+     * @param size is the size of the range
+     * @param random drives the shuffle
+     * @return 0 to size - 1 in a random order
+     */
+    static int[] permutation(int size, SplittableRandom random) {
+        int[] permutation = new int[size];
+
+        for(int i = 0 ; i < size ; i++) { permutation[i] = i; }
+        for(int i = size - 1 ; i > 0 ; i--) {
+            int j = random.nextInt(i + 1), swap = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = swap;
+        }
+
+        return permutation;
+    }
+}
@@ -0,0 +1,38 @@
+package graph.standard.pregel;
+
+/**
+ * A value every vertex can contribute to during a superstep, merged by a combiner.
+ * The merged value can be read by every vertex during the next superstep, and once the run is over
+ * @author CreeperStone72
+ */
+public final class Aggregator {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final String name;
+
+    private final Combiner combiner;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor
+     * @param name is the aggregator's name
+     * @param combiner merges the contributions
+     */
+    public Aggregator(String name, Combiner combiner) {
+        this.name = name;
+        this.combiner = combiner;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public String getName() { return name; }
+
+    public Combiner getCombiner() { return combiner; }
+
+    @Override
+    public String toString() { return "Aggregator{name=" + name + "}"; }
+}
@@ -0,0 +1,52 @@
+package graph.standard.pregel;
+
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Merges two values into one, such as the messages sent to a vertex or the values given to an aggregator.
+ * The operation must be associative and commutative, as values are merged in no particular order
+ * @author CreeperStone72
+ */
+public final class Combiner {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public static final Combiner SUM = new Combiner(0.0, Double::sum);
+
+    public static final Combiner MIN = new Combiner(Double.POSITIVE_INFINITY, Math::min);
+
+    public static final Combiner MAX = new Combiner(Double.NEGATIVE_INFINITY, Math::max);
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Value that changes nothing once merged, such as 0 for a sum
+     */
+    private final double identity;
+
+    private final DoubleBinaryOperator operator;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor
+     * @param identity is the value that changes nothing once merged
+     * @param operator merges two values
+     */
+    public Combiner(double identity, DoubleBinaryOperator operator) {
+        this.identity = identity;
+        this.operator = operator;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public double identity() { return identity; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public double combine(double a, double b) { return operator.applyAsDouble(a, b); }
+}
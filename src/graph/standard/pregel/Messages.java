@@ -0,0 +1,84 @@
+package graph.standard.pregel;
+
+import java.util.Objects;
+
+/**
+ * The messages a vertex received, read straight from the engine's buffers.
+ * A single instance is reused by each worker, so it must not be kept after compute returns
+ * @author CreeperStone72
+ */
+public final class Messages {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private double[] buffer;
+
+    /**
+     * The messages are stored in buffer, from start (included) to end (excluded)
+     */
+    private int start, end;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    Messages() { }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    void moveTo(double[] buffer, int start, int end) {
+        this.buffer = buffer;
+        this.start = start;
+        this.end = end;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public int size() { return end - start; }
+
+    public boolean isEmpty() { return end == start; }
+
+    /**
+     * Reads a message
+     * @param index is the index of the message, from 0 to size() - 1
+     * @return the message
+     */
+    public double get(int index) { return buffer[start + Objects.checkIndex(index, size())]; }
+
+    /**
+     * Adds the messages up
+     * @return the sum of the messages, 0.0 if there are none
+     */
+    public double sum() {
+        double sum = 0.0;
+
+        for(int i = start ; i < end ; i++) { sum += buffer[i]; }
+
+        return sum;
+    }
+
+    /**
+     * Finds the smallest message
+     * @return the smallest message, positive infinity if there are none
+     */
+    public double min() {
+        double min = Double.POSITIVE_INFINITY;
+
+        for(int i = start ; i < end ; i++) { min = Math.min(min, buffer[i]); }
+
+        return min;
+    }
+
+    /**
+     * Finds the largest message
+     * @return the largest message, negative infinity if there are none
+     */
+    public double max() {
+        double max = Double.NEGATIVE_INFINITY;
+
+        for(int i = start ; i < end ; i++) { max = Math.max(max, buffer[i]); }
+
+        return max;
+    }
+}
@@ -0,0 +1,487 @@
+package graph.standard.pregel;
+
+import graph.standard.adjacency.Adjacency;
+import graph.standard.partition.Partition;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs vertex programs over an adjacency in bulk synchronous supersteps, the vertices being split between workers
+ * that compute in parallel.
+ * Messages never become objects. Without a combiner, each worker appends them to one primitive outbox per receiving
+ * worker, then every worker gathers its own messages into a shared inbox sorted by vertex. With a combiner, they are
+ * merged straight into a slot per vertex, two sets of slots taking turns between the superstep reading them and the
+ * one writing them. Buffers only grow, so once the traffic is steady supersteps don't allocate.
+ * An engine runs one program at a time
+ * @author CreeperStone72
+ */
+public class PregelEngine {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private static final VarHandle DOUBLES = MethodHandles.arrayElementVarHandle(double[].class);
+
+    private static final int INITIAL_OUTBOX = 64;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final Adjacency adjacency;
+
+    private int parallelism;
+
+    /**
+     * Parts giving each worker its vertices, or null to split the vertices into ranges
+     */
+    private Partition partition;
+
+    private int maxSupersteps;
+
+    //// State of the current run ////////////////////////////////////////
+    VertexProgram program;
+
+    /**
+     * The program's combiner, or null
+     */
+    private Combiner combiner;
+
+    /**
+     * Combiner of each aggregator
+     */
+    private Combiner[] merges;
+
+    double[] values;
+
+    boolean[] halted;
+
+    int superstep;
+
+    /**
+     * Value of each aggregator at the end of the previous superstep
+     */
+    double[] aggregated;
+
+    private Map<Aggregator, Integer> aggregators;
+
+    private Worker[] workers;
+
+    /**
+     * Index of the worker owning each vertex
+     */
+    private int[] owners;
+
+    /**
+     * Messages received, inboxValues[inboxStarts[v]] to inboxValues[inboxEnds[v] - 1] going to vertex v
+     */
+    private int[] inboxStarts, inboxEnds;
+
+    private double[] inboxValues;
+
+    /**
+     * Merged messages read during this superstep, and those written for the next one
+     */
+    private double[] combined, nextCombined;
+
+    private boolean[] received, nextReceived;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor
+     * @param adjacency holds the vertices and their links
+     */
+    public PregelEngine(Adjacency adjacency) {
+        this.adjacency = adjacency;
+        setParallelism(Runtime.getRuntime().availableProcessors());
+        setMaxSupersteps(Integer.MAX_VALUE);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Sets the number of workers used when no partition is given
+     * @param parallelism is the number of workers
+     * @return the engine
+     */
+    public PregelEngine setParallelism(int parallelism) {
+        if(parallelism <= 0) throw new IllegalArgumentException("Parallelism must be positive.");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Gives each part of a partition to its own worker, so messages between vertices of a same part stay together
+     * @param partition is the partition of the adjacency, or null to split the vertices into ranges
+     * @return the engine
+     */
+    public PregelEngine setPartition(Partition partition) {
+        if(partition != null && partition.order() != adjacency.order()) throw new IllegalArgumentException("The partition must cover every vertex.");
+        this.partition = partition;
+        return this;
+    }
+
+    public PregelEngine setMaxSupersteps(int maxSupersteps) {
+        if(maxSupersteps <= 0) throw new IllegalArgumentException("The number of supersteps must be positive.");
+        this.maxSupersteps = maxSupersteps;
+        return this;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public Adjacency getAdjacency() { return adjacency; }
+
+    public int getParallelism() { return parallelism; }
+
+    public Partition getPartition() { return partition; }
+
+    public int getMaxSupersteps() { return maxSupersteps; }
+
+    /**
+     * Finds where an aggregator's value is kept
+     * @throws IllegalArgumentException if the program doesn't list the aggregator
+     */
+    int index(Aggregator aggregator) {
+        Integer index = aggregators.get(aggregator);
+        if(index == null) throw new IllegalArgumentException(aggregator + " isn't listed by the program.");
+        return index;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Runs a program until every vertex has halted with no message left, or the maximal number of supersteps is reached
+     * @param program is the program run on every vertex
+     * @return the value of every vertex and the final value of every aggregator
+     */
+    public synchronized Result run(VertexProgram program) {
+        int order = adjacency.order();
+        long messages = 0;
+
+        // Step 1 : Setting the run up
+        this.program = program;
+        values = new double[order];
+        halted = new boolean[order];
+        aggregators = new IdentityHashMap<>();
+
+        List<Aggregator> listed = program.aggregators();
+        aggregated = new double[listed.size()];
+        merges = new Combiner[listed.size()];
+        for(int i = 0 ; i < listed.size() ; i++) {
+            aggregators.put(listed.get(i), i);
+            merges[i] = listed.get(i).getCombiner();
+            aggregated[i] = merges[i].identity();
+        }
+
+        combiner = program.combiner();
+
+        if(combiner != null) {
+            combined = new double[order];
+            nextCombined = new double[order];
+            received = new boolean[order];
+            nextReceived = new boolean[order];
+            Arrays.fill(combined, combiner.identity());
+            Arrays.fill(nextCombined, combiner.identity());
+        } else {
+            inboxStarts = new int[order];
+            inboxEnds = new int[order];
+            inboxValues = new double[0];
+        }
+
+        createWorkers();
+
+        // Step 2 : Supersteps, until nothing is left to do
+        try {
+            for(superstep = 0 ; superstep < maxSupersteps ; superstep++) {
+                Arrays.stream(workers).parallel().forEach(Worker::compute);
+
+                long active = 0, sent = 0;
+
+                for(int i = 0 ; i < aggregated.length ; i++) { aggregated[i] = merges[i].identity(); }
+
+                for(Worker worker : workers) {
+                    active += worker.active;
+                    sent += worker.sent;
+                    for(int i = 0 ; i < aggregated.length ; i++) { aggregated[i] = merges[i].combine(aggregated[i], worker.partials[i]); }
+                }
+
+                messages += sent;
+
+                if(combiner != null) { swap(); }
+                else { deliver(); }
+
+                if(active == 0 && sent == 0) {
+                    superstep++;
+                    break;
+                }
+            }
+
+            Map<Aggregator, Double> finals = new IdentityHashMap<>();
+            for(Map.Entry<Aggregator, Integer> entry : aggregators.entrySet()) { finals.put(entry.getKey(), aggregated[entry.getValue()]); }
+
+            return new Result(values, superstep, messages, finals);
+        } finally {
+            this.program = null;
+            combiner = null;
+            workers = null;
+            owners = null;
+            inboxStarts = inboxEnds = null;
+            inboxValues = combined = nextCombined = null;
+            received = nextReceived = null;
+        }
+    }
+
+    /**
+     * Gives each worker its vertices : the parts of the partition, or ranges holding about as many links each
+     */
+    private void createWorkers() {
+        int order = adjacency.order();
+        int count = (partition != null) ? partition.parts() : Math.max(1, Math.min(parallelism, order));
+        int[][] members = new int[count][];
+
+        owners = new int[order];
+
+        if(partition != null) {
+            int[] sizes = new int[count];
+
+            for(int v = 0 ; v < order ; v++) {
+                owners[v] = partition.part(v);
+                sizes[owners[v]]++;
+            }
+
+            for(int w = 0 ; w < count ; w++) { members[w] = new int[sizes[w]]; }
+            Arrays.fill(sizes, 0);
+            for(int v = 0 ; v < order ; v++) { members[owners[v]][sizes[owners[v]]++] = v; }
+        } else {
+            long total = adjacency.size() + order, seen = 0;
+            int start = 0;
+
+            for(int w = 0 ; w < count ; w++) {
+                int end = start;
+                long share = total * (w + 1) / count;
+
+                while(end < order && (seen < share || w == count - 1)) { seen += adjacency.degree(end++) + 1; }
+
+                members[w] = new int[end - start];
+                for(int v = start ; v < end ; v++) {
+                    members[w][v - start] = v;
+                    owners[v] = w;
+                }
+
+                start = end;
+            }
+        }
+
+        workers = new Worker[count];
+        for(int w = 0 ; w < count ; w++) { workers[w] = new Worker(this, w, members[w], count); }
+    }
+
+    /**
+     * Makes the merged messages written during this superstep readable by the next one
+     */
+    private void swap() {
+        double[] values = combined;
+        combined = nextCombined;
+        nextCombined = values;
+
+        boolean[] flags = received;
+        received = nextReceived;
+        nextReceived = flags;
+    }
+
+    /**
+     * Gathers the outboxes into the inbox. Each worker gets its own region of the inbox, so they can gather in parallel
+     */
+    private void deliver() {
+        long position = 0;
+
+        for(Worker receiver : workers) {
+            receiver.region = (int) position;
+            for(Worker sender : workers) { position += sender.sizes[receiver.index]; }
+        }
+
+        if(position > Integer.MAX_VALUE - 8) throw new IllegalStateException("Too many messages were sent during superstep " + superstep + ".");
+        if(position > inboxValues.length) inboxValues = new double[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(position, 2L * inboxValues.length))];
+
+        Arrays.stream(workers).parallel().forEach(Worker::deliver);
+    }
+
+    /**
+     * Merges a message into the slot of its vertex. Slots are shared by every worker, hence the compare-and-set
+     */
+    private void combine(int target, double message, boolean shared) {
+        if(shared) {
+            double current;
+            do { current = (double) DOUBLES.getVolatile(nextCombined, target); }
+            while(!DOUBLES.compareAndSet(nextCombined, target, current, combiner.combine(current, message)));
+        } else {
+            nextCombined[target] = combiner.combine(nextCombined[target], message);
+        }
+
+        nextReceived[target] = true;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Worker //////////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Computes a set of vertices, and owns the messages they send
+     */
+    static final class Worker {
+        private final PregelEngine engine;
+
+        private final int index;
+
+        private final int[] members;
+
+        private final Vertex vertex;
+
+        private final Messages messages;
+
+        /**
+         * The program's combiner, or null
+         */
+        private final Combiner combiner;
+
+        /**
+         * Messages sent to the vertices of each worker, targets[w][i] receiving values[w][i]
+         */
+        private final int[][] targets;
+
+        private final double[][] values;
+
+        private final int[] sizes;
+
+        /**
+         * This superstep's contribution to each aggregator
+         */
+        private final double[] partials;
+
+        /**
+         * Start of the region of the inbox this worker gathers into
+         */
+        private int region;
+
+        private long active, sent;
+
+        Worker(PregelEngine engine, int index, int[] members, int workers) {
+            this.engine = engine;
+            this.index = index;
+            this.members = members;
+            this.vertex = new Vertex(this, engine.adjacency);
+            this.messages = new Messages();
+            this.combiner = engine.combiner;
+            this.targets = new int[workers][];
+            this.values = new double[workers][];
+            this.sizes = new int[workers];
+            this.partials = new double[engine.merges.length];
+        }
+
+        PregelEngine engine() { return engine; }
+
+        /**
+         * Runs the superstep on every vertex that is still active or received messages
+         */
+        private void compute() {
+            active = 0;
+            sent = 0;
+            for(int i = 0 ; i < partials.length ; i++) { partials[i] = engine.merges[i].identity(); }
+
+            for(int v : members) {
+                boolean hasMessages;
+
+                if(combiner != null) {
+                    hasMessages = engine.received[v];
+                    messages.moveTo(engine.combined, v, hasMessages ? v + 1 : v);
+                } else {
+                    hasMessages = engine.inboxEnds[v] > engine.inboxStarts[v];
+                    messages.moveTo(engine.inboxValues, engine.inboxStarts[v], engine.inboxEnds[v]);
+                }
+
+                if(engine.halted[v] && !hasMessages) continue;
+
+                engine.halted[v] = false;
+                vertex.moveTo(v);
+                engine.program.compute(vertex, messages);
+
+                if(!engine.halted[v]) active++;
+
+                if(combiner != null && hasMessages) {
+                    engine.combined[v] = combiner.identity();
+                    engine.received[v] = false;
+                }
+            }
+        }
+
+        /**
+         * Queues a message for the next superstep
+         */
+        void send(int target, double message) {
+            sent++;
+
+            if(combiner != null) {
+                engine.combine(target, message, sizes.length > 1);
+                return;
+            }
+
+            int owner = engine.owners[target], size = sizes[owner];
+
+            if(targets[owner] == null) {
+                targets[owner] = new int[INITIAL_OUTBOX];
+                values[owner] = new double[INITIAL_OUTBOX];
+            } else if(size == targets[owner].length) {
+                targets[owner] = Arrays.copyOf(targets[owner], 2 * size);
+                values[owner] = Arrays.copyOf(values[owner], 2 * size);
+            }
+
+            targets[owner][size] = target;
+            values[owner][size] = message;
+            sizes[owner] = size + 1;
+        }
+
+        void aggregate(int aggregator, double value) {
+            partials[aggregator] = engine.merges[aggregator].combine(partials[aggregator], value);
+        }
+
+        /**
+         * Gathers the messages sent to this worker's vertices into its region of the inbox, sorted by vertex
+         */
+        private void deliver() {
+            int[] starts = engine.inboxStarts, ends = engine.inboxEnds;
+            double[] inbox = engine.inboxValues;
+            int position = region;
+
+            // Step 1 : Counting the messages of each vertex
+            for(int v : members) { ends[v] = 0; }
+            for(Worker sender : engine.workers) {
+                int[] received = sender.targets[index];
+                for(int i = 0 ; i < sender.sizes[index] ; i++) { ends[received[i]]++; }
+            }
+
+            // Step 2 : Giving each vertex its range, ends serving as write cursors
+            for(int v : members) {
+                int count = ends[v];
+                starts[v] = position;
+                ends[v] = position;
+                position += count;
+            }
+
+            // Step 3 : Copying the messages, and emptying the outboxes
+            for(Worker sender : engine.workers) {
+                int[] received = sender.targets[index];
+                double[] sentValues = sender.values[index];
+
+                for(int i = 0 ; i < sender.sizes[index] ; i++) { inbox[ends[received[i]]++] = sentValues[i]; }
+                sender.sizes[index] = 0;
+            }
+        }
+    }
+}
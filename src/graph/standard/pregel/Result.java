@@ -0,0 +1,68 @@
+package graph.standard.pregel;
+
+import java.util.Map;
+
+/**
+ * What a run of a vertex program left behind : the value of every vertex and of every aggregator
+ * @author CreeperStone72
+ */
+public final class Result {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final double[] values;
+
+    private final int supersteps;
+
+    private final long messages;
+
+    private final Map<Aggregator, Double> aggregated;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    Result(double[] values, int supersteps, long messages, Map<Aggregator, Double> aggregated) {
+        this.values = values;
+        this.supersteps = supersteps;
+        this.messages = messages;
+        this.aggregated = aggregated;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Gives the value of every vertex. The array isn't copied
+     * @return an array whose i-th value is the value of vertex i
+     */
+    public double[] values() { return values; }
+
+    public double value(int vertex) { return values[vertex]; }
+
+    /**
+     * Counts the supersteps run
+     * @return the number of supersteps
+     */
+    public int supersteps() { return supersteps; }
+
+    /**
+     * Counts the messages sent during the whole run, before any combining
+     * @return the number of messages
+     */
+    public long messages() { return messages; }
+
+    /**
+     * Reads the value an aggregator reached during the last superstep
+     * @param aggregator is the aggregator, listed by the program
+     * @return the merged value
+     * @throws IllegalArgumentException if the program didn't list the aggregator
+     */
+    public double aggregated(Aggregator aggregator) {
+        Double value = aggregated.get(aggregator);
+        if(value == null) throw new IllegalArgumentException(aggregator + " wasn't listed by the program.");
+        return value;
+    }
+
+    @Override
+    public String toString() { return "Result{supersteps=" + supersteps + ", messages=" + messages + "}"; }
+}
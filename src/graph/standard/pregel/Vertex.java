@@ -0,0 +1,135 @@
+package graph.standard.pregel;
+
+import graph.standard.adjacency.Adjacency;
+
+import java.util.Objects;
+
+/**
+ * The vertex a program is running on, with its value, its links and the means to send messages.
+ * A single instance is reused by each worker, so it must not be kept after compute returns
+ * @author CreeperStone72
+ */
+public final class Vertex {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final PregelEngine.Worker worker;
+
+    private final Adjacency adjacency;
+
+    private int id;
+
+    /**
+     * Position of the vertex's first link in the adjacency
+     */
+    private long begin;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    Vertex(PregelEngine.Worker worker, Adjacency adjacency) {
+        this.worker = worker;
+        this.adjacency = adjacency;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    void moveTo(int id) {
+        this.id = id;
+        this.begin = adjacency.begin(id);
+    }
+
+    public void setValue(double value) { worker.engine().values[id] = value; }
+
+    /**
+     * Stops running this vertex until it receives a message
+     */
+    public void voteToHalt() { worker.engine().halted[id] = true; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Gives the vertex's index in the adjacency
+     * @return the index of the vertex
+     */
+    public int id() { return id; }
+
+    public double getValue() { return worker.engine().values[id]; }
+
+    public int superstep() { return worker.engine().superstep; }
+
+    /**
+     * Counts the vertices of the whole graph
+     * @return the number of vertices
+     */
+    public int order() { return adjacency.order(); }
+
+    /**
+     * Counts the links leaving the vertex
+     * @return the out-degree of the vertex
+     */
+    public long degree() { return adjacency.end(id) - begin; }
+
+    /**
+     * Reads where a link leaving the vertex goes
+     * @param index is the index of the link, from 0 to degree() - 1
+     * @return the index of the vertex the link goes to
+     */
+    public int target(long index) { return adjacency.target(position(index)); }
+
+    /**
+     * Reads the weight of a link leaving the vertex
+     * @param index is the index of the link, from 0 to degree() - 1
+     * @return the weight of the link, 1.0 if the adjacency isn't weighted
+     */
+    public double weight(long index) { return adjacency.weight(position(index)); }
+
+    /**
+     * Finds a link leaving the vertex in the adjacency. Checked by hand, the long overload of Objects.checkIndex()
+     * only comes with JDK 16
+     * @return the position of the link
+     */
+    private long position(long index) {
+        long degree = degree();
+
+        if(index < 0 || index >= degree) throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + degree);
+        return begin + index;
+    }
+
+    /**
+     * Reads the value an aggregator reached during the previous superstep
+     * @param aggregator is the aggregator, listed by the program
+     * @return the merged value, or the combiner's identity during superstep 0
+     */
+    public double aggregated(Aggregator aggregator) { return worker.engine().aggregated[worker.engine().index(aggregator)]; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Sends a message to any vertex, received during the next superstep
+     * @param target is the index of the receiving vertex
+     * @param message is the message
+     */
+    public void send(int target, double message) { worker.send(Objects.checkIndex(target, adjacency.order()), message); }
+
+    /**
+     * Sends the same message along every link leaving the vertex
+     * @param message is the message
+     */
+    public void sendToSuccessors(double message) {
+        for(long i = begin, end = adjacency.end(id) ; i < end ; i++) { worker.send(adjacency.target(i), message); }
+    }
+
+    /**
+     * Contributes a value to an aggregator
+     * @param aggregator is the aggregator, listed by the program
+     * @param value is the contribution
+     */
+    public void aggregate(Aggregator aggregator, double value) { worker.aggregate(worker.engine().index(aggregator), value); }
+
+    @Override
+    public String toString() { return "Vertex{id=" + id + ", value=" + getValue() + "}"; }
+}
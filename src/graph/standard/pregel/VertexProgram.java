@@ -0,0 +1,34 @@
+package graph.standard.pregel;
+
+import java.util.List;
+
+/**
+ * What every vertex does during a superstep, in the Pregel model.
+ * During superstep s, a vertex reads the messages sent to it during superstep s - 1, updates its value and sends
+ * messages for superstep s + 1. Every vertex runs superstep 0 with a value of 0.0. Later on, only the vertices that
+ * didn't vote to halt or received messages run. The computation ends once every vertex has halted and no message
+ * is left, or after a maximal number of supersteps.
+ * compute may be called from several threads at once, for different vertices
+ * @author CreeperStone72
+ */
+public interface VertexProgram {
+    /**
+     * Runs a superstep for a vertex
+     * @param vertex is the vertex, only valid during the call
+     * @param messages are the messages sent to the vertex, only valid during the call
+     */
+    void compute(Vertex vertex, Messages messages);
+
+    /**
+     * Gives the combiner merging the messages sent to a same vertex. With one, a vertex receives at most one message
+     * per superstep and messages are merged as soon as they are sent
+     * @return the combiner, or null to keep every message
+     */
+    default Combiner combiner() { return null; }
+
+    /**
+     * Lists the aggregators used by the program
+     * @return the aggregators
+     */
+    default List<Aggregator> aggregators() { return List.of(); }
+}
@@ -0,0 +1,30 @@
+package graph.standard.pregel.programs;
+
+import graph.standard.pregel.Combiner;
+import graph.standard.pregel.Messages;
+import graph.standard.pregel.Vertex;
+import graph.standard.pregel.VertexProgram;
+
+/**
+ * Connected components, each vertex ending with the smallest index of its component.
+ * Labels travel along the links as stored, so the adjacency should hold both directions of every link,
+ * which is the case for the adjacency of a non-directed graph
+ * @author CreeperStone72
+ */
+public class ConnectedComponents implements VertexProgram {
+    @Override
+    public void compute(Vertex vertex, Messages messages) {
+        if(vertex.superstep() == 0) {
+            vertex.setValue(vertex.id());
+            vertex.sendToSuccessors(vertex.id());
+        } else if(messages.min() < vertex.getValue()) {
+            vertex.setValue(messages.min());
+            vertex.sendToSuccessors(vertex.getValue());
+        }
+
+        vertex.voteToHalt();
+    }
+
+    @Override
+    public Combiner combiner() { return Combiner.MIN; }
+}
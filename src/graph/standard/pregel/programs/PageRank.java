@@ -0,0 +1,77 @@
+package graph.standard.pregel.programs;
+
+import graph.standard.pregel.Aggregator;
+import graph.standard.pregel.Combiner;
+import graph.standard.pregel.Messages;
+import graph.standard.pregel.Vertex;
+import graph.standard.pregel.VertexProgram;
+
+import java.util.List;
+
+/**
+ * PageRank, each vertex ending with the probability of a random surfer standing on it.
+ * Vertices with no successor share their rank with every vertex, through an aggregator
+ * @author CreeperStone72
+ */
+public class PageRank implements VertexProgram {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Rank held by the vertices with no successor during the previous superstep
+     */
+    private final Aggregator dangling = new Aggregator("dangling", Combiner.SUM);
+
+    private final int iterations;
+
+    /**
+     * Probability of following a link rather than jumping to a random vertex
+     */
+    private final double damping;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Constructor with the usual damping of 0.85
+     * @param iterations is the number of times ranks are passed along the links
+     */
+    public PageRank(int iterations) { this(iterations, 0.85); }
+
+    /**
+     * Main constructor
+     * @param iterations is the number of times ranks are passed along the links
+     * @param damping is the probability of following a link rather than jumping to a random vertex
+     */
+    public PageRank(int iterations, double damping) {
+        if(iterations < 0) throw new IllegalArgumentException("The number of iterations must be positive.");
+        if(!(damping >= 0.0 && damping <= 1.0)) throw new IllegalArgumentException("Damping must be between 0 and 1.");
+
+        this.iterations = iterations;
+        this.damping = damping;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Override
+    public void compute(Vertex vertex, Messages messages) {
+        int order = vertex.order();
+
+        if(vertex.superstep() == 0) { vertex.setValue(1.0 / order); }
+        else { vertex.setValue((1.0 - damping) / order + damping * (messages.sum() + vertex.aggregated(dangling) / order)); }
+
+        if(vertex.superstep() < iterations) {
+            long degree = vertex.degree();
+
+            if(degree > 0) vertex.sendToSuccessors(vertex.getValue() / degree);
+            else vertex.aggregate(dangling, vertex.getValue());
+        } else { vertex.voteToHalt(); }
+    }
+
+    @Override
+    public Combiner combiner() { return Combiner.SUM; }
+
+    @Override
+    public List<Aggregator> aggregators() { return List.of(dangling); }
+}
@@ -0,0 +1,50 @@
+package graph.standard.pregel.programs;
+
+import graph.standard.pregel.Combiner;
+import graph.standard.pregel.Messages;
+import graph.standard.pregel.Vertex;
+import graph.standard.pregel.VertexProgram;
+
+/**
+ * Single-source shortest paths, each vertex ending with its distance from the source (infinity if unreachable).
+ * Distances improve Bellman-Ford style, so negative weights work as long as no cycle is absorbing
+ * @author CreeperStone72
+ */
+public class ShortestPaths implements VertexProgram {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final int source;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor
+     * @param source is the index of the starting vertex
+     */
+    public ShortestPaths(int source) { this.source = source; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Override
+    public void compute(Vertex vertex, Messages messages) {
+        double distance = messages.min();
+
+        if(vertex.superstep() == 0) {
+            vertex.setValue(Double.POSITIVE_INFINITY);
+            if(vertex.id() == source) distance = 0.0;
+        }
+
+        if(distance < vertex.getValue()) {
+            vertex.setValue(distance);
+            for(long i = 0 ; i < vertex.degree() ; i++) { vertex.send(vertex.target(i), distance + vertex.weight(i)); }
+        }
+
+        vertex.voteToHalt();
+    }
+
+    @Override
+    public Combiner combiner() { return Combiner.MIN; }
+}
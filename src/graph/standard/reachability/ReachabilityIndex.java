@@ -0,0 +1,381 @@
+package graph.standard.reachability;
+
+import graph.exception.NodeNotFoundException;
+import graph.standard.Graph;
+import graph.standard.Link;
+import graph.standard.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Precomputed reachability between the nodes of a graph, using pruned landmark labeling.
+ * Nodes are ranked by degree and each one, in rank order, runs a forward and a backward breadth-first search that
+ * stops wherever higher ranked landmarks already answer. Every node ends up with the ranks of the landmarks it
+ * reaches (out-labels) and of the landmarks reaching it (in-labels), and a reaches b if and only if both label
+ * lists share a rank, which is a merge of two short sorted arrays.
+ * Inserting a link resumes the searches of the landmarks affected by it instead of rebuilding. Removing a link can't
+ * be done incrementally, the index has to be built again
+ * @param <T> is the type carried by each node
+ * @author CreeperStone72
+ */
+public class ReachabilityIndex<T> {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Id of each node
+     */
+    private final Map<T, Integer> ids;
+
+    /**
+     * Data of each id
+     */
+    private final List<T> values;
+
+    /**
+     * If true, links are only followed from their starting node to their ending node
+     */
+    private final boolean isDirected;
+
+    /**
+     * Successors and predecessors of each id, with their counts
+     */
+    private int[][] successors, predecessors;
+    private int[] successorCounts, predecessorCounts;
+
+    /**
+     * Rank of each id, smaller ranks are landmarks searched first
+     */
+    private int[] rank;
+
+    /**
+     * Id of each rank
+     */
+    private int[] byRank;
+
+    /**
+     * Sorted ranks of the landmarks each id reaches, and of those reaching it, with their counts
+     */
+    private int[][] labelsOut, labelsIn;
+    private int[] labelOutCounts, labelInCounts;
+
+    /**
+     * Breadth-first search buffers. A node is visited when its stamp equals the current epoch
+     */
+    private int[] queue, stamps;
+    private int epoch;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor, creates an empty index
+     * @param isDirected denotes whether links are asymmetrical
+     */
+    public ReachabilityIndex(boolean isDirected) {
+        this.isDirected = isDirected;
+        ids = new HashMap<>();
+        values = new ArrayList<>();
+        successors = new int[16][];
+        predecessors = new int[16][];
+        successorCounts = new int[16];
+        predecessorCounts = new int[16];
+        rank = new int[16];
+        byRank = new int[16];
+        labelsOut = new int[16][];
+        labelsIn = new int[16][];
+        labelOutCounts = new int[16];
+        labelInCounts = new int[16];
+        queue = new int[16];
+        stamps = new int[16];
+    }
+
+    /**
+     * Indexes every node and link of a graph
+     * @param graph is the indexed graph
+     * @param <T> is the type carried by each node
+     * @param <L> is the type of Link used
+     * @return the index
+     */
+    public static <T, L extends Link> ReachabilityIndex<T> of(Graph<T, L> graph) { return of(graph, link -> true); }
+
+    /**
+     * Indexes every node of a graph and some of its links, such as those of a single relation
+     * @param graph is the indexed graph
+     * @param filter selects the links to follow
+     * @param <T> is the type carried by each node
+     * @param <L> is the type of Link used
+     * @return the index
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, L extends Link> ReachabilityIndex<T> of(Graph<T, L> graph, Predicate<? super L> filter) {
+        ReachabilityIndex<T> index = new ReachabilityIndex<>(graph.isDirected());
+
+        for(Node<T> node : graph.getNodes()) { index.id(node.getData()); }
+
+        for(L link : graph.getLinks()) {
+            if(!filter.test(link)) continue;
+
+            int x = index.id((T) link.getX().getData()), y = index.id((T) link.getY().getData());
+            index.addEdge(x, y);
+            if(!graph.isDirected() && x != y) index.addEdge(y, x);
+        }
+
+        index.build();
+        return index;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public boolean isDirected() { return isDirected; }
+
+    /**
+     * Counts the indexed nodes
+     * @return the number of nodes
+     */
+    public int order() { return values.size(); }
+
+    /**
+     * Checks whether a node is indexed
+     * @param data is the data carried by the node
+     * @return true if the node is indexed
+     */
+    public boolean contains(T data) { return ids.containsKey(data); }
+
+    /**
+     * Counts the labels, which is the memory taken by the index in ints
+     * @return the total number of in-labels and out-labels
+     */
+    public long labels() {
+        long total = 0;
+
+        for(int i = 0 ; i < order() ; i++) { total += labelOutCounts[i] + labelInCounts[i]; }
+
+        return total;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Checks whether a node can be reached from another, following links in their direction if the graph is directed.
+     * Every node reaches itself
+     * @param dataX is the data carried by the starting node
+     * @param dataY is the data carried by the ending node
+     * @return true if there is a path from the first node to the second
+     * @throws NodeNotFoundException if either node isn't indexed
+     */
+    public boolean reachable(T dataX, T dataY) throws NodeNotFoundException {
+        Integer x = ids.get(dataX), y = ids.get(dataY);
+
+        if(x == null || y == null) throw new NodeNotFoundException();
+        return x.equals(y) || covered(x, y, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Indexes a node without any link
+     * @param data is the data carried by the node
+     * @return true if the node wasn't indexed yet
+     */
+    public boolean insert(T data) {
+        if(ids.containsKey(data)) return false;
+
+        id(data);
+        return true;
+    }
+
+    /**
+     * Indexes a new link, updating the labels of the nodes it makes reachable.
+     * Nodes that aren't indexed yet are inserted first
+     * @param dataX is the data carried by the starting node
+     * @param dataY is the data carried by the ending node
+     */
+    public void link(T dataX, T dataY) {
+        int x = id(dataX), y = id(dataY);
+
+        addEdge(x, y);
+        update(x, y);
+
+        if(!isDirected && x != y) {
+            addEdge(y, x);
+            update(y, x);
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Labeling methods ////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Ranks the nodes by degree, then runs the pruned searches of every landmark
+     */
+    private void build() {
+        int n = order();
+        long[] keys = new long[n];
+
+        // Nodes with many predecessors and successors cover the most pairs, so they come first
+        for(int i = 0 ; i < n ; i++) {
+            long weight = Math.min(Integer.MAX_VALUE, (successorCounts[i] + 1L) * (predecessorCounts[i] + 1L));
+            keys[i] = ((Integer.MAX_VALUE - weight) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        for(int r = 0 ; r < n ; r++) {
+            int id = (int) keys[r];
+            rank[id] = r;
+            byRank[r] = id;
+            labelOutCounts[id] = labelInCounts[id] = 0;
+        }
+
+        for(int r = 0 ; r < n ; r++) {
+            search(byRank[r], byRank[r], true);
+            search(byRank[r], byRank[r], false);
+        }
+    }
+
+    /**
+     * Resumes the searches of the landmarks a new link makes reach further
+     */
+    private void update(int x, int y) {
+        // Landmarks reaching x now reach everything y reaches
+        for(int r : Arrays.copyOf(labelsIn[x], labelInCounts[x])) { search(byRank[r], y, true); }
+
+        // Landmarks reached by y are now reached by everything reaching x
+        for(int r : Arrays.copyOf(labelsOut[y], labelOutCounts[y])) { search(byRank[r], x, false); }
+    }
+
+    /**
+     * Pruned breadth-first search of a landmark. Nodes already answered by a landmark of smaller or equal rank
+     * are neither labelled nor expanded
+     * @param landmark is the landmark's id
+     * @param start is the first node visited
+     * @param forward denotes whether successors (labelling in-labels) or predecessors (labelling out-labels) are followed
+     */
+    private void search(int landmark, int start, boolean forward) {
+        int r = rank[landmark], head = 0, tail = 0;
+
+        epoch++;
+        queue[tail++] = start;
+        stamps[start] = epoch;
+
+        while(head < tail) {
+            int node = queue[head++];
+
+            if(forward ? covered(landmark, node, r + 1) : covered(node, landmark, r + 1)) continue;
+
+            if(forward) labelIn(node, r);
+            else labelOut(node, r);
+
+            int[] next = forward ? successors[node] : predecessors[node];
+            int count = forward ? successorCounts[node] : predecessorCounts[node];
+
+            for(int i = 0 ; i < count ; i++) {
+                int neighbor = next[i];
+                if(stamps[neighbor] == epoch) continue;
+
+                stamps[neighbor] = epoch;
+                queue[tail++] = neighbor;
+            }
+        }
+    }
+
+    /**
+     * Checks whether x reaches y through a landmark ranked below a limit
+     * @param x is the starting node's id
+     * @param y is the ending node's id
+     * @param limit is the first rank that isn't considered
+     * @return true if the labels of x and y share such a landmark
+     */
+    private boolean covered(int x, int y, int limit) {
+        int[] out = labelsOut[x], in = labelsIn[y];
+        int i = 0, j = 0, outCount = labelOutCounts[x], inCount = labelInCounts[y];
+
+        while(i < outCount && j < inCount) {
+            int a = out[i], b = in[j];
+
+            if(a >= limit || b >= limit) return false;
+            if(a == b) return true;
+            if(a < b) i++;
+            else j++;
+        }
+
+        return false;
+    }
+
+    private void labelOut(int node, int r) {
+        labelOutCounts[node] = insertSorted(labelsOut, labelOutCounts[node], node, r);
+    }
+
+    private void labelIn(int node, int r) {
+        labelInCounts[node] = insertSorted(labelsIn, labelInCounts[node], node, r);
+    }
+
+    /**
+     * Inserts a rank into a sorted label list. Ranks come in increasing order while building, so this is an append
+     * @return the new count
+     */
+    private static int insertSorted(int[][] labels, int count, int node, int r) {
+        int[] list = labels[node];
+        int at = Arrays.binarySearch(list, 0, count, r);
+
+        if(at >= 0) return count;
+        at = -at - 1;
+
+        if(count == list.length) labels[node] = list = Arrays.copyOf(list, Math.max(4, count * 2));
+        System.arraycopy(list, at, list, at + 1, count - at);
+        list[at] = r;
+        return count + 1;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Storage methods /////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Finds the id of a node, indexing it with the lowest rank if it's new
+     */
+    private int id(T data) {
+        Integer known = ids.get(data);
+        if(known != null) return known;
+
+        int id = values.size();
+        if(id == rank.length) grow(id * 2);
+
+        ids.put(data, id);
+        values.add(data);
+        successors[id] = new int[2];
+        predecessors[id] = new int[2];
+        labelsOut[id] = new int[] { id };
+        labelsIn[id] = new int[] { id };
+        labelOutCounts[id] = labelInCounts[id] = 1;
+        rank[id] = byRank[id] = id;
+        return id;
+    }
+
+    private void addEdge(int x, int y) {
+        if(successorCounts[x] == successors[x].length) successors[x] = Arrays.copyOf(successors[x], successorCounts[x] * 2);
+        if(predecessorCounts[y] == predecessors[y].length) predecessors[y] = Arrays.copyOf(predecessors[y], predecessorCounts[y] * 2);
+
+        successors[x][successorCounts[x]++] = y;
+        predecessors[y][predecessorCounts[y]++] = x;
+    }
+
+    private void grow(int capacity) {
+        successors = Arrays.copyOf(successors, capacity);
+        predecessors = Arrays.copyOf(predecessors, capacity);
+        successorCounts = Arrays.copyOf(successorCounts, capacity);
+        predecessorCounts = Arrays.copyOf(predecessorCounts, capacity);
+        rank = Arrays.copyOf(rank, capacity);
+        byRank = Arrays.copyOf(byRank, capacity);
+        labelsOut = Arrays.copyOf(labelsOut, capacity);
+        labelsIn = Arrays.copyOf(labelsIn, capacity);
+        labelOutCounts = Arrays.copyOf(labelOutCounts, capacity);
+        labelInCounts = Arrays.copyOf(labelInCounts, capacity);
+        queue = Arrays.copyOf(queue, capacity);
+        stamps = Arrays.copyOf(stamps, capacity);
+    }
+}
@@ -0,0 +1,226 @@
+package graph.standard.storage;
+
+import graph.knowledge.RelationLink;
+import graph.metrics.BulkOperationEvent;
+import graph.standard.Graph;
+import graph.standard.Link;
+import graph.standard.Node;
+import graph.standard.weighted.WeightedLink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Writes the links of a graph as an edge list that EdgeListImporter can read back.
+ * Each line holds the two node tokens followed by the weight of a WeightedLink, or the subject, relation name and
+ * object of a RelationLink, separated by tabs. Node tokens are encoded once, then chunks of links are encoded in parallel and written in order
+ * @param <T> is the type of data carried by the nodes
+ * @author CreeperStone72
+ */
+public class EdgeListExporter<T> {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Turns the data carried by a node into its token. Tokens must not contain blanks
+     */
+    private final Function<? super T, String> encoder;
+
+    /**
+     * Number of links encoded by a single task
+     */
+    private int chunkSize;
+
+    /**
+     * Number of chunks encoded at the same time, before they are written
+     */
+    private int parallelism;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Empty constructor. Nodes are written with String.valueOf
+     */
+    public EdgeListExporter() { this(String::valueOf); }
+
+    /**
+     * Main constructor
+     * @param encoder turns the data carried by a node into its token
+     */
+    public EdgeListExporter(Function<? super T, String> encoder) {
+        this.encoder = encoder;
+        setChunkSize(DEFAULT_CHUNK_SIZE);
+        setParallelism(Runtime.getRuntime().availableProcessors());
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public EdgeListExporter<T> setChunkSize(int chunkSize) {
+        if(chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive.");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public EdgeListExporter<T> setParallelism(int parallelism) {
+        if(parallelism <= 0) throw new IllegalArgumentException("Parallelism must be positive.");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public int getChunkSize() { return chunkSize; }
+
+    public int getParallelism() { return parallelism; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Writes the links of a graph, replacing the file if it exists
+     * @param graph is the graph to export
+     * @param file is the edge list
+     * @return the number of links written
+     * @throws IOException if the file can't be written
+     */
+    public long write(Graph<T, ?> graph, Path file) throws IOException {
+        BulkOperationEvent event = new BulkOperationEvent("write");
+        List<? extends Link> links = graph.getLinks();
+        Map<Node<?>, byte[]> tokens = new IdentityHashMap<>();
+        Map<String, byte[]> names = new ConcurrentHashMap<>();
+
+        for(Node<T> node : graph.getNodes()) { tokens.put(node, encoder.apply(node.getData()).getBytes(StandardCharsets.UTF_8)); }
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int chunks = (links.size() + chunkSize - 1) / chunkSize;
+
+            for(int wave = 0 ; wave < chunks ; wave += parallelism) {
+                List<Output> encoded = IntStream.range(wave, Math.min(chunks, wave + parallelism)).parallel()
+                        .mapToObj(c -> encode(links.subList(c * chunkSize, Math.min(links.size(), (c + 1) * chunkSize)), tokens, names))
+                        .collect(Collectors.toList());
+
+                for(Output output : encoded) {
+                    ByteBuffer buffer = ByteBuffer.wrap(output.bytes, 0, output.size);
+                    while(buffer.hasRemaining()) channel.write(buffer);
+                }
+            }
+        }
+
+        event.finish(links.size());
+        return links.size();
+    }
+
+    /**
+     * Encodes a chunk of links
+     */
+    private Output encode(List<? extends Link> links, Map<Node<?>, byte[]> tokens, Map<String, byte[]> names) {
+        Output output = new Output(links.size() * 16);
+
+        for(Link link : links) {
+            output.write(token(link.getX(), tokens));
+            output.write('\t');
+
+            if(link instanceof RelationLink) {
+                String name = String.valueOf(((RelationLink<?>) link).getRelationName());
+                output.write(names.computeIfAbsent(name, n -> n.getBytes(StandardCharsets.UTF_8)));
+                output.write('\t');
+            }
+
+            output.write(token(link.getY(), tokens));
+
+            if(link instanceof WeightedLink) {
+                output.write('\t');
+                output.writeDouble(((WeightedLink) link).getWeight());
+            }
+
+            output.write('\n');
+        }
+
+        return output;
+    }
+
+    /**
+     * Finds the token of a node. Nodes that don't belong to the graph are encoded on the spot
+     */
+    @SuppressWarnings("unchecked")
+    private byte[] token(Node<?> node, Map<Node<?>, byte[]> tokens) {
+        byte[] token = tokens.get(node);
+        return (token != null) ? token : encoder.apply((T) node.getData()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Inner types /////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * A growable byte array
+     */
+    private static final class Output {
+        private byte[] bytes;
+        private int size;
+
+        Output(int capacity) { bytes = new byte[Math.max(capacity, 64)]; }
+
+        void write(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void write(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+
+        /**
+         * Writes a number. Integral values are written digit by digit, others go through Double.toString
+         */
+        void writeDouble(double value) {
+            if(value != Math.rint(value) || Math.abs(value) >= 1e15) {
+                write(Double.toString(value).getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+
+            long integral = (long) value;
+            ensure(20);
+
+            if(integral < 0) {
+                bytes[size++] = '-';
+                integral = -integral;
+            }
+
+            int start = size;
+            do {
+                bytes[size++] = (byte) ('0' + integral % 10);
+                integral /= 10;
+            } while(integral != 0);
+
+            for(int i = start, j = size - 1 ; i < j ; i++, j--) {
+                byte b = bytes[i];
+                bytes[i] = bytes[j];
+                bytes[j] = b;
+            }
+        }
+
+        private void ensure(int extra) { if(size + extra > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra)); }
+    }
+}
@@ -0,0 +1,584 @@
+package graph.standard.storage;
+
+import graph.knowledge.RelationLink;
+import graph.metrics.BulkOperationEvent;
+import graph.metrics.GraphMetrics;
+import graph.standard.Graph;
+import graph.standard.Link;
+import graph.standard.Node;
+import graph.standard.weighted.WeightedLink;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reads edge lists into a graph.
+ * Each line holds two node tokens and an optional weight, or a subject, a relation name and an object for relation
+ * links, separated by spaces or tabs. Blank lines and lines starting with '#' or '%' are skipped.
+ * The file is memory-mapped and split into line-aligned chunks that are parsed in parallel. Tokens are hashed
+ * straight from the mapped bytes, so a String is only built once per distinct token and chunk
+ * @param <T> is the type of data carried by the nodes
+ * @param <L> is the type of Link built
+ * @author CreeperStone72
+ */
+public class EdgeListImporter<T, L extends Link> {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private static final int DEFAULT_CHUNK_SIZE = 32 << 20;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Turns a node token into the data carried by the node
+     */
+    private final Function<String, T> decoder;
+
+    /**
+     * Builds the links
+     */
+    private final LinkFactory<L> factory;
+
+    /**
+     * Which extra column is read
+     */
+    private final Column column;
+
+    /**
+     * Number of bytes parsed by a single task
+     */
+    private int chunkSize;
+
+    /**
+     * Number of chunks parsed at the same time, before they are inserted into the graph
+     */
+    private int parallelism;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor
+     * @param decoder turns a node token into the data carried by the node
+     * @param factory builds the links
+     * @param column is which extra column is read
+     */
+    private EdgeListImporter(Function<String, T> decoder, LinkFactory<L> factory, Column column) {
+        this.decoder = decoder;
+        this.factory = factory;
+        this.column = column;
+        setChunkSize(DEFAULT_CHUNK_SIZE);
+        setParallelism(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Builds an importer for regular links. Extra columns are ignored
+     * @param decoder turns a node token into the data carried by the node
+     * @param <T> is the type of data carried by the nodes
+     * @return the importer
+     */
+    public static <T> EdgeListImporter<T, Link> links(Function<String, T> decoder) {
+        return new EdgeListImporter<>(decoder, (x, y, weight, relation) -> new Link(x, y), Column.NONE);
+    }
+
+    /**
+     * Builds an importer for weighted links. The third column is the weight, 1.0 if missing
+     * @param decoder turns a node token into the data carried by the node
+     * @param <T> is the type of data carried by the nodes
+     * @return the importer
+     */
+    public static <T> EdgeListImporter<T, WeightedLink> weighted(Function<String, T> decoder) {
+        return new EdgeListImporter<>(decoder, (x, y, weight, relation) -> new WeightedLink(x, y, weight), Column.WEIGHT);
+    }
+
+    /**
+     * Builds an importer for relation links. The middle column is the relation's name, links carry no data
+     * @param decoder turns a node token into the node it stands for
+     * @param <T> is the data carried by the links
+     * @return the importer
+     */
+    public static <T> EdgeListImporter<Synchronizable, RelationLink<T>> relations(Function<String, Synchronizable> decoder) {
+        return new EdgeListImporter<>(decoder, (x, y, weight, relation) -> new RelationLink<>(x, y, relation, null), Column.RELATION);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public EdgeListImporter<T, L> setChunkSize(int chunkSize) {
+        if(chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive.");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public EdgeListImporter<T, L> setParallelism(int parallelism) {
+        if(parallelism <= 0) throw new IllegalArgumentException("Parallelism must be positive.");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public int getChunkSize() { return chunkSize; }
+
+    public int getParallelism() { return parallelism; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Reads an edge list into a graph. Missing nodes are inserted, then links go through Graph.linkAll
+     * @param file is the edge list
+     * @param graph is the graph receiving the nodes and links
+     * @return the number of links read
+     * @throws IOException if the file can't be read
+     */
+    public long read(Path file, Graph<T, L> graph) throws IOException {
+        BulkOperationEvent event = new BulkOperationEvent("read");
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<long[]> chunks = split(channel);
+            Merger merger = new Merger(graph);
+            long count = 0;
+
+            for(int wave = 0 ; wave < chunks.size() ; wave += parallelism) {
+                List<long[]> bounds = chunks.subList(wave, Math.min(chunks.size(), wave + parallelism));
+                List<Chunk> parsed;
+
+                try { parsed = bounds.parallelStream().map(b -> parse(channel, b[0], b[1])).collect(Collectors.toList()); }
+                catch(UncheckedIOException e) { throw e.getCause(); }
+
+                for(Chunk chunk : parsed) { count += merger.merge(chunk); }
+            }
+
+            event.finish(count);
+            return count;
+        }
+    }
+
+    /**
+     * Splits a file into chunks that start and end on line boundaries
+     * @param channel is the file
+     * @return the start (included) and end (excluded) of each chunk
+     * @throws IOException if the file can't be read
+     */
+    private List<long[]> split(FileChannel channel) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long size = channel.size();
+        long start = 0;
+
+        while(start < size) {
+            long end = nextLine(channel, Math.min(size, start + chunkSize), size, probe);
+            chunks.add(new long[] { start, end });
+            start = end;
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Finds the start of the line following a given position
+     */
+    private static long nextLine(FileChannel channel, long position, long size, ByteBuffer probe) throws IOException {
+        while(position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if(read <= 0) return size;
+
+            for(int i = 0 ; i < read ; i++) { if(probe.get(i) == '\n') return position + i + 1; }
+
+            position += read;
+        }
+
+        return size;
+    }
+
+    /**
+     * Parses a chunk of the file
+     */
+    private Chunk parse(FileChannel channel, long start, long end) {
+        try { return new Chunk(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), column); }
+        catch(IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Inner types /////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Builds a link from its parsed columns
+     * @param <L> is the type of Link built
+     */
+    @FunctionalInterface
+    public interface LinkFactory<L extends Link> {
+        /**
+         * Builds a link
+         * @param x is the starting node
+         * @param y is the ending node
+         * @param weight is the weight read after the nodes, 1.0 by default
+         * @param relation is the relation name read between the nodes, null by default
+         * @return the link
+         */
+        L create(Node<?> x, Node<?> y, double weight, String relation);
+    }
+
+    /**
+     * Which extra column is read
+     */
+    private enum Column { NONE, WEIGHT, RELATION }
+
+    /**
+     * Inserts parsed chunks into the graph, in file order
+     */
+    private final class Merger {
+        private final Graph<T, L> graph;
+
+        /**
+         * Nodes already in the graph, by data
+         */
+        private final Map<T, Node<T>> byData;
+
+        /**
+         * Nodes already met, by token
+         */
+        private final Map<String, Node<T>> byToken;
+
+        /**
+         * Relation names already met, so that links share the same String
+         */
+        private final Map<String, String> relations;
+
+        Merger(Graph<T, L> graph) {
+            this.graph = graph;
+            byData = new HashMap<>();
+            byToken = new HashMap<>();
+            relations = new HashMap<>();
+
+            for(Node<T> node : graph.getNodes()) { byData.put(node.getData(), node); }
+        }
+
+        /**
+         * Inserts a chunk into the graph
+         * @return the number of links inserted
+         */
+        long merge(Chunk chunk) {
+            @SuppressWarnings("unchecked")
+            Node<T>[] nodes = (Node<T>[]) new Node<?>[chunk.nodeTokens.length];
+            String[] names = new String[chunk.relationTokens.length];
+            List<T> fresh = new ArrayList<>();
+            Map<Integer, T> pending = new HashMap<>();
+
+            // Step 1 : Resolving tokens, new data is inserted in a single batch
+            for(int i = 0 ; i < nodes.length ; i++) {
+                nodes[i] = byToken.get(chunk.nodeTokens[i]);
+                if(nodes[i] != null) continue;
+
+                T data = decoder.apply(chunk.nodeTokens[i]);
+                nodes[i] = byData.get(data);
+
+                if(nodes[i] != null) byToken.put(chunk.nodeTokens[i], nodes[i]);
+                else {
+                    if(!byData.containsKey(data)) {
+                        fresh.add(data);
+                        byData.put(data, null);
+                    }
+
+                    pending.put(i, data);
+                }
+            }
+
+            // byData already tells new data apart, so the nodes are appended without insertAll() rescanning the graph
+            if(!fresh.isEmpty()) {
+                List<Node<T>> created = new ArrayList<>(fresh.size());
+
+                for(T data : fresh) {
+                    Node<T> node = new Node<>(data);
+                    created.add(node);
+                    byData.put(data, node);
+                }
+
+                graph.getNodes().addAll(created);
+                GraphMetrics.mutation(created.size());
+            }
+
+            for(Map.Entry<Integer, T> entry : pending.entrySet()) {
+                int i = entry.getKey();
+                nodes[i] = byData.get(entry.getValue());
+                byToken.put(chunk.nodeTokens[i], nodes[i]);
+            }
+
+            for(int i = 0 ; i < names.length ; i++) { names[i] = relations.computeIfAbsent(chunk.relationTokens[i], Function.identity()); }
+
+            // Step 2 : Building the links
+            List<L> batch = new ArrayList<>(chunk.size);
+
+            for(int i = 0 ; i < chunk.size ; i++) {
+                double weight = (chunk.weights != null) ? chunk.weights[i] : 1.0;
+                String relation = (chunk.relations != null && chunk.relations[i] >= 0) ? names[chunk.relations[i]] : null;
+
+                batch.add(factory.create(nodes[chunk.xs[i]], nodes[chunk.ys[i]], weight, relation));
+            }
+
+            graph.linkAll(batch);
+            return chunk.size;
+        }
+    }
+
+    /**
+     * A parsed chunk of the file. Nodes and relations are given as indexes in the chunk's own token tables
+     */
+    private static final class Chunk {
+        private static final double[] POWERS = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+        private final ByteBuffer buffer;
+        private int position;
+
+        private final TokenTable nodeTable, relationTable;
+        private int[] xs, ys, relations;
+        private double[] weights;
+        private int size;
+
+        private final String[] nodeTokens, relationTokens;
+
+        Chunk(MappedByteBuffer buffer, Column column) {
+            this.buffer = buffer;
+            nodeTable = new TokenTable(buffer);
+            relationTable = new TokenTable(buffer);
+            xs = new int[1024];
+            ys = new int[1024];
+            if(column == Column.WEIGHT) weights = new double[1024];
+            if(column == Column.RELATION) relations = new int[1024];
+
+            while(position < buffer.limit()) { parseLine(); }
+
+            nodeTokens = nodeTable.strings();
+            relationTokens = relationTable.strings();
+        }
+
+        private void parseLine() {
+            skipBlanks();
+            if(atEndOfLine() || buffer.get(position) == '#' || buffer.get(position) == '%') {
+                skipLine();
+                return;
+            }
+
+            if(size == xs.length) grow();
+            xs[size] = nodeTable.intern(position, skipToken());
+
+            // Triples are written subject, relation, object
+            if(relations != null) {
+                nextToken();
+                relations[size] = relationTable.intern(position, skipToken());
+            }
+
+            nextToken();
+            ys[size] = nodeTable.intern(position, skipToken());
+            skipBlanks();
+
+            if(weights != null) weights[size] = atEndOfLine() ? 1.0 : parseDouble(position, skipToken());
+
+            size++;
+            skipLine();
+        }
+
+        private void nextToken() {
+            skipBlanks();
+            if(atEndOfLine()) throw new IllegalArgumentException("Edge list line with missing tokens before byte " + position + ".");
+        }
+
+        private boolean atEndOfLine() { return position >= buffer.limit() || buffer.get(position) == '\n' || buffer.get(position) == '\r'; }
+
+        private void skipBlanks() {
+            while(position < buffer.limit() && (buffer.get(position) == ' ' || buffer.get(position) == '\t')) position++;
+        }
+
+        /**
+         * Moves past a token
+         * @return the end of the token
+         */
+        private int skipToken() {
+            while(position < buffer.limit()) {
+                byte b = buffer.get(position);
+                if(b == ' ' || b == '\t' || b == '\n' || b == '\r') break;
+                position++;
+            }
+
+            return position;
+        }
+
+        private void skipLine() {
+            while(position < buffer.limit() && buffer.get(position) != '\n') position++;
+            position++;
+        }
+
+        private void grow() {
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+            if(weights != null) weights = Arrays.copyOf(weights, size * 2);
+            if(relations != null) relations = Arrays.copyOf(relations, size * 2);
+        }
+
+        /**
+         * Parses a decimal number without building a String. Numbers with more than 15 significant digits
+         * or large exponents fall back to Double.parseDouble, which keeps the result correctly rounded
+         */
+        private double parseDouble(int start, int end) {
+            int i = start;
+            boolean negative = false;
+            long mantissa = 0;
+            int digits = 0, exponent = 0;
+
+            if(i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) negative = buffer.get(i++) == '-';
+
+            for( ; i < end && Character.isDigit(buffer.get(i)) ; i++) {
+                mantissa = mantissa * 10 + (buffer.get(i) - '0');
+                if(mantissa != 0) digits++;
+            }
+
+            if(i < end && buffer.get(i) == '.') {
+                for(i++ ; i < end && Character.isDigit(buffer.get(i)) ; i++) {
+                    mantissa = mantissa * 10 + (buffer.get(i) - '0');
+                    if(mantissa != 0) digits++;
+                    exponent--;
+                }
+            }
+
+            if(i < end && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+                boolean negativeExponent = false;
+                int value = 0;
+
+                if(++i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) negativeExponent = buffer.get(i++) == '-';
+                for( ; i < end && Character.isDigit(buffer.get(i)) && value < 10000 ; i++) { value = value * 10 + (buffer.get(i) - '0'); }
+
+                exponent += negativeExponent ? -value : value;
+            }
+
+            if(i != end || digits > 15 || Math.abs(exponent) >= POWERS.length) {
+                byte[] bytes = new byte[end - start];
+                buffer.get(start, bytes);
+                return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+            }
+
+            double value = (exponent < 0) ? mantissa / POWERS[-exponent] : mantissa * POWERS[exponent];
+            return negative ? -value : value;
+        }
+    }
+
+    /**
+     * Open-addressing table mapping byte ranges of a buffer to dense ids, without copying them.
+     * Each slot packs the token's hash with its id, so mismatching tokens are rejected without reading the buffer
+     */
+    private static final class TokenTable {
+        private final ByteBuffer buffer;
+        private long[] slots;
+        private int[] starts, ends;
+        private int size;
+
+        TokenTable(ByteBuffer buffer) {
+            this.buffer = buffer;
+            slots = new long[1024];
+            starts = new int[512];
+            ends = new int[512];
+        }
+
+        /**
+         * Finds the id of a token, adding it if needed
+         * @param start is where the token starts in the buffer
+         * @param end is where the token ends in the buffer
+         * @return the token's id
+         */
+        int intern(int start, int end) {
+            int hash = hash(start, end);
+            int mask = slots.length - 1;
+
+            for(int slot = hash & mask ; ; slot = (slot + 1) & mask) {
+                long entry = slots[slot];
+
+                if(entry == 0) {
+                    if(size == starts.length) {
+                        starts = Arrays.copyOf(starts, size * 2);
+                        ends = Arrays.copyOf(ends, size * 2);
+                    }
+
+                    starts[size] = start;
+                    ends[size] = end;
+                    slots[slot] = ((long) hash << 32) | ++size;
+                    if(size * 2 > slots.length) rehash();
+                    return size - 1;
+                }
+
+                int id = (int) entry - 1;
+                if((int) (entry >>> 32) == hash && equal(id, start, end)) return id;
+            }
+        }
+
+        /**
+         * Builds the String of every token, in id order
+         */
+        String[] strings() {
+            String[] strings = new String[size];
+
+            for(int id = 0 ; id < size ; id++) {
+                byte[] bytes = new byte[ends[id] - starts[id]];
+                buffer.get(starts[id], bytes);
+                strings[id] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            return strings;
+        }
+
+        private boolean equal(int id, int start, int end) {
+            if(ends[id] - starts[id] != end - start) return false;
+
+            for(int i = starts[id], j = start ; j < end ; i++, j++) { if(buffer.get(i) != buffer.get(j)) return false; }
+
+            return true;
+        }
+
+        private void rehash() {
+            long[] old = slots;
+            slots = new long[old.length * 2];
+            int mask = slots.length - 1;
+
+            for(long entry : old) {
+                if(entry == 0) continue;
+
+                int slot = (int) (entry >>> 32) & mask;
+                while(slots[slot] != 0) slot = (slot + 1) & mask;
+                slots[slot] = entry;
+            }
+        }
+
+        private int hash(int start, int end) {
+            int hash = 0;
+            for(int i = start ; i < end ; i++) { hash = 31 * hash + buffer.get(i); }
+            return mix(hash);
+        }
+
+        /**
+         * Murmur3 finalizer, spreads the polynomial hash over the low bits used as slot
+         */
+        private static int mix(int hash) {
+            hash ^= hash >>> 16;
+            hash *= 0x85ebca6b;
+            hash ^= hash >>> 13;
+            hash *= 0xc2b2ae35;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package graph.standard.walk;
+
+import graph.standard.Graph;
+import graph.standard.adjacency.Adjacency;
+import graph.standard.adjacency.OffHeapAdjacency;
+import graph.standard.Seeds;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Draws random walks over an adjacency, for instance to train node embeddings (DeepWalk, node2vec).
+ * Successors are drawn in constant time from alias tables built once from the weights of the links.
+ * With node2vec's return parameter p and in-out parameter q, a walk coming from t to v goes on to x with a weight
+ * multiplied by 1/p if x is t, 1 if x is a successor of t and 1/q otherwise. Instead of a table per link, x is drawn
+ * from v's table and kept with a probability proportional to that factor (rejection sampling), which is constant time
+ * on average and needs no more memory.
+ * Every node starts walksPerNode walks. Walks are drawn by independent blocks, each with its own random generator
+ * seeded from the walker's seed and the block's index, so the same seed always gives the same walks in the same
+ * order, however many threads run. Blocks are drawn in parallel waves and handed over in order
+ * @author CreeperStone72
+ */
+public class RandomWalker {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Number of walks a single block draws
+     */
+    private static final int BLOCK_WALKS = 1 << 12;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final int order;
+
+    /**
+     * order + 1 ints, the successors of node i are stored between first[i] and first[i + 1], sorted
+     */
+    private final int[] first, targets;
+
+    /**
+     * Alias table of every node over its successors, null if the adjacency isn't weighted : a successor's slot is
+     * kept with the probability held by the upper half of its entry, otherwise the slot in the lower half is taken.
+     * Both halves share an entry so a step reads a single cache line of the table
+     */
+    private final long[] aliases;
+
+    /**
+     * Number of nodes in a walk, the start included
+     */
+    private int length;
+
+    private int walksPerNode;
+
+    private double p, q;
+
+    private long seed;
+
+    private int parallelism;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor, copies the adjacency and builds the alias tables
+     * @param adjacency is the adjacency walked through, which can be closed afterwards
+     * @throws IllegalArgumentException if a weight is negative
+     */
+    public RandomWalker(Adjacency adjacency) {
+        this.order = adjacency.order();
+        int size = Math.toIntExact(adjacency.size());
+
+        this.first = new int[order + 1];
+        this.targets = new int[size];
+        this.aliases = adjacency.isWeighted() ? new long[size] : null;
+
+        long[] keys = new long[16];
+        double[] weights = new double[16];
+        int[] small = new int[16], large = new int[16];
+
+        for(int x = 0, k = 0 ; x < order ; x++) {
+            long begin = adjacency.begin(x);
+            int degree = (int) (adjacency.end(x) - begin);
+
+            // Step 1 : Sorting the successors, so node2vec can look one up
+            if(keys.length < degree) {
+                keys = new long[Math.max(degree, 2 * keys.length)];
+                weights = new double[keys.length];
+                small = new int[keys.length];
+                large = new int[keys.length];
+            }
+
+            for(int i = 0 ; i < degree ; i++) { keys[i] = ((long) adjacency.target(begin + i) << 32) | i; }
+            Arrays.sort(keys, 0, degree);
+
+            for(int i = 0 ; i < degree ; i++) {
+                targets[k + i] = (int) (keys[i] >>> 32);
+                if(aliases != null) weights[i] = adjacency.weight(begin + (int) keys[i]);
+            }
+
+            // Step 2 : Building the alias table
+            if(aliases != null) alias(weights, degree, k, small, large);
+
+            k += degree;
+            first[x + 1] = k;
+        }
+
+        setLength(80);
+        setWalksPerNode(10);
+        setP(1.0);
+        setQ(1.0);
+        setSeed(0);
+        setParallelism(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Builds a walker over the links of a graph, node i being the i-th element of graph.getNodes()
+     * @param graph is the graph walked through
+     * @return the walker
+     */
+    public static RandomWalker of(Graph<?, ?> graph) {
+        try(OffHeapAdjacency adjacency = OffHeapAdjacency.of(graph)) { return new RandomWalker(adjacency); }
+    }
+
+    /**
+     * Builds the alias table of a node with Vose's method : slots are filled to the average weight, a slot below it
+     * being topped up by one above it, which becomes its alias
+     */
+    private void alias(double[] weights, int degree, int offset, int[] small, int[] large) {
+        if(degree == 0) return;
+
+        double total = 0.0;
+        for(int i = 0 ; i < degree ; i++) {
+            if(!(weights[i] >= 0.0)) throw new IllegalArgumentException("Weights must be positive.");
+            total += weights[i];
+        }
+
+        // Only null weights : every successor is as likely
+        if(total == 0.0) {
+            for(int i = 0 ; i < degree ; i++) { aliases[offset + i] = entry(1.0, i); }
+            return;
+        }
+
+        int smalls = 0, larges = 0;
+
+        for(int i = 0 ; i < degree ; i++) {
+            weights[i] = weights[i] * degree / total;
+            if(weights[i] < 1.0) small[smalls++] = i;
+            else large[larges++] = i;
+        }
+
+        while(smalls > 0 && larges > 0) {
+            int s = small[--smalls], l = large[--larges];
+
+            aliases[offset + s] = entry(weights[s], l);
+            weights[l] -= 1.0 - weights[s];
+
+            if(weights[l] < 1.0) small[smalls++] = l;
+            else large[larges++] = l;
+        }
+
+        // What is left is full, up to rounding
+        while(larges > 0) { int l = large[--larges]; aliases[offset + l] = entry(1.0, l); }
+        while(smalls > 0) { int s = small[--smalls]; aliases[offset + s] = entry(1.0, s); }
+    }
+
+    private static long entry(double chance, int alias) { return ((long) Float.floatToRawIntBits((float) chance) << 32) | alias; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public RandomWalker setLength(int length) {
+        if(length <= 0) throw new IllegalArgumentException("The length must be positive.");
+        this.length = length;
+        return this;
+    }
+
+    public RandomWalker setWalksPerNode(int walksPerNode) {
+        if(walksPerNode <= 0) throw new IllegalArgumentException("The number of walks per node must be positive.");
+        this.walksPerNode = walksPerNode;
+        return this;
+    }
+
+    /**
+     * Sets node2vec's return parameter : the higher, the less walks go straight back
+     */
+    public RandomWalker setP(double p) {
+        if(!(p > 0.0)) throw new IllegalArgumentException("p must be positive.");
+        this.p = p;
+        return this;
+    }
+
+    /**
+     * Sets node2vec's in-out parameter : above 1 walks stay close to where they come from (breadth-first), below 1
+     * they move away (depth-first)
+     */
+    public RandomWalker setQ(double q) {
+        if(!(q > 0.0)) throw new IllegalArgumentException("q must be positive.");
+        this.q = q;
+        return this;
+    }
+
+    public RandomWalker setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public RandomWalker setParallelism(int parallelism) {
+        if(parallelism <= 0) throw new IllegalArgumentException("Parallelism must be positive.");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public int order() { return order; }
+
+    public int getLength() { return length; }
+
+    public int getWalksPerNode() { return walksPerNode; }
+
+    public double getP() { return p; }
+
+    public double getQ() { return q; }
+
+    public long getSeed() { return seed; }
+
+    public int getParallelism() { return parallelism; }
+
+    /**
+     * Counts the walks drawn by forEach() and writeTo()
+     */
+    public long walks() { return (long) order * walksPerNode; }
+
+    /**
+     * Checks whether walks are second-order, which is when p or q isn't 1
+     */
+    public boolean isBiased() { return p != 1.0 || q != 1.0; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Draws a single walk
+     * @param start is the index of the node it starts from
+     * @param random is the random generator drawing the steps
+     * @return the nodes of the walk, fewer than getLength() if it reached a node without successors
+     */
+    public int[] walk(int start, SplittableRandom random) {
+        int[] walk = new int[length];
+        return Arrays.copyOf(walk, walk(Objects.checkIndex(start, order), random, walk, 0));
+    }
+
+    /**
+     * Draws a walk into a buffer
+     * @return the number of nodes of the walk
+     */
+    private int walk(int start, SplittableRandom random, int[] buffer, int offset) {
+        buffer[offset] = start;
+        int previous = -1, current = start, steps = 1;
+        boolean biased = isBiased();
+        double returning = 1.0 / p, away = 1.0 / q, bound = Math.max(1.0, Math.max(returning, away));
+
+        while(steps < length) {
+            int next;
+
+            if(!biased || previous == -1) {
+                next = step(current, random);
+            } else {
+                // Drawing first-order successors until one passes the node2vec factor
+                do {
+                    next = step(current, random);
+                    if(next == -1) break;
+
+                    double factor = (next == previous) ? returning : (isSuccessor(previous, next) ? 1.0 : away);
+                    if(random.nextDouble() * bound < factor) break;
+                } while(true);
+            }
+
+            if(next == -1) break;
+
+            buffer[offset + steps++] = next;
+            previous = current;
+            current = next;
+        }
+
+        return steps;
+    }
+
+    /**
+     * Draws a successor of a node, from its alias table if the links are weighted
+     * @return the successor, -1 if there is none
+     */
+    private int step(int x, SplittableRandom random) {
+        int begin = first[x], degree = first[x + 1] - begin;
+        if(degree == 0) return -1;
+
+        int slot = random.nextInt(degree);
+
+        if(aliases != null) {
+            long entry = aliases[begin + slot];
+            // SplittableRandom only draws floats from JDK 17, so the stored chance is widened instead
+            if(random.nextDouble() >= Float.intBitsToFloat((int) (entry >>> 32))) slot = (int) entry;
+        }
+
+        return targets[begin + slot];
+    }
+
+    /**
+     * Checks whether y is a successor of x, with a binary search through x's sorted successors
+     */
+    private boolean isSuccessor(int x, int y) { return Arrays.binarySearch(targets, first[x], first[x + 1], y) >= 0; }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Output methods //////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Draws every walk, node by node and round by round : walk i starts from node i % order()
+     * @param sink receives the walks, in order, on the calling thread
+     */
+    public void forEach(WalkSink sink) {
+        run(this::batch, batch -> {
+            for(int i = 0 ; i < batch.count ; i++) { sink.accept(batch.nodes, i * length, batch.lengths[i]); }
+        });
+    }
+
+    /**
+     * Writes the walks as a text corpus, replacing the file if it exists.
+     * Each line holds the node indexes of a walk, separated by spaces
+     * @param file is the corpus
+     * @return the number of walks written
+     * @throws IOException if the file can't be written
+     */
+    public long writeTo(Path file) throws IOException {
+        long[] written = new long[1];
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            IOException[] failure = new IOException[1];
+
+            run(block -> new Text(batch(block)), text -> {
+                ByteBuffer buffer = ByteBuffer.wrap(text.bytes, 0, text.size);
+                written[0] += text.count;
+
+                try { while(buffer.hasRemaining() && failure[0] == null) channel.write(buffer); }
+                catch(IOException e) { failure[0] = e; }
+            });
+
+            if(failure[0] != null) throw failure[0];
+        }
+
+        return written[0];
+    }
+
+    private int blocks() { return Math.toIntExact((walks() + BLOCK_WALKS - 1) / BLOCK_WALKS); }
+
+    private SplittableRandom random(int block) { return Seeds.random(seed, block); }
+
+    private Batch batch(int block) {
+        long from = (long) block * BLOCK_WALKS;
+        int count = (int) Math.min(BLOCK_WALKS, walks() - from);
+        Batch batch = new Batch(count, length);
+        SplittableRandom random = random(block);
+
+        for(int i = 0 ; i < count ; i++) { batch.lengths[i] = walk((int) ((from + i) % order), random, batch.nodes, i * length); }
+        return batch;
+    }
+
+    /**
+     * Draws the blocks by waves of parallelism blocks, and hands each wave over in block order
+     * @param produce draws a block on a worker thread
+     * @param consume receives each block on the calling thread
+     * @param <C> is the type of a drawn block
+     */
+    private <C> void run(IntFunction<C> produce, Consumer<C> consume) {
+        int blocks = blocks();
+
+        for(int wave = 0 ; wave < blocks ; wave += parallelism) {
+            List<C> drawn = IntStream.range(wave, Math.min(blocks, wave + parallelism)).parallel()
+                    .mapToObj(produce)
+                    .collect(Collectors.toList());
+
+            drawn.forEach(consume);
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Inner types /////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * The walks of a block, every one of them given length slots in a single array
+     */
+    private static final class Batch {
+        private final int[] nodes, lengths;
+        private final int count;
+
+        Batch(int count, int length) {
+            this.nodes = new int[count * length];
+            this.lengths = new int[count];
+            this.count = count;
+        }
+    }
+
+    /**
+     * The walks of a block, as corpus lines
+     */
+    private final class Text {
+        private byte[] bytes;
+        private int size;
+        private final long count;
+
+        Text(Batch batch) {
+            bytes = new byte[1 << 16];
+            count = batch.count;
+
+            for(int i = 0 ; i < batch.count ; i++) {
+                for(int j = 0 ; j < batch.lengths[i] ; j++) {
+                    ensure(12);
+                    if(j > 0) bytes[size++] = ' ';
+                    writeInt(batch.nodes[i * length + j]);
+                }
+
+                ensure(1);
+                bytes[size++] = '\n';
+            }
+        }
+
+        /**
+         * Writes a node index, which is never negative
+         */
+        private void writeInt(int value) {
+            int start = size;
+
+            do {
+                bytes[size++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while(value != 0);
+
+            for(int i = start, j = size - 1 ; i < j ; i++, j--) {
+                byte b = bytes[i];
+                bytes[i] = bytes[j];
+                bytes[j] = b;
+            }
+        }
+
+        private void ensure(int extra) { if(size + extra > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra)); }
+    }
+}
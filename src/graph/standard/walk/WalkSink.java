@@ -0,0 +1,16 @@
+package graph.standard.walk;
+
+/**
+ * Receives the walks drawn by a RandomWalker, one at a time
+ * @author CreeperStone72
+ */
+@FunctionalInterface
+public interface WalkSink {
+    /**
+     * Receives a walk. The buffer is reused once the call returns, so the nodes must be copied to be kept
+     * @param nodes is the buffer holding the walk
+     * @param offset is where the walk starts in the buffer
+     * @param length is the number of nodes of the walk, shorter than asked if it reached a node without successors
+     */
+    void accept(int[] nodes, int offset, int length);
+}
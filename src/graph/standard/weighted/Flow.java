@@ -0,0 +1,119 @@
+package graph.standard.weighted;
+
+import graph.exception.NodeNotFoundException;
+import graph.standard.Node;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maximum flow through a weighted graph whose weights are capacities, with the minimum cut it saturates.
+ * The cut splits the nodes between those the source can still send flow to and the others
+ * @param <T> is the type of data carried by the nodes
+ * @author CreeperStone72
+ */
+public class Flow<T> {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final ResidualNetwork<T> network;
+
+    private final double value;
+
+    /**
+     * Flow along every link, by position in the graph's links
+     */
+    private final double[] flows;
+
+    /**
+     * Side of the cut of every node, by id
+     */
+    private final boolean[] sourceSide;
+
+    /**
+     * Flow along every link, built on first use
+     */
+    private Map<WeightedLink, Double> byLink;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    Flow(ResidualNetwork<T> network, double value, double[] flows, boolean[] sourceSide) {
+        this.network = network;
+        this.value = value;
+        this.flows = flows;
+        this.sourceSide = sourceSide;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Gives the value of the flow, which is also the capacity of the minimum cut
+     */
+    public double getValue() { return value; }
+
+    /**
+     * Gives the flow along every link. In a non-directed graph, a negative flow goes from the link's second node
+     * to its first
+     * @return the flow of every link of the graph, as it was when the flow was computed
+     */
+    public Map<WeightedLink, Double> getFlows() {
+        if(byLink == null) {
+            List<WeightedLink> links = network.links;
+            byLink = new IdentityHashMap<>(links.size());
+            for(int e = 0 ; e < flows.length ; e++) { byLink.put(links.get(e), flows[e]); }
+        }
+
+        return byLink;
+    }
+
+    /**
+     * Gives the flow along a link
+     * @param link is a link of the graph
+     * @return the flow, 0 for links the flow didn't know about
+     */
+    public double getFlow(WeightedLink link) { return getFlows().getOrDefault(link, 0.0); }
+
+    /**
+     * Tells on which side of the minimum cut a node is
+     * @param data is the data carried by the node
+     * @return true if the source can still send flow to the node
+     * @throws NodeNotFoundException if the node wasn't in the graph
+     */
+    public boolean isSourceSide(T data) throws NodeNotFoundException {
+        Integer id = network.ids.get(data);
+        if(id == null) throw new NodeNotFoundException();
+        return sourceSide[id];
+    }
+
+    public List<Node<T>> getSourceSide() { return side(true); }
+
+    public List<Node<T>> getSinkSide() { return side(false); }
+
+    /**
+     * Gives the links of the minimum cut : those going from the source side to the sink side, in either direction
+     * if the graph isn't directed. They are saturated, and their capacities add up to the value of the flow
+     * @return the links of the cut
+     */
+    @SuppressWarnings("unchecked")
+    public List<WeightedLink> getCut() {
+        List<WeightedLink> cut = new ArrayList<>();
+        boolean directed = network.graph.isDirected();
+
+        for(WeightedLink link : network.links) {
+            boolean x = sourceSide[network.ids.get((T) link.getX().getData())], y = sourceSide[network.ids.get((T) link.getY().getData())];
+            if((x && !y) || (!directed && y && !x)) cut.add(link);
+        }
+
+        return cut;
+    }
+
+    private List<Node<T>> side(boolean source) {
+        List<Node<T>> side = new ArrayList<>();
+        for(int x = 0 ; x < network.order ; x++) { if(sourceSide[x] == source) side.add(network.nodes.get(x)); }
+        return side;
+    }
+}
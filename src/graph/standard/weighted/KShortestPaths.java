@@ -0,0 +1,581 @@
+package graph.standard.weighted;
+
+import graph.exception.NodeNotFoundException;
+import graph.metrics.AlgorithmEvent;
+import graph.standard.Node;
+import graph.standard.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Elementary paths between two nodes, from the cheapest up, found one at a time with Yen's algorithm.
+ * Every path drawn is the seed of its followers : each of its nodes from where it left its parent is tried as a
+ * spur, the part before it kept and the links already taken from it by the same prefix removed, and the cheapest
+ * way from the spur to the target that avoids the prefix becomes a candidate.
+ * Spur searches are A* searches guided by the shortest path tree towards the target, which is only grown as far as
+ * they need it. A search stops as soon as it reaches a node whose tree path avoids the prefix, so most of them only
+ * follow the tree. Parallel links count as one, the cheapest. The graph shouldn't change while paths are drawn, and
+ * like dijkstra(), weights can't be negative
+ * @param <T> is the type of data carried by the nodes
+ * @author CreeperStone72
+ */
+public class KShortestPaths<T> implements Iterator<Path<T>> {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final WeightedGraph<T> graph;
+
+    /**
+     * Nodes by id, nodes carrying the same data sharing the first one's id
+     */
+    private final List<Node<T>> nodes;
+
+    private final int order, source, target;
+
+    /**
+     * Links leaving and reaching every node, the ones of node i stored between first[i] and first[i + 1]
+     */
+    private final int[] outFirst, outHeads, inFirst, inTails;
+
+    private final double[] outWeights, inWeights;
+
+    //// Tree towards the target /////////////////////////////////////////
+    /**
+     * Cost from every node to the target, exact once the node is settled
+     */
+    private final double[] remaining;
+
+    /**
+     * Next node towards the target on the tree, by id
+     */
+    private final int[] next;
+
+    private final boolean[] settled;
+
+    private final Heap treeHeap;
+
+    //// Spur searches ///////////////////////////////////////////////////
+    /**
+     * Cost from the spur node, valid for nodes reached by the current search
+     */
+    private final double[] reached;
+
+    private final int[] parents, reachStamps, closedStamps, forbiddenStamps;
+
+    /**
+     * Whether the tree path of a node avoids the prefix, valid for nodes checked by the current search
+     */
+    private final boolean[] clean;
+
+    private final int[] cleanStamps;
+
+    /**
+     * Position of every node in the path the spurs come from
+     */
+    private final int[] positions, positionStamps;
+
+    private final Heap searchHeap;
+
+    private int stamp, pathStamp;
+
+    //// Paths ///////////////////////////////////////////////////////////
+    private final List<Candidate> accepted;
+
+    private final PriorityQueue<Candidate> candidates;
+
+    private final Set<Candidate> known;
+
+    /**
+     * Next path to give, null until it is looked for
+     */
+    private Candidate upcoming;
+
+    private boolean exhausted;
+
+    private double cost;
+
+    private long nodesSettled, linksRelaxed;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor. Indexes the graph, no path is looked for yet
+     * @param graph is the graph the paths go through
+     * @param source is the data carried by the first node of the paths
+     * @param target is the data carried by the last node of the paths
+     * @throws NodeNotFoundException if the source or the target isn't in the graph
+     * @throws IllegalArgumentException if a weight is negative
+     */
+    @SuppressWarnings("unchecked")
+    public KShortestPaths(WeightedGraph<T> graph, T source, T target) throws NodeNotFoundException {
+        this.graph = graph;
+        this.nodes = new ArrayList<>();
+        Map<T, Integer> ids = new HashMap<>();
+
+        for(Node<T> node : graph.getNodes()) { if(ids.putIfAbsent(node.getData(), nodes.size()) == null) nodes.add(node); }
+
+        Integer s = ids.get(source), t = ids.get(target);
+        if(s == null || t == null) throw new NodeNotFoundException();
+
+        this.order = nodes.size();
+        this.source = s;
+        this.target = t;
+
+        // Step 1 : Counting the links leaving and reaching every node, both ways if the graph isn't directed
+        List<WeightedLink> links = graph.getLinks();
+        boolean directed = graph.isDirected();
+        int[] xs = new int[links.size()], ys = new int[links.size()];
+        int[] outDegrees = new int[order + 1], inDegrees = new int[order + 1];
+        int arcs = 0;
+
+        for(int e = 0 ; e < links.size() ; e++) {
+            WeightedLink link = links.get(e);
+            if(!(link.getWeight() >= 0.0)) throw new IllegalArgumentException("Weights must be positive.");
+
+            xs[e] = ids.get((T) link.getX().getData());
+            ys[e] = ids.get((T) link.getY().getData());
+            if(xs[e] == ys[e]) continue;
+
+            outDegrees[xs[e] + 1]++;
+            inDegrees[ys[e] + 1]++;
+            arcs++;
+
+            if(!directed) {
+                outDegrees[ys[e] + 1]++;
+                inDegrees[xs[e] + 1]++;
+                arcs++;
+            }
+        }
+
+        for(int x = 0 ; x < order ; x++) {
+            outDegrees[x + 1] += outDegrees[x];
+            inDegrees[x + 1] += inDegrees[x];
+        }
+
+        // Step 2 : Placing them
+        this.outFirst = outDegrees.clone();
+        this.inFirst = inDegrees.clone();
+        this.outHeads = new int[arcs];
+        this.inTails = new int[arcs];
+        this.outWeights = new double[arcs];
+        this.inWeights = new double[arcs];
+
+        for(int e = 0 ; e < links.size() ; e++) {
+            if(xs[e] == ys[e]) continue;
+
+            double weight = links.get(e).getWeight();
+            place(outDegrees, inDegrees, xs[e], ys[e], weight);
+            if(!directed) place(outDegrees, inDegrees, ys[e], xs[e], weight);
+        }
+
+        // Step 3 : Planting the tree towards the target
+        this.remaining = new double[order];
+        this.next = new int[order];
+        this.settled = new boolean[order];
+        this.treeHeap = new Heap();
+
+        Arrays.fill(remaining, Double.POSITIVE_INFINITY);
+        Arrays.fill(next, -1);
+        remaining[this.target] = 0.0;
+        treeHeap.push(this.target, 0.0);
+
+        this.reached = new double[order];
+        this.parents = new int[order];
+        this.reachStamps = new int[order];
+        this.closedStamps = new int[order];
+        this.forbiddenStamps = new int[order];
+        this.clean = new boolean[order];
+        this.cleanStamps = new int[order];
+        this.positions = new int[order];
+        this.positionStamps = new int[order];
+        this.searchHeap = new Heap();
+
+        this.accepted = new ArrayList<>();
+        this.candidates = new PriorityQueue<>();
+        this.known = new HashSet<>();
+    }
+
+    private void place(int[] outDegrees, int[] inDegrees, int x, int y, double weight) {
+        int a = outDegrees[x]++, b = inDegrees[y]++;
+
+        outHeads[a] = y;
+        outWeights[a] = weight;
+        inTails[b] = x;
+        inWeights[b] = weight;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Gives the cost of the last path drawn
+     */
+    public double getCost() { return cost; }
+
+    /**
+     * Counts the paths drawn so far
+     */
+    public int getDrawn() { return accepted.size(); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Override
+    public boolean hasNext() {
+        if(upcoming == null && !exhausted) advance();
+        return upcoming != null;
+    }
+
+    /**
+     * Draws the next path
+     * @return the cheapest elementary path not drawn yet
+     * @throws NoSuchElementException if every elementary path was drawn
+     */
+    @Override
+    public Path<T> next() {
+        if(!hasNext()) throw new NoSuchElementException();
+
+        Candidate path = upcoming;
+        upcoming = null;
+        accepted.add(path);
+        cost = path.costs[path.nodes.length - 1];
+
+        Path<T> result = new Path<>();
+        for(int x : path.nodes) { result.insert(nodes.get(x)); }
+        return result;
+    }
+
+    /**
+     * Draws the paths lazily, in order of cost
+     * @return the paths
+     */
+    public Stream<Path<T>> stream() { return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false); }
+
+    /**
+     * Finds the next path, from the spurs of the last one drawn
+     */
+    private void advance() {
+        AlgorithmEvent event = new AlgorithmEvent("yen", graph.order(), graph.size());
+        nodesSettled = linksRelaxed = 0;
+
+        if(accepted.isEmpty()) {
+            if(source == target) offer(new Candidate(new int[] { source }, new double[] { 0.0 }, 0));
+            else {
+                pathStamp++;
+                positions[source] = 0;
+                positionStamps[source] = pathStamp;
+                spur(null, 0, 0);
+            }
+        } else {
+            spurs(accepted.get(accepted.size() - 1));
+        }
+
+        upcoming = candidates.poll();
+        if(upcoming == null) exhausted = true;
+
+        event.finish(nodesSettled, linksRelaxed);
+    }
+
+    /**
+     * Tries every node of a path as a spur, from where it left the path it came from
+     */
+    private void spurs(Candidate path) {
+        int length = path.nodes.length;
+
+        // Step 1 : Measuring how long every path drawn shares the same prefix
+        int[] common = new int[accepted.size()];
+
+        for(int k = 0 ; k < accepted.size() ; k++) {
+            int[] other = accepted.get(k).nodes;
+            int shared = 0;
+
+            while(shared < Math.min(length, other.length) && other[shared] == path.nodes[shared]) shared++;
+            common[k] = shared;
+        }
+
+        pathStamp++;
+        for(int i = 0 ; i < length ; i++) {
+            positions[path.nodes[i]] = i;
+            positionStamps[path.nodes[i]] = pathStamp;
+        }
+
+        // Step 2 : Spurring from every node, without the links the paths with the same prefix took from it
+        for(int i = path.deviation ; i < length - 1 ; i++) {
+            stamp++;
+
+            for(int k = 0 ; k < accepted.size() ; k++) {
+                int[] other = accepted.get(k).nodes;
+                if(common[k] > i && other.length > i + 1) forbiddenStamps[other[i + 1]] = stamp;
+            }
+
+            spur(path, i, i);
+        }
+    }
+
+    /**
+     * Looks for the cheapest way from a spur node to the target, avoiding the nodes before it and the forbidden
+     * ones right after it, and offers the path it makes as a candidate
+     * @param path is the path the spur comes from, null for the first path
+     * @param spur is the position of the spur node in the path
+     * @param blocked is the position of the last node that can't be used
+     */
+    private void spur(Candidate path, int spur, int blocked) {
+        if(path == null) stamp++;
+
+        int u = (path == null) ? source : path.nodes[spur];
+        if(distance(u) == Double.POSITIVE_INFINITY) return;
+
+        searchHeap.clear();
+        reached[u] = 0.0;
+        parents[u] = -1;
+        reachStamps[u] = stamp;
+        searchHeap.push(u, distance(u));
+
+        while(!searchHeap.isEmpty()) {
+            int x = searchHeap.peekNode();
+            searchHeap.pop();
+
+            if(closedStamps[x] == stamp) continue;
+            closedStamps[x] = stamp;
+            nodesSettled++;
+
+            // The rest of the way is the tree path, cheapest of all
+            if(x != u && isClean(x, blocked)) {
+                offer(build(path, spur, u, x));
+                return;
+            }
+
+            for(int a = outFirst[x] ; a < outFirst[x + 1] ; a++) {
+                int y = outHeads[a];
+                linksRelaxed++;
+
+                if(isBlocked(y, blocked) || closedStamps[y] == stamp) continue;
+                if(x == u && forbiddenStamps[y] == stamp) continue;
+
+                double h = distance(y);
+                if(h == Double.POSITIVE_INFINITY) continue;
+
+                double candidate = reached[x] + outWeights[a];
+
+                if(reachStamps[y] != stamp || candidate < reached[y]) {
+                    reached[y] = candidate;
+                    parents[y] = x;
+                    reachStamps[y] = stamp;
+                    searchHeap.push(y, candidate + h);
+                }
+            }
+        }
+    }
+
+    /**
+     * Joins the prefix, the searched part and the tree path into a candidate
+     */
+    private Candidate build(Candidate path, int spur, int u, int x) {
+        int searched = 0;
+        for(int y = x ; y != -1 ; y = parents[y]) { searched++; }
+
+        int tree = 0;
+        for(int y = x ; y != target ; y = next[y]) { tree++; }
+
+        int length = spur + searched + tree;
+        int[] ids = new int[length];
+        double[] costs = new double[length];
+        double base = (path == null) ? 0.0 : path.costs[spur];
+
+        if(path != null) {
+            System.arraycopy(path.nodes, 0, ids, 0, spur);
+            System.arraycopy(path.costs, 0, costs, 0, spur);
+        }
+
+        for(int y = x, i = spur + searched - 1 ; y != -1 ; y = parents[y], i--) {
+            ids[i] = y;
+            costs[i] = base + reached[y];
+        }
+
+        double total = base + reached[x] + remaining[x];
+        for(int y = next[x], i = spur + searched ; i < length ; y = next[y], i++) {
+            ids[i] = y;
+            costs[i] = total - remaining[y];
+        }
+
+        return new Candidate(ids, costs, spur);
+    }
+
+    private void offer(Candidate candidate) { if(known.add(candidate)) candidates.add(candidate); }
+
+    /**
+     * Checks whether a node is part of the prefix, spur node included
+     */
+    private boolean isBlocked(int x, int blocked) { return positionStamps[x] == pathStamp && positions[x] <= blocked; }
+
+    /**
+     * Checks whether the tree path of a node avoids the prefix, remembering the answer for every node on the way
+     */
+    private boolean isClean(int x, int blocked) {
+        int y = x;
+        boolean answer;
+
+        while(true) {
+            if(y == target) { answer = true; break; }
+            if(cleanStamps[y] == stamp) { answer = clean[y]; break; }
+            if(isBlocked(y, blocked)) { answer = false; break; }
+            y = next[y];
+        }
+
+        for(int z = x ; z != y ; z = next[z]) {
+            clean[z] = answer;
+            cleanStamps[z] = stamp;
+        }
+
+        return answer;
+    }
+
+    /**
+     * Gives the cost from a node to the target, growing the tree until the node is settled
+     * @return the cost, infinity if the target can't be reached
+     */
+    private double distance(int x) {
+        while(!settled[x] && !treeHeap.isEmpty()) {
+            int y = treeHeap.peekNode();
+            double key = treeHeap.peekKey();
+            treeHeap.pop();
+
+            if(settled[y] || key > remaining[y]) continue;
+            settled[y] = true;
+            nodesSettled++;
+
+            for(int b = inFirst[y] ; b < inFirst[y + 1] ; b++) {
+                int z = inTails[b];
+                double candidate = key + inWeights[b];
+                linksRelaxed++;
+
+                if(candidate < remaining[z]) {
+                    remaining[z] = candidate;
+                    next[z] = y;
+                    treeHeap.push(z, candidate);
+                }
+            }
+        }
+
+        return settled[x] ? remaining[x] : Double.POSITIVE_INFINITY;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Candidates //////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Path found by a spur search, ranked by cost then by number of nodes. Paths with the same nodes are equal
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        private final int[] nodes;
+
+        /**
+         * Cost of the path up to every node
+         */
+        private final double[] costs;
+
+        /**
+         * Position of the spur node it was found from
+         */
+        private final int deviation;
+
+        private final int hash;
+
+        private Candidate(int[] nodes, double[] costs, int deviation) {
+            this.nodes = nodes;
+            this.costs = costs;
+            this.deviation = deviation;
+            this.hash = Arrays.hashCode(nodes);
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int byCost = Double.compare(costs[costs.length - 1], other.costs[other.costs.length - 1]);
+            if(byCost != 0) return byCost;
+
+            int byLength = Integer.compare(nodes.length, other.nodes.length);
+            return (byLength != 0) ? byLength : Arrays.compare(nodes, other.nodes);
+        }
+
+        @Override
+        public boolean equals(Object other) { return other instanceof Candidate && Arrays.equals(nodes, ((Candidate) other).nodes); }
+
+        @Override
+        public int hashCode() { return hash; }
+    }
+
+    /**
+     * Binary min-heap of node ids by key. Nodes are pushed again when their key drops, and outdated entries are
+     * skipped by the searches
+     */
+    private static final class Heap {
+        private int[] nodes = new int[16];
+
+        private double[] keys = new double[16];
+
+        private int size;
+
+        private boolean isEmpty() { return size == 0; }
+
+        private int peekNode() { return nodes[0]; }
+
+        private double peekKey() { return keys[0]; }
+
+        private void clear() { size = 0; }
+
+        private void push(int node, double key) {
+            if(size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, 2 * size);
+                keys = Arrays.copyOf(keys, 2 * size);
+            }
+
+            int i = size++;
+
+            while(i > 0) {
+                int parent = (i - 1) >>> 1;
+                if(keys[parent] <= key) break;
+
+                nodes[i] = nodes[parent];
+                keys[i] = keys[parent];
+                i = parent;
+            }
+
+            nodes[i] = node;
+            keys[i] = key;
+        }
+
+        private void pop() {
+            int node = nodes[--size];
+            double key = keys[size];
+            int i = 0;
+
+            while(true) {
+                int child = 2 * i + 1;
+                if(child >= size) break;
+                if(child + 1 < size && keys[child + 1] < keys[child]) child++;
+                if(key <= keys[child]) break;
+
+                nodes[i] = nodes[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+
+            nodes[i] = node;
+            keys[i] = key;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package graph.standard.weighted;
+
+import graph.standard.Node;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Links of a weighted graph indexed by node, both ways, so the neighborhood of a node is found without scanning
+ * every link. Nodes get an int id the first time they're seen, ids of removed nodes being kept
+ * @param <T> is the type of data carried by the nodes
+ * @author CreeperStone72
+ */
+final class LinkIndex<T> {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final boolean directed;
+
+    private final Map<T, Integer> ids;
+
+    private final List<Node<T>> nodes;
+
+    /**
+     * Links leaving and reaching each node. In a non-directed graph, every link is in both lists of both its nodes
+     */
+    private final List<List<WeightedLink>> outgoing, incoming;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private LinkIndex(boolean directed) {
+        this.directed = directed;
+        this.ids = new HashMap<>();
+        this.nodes = new ArrayList<>();
+        this.outgoing = new ArrayList<>();
+        this.incoming = new ArrayList<>();
+    }
+
+    /**
+     * Indexes every node and link of a graph
+     * @param graph is the indexed graph
+     * @param <T> is the type of data carried by the nodes
+     * @return the index
+     */
+    static <T> LinkIndex<T> of(WeightedGraph<T> graph) {
+        LinkIndex<T> index = new LinkIndex<>(graph.isDirected());
+
+        for(Node<T> node : graph.getNodes()) { index.add(node); }
+        for(WeightedLink link : graph.getLinks()) { index.link(link); }
+
+        return index;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Counts the ids given so far
+     */
+    int order() { return nodes.size(); }
+
+    /**
+     * Finds the id of a node
+     * @return the id, -1 if the node was never seen
+     */
+    int id(T data) {
+        Integer id = ids.get(data);
+        return (id == null) ? -1 : id;
+    }
+
+    Node<T> node(int id) { return nodes.get(id); }
+
+    List<WeightedLink> outgoing(int id) { return outgoing.get(id); }
+
+    List<WeightedLink> incoming(int id) { return incoming.get(id); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Gives a node its id, unless it has one already
+     * @return the id of the node
+     */
+    @SuppressWarnings("unchecked")
+    int add(Node<?> node) {
+        T data = (T) node.getData();
+        Integer id = ids.get(data);
+        if(id != null) return id;
+
+        ids.put(data, nodes.size());
+        nodes.add((Node<T>) node);
+        outgoing.add(new ArrayList<>(2));
+        incoming.add(new ArrayList<>(2));
+        return nodes.size() - 1;
+    }
+
+    void link(WeightedLink link) {
+        int x = add(link.getX()), y = add(link.getY());
+
+        outgoing.get(x).add(link);
+        incoming.get(y).add(link);
+
+        if(!directed && x != y) {
+            outgoing.get(y).add(link);
+            incoming.get(x).add(link);
+        }
+    }
+
+    void unlink(WeightedLink link) {
+        int x = start(link), y = end(link);
+
+        outgoing.get(x).remove(link);
+        incoming.get(y).remove(link);
+
+        if(!directed && x != y) {
+            outgoing.get(y).remove(link);
+            incoming.get(x).remove(link);
+        }
+    }
+
+    /**
+     * Puts a link in place of another, between the same nodes
+     */
+    void replace(WeightedLink old, WeightedLink link) {
+        int x = start(old), y = end(old);
+
+        replace(outgoing.get(x), old, link);
+        replace(incoming.get(y), old, link);
+
+        if(!directed && x != y) {
+            replace(outgoing.get(y), old, link);
+            replace(incoming.get(x), old, link);
+        }
+    }
+
+    private static void replace(List<WeightedLink> links, WeightedLink old, WeightedLink link) { links.set(links.indexOf(old), link); }
+
+    int start(WeightedLink link) { return id(nodeData(link.getX())); }
+
+    int end(WeightedLink link) { return id(nodeData(link.getY())); }
+
+    /**
+     * Follows a link from one of its nodes
+     * @param link is the followed link
+     * @param from is the id of the node the link is followed from
+     * @return the id of the node at the other end
+     */
+    int other(WeightedLink link, int from) {
+        int x = start(link);
+        return (x == from) ? end(link) : x;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T nodeData(Node<?> node) { return (T) node.getData(); }
+}
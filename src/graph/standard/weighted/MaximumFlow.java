@@ -0,0 +1,401 @@
+package graph.standard.weighted;
+
+import graph.exception.NodeNotFoundException;
+import graph.metrics.AlgorithmEvent;
+
+import java.util.Arrays;
+
+/**
+ * Computes maximum flows through weighted graphs whose weights are capacities, with their minimum cut.
+ * - Push-relabel : nodes hold excess flow and push it downhill to their neighbors, the highest active node first,
+ * labels estimating the distance to the sink. Labels are computed again by a backward breadth-first search once
+ * enough work was done (global relabeling), and nodes above an empty label are given up at once, as they can't
+ * reach the sink anymore (gap heuristic). The excess left is then sent back to the source the same way.
+ * - Dinic : flow is pushed along shortest paths only, a blocking flow per breadth-first level graph.
+ * In a non-directed graph, a link carries flow either way up to its capacity
+ * @author CreeperStone72
+ */
+public class MaximumFlow {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Work charged to a relabel on top of the arcs it scans
+     */
+    private static final int RELABEL_WORK = 12;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Work allowed between two global relabelings, per arc, on top of 6 per node
+     */
+    private double globalRelabelFrequency;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public MaximumFlow() { setGlobalRelabelFrequency(0.5); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public MaximumFlow setGlobalRelabelFrequency(double globalRelabelFrequency) {
+        if(!(globalRelabelFrequency > 0.0)) throw new IllegalArgumentException("The global relabel frequency must be positive.");
+        this.globalRelabelFrequency = globalRelabelFrequency;
+        return this;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public double getGlobalRelabelFrequency() { return globalRelabelFrequency; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Computes a maximum flow with the highest-label push-relabel algorithm
+     * @param graph is the network, weights being capacities
+     * @param source is the data carried by the source
+     * @param sink is the data carried by the sink
+     * @param <T> is the type of data carried by the nodes
+     * @return the flow, with the minimum cut
+     * @throws NodeNotFoundException if the source or the sink isn't in the graph
+     * @throws IllegalArgumentException if the source is the sink, or a capacity is negative
+     */
+    public <T> Flow<T> pushRelabel(WeightedGraph<T> graph, T source, T sink) throws NodeNotFoundException {
+        AlgorithmEvent event = new AlgorithmEvent("pushRelabel", graph.order(), graph.size());
+        ResidualNetwork<T> network = ResidualNetwork.of(graph, source, sink);
+        PushRelabel solver = new PushRelabel(network, globalRelabelFrequency);
+
+        // Step 1 : Sending as much as possible to the sink
+        solver.saturateSource();
+        solver.run(network.sink, network.source);
+        double value = solver.excess[network.sink];
+
+        // Step 2 : Sending what couldn't get there back to the source
+        solver.run(network.source, network.sink);
+
+        event.finish(solver.relabels, solver.pushes);
+        return network.flow(value);
+    }
+
+    /**
+     * Computes a maximum flow with Dinic's algorithm
+     * @param graph is the network, weights being capacities
+     * @param source is the data carried by the source
+     * @param sink is the data carried by the sink
+     * @param <T> is the type of data carried by the nodes
+     * @return the flow, with the minimum cut
+     * @throws NodeNotFoundException if the source or the sink isn't in the graph
+     * @throws IllegalArgumentException if the source is the sink, or a capacity is negative
+     */
+    public <T> Flow<T> dinic(WeightedGraph<T> graph, T source, T sink) throws NodeNotFoundException {
+        AlgorithmEvent event = new AlgorithmEvent("dinic", graph.order(), graph.size());
+        ResidualNetwork<T> network = ResidualNetwork.of(graph, source, sink);
+        int order = network.order, s = network.source, t = network.sink;
+        int[] first = network.first, heads = network.heads, mates = network.mates;
+        double[] residuals = network.residuals;
+
+        int[] levels = new int[order], queue = new int[order], current = new int[order];
+        int[] path = new int[order];
+        double value = 0.0;
+        long phases = 0, augmentations = 0;
+
+        while(true) {
+            // Step 1 : Levelling the nodes by distance from the source
+            Arrays.fill(levels, -1);
+            levels[s] = 0;
+            queue[0] = s;
+
+            for(int head = 0, tail = 1 ; head < tail && levels[t] == -1 ; head++) {
+                int x = queue[head];
+
+                for(int a = first[x] ; a < first[x + 1] ; a++) {
+                    int y = heads[a];
+
+                    if(residuals[a] > 0.0 && levels[y] == -1) {
+                        levels[y] = levels[x] + 1;
+                        queue[tail++] = y;
+                    }
+                }
+            }
+
+            if(levels[t] == -1) break;
+            phases++;
+
+            // Step 2 : Saturating paths that go one level down at each arc, until none is left (blocking flow)
+            System.arraycopy(first, 0, current, 0, order);
+            int depth = 0, x = s;
+
+            while(true) {
+                if(x == t) {
+                    double bottleneck = Double.POSITIVE_INFINITY;
+                    for(int i = 0 ; i < depth ; i++) { bottleneck = Math.min(bottleneck, residuals[path[i]]); }
+
+                    int retreat = depth;
+                    for(int i = depth - 1 ; i >= 0 ; i--) {
+                        residuals[path[i]] -= bottleneck;
+                        residuals[mates[path[i]]] += bottleneck;
+                        if(residuals[path[i]] == 0.0) retreat = i;
+                    }
+
+                    value += bottleneck;
+                    augmentations++;
+
+                    // Starting again from the tail of the first saturated arc
+                    depth = retreat;
+                    x = (depth == 0) ? s : heads[path[depth - 1]];
+                    continue;
+                }
+
+                int a = current[x];
+                while(a < first[x + 1] && !(residuals[a] > 0.0 && levels[heads[a]] == levels[x] + 1)) a++;
+                current[x] = a;
+
+                if(a < first[x + 1]) {
+                    path[depth++] = a;
+                    x = heads[a];
+                } else {
+                    // Dead end : the node is left out of this level graph
+                    if(x == s) break;
+
+                    levels[x] = -1;
+                    int back = path[--depth];
+                    x = heads[mates[back]];
+                    current[x]++;
+                }
+            }
+        }
+
+        event.finish(phases, augmentations);
+        return network.flow(value);
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Push-relabel ////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * State of the push-relabel algorithm. Nodes are kept in lists by label, every node with a label below the
+     * number of nodes in one list, and active nodes (holding excess) in another
+     */
+    private static final class PushRelabel {
+        private final int order, source;
+
+        private final int[] first, heads, mates;
+
+        private final double[] residuals;
+
+        private final double[] excess;
+
+        private final int[] labels, current;
+
+        /**
+         * Active nodes by label, as stacks
+         */
+        private final int[] activeFirst, activeNext;
+
+        /**
+         * Nodes by label, as doubly linked lists
+         */
+        private final int[] allFirst, allNext, allPrevious;
+
+        private final int[] queue;
+
+        private final double workLimit;
+
+        private int highestActive, highestLabel;
+
+        private double work;
+
+        private long pushes, relabels;
+
+        private PushRelabel(ResidualNetwork<?> network, double frequency) {
+            this.order = network.order;
+            this.source = network.source;
+            this.first = network.first;
+            this.heads = network.heads;
+            this.mates = network.mates;
+            this.residuals = network.residuals;
+            this.excess = new double[order];
+            this.labels = new int[order];
+            this.current = new int[order];
+            this.activeFirst = new int[order + 1];
+            this.activeNext = new int[order];
+            this.allFirst = new int[order + 1];
+            this.allNext = new int[order];
+            this.allPrevious = new int[order];
+            this.queue = new int[order];
+            this.workLimit = 6.0 * order + frequency * network.arcs();
+        }
+
+        /**
+         * Fills every arc leaving the source
+         */
+        private void saturateSource() {
+            for(int a = first[source] ; a < first[source + 1] ; a++) {
+                double delta = residuals[a];
+                if(delta <= 0.0) continue;
+
+                residuals[a] = 0.0;
+                residuals[mates[a]] += delta;
+                excess[source] -= delta;
+                excess[heads[a]] += delta;
+                pushes++;
+            }
+        }
+
+        /**
+         * Discharges every node holding excess, highest label first, towards a target
+         * @param target is the node flow goes to
+         * @param excluded is the node that never gets flow nor pushes it
+         */
+        private void run(int target, int excluded) {
+            globalRelabel(target, excluded);
+
+            while(true) {
+                while(highestActive >= 0 && activeFirst[highestActive] == -1) highestActive--;
+                if(highestActive < 0) return;
+
+                int x = activeFirst[highestActive];
+                activeFirst[highestActive] = activeNext[x];
+                discharge(x, target);
+
+                if(work > workLimit) globalRelabel(target, excluded);
+            }
+        }
+
+        private void discharge(int x, int target) {
+            while(true) {
+                int label = labels[x], end = first[x + 1], a = current[x];
+
+                for( ; a < end ; a++) {
+                    if(residuals[a] <= 0.0) continue;
+
+                    int y = heads[a];
+                    if(labels[y] != label - 1) continue;
+
+                    double delta = Math.min(excess[x], residuals[a]);
+                    residuals[a] -= delta;
+                    residuals[mates[a]] += delta;
+                    excess[x] -= delta;
+                    pushes++;
+
+                    if(excess[y] == 0.0 && y != target) activate(y);
+                    excess[y] += delta;
+
+                    if(excess[x] == 0.0) break;
+                }
+
+                if(a < end) {
+                    current[x] = a;
+                    return;
+                }
+
+                relabel(x);
+                if(labels[x] >= order) return;
+            }
+        }
+
+        /**
+         * Lifts a node just above its lowest neighbor it can still push to. If it was the last node with its label,
+         * it and every node above can't reach the target anymore and are given up
+         */
+        private void relabel(int x) {
+            int old = labels[x];
+            relabels++;
+            removeLabelled(x);
+
+            if(allFirst[old] == -1) {
+                for(int label = old + 1 ; label <= highestLabel ; label++) {
+                    for(int y = allFirst[label] ; y != -1 ; y = allNext[y]) { labels[y] = order; }
+                    allFirst[label] = -1;
+                    activeFirst[label] = -1;
+                }
+
+                labels[x] = order;
+                highestLabel = old - 1;
+                return;
+            }
+
+            int label = order, arc = first[x];
+            for(int a = first[x] ; a < first[x + 1] ; a++) {
+                if(residuals[a] > 0.0 && labels[heads[a]] + 1 < label) {
+                    label = labels[heads[a]] + 1;
+                    arc = a;
+                }
+            }
+
+            work += RELABEL_WORK + (first[x + 1] - first[x]);
+            labels[x] = label;
+            current[x] = arc;
+
+            if(label < order) {
+                addLabelled(x);
+                highestLabel = Math.max(highestLabel, label);
+            }
+        }
+
+        /**
+         * Sets every label to the distance to the target through arcs with capacity left, by a backward breadth-first
+         * search. Nodes that can't reach it get a label past every other
+         */
+        private void globalRelabel(int target, int excluded) {
+            Arrays.fill(labels, order);
+            Arrays.fill(activeFirst, -1);
+            Arrays.fill(allFirst, -1);
+            highestActive = highestLabel = 0;
+            work = 0.0;
+
+            labels[target] = 0;
+            queue[0] = target;
+
+            for(int head = 0, tail = 1 ; head < tail ; head++) {
+                int y = queue[head];
+
+                for(int a = first[y] ; a < first[y + 1] ; a++) {
+                    int x = heads[a];
+
+                    if(x != excluded && labels[x] == order && residuals[mates[a]] > 0.0) {
+                        labels[x] = labels[y] + 1;
+                        queue[tail++] = x;
+                    }
+                }
+            }
+
+            for(int x = 0 ; x < order ; x++) {
+                current[x] = first[x];
+                if(x == target || labels[x] >= order) continue;
+
+                addLabelled(x);
+                highestLabel = Math.max(highestLabel, labels[x]);
+                if(excess[x] > 0.0 && x != excluded) activate(x);
+            }
+        }
+
+        private void activate(int x) {
+            int label = labels[x];
+            if(label >= order) return;
+
+            activeNext[x] = activeFirst[label];
+            activeFirst[label] = x;
+            highestActive = Math.max(highestActive, label);
+        }
+
+        private void addLabelled(int x) {
+            int label = labels[x];
+
+            allPrevious[x] = -1;
+            allNext[x] = allFirst[label];
+            if(allFirst[label] != -1) allPrevious[allFirst[label]] = x;
+            allFirst[label] = x;
+        }
+
+        private void removeLabelled(int x) {
+            if(allPrevious[x] != -1) allNext[allPrevious[x]] = allNext[x];
+            else allFirst[labels[x]] = allNext[x];
+            if(allNext[x] != -1) allPrevious[allNext[x]] = allPrevious[x];
+        }
+    }
+}
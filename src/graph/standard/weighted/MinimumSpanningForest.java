@@ -0,0 +1,375 @@
+package graph.standard.weighted;
+
+import graph.metrics.AlgorithmEvent;
+import graph.standard.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Computes minimum spanning forests of weighted graphs, in parallel.
+ * - Kruskal : links are sorted by weight with a parallel merge sort, then added in that order unless they close
+ * a cycle, which a union-find tells.
+ * - Boruvka : in rounds, every component picks its lightest outgoing link in parallel, the picked links join
+ * components together, and links left inside a component are dropped before the next round.
+ * Directions are ignored, loops never belong to a forest, and ties between equal weights are broken by the
+ * position of the links in the graph, so both algorithms give the same forest.
+ * Work runs in a ForkJoinPool sized by the parallelism
+ * @author CreeperStone72
+ */
+public class MinimumSpanningForest {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constants //////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Below this many links, a range is sorted by a single thread
+     */
+    private static final int SORT_THRESHOLD = 1 << 13;
+
+    /**
+     * Below this many links, insertion sort beats merging
+     */
+    private static final int INSERTION_THRESHOLD = 32;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private int parallelism;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public MinimumSpanningForest() { setParallelism(Runtime.getRuntime().availableProcessors()); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public MinimumSpanningForest setParallelism(int parallelism) {
+        if(parallelism <= 0) throw new IllegalArgumentException("Parallelism must be positive.");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public int getParallelism() { return parallelism; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Computes a minimum spanning forest with Kruskal's algorithm
+     * @param graph is the spanned graph
+     * @param <T> is the type of data carried by the nodes
+     * @return the forest, spanning every node of the graph
+     */
+    public <T> SpanningForest<T> kruskal(WeightedGraph<T> graph) {
+        AlgorithmEvent event = new AlgorithmEvent("kruskal", graph.order(), graph.size());
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try {
+            return pool.submit(() -> {
+                Links<T> links = Links.of(graph);
+
+                // Step 1 : Sorting the links by weight, then by position
+                int[] sorted = IntStream.range(0, links.count).parallel().filter(e -> links.xs[e] != links.ys[e]).toArray();
+                new MergeSort(links.weights, sorted, new int[sorted.length], 0, sorted.length).invoke();
+
+                // Step 2 : Taking every link that joins two trees
+                int[] parents = new int[links.order], sizes = new int[links.order];
+                int[] picked = new int[Math.max(0, links.order - 1)];
+                int count = 0;
+
+                for(int x = 0 ; x < links.order ; x++) {
+                    parents[x] = x;
+                    sizes[x] = 1;
+                }
+
+                for(int e : sorted) {
+                    if(count == picked.length) break;
+
+                    int x = find(parents, links.xs[e]), y = find(parents, links.ys[e]);
+                    if(x == y) continue;
+
+                    if(sizes[x] < sizes[y]) { int swap = x; x = y; y = swap; }
+                    parents[y] = x;
+                    sizes[x] += sizes[y];
+                    picked[count++] = e;
+                }
+
+                event.finish(links.order, sorted.length);
+                return links.forest(Arrays.copyOf(picked, count));
+            }).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Computes a minimum spanning forest with Boruvka's algorithm
+     * @param graph is the spanned graph
+     * @param <T> is the type of data carried by the nodes
+     * @return the forest, spanning every node of the graph
+     */
+    public <T> SpanningForest<T> boruvka(WeightedGraph<T> graph) {
+        AlgorithmEvent event = new AlgorithmEvent("boruvka", graph.order(), graph.size());
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try {
+            return pool.submit(() -> {
+                Links<T> links = Links.of(graph);
+                int order = links.order;
+                double[] weights = links.weights;
+
+                // Component of every node, named after one of its nodes
+                int[] labels = IntStream.range(0, order).toArray();
+                int[] parents = new int[order];
+                AtomicIntegerArray best = new AtomicIntegerArray(order);
+                List<int[]> rounds = new ArrayList<>();
+                long relaxed = 0;
+
+                int[] active = IntStream.range(0, links.count).parallel().filter(e -> links.xs[e] != links.ys[e]).toArray();
+
+                while(active.length > 0) {
+                    final int[] edges = active;
+                    relaxed += edges.length;
+
+                    // Step 1 : Every component picks its lightest outgoing link
+                    IntStream.range(0, order).parallel().forEach(c -> best.set(c, -1));
+                    IntStream.range(0, edges.length).parallel().forEach(i -> {
+                        int e = edges[i];
+                        propose(best, weights, labels[links.xs[e]], e);
+                        propose(best, weights, labels[links.ys[e]], e);
+                    });
+
+                    // Step 2 : Hooking every component to the one across its link. Two components picking each
+                    // other picked the same link, and the one with the smallest name stays a root
+                    int[] roots = IntStream.range(0, order).parallel().filter(c -> labels[c] == c && best.get(c) != -1).toArray();
+
+                    for(int c = 0 ; c < order ; c++) { parents[c] = c; }
+                    Arrays.stream(roots).parallel().forEach(c -> parents[c] = across(links, labels, best.get(c), c));
+                    Arrays.stream(roots).parallel().forEach(c -> { if(parents[parents[c]] == c && c < parents[c]) parents[c] = c; });
+
+                    // A link picked from both sides is kept once
+                    rounds.add(Arrays.stream(roots).parallel().filter(c -> {
+                        int e = best.get(c), other = across(links, labels, e, c);
+                        return best.get(other) != e || c < other;
+                    }).map(best::get).toArray());
+
+                    // Step 3 : Contracting the components, by pointer jumping to their roots
+                    boolean jumped = true;
+                    while(jumped) {
+                        jumped = Arrays.stream(roots).parallel().map(c -> {
+                            int next = parents[parents[c]];
+                            if(next == parents[c]) return 0;
+                            parents[c] = next;
+                            return 1;
+                        }).sum() > 0;
+                    }
+
+                    IntStream.range(0, order).parallel().forEach(x -> labels[x] = parents[labels[x]]);
+
+                    // Step 4 : Dropping the links now inside a component
+                    active = Arrays.stream(edges).parallel().filter(e -> labels[links.xs[e]] != labels[links.ys[e]]).toArray();
+                }
+
+                event.finish(order, relaxed);
+                return links.forest(rounds.stream().flatMapToInt(Arrays::stream).toArray());
+            }).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Boruvka methods /////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Offers a link to a component, which keeps it if it's lighter than the one it has
+     */
+    private static void propose(AtomicIntegerArray best, double[] weights, int component, int e) {
+        while(true) {
+            int current = best.get(component);
+            if(current != -1 && !lighter(weights, e, current)) return;
+            if(best.compareAndSet(component, current, e)) return;
+        }
+    }
+
+    /**
+     * Finds the component at the other end of a link
+     */
+    private static int across(Links<?> links, int[] labels, int e, int component) {
+        int x = labels[links.xs[e]];
+        return (x == component) ? labels[links.ys[e]] : x;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Shared methods //////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Compares links by weight, then by position, so no two links weigh the same
+     */
+    private static boolean lighter(double[] weights, int a, int b) { return weights[a] < weights[b] || (weights[a] == weights[b] && a < b); }
+
+    /**
+     * Finds the root of a tree of the union-find, halving the path on the way
+     */
+    private static int find(int[] parents, int x) {
+        while(parents[x] != x) {
+            parents[x] = parents[parents[x]];
+            x = parents[x];
+        }
+
+        return x;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Inner types /////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Links of a graph as arrays, nodes being numbered in the order of getNodes()
+     */
+    private static final class Links<T> {
+        private final WeightedGraph<T> graph;
+
+        private final int order, count;
+
+        private final int[] xs, ys;
+
+        private final double[] weights;
+
+        private Links(WeightedGraph<T> graph, int order, int[] xs, int[] ys, double[] weights) {
+            this.graph = graph;
+            this.order = order;
+            this.count = xs.length;
+            this.xs = xs;
+            this.ys = ys;
+            this.weights = weights;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Links<T> of(WeightedGraph<T> graph) {
+            Map<T, Integer> ids = new HashMap<>();
+            for(Node<T> node : graph.getNodes()) { ids.putIfAbsent(node.getData(), ids.size()); }
+
+            List<WeightedLink> links = graph.getLinks();
+            int[] xs = new int[links.size()], ys = new int[links.size()];
+            double[] weights = new double[links.size()];
+
+            // Lookups only read the map, so links are numbered in parallel
+            IntStream.range(0, links.size()).parallel().forEach(e -> {
+                WeightedLink link = links.get(e);
+                xs[e] = ids.get((T) link.getX().getData());
+                ys[e] = ids.get((T) link.getY().getData());
+                weights[e] = link.getWeight();
+            });
+
+            return new Links<>(graph, ids.size(), xs, ys, weights);
+        }
+
+        /**
+         * Builds the forest made of some of the links
+         * @param picked are the positions of the links kept
+         */
+        private SpanningForest<T> forest(int[] picked) {
+            WeightedGraph<T> forest = new WeightedGraph<>();
+            List<Node<T>> nodes = new ArrayList<>(order);
+            List<WeightedLink> links = new ArrayList<>(picked.length);
+            Map<T, Boolean> seen = new HashMap<>();
+            double total = 0.0;
+
+            forest.setDirected(false);
+
+            for(Node<T> node : graph.getNodes()) {
+                if(seen.put(node.getData(), Boolean.TRUE) != null) continue;
+
+                Node<T> copy = new Node<>(node.getData());
+                forest.getNodes().add(copy);
+                nodes.add(copy);
+            }
+
+            Arrays.sort(picked);
+            for(int e : picked) {
+                links.add(new WeightedLink(nodes.get(xs[e]), nodes.get(ys[e]), weights[e]));
+                total += weights[e];
+            }
+
+            forest.linkAll(links);
+            return new SpanningForest<>(forest, total);
+        }
+    }
+
+    /**
+     * Sorts positions of links by weight, then by position : halves are sorted in parallel, then merged
+     */
+    private static final class MergeSort extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] weights;
+
+        private final int[] values, buffer;
+
+        private final int from, to;
+
+        private MergeSort(double[] weights, int[] values, int[] buffer, int from, int to) {
+            this.weights = weights;
+            this.values = values;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= SORT_THRESHOLD) {
+                sort(from, to);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new MergeSort(weights, values, buffer, from, middle), new MergeSort(weights, values, buffer, middle, to));
+            merge(from, middle, to);
+        }
+
+        private void sort(int from, int to) {
+            if(to - from <= INSERTION_THRESHOLD) {
+                for(int i = from + 1 ; i < to ; i++) {
+                    int value = values[i], j = i - 1;
+
+                    while(j >= from && lighter(weights, value, values[j])) {
+                        values[j + 1] = values[j];
+                        j--;
+                    }
+
+                    values[j + 1] = value;
+                }
+
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            sort(from, middle);
+            sort(middle, to);
+            merge(from, middle, to);
+        }
+
+        private void merge(int from, int middle, int to) {
+            if(!lighter(weights, values[middle], values[middle - 1])) return;
+
+            System.arraycopy(values, from, buffer, from, to - from);
+            int i = from, j = middle, k = from;
+
+            while(i < middle && j < to) { values[k++] = lighter(weights, buffer[j], buffer[i]) ? buffer[j++] : buffer[i++]; }
+            while(i < middle) { values[k++] = buffer[i++]; }
+            while(j < to) { values[k++] = buffer[j++]; }
+        }
+    }
+}
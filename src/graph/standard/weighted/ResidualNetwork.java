@@ -0,0 +1,172 @@
+package graph.standard.weighted;
+
+import graph.exception.NodeNotFoundException;
+import graph.standard.Node;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Residual network of a weighted graph whose weights are capacities, as int-indexed arrays.
+ * Every link becomes a pair of arcs, each one the mate of the other : the forward arc starts with the link's
+ * capacity, the backward one with nothing in a directed graph and the capacity too in a non-directed one.
+ * Arcs are grouped by the node they leave, like the rows of an adjacency
+ * @param <T> is the type of data carried by the nodes
+ * @author CreeperStone72
+ */
+final class ResidualNetwork<T> {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    final WeightedGraph<T> graph;
+
+    /**
+     * Nodes by id, nodes carrying the same data sharing the first one's id
+     */
+    final List<Node<T>> nodes;
+
+    final Map<T, Integer> ids;
+
+    /**
+     * Links of the graph when the network was built
+     */
+    final List<WeightedLink> links;
+
+    final int order, source, sink;
+
+    /**
+     * order + 1 ints, the arcs leaving node i are stored between first[i] and first[i + 1]
+     */
+    final int[] first;
+
+    final int[] heads, mates;
+
+    final double[] residuals;
+
+    /**
+     * Forward arc of every link, -1 for loops
+     */
+    final int[] forward;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @SuppressWarnings("unchecked")
+    private ResidualNetwork(WeightedGraph<T> graph, T source, T sink) throws NodeNotFoundException {
+        this.graph = graph;
+        this.nodes = new ArrayList<>();
+        this.ids = new HashMap<>();
+
+        for(Node<T> node : graph.getNodes()) { if(ids.putIfAbsent(node.getData(), nodes.size()) == null) nodes.add(node); }
+
+        Integer s = ids.get(source), t = ids.get(sink);
+        if(s == null || t == null) throw new NodeNotFoundException();
+        if(s.equals(t)) throw new IllegalArgumentException("The source and the sink must be different nodes.");
+
+        this.order = nodes.size();
+        this.source = s;
+        this.sink = t;
+
+        this.links = new ArrayList<>(graph.getLinks());
+        int[] xs = new int[links.size()], ys = new int[links.size()];
+        int[] degrees = new int[order + 1];
+        int arcs = 0;
+
+        // Step 1 : Counting the arcs leaving every node
+        for(int e = 0 ; e < links.size() ; e++) {
+            WeightedLink link = links.get(e);
+            if(!(link.getWeight() >= 0.0)) throw new IllegalArgumentException("Capacities must be positive.");
+
+            xs[e] = ids.get((T) link.getX().getData());
+            ys[e] = ids.get((T) link.getY().getData());
+            if(xs[e] == ys[e]) continue;
+
+            degrees[xs[e] + 1]++;
+            degrees[ys[e] + 1]++;
+            arcs += 2;
+        }
+
+        for(int x = 0 ; x < order ; x++) { degrees[x + 1] += degrees[x]; }
+
+        // Step 2 : Placing both arcs of every link
+        this.first = degrees.clone();
+        this.heads = new int[arcs];
+        this.mates = new int[arcs];
+        this.residuals = new double[arcs];
+        this.forward = new int[links.size()];
+
+        for(int e = 0 ; e < links.size() ; e++) {
+            if(xs[e] == ys[e]) {
+                forward[e] = -1;
+                continue;
+            }
+
+            int a = degrees[xs[e]]++, b = degrees[ys[e]]++;
+            double capacity = links.get(e).getWeight();
+
+            heads[a] = ys[e];
+            heads[b] = xs[e];
+            mates[a] = b;
+            mates[b] = a;
+            residuals[a] = capacity;
+            residuals[b] = graph.isDirected() ? 0.0 : capacity;
+            forward[e] = a;
+        }
+    }
+
+    /**
+     * Builds the residual network of a graph, before any flow
+     * @param graph is the network, weights being capacities
+     * @param source is the data carried by the source
+     * @param sink is the data carried by the sink
+     * @param <T> is the type of data carried by the nodes
+     * @return the residual network
+     * @throws NodeNotFoundException if the source or the sink isn't in the graph
+     * @throws IllegalArgumentException if the source is the sink, or a capacity is negative
+     */
+    static <T> ResidualNetwork<T> of(WeightedGraph<T> graph, T source, T sink) throws NodeNotFoundException { return new ResidualNetwork<>(graph, source, sink); }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Counts the arcs
+     */
+    int arcs() { return heads.length; }
+
+    /**
+     * Reads the flow off the residual capacities, and the minimum cut off the nodes the source still reaches
+     * @param value is the value of the flow
+     * @return the flow
+     */
+    Flow<T> flow(double value) {
+        double[] flows = new double[links.size()];
+
+        for(int e = 0 ; e < links.size() ; e++) { if(forward[e] != -1) flows[e] = links.get(e).getWeight() - residuals[forward[e]]; }
+
+        // Nodes the source reaches through arcs left with some capacity
+        boolean[] sourceSide = new boolean[order];
+        int[] queue = new int[order];
+        int head = 0, tail = 0;
+
+        sourceSide[source] = true;
+        queue[tail++] = source;
+
+        while(head < tail) {
+            int x = queue[head++];
+
+            for(int a = first[x] ; a < first[x + 1] ; a++) {
+                int y = heads[a];
+
+                if(residuals[a] > 0.0 && !sourceSide[y]) {
+                    sourceSide[y] = true;
+                    queue[tail++] = y;
+                }
+            }
+        }
+
+        return new Flow<>(this, value, flows, sourceSide);
+    }
+}
@@ -0,0 +1,266 @@
+package graph.standard.weighted;
+
+import graph.metrics.AlgorithmEvent;
+import graph.standard.Node;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Dijkstra's algorithm run lazily : nodes are settled one at a time as they are asked for, closest first, each with
+ * its cost and the node it is reached from. The source comes first, at cost 0.
+ * Two cutoffs end the search early : a radius past which nodes aren't settled, and a number of nodes to settle at
+ * most. Labels are only kept for the nodes the search reached and links are read from the graph's link index, so a
+ * search stopped early costs the region it explored and not the size of the graph.
+ * Searches are made by WeightedGraph.search() and expect weights that aren't negative. The graph shouldn't change
+ * while a search is running
+ * @param <T> is the type of data carried by the nodes
+ * @author CreeperStone72
+ */
+public class ShortestPathSearch<T> implements Iterator<Map.Entry<Node<T>, Cost>> {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final LinkIndex<T> index;
+
+    private final AlgorithmEvent event;
+
+    /**
+     * Labels of the reached nodes, by id
+     */
+    private final Map<Integer, Label> labels = new HashMap<>();
+
+    /**
+     * Nodes past this cost aren't settled
+     */
+    private double radius = Double.POSITIVE_INFINITY;
+
+    /**
+     * Number of nodes settled at most, the source included
+     */
+    private long limit = Long.MAX_VALUE;
+
+    /**
+     * Next settled node, found ahead by hasNext()
+     */
+    private Map.Entry<Node<T>, Cost> next;
+
+    private boolean finished;
+
+    private long settled, relaxed;
+
+    //// Heap ////////////////////////////////////////////////////////////
+    /**
+     * Binary min-heap of node ids by cost. Nodes are pushed again when their cost drops, and outdated entries are
+     * skipped when popped
+     */
+    private int[] heapNodes = new int[16];
+
+    private double[] heapKeys = new double[16];
+
+    private int heapSize;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor, nothing is settled until asked for
+     * @param graph is the searched graph
+     * @param index is the graph's link index
+     * @param source is the id of the source
+     */
+    ShortestPathSearch(WeightedGraph<T> graph, LinkIndex<T> index, int source) {
+        this.index = index;
+        this.event = new AlgorithmEvent("dijkstraSearch", graph.order(), graph.size());
+
+        labels.put(source, new Label(0.0, -1));
+        push(source, 0.0);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Stops the search at the nodes further than a cost
+     * @param radius is the largest cost settled, nodes at exactly that cost included
+     * @return the search
+     */
+    public ShortestPathSearch<T> withinRadius(double radius) {
+        if(!(radius >= 0.0)) throw new IllegalArgumentException("The radius must be positive.");
+        this.radius = radius;
+        return this;
+    }
+
+    /**
+     * Stops the search once it settled a number of nodes
+     * @param k is the number of nodes settled at most, the source included
+     * @return the search
+     */
+    public ShortestPathSearch<T> nearest(int k) {
+        if(k < 0) throw new IllegalArgumentException("The number of nodes must be positive.");
+        this.limit = k;
+        return this;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public double getRadius() { return radius; }
+
+    /**
+     * Counts the nodes settled so far
+     */
+    public long getSettled() { return settled; }
+
+    /**
+     * Counts the links followed so far
+     */
+    public long getRelaxed() { return relaxed; }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Override
+    public boolean hasNext() {
+        if(next == null && !finished) next = settle();
+        return next != null;
+    }
+
+    /**
+     * Settles the next closest node
+     * @return the node, with its cost and the node it is reached from
+     * @throws NoSuchElementException if the search is over
+     * @throws IllegalArgumentException if a link with a negative weight is followed
+     */
+    @Override
+    public Map.Entry<Node<T>, Cost> next() {
+        if(!hasNext()) throw new NoSuchElementException();
+
+        Map.Entry<Node<T>, Cost> result = next;
+        next = null;
+        return result;
+    }
+
+    /**
+     * Settles the nodes lazily, closest first
+     * @return the nodes, with their costs
+     */
+    public Stream<Map.Entry<Node<T>, Cost>> stream() { return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false); }
+
+    /**
+     * Pops nodes until one isn't settled yet, then settles it and relaxes its links
+     * @return the settled node, null once the heap is empty or a cutoff is reached
+     */
+    private Map.Entry<Node<T>, Cost> settle() {
+        while(settled < limit && heapSize > 0) {
+            int x = heapNodes[0];
+            double cost = heapKeys[0];
+            pop();
+
+            Label label = labels.get(x);
+            if(label.settled || cost > label.cost) continue;
+            if(cost > radius) break;
+
+            label.settled = true;
+            settled++;
+
+            for(WeightedLink link : index.outgoing(x)) {
+                if(link.getWeight() < 0.0) throw new IllegalArgumentException("Weights must be positive.");
+
+                int y = index.other(link, x);
+                double candidate = cost + link.getWeight();
+                Label other = labels.get(y);
+                relaxed++;
+
+                if(other == null) {
+                    labels.put(y, new Label(candidate, x));
+                    push(y, candidate);
+                } else if(!other.settled && candidate < other.cost) {
+                    other.cost = candidate;
+                    other.origin = x;
+                    push(y, candidate);
+                }
+            }
+
+            Node<?> origin = (label.origin == -1) ? null : index.node(label.origin);
+            return new AbstractMap.SimpleImmutableEntry<>(index.node(x), new Cost(cost, origin));
+        }
+
+        // A cutoff or the end of the graph : the search is over
+        finished = true;
+        heapSize = 0;
+        event.finish(settled, relaxed);
+        return null;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Heap methods ////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    private void push(int node, double key) {
+        if(heapSize == heapNodes.length) {
+            heapNodes = Arrays.copyOf(heapNodes, 2 * heapSize);
+            heapKeys = Arrays.copyOf(heapKeys, 2 * heapSize);
+        }
+
+        int i = heapSize++;
+
+        while(i > 0) {
+            int parent = (i - 1) >>> 1;
+            if(heapKeys[parent] <= key) break;
+
+            heapNodes[i] = heapNodes[parent];
+            heapKeys[i] = heapKeys[parent];
+            i = parent;
+        }
+
+        heapNodes[i] = node;
+        heapKeys[i] = key;
+    }
+
+    private void pop() {
+        int node = heapNodes[--heapSize];
+        double key = heapKeys[heapSize];
+        int i = 0;
+
+        while(true) {
+            int child = 2 * i + 1;
+            if(child >= heapSize) break;
+            if(child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) child++;
+            if(key <= heapKeys[child]) break;
+
+            heapNodes[i] = heapNodes[child];
+            heapKeys[i] = heapKeys[child];
+            i = child;
+        }
+
+        heapNodes[i] = node;
+        heapKeys[i] = key;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Inner types /////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Best known cost of a reached node, and the id of the node it is reached from
+     */
+    private static final class Label {
+        private double cost;
+
+        private int origin;
+
+        private boolean settled;
+
+        private Label(double cost, int origin) {
+            this.cost = cost;
+            this.origin = origin;
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package graph.standard.weighted;
+
+import graph.exception.NodeNotFoundException;
+import graph.metrics.AlgorithmEvent;
+import graph.standard.Node;
+import graph.standard.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shortest paths from a source, kept up to date while the graph changes (Ramalingam-Reps).
+ * A shorter link only spreads from its end as far as it improves costs, and a longer or removed link only
+ * reopens the nodes whose shortest path went through it, which are settled again from their other neighbors.
+ * Trees are made by WeightedGraph.track(), then repaired by the graph on every link change. Like dijkstra(),
+ * they expect weights that aren't negative
+ * @param <T> is the type of data carried by the nodes
+ * @author CreeperStone72
+ */
+public class ShortestPathTree<T> {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private final WeightedGraph<T> graph;
+
+    private LinkIndex<T> index;
+
+    private final T source;
+
+    /**
+     * Cost of the shortest path to every node, by id
+     */
+    private double[] distances;
+
+    /**
+     * Last link of the shortest path to every node, by id. The links make a tree rooted at the source
+     */
+    private WeightedLink[] via;
+
+    /**
+     * Marks the nodes reopened by the current repair
+     */
+    private int[] stamps;
+
+    private int stamp;
+
+    /**
+     * Number of nodes settled by repairs since the tree was made
+     */
+    private long settled;
+
+    //// Heap ////////////////////////////////////////////////////////////
+    /**
+     * Binary min-heap of node ids by cost. Nodes are pushed again when their cost drops, and outdated entries are
+     * skipped when popped
+     */
+    private int[] heapNodes;
+
+    private double[] heapKeys;
+
+    private int heapSize;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor, computes the tree from scratch
+     * @param graph is the graph the tree follows
+     * @param index is the graph's link index
+     * @param source is the data carried by the source
+     */
+    ShortestPathTree(WeightedGraph<T> graph, LinkIndex<T> index, T source) {
+        this.graph = graph;
+        this.source = source;
+        this.heapNodes = new int[16];
+        this.heapKeys = new double[16];
+
+        rebuild(index);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public T getSource() { return source; }
+
+    /**
+     * Counts the nodes settled again by repairs since the tree was made, which measures how much work they took
+     */
+    public long getSettled() { return settled; }
+
+    /**
+     * Gives the current cost of the shortest path to a node
+     * @param data is the data carried by the node
+     * @return the cost, infinity if the node can't be reached
+     * @throws NodeNotFoundException if the node isn't in the graph
+     */
+    public double getDistance(T data) throws NodeNotFoundException {
+        int id = index.id(graph.findNode(data).getData());
+        return (id < 0 || id >= distances.length) ? Double.POSITIVE_INFINITY : distances[id];
+    }
+
+    /**
+     * Gives the current cost of the shortest path to a node, with the node before it on that path
+     * @param data is the data carried by the node
+     * @return the cost, infinite with no origin if the node can't be reached
+     * @throws NodeNotFoundException if the node isn't in the graph
+     */
+    public Cost getCost(T data) throws NodeNotFoundException {
+        int id = index.id(graph.findNode(data).getData());
+        return cost(id);
+    }
+
+    /**
+     * Gives the current costs of every node, in the same form as dijkstra()
+     * @return a map that links every node to its cost and previous node in the chain
+     */
+    public Map<Node<T>, Cost> getCosts() {
+        Map<Node<T>, Cost> costs = new HashMap<>();
+        for(Node<T> node : graph.getNodes()) { costs.put(node, cost(index.id(node.getData()))); }
+        return costs;
+    }
+
+    /**
+     * Gives the current shortest path to a node
+     * @param data is the data carried by the node
+     * @return the path from the source to the node, empty if the node can't be reached
+     * @throws NodeNotFoundException if the node isn't in the graph
+     */
+    public Path<T> getPath(T data) throws NodeNotFoundException {
+        int id = index.id(graph.findNode(data).getData());
+        Path<T> path = new Path<>();
+        if(id < 0 || id >= distances.length || distances[id] == Double.POSITIVE_INFINITY) return path;
+
+        List<Node<T>> nodes = new ArrayList<>();
+        for(int x = id ; via[x] != null ; x = index.other(via[x], x)) { nodes.add(index.node(x)); }
+        nodes.add(index.node(index.id(source)));
+        Collections.reverse(nodes);
+
+        for(Node<T> node : nodes) { path.insert(node); }
+        return path;
+    }
+
+    private Cost cost(int id) {
+        if(id < 0 || id >= distances.length || distances[id] == Double.POSITIVE_INFINITY) return new Cost();
+        return new Cost(distances[id], (via[id] == null) ? null : index.node(index.other(via[id], id)));
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Methods ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    //// Repair methods //////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Computes the whole tree again, as dijkstra() would
+     * @param index is the graph's link index, which the graph builds again when it changes direction
+     */
+    void rebuild(LinkIndex<T> index) {
+        AlgorithmEvent event = new AlgorithmEvent("shortestPathTree", graph.order(), graph.size());
+        long before = settled;
+
+        this.index = index;
+        this.distances = new double[0];
+        this.via = new WeightedLink[0];
+        this.stamps = new int[0];
+        grow();
+
+        int root = index.id(source);
+        distances[root] = 0.0;
+        push(root, 0.0);
+        settle();
+
+        event.finish(settled - before, 0);
+        settled = before;
+    }
+
+    /**
+     * Repairs the tree after a link was added (decrease)
+     * @param link is the new link, already indexed
+     */
+    void linked(WeightedLink link) {
+        grow();
+
+        int x = index.start(link), y = index.end(link);
+        relax(link, x, y);
+        if(!graph.isDirected()) relax(link, y, x);
+        settle();
+    }
+
+    /**
+     * Repairs the tree after a link was removed (increase). Nothing changes unless it was part of the tree
+     * @param link is the removed link, already out of the index
+     */
+    void unlinked(WeightedLink link) {
+        grow();
+
+        int x = index.start(link), y = index.end(link);
+        if(via[y] == link) reopen(y);
+        if(via[x] == link) reopen(x);
+    }
+
+    /**
+     * Repairs the tree after a link's weight changed
+     * @param old is the link before the change, already out of the index
+     * @param link is the link after the change, already indexed
+     */
+    void reweighted(WeightedLink old, WeightedLink link) {
+        grow();
+
+        int x = index.start(link), y = index.end(link);
+        boolean increased = link.getWeight() > old.getWeight();
+
+        // The new link takes the old one's place in the tree
+        if(via[y] == old) via[y] = link;
+        if(via[x] == old) via[x] = link;
+
+        if(increased) {
+            if(via[y] == link) reopen(y);
+            if(via[x] == link) reopen(x);
+        } else {
+            // A shorter tree link brings the whole subtree below it closer
+            if(via[y] == link) {
+                distances[y] = distances[x] + link.getWeight();
+                push(y, distances[y]);
+            }
+
+            if(via[x] == link) {
+                distances[x] = distances[y] + link.getWeight();
+                push(x, distances[x]);
+            }
+
+            relax(link, x, y);
+            if(!graph.isDirected()) relax(link, y, x);
+            settle();
+        }
+    }
+
+    /**
+     * Reopens the subtree hanging from a node : every node whose shortest path goes through it loses its cost,
+     * then gets the best one offered by a neighbor outside the subtree, and Dijkstra settles them again from there
+     * @param root is the node whose path got longer or was cut
+     */
+    private void reopen(int root) {
+        int[] reopened = new int[] { root };
+        int size = 1;
+
+        // Step 1 : Gathering the subtree, children being the successors reached through their tree link
+        stamp++;
+        stamps[root] = stamp;
+
+        for(int i = 0 ; i < size ; i++) {
+            int x = reopened[i];
+
+            for(WeightedLink link : index.outgoing(x)) {
+                int y = index.other(link, x);
+                if(via[y] != link || stamps[y] == stamp) continue;
+
+                if(size == reopened.length) reopened = Arrays.copyOf(reopened, 2 * size);
+                reopened[size++] = y;
+                stamps[y] = stamp;
+            }
+        }
+
+        for(int i = 0 ; i < size ; i++) {
+            distances[reopened[i]] = Double.POSITIVE_INFINITY;
+            via[reopened[i]] = null;
+        }
+
+        // Step 2 : Taking the best cost offered from outside the subtree
+        for(int i = 0 ; i < size ; i++) {
+            int x = reopened[i];
+
+            for(WeightedLink link : index.incoming(x)) {
+                int y = index.other(link, x);
+                if(stamps[y] == stamp) continue;
+
+                double candidate = distances[y] + link.getWeight();
+                if(candidate < distances[x]) {
+                    distances[x] = candidate;
+                    via[x] = link;
+                }
+            }
+
+            if(distances[x] < Double.POSITIVE_INFINITY) push(x, distances[x]);
+        }
+
+        // Step 3 : Settling the subtree again
+        settle();
+    }
+
+    /**
+     * Offers a node the path going through one of its links
+     */
+    private void relax(WeightedLink link, int from, int to) {
+        double candidate = distances[from] + link.getWeight();
+
+        if(candidate < distances[to]) {
+            distances[to] = candidate;
+            via[to] = link;
+            push(to, candidate);
+        }
+    }
+
+    /**
+     * Runs Dijkstra from the nodes in the heap, until no cost improves
+     */
+    private void settle() {
+        while(heapSize > 0) {
+            int x = heapNodes[0];
+            double key = heapKeys[0];
+            pop();
+
+            if(key > distances[x]) continue;
+            settled++;
+
+            for(WeightedLink link : index.outgoing(x)) { relax(link, x, index.other(link, x)); }
+        }
+    }
+
+    /**
+     * Makes room for the nodes indexed since the last repair
+     */
+    private void grow() {
+        int order = index.order(), known = distances.length;
+        if(order == known) return;
+
+        distances = Arrays.copyOf(distances, order);
+        via = Arrays.copyOf(via, order);
+        stamps = Arrays.copyOf(stamps, order);
+        Arrays.fill(distances, known, order, Double.POSITIVE_INFINITY);
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Heap methods ////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    private void push(int node, double key) {
+        if(heapSize == heapNodes.length) {
+            heapNodes = Arrays.copyOf(heapNodes, 2 * heapSize);
+            heapKeys = Arrays.copyOf(heapKeys, 2 * heapSize);
+        }
+
+        int i = heapSize++;
+
+        while(i > 0) {
+            int parent = (i - 1) >>> 1;
+            if(heapKeys[parent] <= key) break;
+
+            heapNodes[i] = heapNodes[parent];
+            heapKeys[i] = heapKeys[parent];
+            i = parent;
+        }
+
+        heapNodes[i] = node;
+        heapKeys[i] = key;
+    }
+
+    private void pop() {
+        int node = heapNodes[--heapSize];
+        double key = heapKeys[heapSize];
+        int i = 0;
+
+        while(true) {
+            int child = 2 * i + 1;
+            if(child >= heapSize) break;
+            if(child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) child++;
+            if(key <= heapKeys[child]) break;
+
+            heapNodes[i] = heapNodes[child];
+            heapKeys[i] = heapKeys[child];
+            i = child;
+        }
+
+        heapNodes[i] = node;
+        heapKeys[i] = key;
+    }
+}
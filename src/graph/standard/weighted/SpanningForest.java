@@ -0,0 +1,48 @@
+package graph.standard.weighted;
+
+/**
+ * Minimum spanning forest of a weighted graph : a minimum spanning tree for each of its connected components
+ * @param <T> is the type of data carried by the nodes
+ * @author CreeperStone72
+ */
+public class SpanningForest<T> {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Non-directed graph holding every node of the original graph and the links of the trees
+     */
+    private final WeightedGraph<T> forest;
+
+    private final double totalWeight;
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructors ///////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Main constructor
+     * @param forest is the graph made of the trees
+     * @param totalWeight is the sum of the weights of its links
+     */
+    SpanningForest(WeightedGraph<T> forest, double totalWeight) {
+        this.forest = forest;
+        this.totalWeight = totalWeight;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Getters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    public WeightedGraph<T> getForest() { return forest; }
+
+    public double getTotalWeight() { return totalWeight; }
+
+    /**
+     * Counts the trees, which is the number of connected components of the original graph
+     */
+    public int getTrees() { return forest.order() - forest.size(); }
+
+    /**
+     * Checks whether the forest is a single tree, which happens when the original graph is connected
+     */
+    public boolean isTree() { return getTrees() <= 1; }
+}
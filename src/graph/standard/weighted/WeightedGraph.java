@@ -2,15 +2,19 @@ package graph.standard.weighted;
 
 import graph.exception.LinkNotFoundException;
 import graph.exception.NodeNotFoundException;
+import graph.metrics.AlgorithmEvent;
+import graph.metrics.GraphMetrics;
 import graph.standard.ArrayMethods;
 import graph.standard.Graph;
 import graph.standard.Node;
 import graph.standard.Path;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Models a graph with weighted links
@@ -18,9 +22,74 @@ import java.util.Map;
  * @author CreeperStone72
  */
 public class WeightedGraph<T> extends Graph<T, WeightedLink> {
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Attributes /////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Links by node, only kept while shortest path trees are tracked or once a search was made
+     */
+    private LinkIndex<T> index;
+
+    /**
+     * Was search() ever called ? Searches keep the link index for the next ones
+     */
+    private boolean searched;
+
+    /**
+     * Tracked shortest path trees, by source
+     */
+    private final Map<T, ShortestPathTree<T>> trees = new HashMap<>();
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // Setters ////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    @Override
+    public void setDirected(boolean directed) {
+        boolean changed = directed != isDirected();
+        super.setDirected(directed);
+
+        if(changed && index != null) {
+            index = LinkIndex.of(this);
+            for(ShortestPathTree<T> tree : trees.values()) { tree.rebuild(index); }
+        }
+    }
+
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Methods ////////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    //// Node CRUD methods ///////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Deletes a node from the graph and all of its attached links. The tree tracked from it, if any, is dropped
+     * @param data is the data carried by the node we want to delete
+     * @return true if the node was deleted
+     * @throws NodeNotFoundException if the node isn't in the graph
+     */
+    @Override
+    public boolean remove(T data) throws NodeNotFoundException {
+        if(!super.remove(data)) return false;
+
+        untrack(data);
+        return true;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Ego network methods /////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    @Override
+    public WeightedGraph<T> egoGraph(T data, int k) throws NodeNotFoundException { return (WeightedGraph<T>) super.egoGraph(data, k); }
+
+    @Override
+    protected WeightedGraph<T> emptyGraph() {
+        WeightedGraph<T> graph = new WeightedGraph<>();
+        graph.setDirected(isDirected());
+        return graph;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Link CRUD methods ///////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
     @Override
     public boolean link(T dataX, T dataY) throws NodeNotFoundException { return link(dataX, dataY, 1.0); }
 
@@ -37,9 +106,124 @@ public class WeightedGraph<T> extends Graph<T, WeightedLink> {
 
         if (!isDirected() && getLinks().contains(newLink.getSymmetrical())) return false;
         getLinks().add(newLink);
+        touch(newLink);
+        GraphMetrics.mutation(1);
+        if(index != null) linked(newLink);
+        return true;
+    }
+
+    @Override
+    public boolean linkAll(Collection<? extends WeightedLink> batch) {
+        boolean changed = super.linkAll(batch);
+
+        if(index != null) { for(WeightedLink link : batch) { linked(link); } }
+        return changed;
+    }
+
+    @Override
+    protected boolean unlink(WeightedLink link) {
+        if(!super.unlink(link)) return false;
+
+        if(index != null) {
+            index.unlink(link);
+            for(ShortestPathTree<T> tree : trees.values()) { tree.unlinked(link); }
+        }
+
+        return true;
+    }
+
+    /**
+     * Changes the weight of a link
+     * @param dataX is the data carried by the starting node
+     * @param dataY is the data carried by the ending node
+     * @param weight is the new weight of the link
+     * @throws NodeNotFoundException if either node isn't found
+     * @throws LinkNotFoundException if the link isn't found
+     */
+    public void reweight(T dataX, T dataY, double weight) throws NodeNotFoundException, LinkNotFoundException {
+        WeightedLink old = findLink(dataX, dataY);
+        WeightedLink newLink = new WeightedLink(old.getX(), old.getY(), weight);
+
+        getLinks().set(getLinks().indexOf(old), newLink);
+        touch(old);
+        GraphMetrics.mutation(1);
+
+        if(index != null) {
+            index.replace(old, newLink);
+            for(ShortestPathTree<T> tree : trees.values()) { tree.reweighted(old, newLink); }
+        }
+    }
+
+    private void linked(WeightedLink link) {
+        index.link(link);
+        for(ShortestPathTree<T> tree : trees.values()) { tree.linked(link); }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Shortest path methods ///////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Tracks the shortest paths from a node. The tree is computed once, then every link, unlink and reweight
+     * repairs the part of it the change touches, instead of running dijkstra() again
+     * @param source is the data carried by the source
+     * @return the tree, the same one if the source is already tracked
+     * @throws NodeNotFoundException if the source isn't in the graph
+     */
+    public ShortestPathTree<T> track(T source) throws NodeNotFoundException {
+        Node<T> node = findNode(source);
+        ShortestPathTree<T> tree = trees.get(source);
+        if(tree != null) return tree;
+
+        if(index == null) index = LinkIndex.of(this);
+        index.add(node);
+
+        tree = new ShortestPathTree<>(this, index, source);
+        trees.put(source, tree);
+        return tree;
+    }
+
+    /**
+     * Stops tracking the shortest paths from a node. The link index goes once no tree is left, unless searches use it
+     * @param source is the data carried by the source
+     * @return true if the source was tracked
+     */
+    public boolean untrack(T source) {
+        if(trees.remove(source) == null) return false;
+
+        if(trees.isEmpty() && !searched) index = null;
         return true;
     }
 
+    //////////////////////////////////////////////////////////////////////
+    //// Spanning forest methods /////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Computes a minimum spanning forest with Kruskal's algorithm, on every available processor
+     * @return the forest, with its total weight
+     */
+    public SpanningForest<T> kruskal() { return new MinimumSpanningForest().kruskal(this); }
+
+    /**
+     * Computes a minimum spanning forest with Boruvka's algorithm, on every available processor
+     * @return the forest, with its total weight
+     */
+    public SpanningForest<T> boruvka() { return new MinimumSpanningForest().boruvka(this); }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Flow methods ////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Computes a maximum flow with the push-relabel algorithm, weights being capacities
+     * @param source is the data carried by the source
+     * @param sink is the data carried by the sink
+     * @return the flow, with the minimum cut
+     * @throws NodeNotFoundException if the source or the sink isn't in the graph
+     */
+    public Flow<T> maxFlow(T source, T sink) throws NodeNotFoundException { return new MaximumFlow().pushRelabel(this, source, sink); }
+
+    //////////////////////////////////////////////////////////////////////
+    //// Path methods ////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////
     /**
      * Calculates the cost of a path
      * @param p is the path taken
@@ -72,6 +256,32 @@ public class WeightedGraph<T> extends Graph<T, WeightedLink> {
         catch(LinkNotFoundException | NodeNotFoundException e) { return true; }
     }
 
+    /**
+     * Draws the elementary paths between two nodes, cheapest first, with Yen's algorithm. Paths are only looked for
+     * as the stream is consumed, so the first k are found by taking k of them
+     * @param source is the data carried by the first node of the paths
+     * @param target is the data carried by the last node of the paths
+     * @return the paths, lazily and in order of cost
+     * @throws NodeNotFoundException if the source or the target doesn't exist
+     */
+    public Stream<Path<T>> shortestPaths(T source, T target) throws NodeNotFoundException { return new KShortestPaths<>(this, source, target).stream(); }
+
+    /**
+     * Settles the nodes closest to a source first, lazily. The link index is built by the first search and kept up
+     * to date afterwards, so a search cut by withinRadius() or nearest() only reads the region it settles
+     * @param source is the data carried by the source
+     * @return the search, nothing being settled until the first node is asked for
+     * @throws NodeNotFoundException if the source isn't in the graph
+     */
+    public ShortestPathSearch<T> search(T source) throws NodeNotFoundException {
+        Node<T> node = findNode(source);
+
+        if(index == null) index = LinkIndex.of(this);
+        searched = true;
+
+        return new ShortestPathSearch<>(this, index, index.add(node));
+    }
+
     /**
      * Uses the Dijkstra algorithm to figure out the shortest path to any node in the graph
      * @param start is the starting point
@@ -79,9 +289,11 @@ public class WeightedGraph<T> extends Graph<T, WeightedLink> {
      * @throws NodeNotFoundException if the starting point doesn't exist
      */
     public Map<Node<T>, Cost> dijkstra(T start) throws NodeNotFoundException {
+        AlgorithmEvent event = new AlgorithmEvent("dijkstra", order(), size());
         Node<T> origin = findNode(start);
         Map<Node<T>, Cost> costs = new HashMap<>();
         List<Node<T>> alreadyVisited = new ArrayList<>();
+        long relaxed = 0;
 
         // Step 1 : Initialization
         // Set every cost to infinity, except for the starting summit which is set to 0
@@ -102,12 +314,14 @@ public class WeightedGraph<T> extends Graph<T, WeightedLink> {
                 double cost = link.getWeight() + costs.get(reference).getCost();
 
                 costs.put(other, (cost < old) ? new Cost(cost, reference) : oldCost);
+                relaxed++;
             }
 
             // Step 4 : Repeat with the smallest costing summit that wasn't visited already
             alreadyVisited.add(reference);
         }
 
+        event.finish(alreadyVisited.size(), relaxed);
         return costs;
     }
 }